@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import com.drew.tools.FileUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Loads sample files from the library's test data and builds synthetic inputs for the benchmarks.
+ * <p>
+ * The test data directory defaults to <code>Tests/Data</code> relative to the working directory, and may be
+ * overridden via the <code>metadata-extractor.data</code> system property.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public final class BenchmarkData
+{
+    private static final String DATA_PROPERTY = "metadata-extractor.data";
+
+    /** Length of the "Exif\0\0" preamble at the start of an APP1 segment, before the TIFF data. */
+    private static final int EXIF_PREAMBLE_LENGTH = 6;
+
+    /** Maximum payload of a single JPEG segment, excluding its two length bytes. */
+    private static final int MAX_SEGMENT_PAYLOAD = 0xFFFF - 2;
+
+    private BenchmarkData()
+    {
+    }
+
+    public static byte[] read(String fileName) throws IOException
+    {
+        return FileUtil.readBytes(new File(getDataDirectory(), fileName));
+    }
+
+    /**
+     * Gets the bytes of a sample file for the named input, which is either a {@link com.drew.imaging.FileType}
+     * name with a sample in the test data, or one of the synthetic large inputs.
+     */
+    public static byte[] forInput(String input) throws IOException
+    {
+        if (input.equals("Jpeg"))
+            return read("withExifAndIptc.jpg");
+        if (input.equals("Png"))
+            return read("photoshop-8x12-rgb24-all-metadata.png");
+        if (input.equals("Gif"))
+            return read("photoshop-8x12-32colors-alpha.gif");
+        if (input.equals("Bmp"))
+            return read("24bpp-10x10.bmp");
+        if (input.equals("Psd"))
+            return read("8x4x8bit-Grayscale.psd");
+        if (input.equals("Eps"))
+            return read("adobeJpeg1.eps");
+        if (input.equals("Tiff"))
+            return tiff();
+        if (input.equals("LargeJpeg"))
+            return largeJpeg(64);
+        if (input.equals("LargeTiff"))
+            return largeTiff(16 * 1024 * 1024);
+        throw new IllegalArgumentException("Unknown benchmark input: " + input);
+    }
+
+    /**
+     * Builds a TIFF file from the Exif segment of a sample JPEG, which carries a makernote and thumbnail.
+     */
+    public static byte[] tiff() throws IOException
+    {
+        byte[] app1 = read("nikonMakernoteType2b.jpg.app1");
+        byte[] tiff = new byte[app1.length - EXIF_PREAMBLE_LENGTH];
+        System.arraycopy(app1, EXIF_PREAMBLE_LENGTH, tiff, 0, tiff.length);
+        return tiff;
+    }
+
+    /**
+     * Builds a TIFF with <code>paddingLength</code> bytes of trailing image data, as found in RAW files.
+     */
+    public static byte[] largeTiff(int paddingLength) throws IOException
+    {
+        byte[] tiff = tiff();
+        byte[] large = new byte[tiff.length + paddingLength];
+        System.arraycopy(tiff, 0, large, 0, tiff.length);
+        return large;
+    }
+
+    /**
+     * Builds a JPEG from a sample file, with <code>commentSegmentCount</code> maximally sized COM segments
+     * inserted after the SOI marker, so that segment scanning dominates.
+     */
+    public static byte[] largeJpeg(int commentSegmentCount) throws IOException
+    {
+        byte[] jpeg = read("withExifAndIptc.jpg");
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(jpeg.length + commentSegmentCount * (MAX_SEGMENT_PAYLOAD + 4));
+        stream.write(jpeg, 0, 2);
+
+        byte[] payload = new byte[MAX_SEGMENT_PAYLOAD];
+        for (int i = 0; i < commentSegmentCount; i++) {
+            stream.write(0xFF);
+            stream.write(0xFE);
+            stream.write((MAX_SEGMENT_PAYLOAD + 2) >> 8);
+            stream.write((MAX_SEGMENT_PAYLOAD + 2) & 0xFF);
+            stream.write(payload, 0, payload.length);
+        }
+
+        stream.write(jpeg, 2, jpeg.length - 2);
+        return stream.toByteArray();
+    }
+
+    /**
+     * Builds an XMP packet with <code>ancestorCount</code> <code>photoshop:DocumentAncestors</code> entries, as
+     * written by Photoshop for heavily edited documents.
+     */
+    public static String largeXmp(int ancestorCount)
+    {
+        StringBuilder xmp = new StringBuilder(ancestorCount * 64 + 1024);
+        xmp.append("<?xpacket begin='\uFEFF' id='W5M0MpCehiHzreSzNTczkc9d'?>\n");
+        xmp.append("<x:xmpmeta xmlns:x='adobe:ns:meta/'>\n");
+        xmp.append("<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>\n");
+        xmp.append("<rdf:Description rdf:about='' xmlns:xmp='http://ns.adobe.com/xap/1.0/' xmlns:photoshop='http://ns.adobe.com/photoshop/1.0/'>\n");
+        xmp.append("<xmp:Rating>3</xmp:Rating>\n");
+        xmp.append("<photoshop:DocumentAncestors><rdf:Bag>\n");
+        for (int i = 0; i < ancestorCount; i++)
+            xmp.append("<rdf:li>xmp.did:").append(String.format("%032x", i)).append("</rdf:li>\n");
+        xmp.append("</rdf:Bag></photoshop:DocumentAncestors>\n");
+        xmp.append("</rdf:Description>\n</rdf:RDF>\n</x:xmpmeta>\n<?xpacket end='w'?>");
+        return xmp.toString();
+    }
+
+    private static File getDataDirectory()
+    {
+        String property = System.getProperty(DATA_PROPERTY);
+        if (property != null)
+            return new File(property);
+
+        File directory = new File("Tests/Data");
+        if (directory.isDirectory())
+            return directory;
+
+        // Allow running from within the Benchmarks directory
+        return new File("../Tests/Data");
+    }
+}
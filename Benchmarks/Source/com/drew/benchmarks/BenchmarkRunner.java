@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, writing JSON results into <code>Benchmarks/baselines</code>.
+ * <p>
+ * Results are named after the library version under test, so that throughput and bytes allocated per operation
+ * (<code>gc.alloc.rate.norm</code>) can be compared release to release. Any standard JMH arguments, such as a
+ * benchmark name filter, are passed through.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class BenchmarkRunner
+{
+    public static void main(String[] args) throws Exception
+    {
+        String version = com.drew.imaging.ImageMetadataReader.class.getPackage().getImplementationVersion();
+
+        File baselines = new File("Benchmarks/baselines");
+        if (!baselines.isDirectory())
+            baselines = new File("baselines");
+        if (!baselines.isDirectory() && !baselines.mkdirs())
+            throw new IllegalStateException("Unable to create baselines directory: " + baselines.getAbsolutePath());
+
+        File results = new File(baselines, (version == null ? "dev" : version) + ".json");
+
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(results.getPath())
+            .build();
+
+        new Runner(options).run();
+
+        System.out.println("Results written to " + results.getAbsolutePath());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.Tag;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Directory#getDescription} for every tag of the directories extracted from the sample files,
+ * covering the descriptors of the formats found in them. With description caching enabled, all but the first
+ * invocation measure the cost of returning cached descriptions.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DescriptionBenchmark
+{
+    private static final String[] INPUTS = { "Jpeg", "Png", "Gif", "Bmp", "Psd", "Eps", "Tiff" };
+
+    @Param({ "false", "true" })
+    public boolean descriptionCaching;
+
+    private final List<Directory> _directories = new ArrayList<Directory>();
+
+    @Setup
+    public void setup() throws Exception
+    {
+        for (String input : INPUTS) {
+            byte[] bytes = BenchmarkData.forInput(input);
+            Metadata metadata = ImageMetadataReader.readMetadata(new ByteArrayInputStream(bytes), bytes.length);
+            for (Directory directory : metadata.getDirectories()) {
+                directory.setDescriptionCaching(descriptionCaching);
+                _directories.add(directory);
+            }
+        }
+    }
+
+    @Benchmark
+    public void getDescription(Blackhole blackhole)
+    {
+        for (Directory directory : _directories) {
+            for (Tag tag : directory.getTags())
+                blackhole.consume(directory.getDescription(tag.getTagType()));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.metadata.Metadata;
+import com.drew.tools.FileUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end extraction via {@link ImageMetadataReader} for each supported file type that has a sample
+ * in the test data, plus synthetic large inputs.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageMetadataReaderBenchmark
+{
+    @Param({ "Jpeg", "Png", "Gif", "Bmp", "Psd", "Eps", "Tiff", "LargeJpeg", "LargeTiff" })
+    public String input;
+
+    private byte[] _bytes;
+    private File _file;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        _bytes = BenchmarkData.forInput(input);
+        _file = File.createTempFile("metadata-extractor-benchmark-", ".bin");
+        _file.deleteOnExit();
+        FileUtil.saveBytes(_file, _bytes);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        _file.delete();
+    }
+
+    @Benchmark
+    public Metadata readMetadataFromStream() throws Exception
+    {
+        return ImageMetadataReader.readMetadata(new ByteArrayInputStream(_bytes), _bytes.length);
+    }
+
+    @Benchmark
+    public Metadata readMetadataFromFile() throws Exception
+    {
+        return ImageMetadataReader.readMetadata(_file);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegReaderPlan;
+import com.drew.imaging.jpeg.JpegSegmentData;
+import com.drew.imaging.jpeg.JpegSegmentReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.lang.SequentialByteArrayReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JpegSegmentReader#readSegments}, {@link JpegSegmentReader#readRequiredSegments} and
+ * {@link JpegReaderPlan#readSegments} over a sample JPEG and one padded with many large segments.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JpegSegmentReaderBenchmark
+{
+    @Param({ "Jpeg", "LargeJpeg" })
+    public String input;
+
+    private byte[] _bytes;
+
+    private final JpegReaderPlan _plan = JpegMetadataReader.compile(JpegMetadataReader.ALL_READERS);
+
+    @Setup
+    public void setup() throws IOException
+    {
+        _bytes = BenchmarkData.forInput(input);
+    }
+
+    @Benchmark
+    public JpegSegmentData readAllSegments() throws Exception
+    {
+        return JpegSegmentReader.readSegments(new SequentialByteArrayReader(_bytes), null);
+    }
+
+    @Benchmark
+    public JpegSegmentData readApp1Segments() throws Exception
+    {
+        return JpegSegmentReader.readSegments(new SequentialByteArrayReader(_bytes), Collections.singletonList(JpegSegmentType.APP1));
+    }
+
+    @Benchmark
+    public JpegSegmentData readFirstApp1Segment() throws Exception
+    {
+        return JpegSegmentReader.readRequiredSegments(new SequentialByteArrayReader(_bytes), Collections.singletonMap(JpegSegmentType.APP1, 1));
+    }
+
+    @Benchmark
+    public JpegSegmentData readSegmentsWithCompiledPlan() throws Exception
+    {
+        return _plan.readSegments(new SequentialByteArrayReader(_bytes));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding metadata encoded by {@link MetadataCodec} against extracting it from the image again.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetadataCodecBenchmark
+{
+    @Param({ "Jpeg", "Png", "Tiff", "LargeJpeg" })
+    public String input;
+
+    private byte[] _bytes;
+    private Metadata _metadata;
+    private byte[] _encoded;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        _bytes = BenchmarkData.forInput(input);
+        _metadata = ImageMetadataReader.readMetadata(new ByteArrayInputStream(_bytes), _bytes.length);
+        _encoded = MetadataCodec.encode(_metadata);
+    }
+
+    @Benchmark
+    public Metadata extract() throws Exception
+    {
+        return ImageMetadataReader.readMetadata(new ByteArrayInputStream(_bytes), _bytes.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException
+    {
+        return MetadataCodec.encode(_metadata);
+    }
+
+    @Benchmark
+    public Metadata decode() throws IOException
+    {
+        return MetadataCodec.decode(_encoded);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.SequentialByteArrayReader;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
+import com.drew.metadata.icc.IccReader;
+import com.drew.metadata.iptc.IptcReader;
+import com.drew.metadata.xmp.XmpReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the XMP, IPTC and ICC readers over the payloads of sample JPEG segments, independently of segment
+ * scanning.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SegmentReaderBenchmark
+{
+    /** Length of the "http://ns.adobe.com/xap/1.0/\0" preamble of an XMP APP1 segment. */
+    private static final int XMP_PREAMBLE_LENGTH = 29;
+
+    /** Length of the "ICC_PROFILE\0" preamble plus chunk index and count bytes of an ICC APP2 segment. */
+    private static final int ICC_PREAMBLE_LENGTH = 14;
+
+    /** A typical selection of XMP properties, as read by the <code>*Selected</code> benchmarks. */
+    private static final MetadataFilter XMP_FILTER = new MetadataFilter().includeXmpProperties("xmp:Rating", "dc:subject", "exif:DateTimeOriginal");
+
+    private byte[] _xmpBytes;
+    private String _largeXmp;
+    private byte[] _iptcBytes;
+    private byte[] _iccBytes;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        _xmpBytes = BenchmarkData.read("withXmpAndIptc.jpg.app1.1");
+        _largeXmp = BenchmarkData.largeXmp(5000);
+        _iptcBytes = BenchmarkData.read("iptc1.jpg.appd");
+        _iccBytes = BenchmarkData.read("withExifAndIptc.jpg.app2");
+    }
+
+    @Benchmark
+    public Metadata xmp()
+    {
+        Metadata metadata = new Metadata();
+        new XmpReader().extract(_xmpBytes, XMP_PREAMBLE_LENGTH, _xmpBytes.length - XMP_PREAMBLE_LENGTH, metadata, null);
+        return metadata;
+    }
+
+    @Benchmark
+    public Metadata xmpLarge()
+    {
+        Metadata metadata = new Metadata();
+        new XmpReader().extract(_largeXmp, metadata);
+        return metadata;
+    }
+
+    @Benchmark
+    public Metadata xmpSelected()
+    {
+        Metadata metadata = new Metadata();
+        new XmpReader(XMP_FILTER).extract(_xmpBytes, XMP_PREAMBLE_LENGTH, _xmpBytes.length - XMP_PREAMBLE_LENGTH, metadata, null);
+        return metadata;
+    }
+
+    @Benchmark
+    public Metadata xmpLargeSelected()
+    {
+        Metadata metadata = new Metadata();
+        new XmpReader(XMP_FILTER).extract(_largeXmp, metadata);
+        return metadata;
+    }
+
+    @Benchmark
+    public Metadata iptc()
+    {
+        Metadata metadata = new Metadata();
+        new IptcReader().extract(new SequentialByteArrayReader(_iptcBytes), metadata, _iptcBytes.length);
+        return metadata;
+    }
+
+    @Benchmark
+    public Metadata icc()
+    {
+        Metadata metadata = new Metadata();
+        new IccReader().extract(new ByteArrayReader(_iccBytes, ICC_PREAMBLE_LENGTH), metadata);
+        return metadata;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.benchmarks;
+
+import com.drew.imaging.tiff.TiffReader;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.RandomAccessReader;
+import com.drew.lang.RandomAccessStreamReader;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifTiffHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TiffReader#processIfd} over a TIFF with makernote, both from an in-memory buffer and from a
+ * stream with trailing image data.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiffReaderBenchmark
+{
+    private static final int STANDARD_TIFF_MARKER = 0x002A;
+
+    @Param({ "Tiff", "LargeTiff" })
+    public String input;
+
+    private byte[] _bytes;
+    private boolean _isMotorolaByteOrder;
+    private int _firstIfdOffset;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        _bytes = BenchmarkData.forInput(input);
+
+        ByteArrayReader reader = new ByteArrayReader(_bytes);
+        _isMotorolaByteOrder = reader.getInt16(0) == 0x4d4d;
+        reader.setMotorolaByteOrder(_isMotorolaByteOrder);
+        _firstIfdOffset = reader.getInt32(4);
+    }
+
+    @Benchmark
+    public Metadata processIfd() throws Exception
+    {
+        return processIfd(new ByteArrayReader(_bytes));
+    }
+
+    @Benchmark
+    public Metadata processIfdFromStream() throws Exception
+    {
+        return processIfd(new RandomAccessStreamReader(new ByteArrayInputStream(_bytes)));
+    }
+
+    private Metadata processIfd(RandomAccessReader reader) throws Exception
+    {
+        reader.setMotorolaByteOrder(_isMotorolaByteOrder);
+
+        Metadata metadata = new Metadata();
+        ExifTiffHandler handler = new ExifTiffHandler(metadata, null);
+        handler.setTiffMarker(STANDARD_TIFF_MARKER);
+        TiffReader.processIfd(handler, reader, new HashSet<Integer>(), _firstIfdOffset, 0);
+        return metadata;
+    }
+}
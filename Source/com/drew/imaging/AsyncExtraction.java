@@ -0,0 +1,304 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging;
+
+import com.drew.lang.AsyncByteSource;
+import com.drew.lang.ByteSource;
+import com.drew.lang.ByteSourceReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts metadata from an {@link AsyncByteSource} without any thread waiting for reads to complete.
+ * <p>
+ * The existing readers are synchronous, so each attempt at extraction runs them over the pages of data fetched so
+ * far, presented as a {@link ByteSource}. A read of a page not yet fetched fails, and is recorded. If any were
+ * recorded, the attempt's result is discarded, the missing pages are requested from the source, grouping adjacent
+ * pages into one request, and once all have arrived the next attempt is made on the executor. Pages are retained
+ * between attempts, so each attempt reads further than the last, and the first {@link #PREFETCH_LENGTH} bytes are
+ * requested before the first attempt, which suffices for the metadata of most files. Each further request also
+ * reads ahead of the missing pages, by an amount that doubles on each attempt, so that formats read sequentially
+ * need only a logarithmic number of attempts.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+final class AsyncExtraction implements ByteSource
+{
+    static final int PAGE_LENGTH = ByteSourceReader.DEFAULT_PAGE_LENGTH;
+    static final int PREFETCH_LENGTH = ByteSourceReader.DEFAULT_PREFETCH_LENGTH;
+    private static final int MAX_READ_AHEAD_PAGE_COUNT = ByteSourceReader.DEFAULT_MAX_PAGE_COUNT;
+
+    @NotNull
+    private final AsyncByteSource _source;
+    private final long _length;
+    @Nullable
+    private final MetadataFilter _filter;
+    @NotNull
+    private final Executor _executor;
+
+    /** Fetched pages by index. Added to by the threads on which reads complete. */
+    @NotNull
+    private final Map<Long, byte[]> _pages = new ConcurrentHashMap<Long, byte[]>();
+    /** The pages the current attempt needed but which have not been fetched. Only used by the attempt's thread. */
+    @NotNull
+    private final SortedSet<Long> _missingPages = new TreeSet<Long>();
+
+    /** The number of pages beyond each missing range to request with it. Only used by the attempt's thread. */
+    private int _readAheadPageCount;
+
+    @NotNull
+    private final AtomicInteger _pendingReadCount = new AtomicInteger();
+    @Nullable
+    private volatile IOException _readException;
+
+    @NotNull
+    private final FutureTask<Metadata> _future;
+    @Nullable
+    private Metadata _metadata;
+    @Nullable
+    private Throwable _throwable;
+
+    AsyncExtraction(@NotNull AsyncByteSource source, @Nullable MetadataFilter filter, @NotNull Executor executor, @Nullable final MetadataCallback callback)
+    {
+        _source = source;
+        _length = source.getLength();
+        _filter = filter;
+        _executor = executor;
+
+        _future = new FutureTask<Metadata>(new Callable<Metadata>()
+        {
+            public Metadata call() throws Exception
+            {
+                if (_throwable instanceof Exception)
+                    throw (Exception)_throwable;
+                if (_throwable instanceof Error)
+                    throw (Error)_throwable;
+                return _metadata;
+            }
+        })
+        {
+            @Override
+            protected void done()
+            {
+                if (callback == null || isCancelled())
+                    return;
+
+                Metadata metadata;
+                try {
+                    metadata = get();
+                } catch (ExecutionException e) {
+                    callback.onExtractionError(e.getCause());
+                    return;
+                } catch (InterruptedException e) {
+                    // Not expected, as the task has completed
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                callback.onExtractionSuccess(metadata);
+            }
+        };
+    }
+
+    /**
+     * Requests the first pages of the source, after which extraction proceeds on the executor.
+     */
+    @NotNull
+    Future<Metadata> start()
+    {
+        long lastPage = (Math.min(_length, PREFETCH_LENGTH) - 1) / PAGE_LENGTH;
+        for (long pageIndex = 0; pageIndex <= lastPage; pageIndex++)
+            _missingPages.add(pageIndex);
+
+        if (_missingPages.isEmpty())
+            resume();
+        else
+            fetchMissingPages();
+        return _future;
+    }
+
+    public long getLength()
+    {
+        return _length;
+    }
+
+    public void read(long position, @NotNull byte[] buffer, int offset, int count) throws IOException
+    {
+        if (count == 0)
+            return;
+        if (position < 0 || position + count > _length)
+            throw new EOFException("Attempt to read beyond the end of the source");
+
+        long firstPage = position / PAGE_LENGTH;
+        long lastPage = (position + count - 1) / PAGE_LENGTH;
+
+        boolean isMissing = false;
+        for (long pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            if (!_pages.containsKey(pageIndex)) {
+                _missingPages.add(pageIndex);
+                isMissing = true;
+            }
+        }
+        if (isMissing)
+            throw new IOException("Data at position " + position + " has not yet been fetched");
+
+        for (long pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            byte[] page = _pages.get(pageIndex);
+            long pageStart = pageIndex * PAGE_LENGTH;
+            int fromIndex = (int)(Math.max(position, pageStart) - pageStart);
+            int toIndex = (int)(Math.min(position + count, pageStart + page.length) - pageStart);
+            System.arraycopy(page, fromIndex, buffer, offset + (int)(pageStart + fromIndex - position), toIndex - fromIndex);
+        }
+    }
+
+    /**
+     * Makes an attempt at extraction, completing the future unless more data is needed.
+     */
+    private void attempt()
+    {
+        if (_future.isCancelled())
+            return;
+
+        _missingPages.clear();
+
+        Metadata metadata = null;
+        Throwable throwable = null;
+        try {
+            metadata = ImageMetadataReader.readMetadata(this, _filter);
+        } catch (Exception e) {
+            throwable = e;
+        } catch (Error e) {
+            complete(null, e);
+            throw e;
+        }
+
+        // Readers may record a failed read as an error and continue, so the outcome is only valid if nothing was missed
+        if (!_missingPages.isEmpty()) {
+            fetchMissingPages();
+            return;
+        }
+
+        complete(metadata, throwable);
+    }
+
+    private void fetchMissingPages()
+    {
+        long lastPage = (_length - 1) / PAGE_LENGTH;
+
+        List<long[]> ranges = new ArrayList<long[]>();
+        long[] range = null;
+        for (long pageIndex : _missingPages) {
+            if (range != null && range[1] >= pageIndex - 1) {
+                range[1] = Math.max(range[1], pageIndex);
+            } else {
+                range = new long[] { pageIndex, pageIndex };
+                ranges.add(range);
+            }
+            // Read ahead, up to the next page already fetched
+            for (int i = 0; i < _readAheadPageCount && range[1] < lastPage && !_pages.containsKey(range[1] + 1); i++)
+                range[1]++;
+        }
+        _missingPages.clear();
+        _readAheadPageCount = Math.min(MAX_READ_AHEAD_PAGE_COUNT, Math.max(1, _readAheadPageCount * 2));
+
+        _pendingReadCount.set(ranges.size());
+        for (long[] pageRange : ranges) {
+            final long firstPage = pageRange[0];
+            long start = firstPage * PAGE_LENGTH;
+            final int count = (int)(Math.min(_length, (pageRange[1] + 1) * PAGE_LENGTH) - start);
+
+            _source.read(start, count, new AsyncByteSource.ReadHandler()
+            {
+                public void completed(@NotNull byte[] bytes)
+                {
+                    if (bytes.length != count) {
+                        failed(new EOFException("Expected " + count + " bytes but read " + bytes.length));
+                        return;
+                    }
+                    for (int from = 0; from < bytes.length; from += PAGE_LENGTH) {
+                        byte[] page = new byte[Math.min(PAGE_LENGTH, bytes.length - from)];
+                        System.arraycopy(bytes, from, page, 0, page.length);
+                        _pages.put(firstPage + from / PAGE_LENGTH, page);
+                    }
+                    onReadComplete();
+                }
+
+                public void failed(@NotNull IOException exception)
+                {
+                    if (_readException == null)
+                        _readException = exception;
+                    onReadComplete();
+                }
+            });
+        }
+    }
+
+    private void onReadComplete()
+    {
+        if (_pendingReadCount.decrementAndGet() != 0)
+            return;
+
+        IOException readException = _readException;
+        if (readException != null)
+            complete(null, readException);
+        else
+            resume();
+    }
+
+    private void resume()
+    {
+        try {
+            _executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    attempt();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            complete(null, e);
+        }
+    }
+
+    private void complete(@Nullable Metadata metadata, @Nullable Throwable throwable)
+    {
+        _metadata = metadata;
+        _throwable = throwable;
+        _future.run();
+    }
+}
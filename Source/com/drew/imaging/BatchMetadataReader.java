@@ -0,0 +1,200 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Metadata;
+
+import java.io.File;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reads metadata from many files in parallel, using {@link ImageMetadataReader} for each file.
+ * <p>
+ * Extraction runs on an {@link ExecutorService}, while results are reported to a {@link Listener} on the thread
+ * that called {@link #readMetadata(Iterable, Listener)}, in order of completion. Listeners therefore need no
+ * synchronisation of their own. At most <code>maxInFlight</code> files are submitted but not yet reported at any
+ * time, which bounds the memory held by pending results, and lets <code>files</code> be a lazily produced sequence.
+ * <p>
+ * A failure to process one file is reported via {@link Listener#onExtractionError} and does not stop the batch. An
+ * {@link Error}, such as an {@link OutOfMemoryError}, is not a failure of the file; it is rethrown on the calling
+ * thread, ending the batch.
+ * <p>
+ * Each call reuses a set of {@link ExtractionContext}s between the files it processes, holding no more than the
+ * number of files being processed at once. They are released when the call returns, so no state is left on the
+ * executor's threads.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class BatchMetadataReader
+{
+    /**
+     * Receives the outcome of each file processed by a {@link BatchMetadataReader}, or read via
+     * {@link ImageMetadataReader#readMetadataAsync(File, java.util.concurrent.Executor, Listener)}.
+     */
+    public interface Listener
+    {
+        /** Called when extraction on <code>file</code> completed without an exception. */
+        void onExtractionSuccess(@NotNull File file, @NotNull Metadata metadata);
+
+        /** Called when extraction on <code>file</code> resulted in an exception. */
+        void onExtractionError(@NotNull File file, @NotNull Throwable throwable);
+    }
+
+    @NotNull
+    private final ExecutorService _executor;
+    private final int _maxInFlight;
+
+    /**
+     * Creates a reader that submits work to <code>executor</code>. The executor is not shut down by this class.
+     *
+     * @param executor the executor on which extraction is performed
+     * @param maxInFlight the maximum number of files submitted to <code>executor</code> but not yet reported
+     */
+    public BatchMetadataReader(@NotNull ExecutorService executor, int maxInFlight)
+    {
+        if (executor == null)
+            throw new NullPointerException();
+        if (maxInFlight <= 0)
+            throw new IllegalArgumentException("maxInFlight must be greater than zero");
+
+        _executor = executor;
+        _maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Reads metadata from each of <code>files</code> using a pool of <code>threadCount</code> threads which is
+     * created for, and shut down after, this call.
+     *
+     * @param files the files to process
+     * @param threadCount the number of threads on which to perform extraction
+     * @param listener receives the outcome of each file, on the calling thread
+     * @throws InterruptedException if the calling thread is interrupted while waiting for results
+     */
+    public static void readMetadata(@NotNull Iterable<File> files, int threadCount, @NotNull Listener listener) throws InterruptedException
+    {
+        if (threadCount <= 0)
+            throw new IllegalArgumentException("threadCount must be greater than zero");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            new BatchMetadataReader(executor, threadCount * 2).readMetadata(files, listener);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads metadata from each of <code>files</code>, returning once all have been reported to <code>listener</code>.
+     *
+     * @param files the files to process
+     * @param listener receives the outcome of each file, on the calling thread
+     * @throws InterruptedException if the calling thread is interrupted while waiting for results
+     */
+    public void readMetadata(@NotNull Iterable<File> files, @NotNull Listener listener) throws InterruptedException
+    {
+        CompletionService<Result> completionService = new ExecutorCompletionService<Result>(_executor);
+
+        // Contexts not currently in use by a task, shared by this call's tasks only
+        final Queue<ExtractionContext> contexts = new ConcurrentLinkedQueue<ExtractionContext>();
+
+        int inFlightCount = 0;
+
+        for (final File file : files) {
+            if (inFlightCount == _maxInFlight) {
+                report(take(completionService), listener);
+                inFlightCount--;
+            }
+
+            completionService.submit(new Callable<Result>()
+            {
+                public Result call()
+                {
+                    ExtractionContext context = contexts.poll();
+                    if (context == null)
+                        context = new ExtractionContext();
+
+                    try {
+                        return new Result(file, ImageMetadataReader.readMetadata(file, null, context), null);
+                    } catch (Exception e) {
+                        return new Result(file, null, e);
+                    } finally {
+                        contexts.offer(context);
+                    }
+                }
+            });
+            inFlightCount++;
+        }
+
+        while (inFlightCount != 0) {
+            report(take(completionService), listener);
+            inFlightCount--;
+        }
+    }
+
+    @NotNull
+    private static Result take(@NotNull CompletionService<Result> completionService) throws InterruptedException
+    {
+        try {
+            return completionService.take().get();
+        } catch (ExecutionException e) {
+            // Tasks capture their own exceptions, so only errors are expected here
+            if (e.getCause() instanceof Error)
+                throw (Error)e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void report(@NotNull Result result, @NotNull Listener listener)
+    {
+        if (result.throwable != null) {
+            listener.onExtractionError(result.file, result.throwable);
+        } else {
+            assert(result.metadata != null);
+            listener.onExtractionSuccess(result.file, result.metadata);
+        }
+    }
+
+    private static final class Result
+    {
+        @NotNull
+        final File file;
+        @Nullable
+        final Metadata metadata;
+        @Nullable
+        final Throwable throwable;
+
+        Result(@NotNull File file, @Nullable Metadata metadata, @Nullable Throwable throwable)
+        {
+            this.file = file;
+            this.metadata = metadata;
+            this.throwable = throwable;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Describes a preview image embedded within a file, as located by {@link PreviewExtractor}.
+ * <p>
+ * Only the position of the preview is recorded. Its bytes remain in the file until written out via
+ * {@link PreviewExtractor#writePreview(java.io.File, EmbeddedPreview, java.nio.channels.WritableByteChannel)}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class EmbeddedPreview
+{
+    @NotNull
+    private final String _description;
+    @NotNull
+    private final String _mimeType;
+    private final long _offset;
+    private final long _length;
+
+    public EmbeddedPreview(@NotNull String description, @NotNull String mimeType, long offset, long length)
+    {
+        if (offset < 0)
+            throw new IllegalArgumentException("offset must be zero or greater");
+        if (length <= 0)
+            throw new IllegalArgumentException("length must be greater than zero");
+
+        _description = description;
+        _mimeType = mimeType;
+        _offset = offset;
+        _length = length;
+    }
+
+    /** Gets a description of where the preview was found, such as <code>Exif Thumbnail</code>. */
+    @NotNull
+    public String getDescription()
+    {
+        return _description;
+    }
+
+    /** Gets the MIME type of the preview's encoded data, such as <code>image/jpeg</code>. */
+    @NotNull
+    public String getMimeType()
+    {
+        return _mimeType;
+    }
+
+    /** Gets the position of the preview's first byte, relative to the start of the file. */
+    public long getOffset()
+    {
+        return _offset;
+    }
+
+    /** Gets the number of bytes in the preview. */
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    @NotNull
+    public String toString()
+    {
+        return String.format("%s (%s, %d bytes at offset %d)", _description, _mimeType, _length, _offset);
+    }
+}
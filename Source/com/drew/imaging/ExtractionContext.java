@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegReaderPlan;
+import com.drew.lang.RandomAccessStreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.MetadataFilter;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds buffers and other working state that can be reused from one extraction to the next, reducing the garbage
+ * produced when many files are processed.
+ * <p>
+ * Instances are not thread safe. Hold one per worker thread, and pass it to
+ * {@link ImageMetadataReader#readMetadata(InputStream, MetadataFilter, ExtractionContext)} or
+ * {@link ImageMetadataReader#readMetadata(java.io.File, MetadataFilter, ExtractionContext)}. Nothing returned from
+ * an extraction refers to the context, so results remain valid after the context is reused.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ExtractionContext
+{
+    /** The maximum number of spare stream chunks to retain, bounding the memory held between extractions. */
+    private static final int MAX_SPARE_CHUNK_COUNT = 256;
+
+    @NotNull
+    private final ReusableBufferedInputStream _bufferedInputStream = new ReusableBufferedInputStream();
+    @NotNull
+    private final byte[] _fileTypeBytes = new byte[FileTypeDetector.getByteCount()];
+    @NotNull
+    private final List<byte[]> _spareChunks = new ArrayList<byte[]>();
+
+    @Nullable
+    private MetadataFilter _jpegReadersFilter;
+    private int _jpegReadersFilterModificationCount;
+    @NotNull
+    private JpegReaderPlan _jpegReaders = JpegMetadataReader.compile(null);
+
+    private boolean _isInUse;
+
+    /**
+     * Marks this context as in use for the duration of one extraction, guarding against accidental sharing
+     * between threads or reentrant use.
+     */
+    void acquire()
+    {
+        if (_isInUse)
+            throw new IllegalStateException("ExtractionContext is already in use, and may not be shared between concurrent extractions");
+        _isInUse = true;
+    }
+
+    /**
+     * Ends the current extraction, dropping references to the caller's data and trimming retained buffers.
+     */
+    void release()
+    {
+        _bufferedInputStream.setSource(null);
+        while (_spareChunks.size() > MAX_SPARE_CHUNK_COUNT)
+            _spareChunks.remove(_spareChunks.size() - 1);
+        _isInUse = false;
+    }
+
+    /**
+     * Gets a buffered stream over <code>inputStream</code>, reusing this context's buffer. The returned stream is
+     * only valid until the next call, and must not be closed.
+     */
+    @NotNull
+    BufferedInputStream getBufferedInputStream(@NotNull InputStream inputStream)
+    {
+        if (inputStream instanceof BufferedInputStream)
+            return (BufferedInputStream)inputStream;
+
+        _bufferedInputStream.setSource(inputStream);
+        return _bufferedInputStream;
+    }
+
+    @NotNull
+    byte[] getFileTypeBytes()
+    {
+        return _fileTypeBytes;
+    }
+
+    /**
+     * Gets a reader over <code>inputStream</code> whose chunks are drawn from, and should be returned to, this
+     * context via {@link RandomAccessStreamReader#recycleChunks()}.
+     */
+    @NotNull
+    RandomAccessStreamReader createRandomAccessStreamReader(@NotNull InputStream inputStream, long streamLength)
+    {
+        return new RandomAccessStreamReader(inputStream, RandomAccessStreamReader.DEFAULT_CHUNK_LENGTH, streamLength, _spareChunks);
+    }
+
+    /**
+     * Gets the compiled JPEG segment readers for <code>filter</code>, reusing those of the previous call if the
+     * filter is the same instance and has not been changed since.
+     */
+    @NotNull
+    JpegReaderPlan getJpegReaders(@Nullable MetadataFilter filter)
+    {
+        int modificationCount = filter == null ? 0 : filter.getModificationCount();
+        if (filter != _jpegReadersFilter || modificationCount != _jpegReadersFilterModificationCount) {
+            _jpegReaders = JpegMetadataReader.compile(JpegMetadataReader.getReaders(filter));
+            _jpegReadersFilter = filter;
+            _jpegReadersFilterModificationCount = modificationCount;
+        }
+        return _jpegReaders;
+    }
+
+    /**
+     * A {@link BufferedInputStream} that may be pointed at one source after another, keeping its buffer.
+     */
+    private static class ReusableBufferedInputStream extends BufferedInputStream
+    {
+        private static final int BUFFER_LENGTH = 8 * 1024;
+
+        ReusableBufferedInputStream()
+        {
+            super(null, BUFFER_LENGTH);
+        }
+
+        void setSource(@Nullable InputStream inputStream)
+        {
+            in = inputStream;
+            pos = 0;
+            count = 0;
+            markpos = -1;
+            marklimit = 0;
+
+            // The buffer grows when a large mark limit is set, so don't retain an enlarged buffer
+            if (buf.length != BUFFER_LENGTH)
+                buf = new byte[BUFFER_LENGTH];
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Receives measurements of metadata extraction, for monitoring where extraction time goes.
+ * <p>
+ * Register an implementation via {@link ImageMetadataReader#setMetrics(ExtractionMetrics)}.
+ * {@link HistogramExtractionMetrics} accumulates the measurements in memory. When no implementation is registered,
+ * no measurements are taken.
+ * <p>
+ * Methods are called on the extracting thread, and so may be called concurrently. They should return quickly.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface ExtractionMetrics
+{
+    /**
+     * A stage of extraction that is timed separately from extraction as a whole. Stages may nest within one another,
+     * such as when TIFF data within a JPEG's Exif segment is processed during {@link #JPEG_SEGMENT_PROCESSING}.
+     */
+    enum Stage
+    {
+        /** Detection of a file's type by {@link FileTypeDetector}. */
+        FILE_TYPE_DETECTION,
+        /** Reading of segments from JPEG data by {@link com.drew.imaging.jpeg.JpegSegmentReader}. */
+        JPEG_SEGMENT_READING,
+        /** Extraction of metadata from JPEG segments by {@link com.drew.imaging.jpeg.JpegSegmentMetadataReader}s. */
+        JPEG_SEGMENT_PROCESSING,
+        /** Processing of TIFF data by {@link com.drew.imaging.tiff.TiffReader}, for TIFF files, RAW files and Exif. */
+        TIFF_PROCESSING
+    }
+
+    /**
+     * Called when a stage of extraction completes, whether or not it completed successfully.
+     *
+     * @param stage the stage that completed
+     * @param elapsedNanos the duration of the stage, in nanoseconds
+     */
+    void onStage(@NotNull Stage stage, long elapsedNanos);
+
+    /**
+     * Called when {@link ImageMetadataReader} completes extraction of metadata from a file or stream.
+     *
+     * @param fileType the detected type of the file
+     * @param elapsedNanos the duration of extraction, including file type detection, in nanoseconds
+     * @param directoryCount the number of directories extracted
+     * @param errorCount the number of errors recorded across all directories
+     */
+    void onExtraction(@NotNull FileType fileType, long elapsedNanos, int directoryCount, int errorCount);
+
+    /**
+     * Called when {@link ImageMetadataReader} fails to extract metadata, having thrown an exception.
+     *
+     * @param fileType the detected type of the file, or {@link FileType#Unknown} if detection did not complete
+     * @param elapsedNanos the time until extraction failed, in nanoseconds
+     */
+    void onExtractionFailure(@NotNull FileType fileType, long elapsedNanos);
+
+    /**
+     * Called along with {@link #onExtraction} and {@link #onExtractionFailure} when data is read from a stream,
+     * reporting how much of that stream was read and how much was skipped over. This is not called for TIFF-based
+     * and box-based files read from a {@link java.io.File}, which are accessed via a file channel rather than a stream.
+     *
+     * @param fileType the detected type of the file
+     * @param bytesRead the number of bytes read from the stream
+     * @param bytesSkipped the number of bytes skipped over without being read
+     */
+    void onBytes(@NotNull FileType fileType, long bytesRead, long bytesSkipped);
+}
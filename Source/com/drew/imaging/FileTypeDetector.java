@@ -25,9 +25,15 @@ import com.drew.imaging.quicktime.QuickTimeTypeChecker;
 import com.drew.imaging.riff.RiffTypeChecker;
 import com.drew.lang.ByteTrie;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 
 import java.io.InputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Examines the a file's first bytes and estimates the file's type.
@@ -38,13 +44,43 @@ public class FileTypeDetector
     private final static TypeChecker[] _fixedCheckers;
     private final static int _bytesNeeded;
 
+    /** File types by lower case extension and MIME type, for interpreting hints. The first type listed wins. */
+    private final static Map<String, FileType> _typeByHint;
+    /** The fixed checker able to identify each type that is not identified by {@link #_root}. */
+    private final static Map<FileType, TypeChecker> _checkerByType;
+
     static
     {
-        _fixedCheckers = new TypeChecker[] {
-            new QuickTimeTypeChecker(),
-            new RiffTypeChecker(),
-            new MpegAudioTypeChecker()
-        };
+        QuickTimeTypeChecker quickTimeChecker = new QuickTimeTypeChecker();
+        RiffTypeChecker riffChecker = new RiffTypeChecker();
+        MpegAudioTypeChecker mpegAudioChecker = new MpegAudioTypeChecker();
+
+        _checkerByType = new EnumMap<FileType, TypeChecker>(FileType.class);
+        _checkerByType.put(FileType.QuickTime, quickTimeChecker);
+        _checkerByType.put(FileType.Mp4, quickTimeChecker);
+        _checkerByType.put(FileType.Heif, quickTimeChecker);
+        _checkerByType.put(FileType.Crx, quickTimeChecker);
+        _checkerByType.put(FileType.Riff, riffChecker);
+        _checkerByType.put(FileType.Wav, riffChecker);
+        _checkerByType.put(FileType.Avi, riffChecker);
+        _checkerByType.put(FileType.WebP, riffChecker);
+        _checkerByType.put(FileType.Mp3, mpegAudioChecker);
+
+        _typeByHint = new HashMap<String, FileType>();
+        for (FileType fileType : FileType.values()) {
+            String mimeType = fileType.getMimeType();
+            if (mimeType != null && !_typeByHint.containsKey(mimeType))
+                _typeByHint.put(mimeType, fileType);
+            String[] extensions = fileType.getAllExtensions();
+            if (extensions == null)
+                continue;
+            for (String extension : extensions) {
+                // Some extensions are listed with a leading period
+                String key = getExtension(extension);
+                if (key.length() != 0 && !_typeByHint.containsKey(key))
+                    _typeByHint.put(key, fileType);
+            }
+        }
 
         _root = new ByteTrie<FileType>();
         _root.setDefaultValue(FileType.Unknown);
@@ -103,6 +139,12 @@ public class FileTypeDetector
         _root.addPath(FileType.Vob, new byte[]{0x00, 0x00, 0x01, (byte)0xBA});
         _root.addPath(FileType.Zip, "PK".getBytes());
 
+        _fixedCheckers = new TypeChecker[] {
+            quickTimeChecker,
+            riffChecker,
+            mpegAudioChecker
+        };
+
         int bytesNeeded = _root.getMaxDepth();
         for (TypeChecker fixedChecker : _fixedCheckers) {
             if (fixedChecker.getByteCount() > bytesNeeded)
@@ -130,12 +172,73 @@ public class FileTypeDetector
     @NotNull
     public static FileType detectFileType(@NotNull final InputStream inputStream) throws IOException
     {
+        return detectFileType(inputStream, new byte[_bytesNeeded], null);
+    }
+
+    /**
+     * As {@link #detectFileType(InputStream)}, using the file's name, extension or MIME type as a hint to its likely
+     * type.
+     * <p>
+     * Signatures of types identified by their leading bytes are always checked first, so the hint never changes the
+     * result for those. For types that must be examined by a specific checker, such as the QuickTime, RIFF and MPEG
+     * audio families, the hinted type's checker is consulted before the others.
+     *
+     * @param hint a file name (such as <code>"IMG_0001.MOV"</code>), extension or MIME type, or <code>null</code>
+     * @throws IOException if the stream does not support mark/reset.
+     */
+    @NotNull
+    public static FileType detectFileType(@NotNull final InputStream inputStream, @Nullable final String hint) throws IOException
+    {
+        return detectFileType(inputStream, new byte[_bytesNeeded], hint);
+    }
+
+    /**
+     * Gets the number of bytes examined by {@link #detectFileType}.
+     */
+    static int getByteCount()
+    {
+        return _bytesNeeded;
+    }
+
+    /**
+     * As {@link #detectFileType(InputStream)}, reading into <code>bytes</code> (of length {@link #getByteCount()})
+     * so that the buffer may be reused across calls.
+     */
+    @NotNull
+    static FileType detectFileType(@NotNull final InputStream inputStream, @NotNull final byte[] bytes) throws IOException
+    {
+        return detectFileType(inputStream, bytes, null);
+    }
+
+    /**
+     * As {@link #detectFileType(InputStream, String)}, reading into <code>bytes</code> (of length
+     * {@link #getByteCount()}) so that the buffer may be reused across calls.
+     */
+    @NotNull
+    static FileType detectFileType(@NotNull final InputStream inputStream, @NotNull final byte[] bytes, @Nullable final String hint) throws IOException
+    {
+        ExtractionMetrics metrics = ImageMetadataReader.getMetrics();
+        if (metrics == null)
+            return detect(inputStream, bytes, hint);
+
+        long startTime = System.nanoTime();
+        try {
+            return detect(inputStream, bytes, hint);
+        } finally {
+            metrics.onStage(ExtractionMetrics.Stage.FILE_TYPE_DETECTION, System.nanoTime() - startTime);
+        }
+    }
+
+    @NotNull
+    private static FileType detect(@NotNull final InputStream inputStream, @NotNull final byte[] bytes, @Nullable final String hint) throws IOException
+    {
+        assert(bytes.length == _bytesNeeded);
+
         if (!inputStream.markSupported())
             throw new IOException("Stream must support mark/reset");
 
         inputStream.mark(_bytesNeeded);
 
-        byte[] bytes = new byte[_bytesNeeded];
         int offset = 0;
         int count = _bytesNeeded;
         while (count != 0) {
@@ -148,12 +251,30 @@ public class FileTypeDetector
 
         inputStream.reset();
 
+        // Clear any bytes left over from a previous use of the buffer, as the fixed checkers examine all of it
+        Arrays.fill(bytes, offset, bytes.length, (byte)0);
+
         FileType fileType = _root.find(bytes, 0, offset);
 
         assert(fileType != null);
 
         if (fileType == FileType.Unknown) {
+            TypeChecker hintedChecker = null;
+            if (hint != null) {
+                FileType hintedType = getHintedFileType(hint);
+                if (hintedType != null) {
+                    hintedChecker = _checkerByType.get(hintedType);
+                    if (hintedChecker != null) {
+                        fileType = hintedChecker.checkType(bytes);
+                        if (fileType != FileType.Unknown)
+                            return fileType;
+                    }
+                }
+            }
+
             for (TypeChecker checker : _fixedCheckers) {
+                if (checker == hintedChecker)
+                    continue;
                 fileType = checker.checkType(bytes);
                 if (fileType != FileType.Unknown)
                     return fileType;
@@ -162,4 +283,21 @@ public class FileTypeDetector
 
         return fileType;
     }
+
+    /**
+     * Gets the file type suggested by a file name, extension or MIME type, or <code>null</code> if it suggests none.
+     */
+    @Nullable
+    static FileType getHintedFileType(@NotNull final String hint)
+    {
+        FileType fileType = _typeByHint.get(hint.toLowerCase(Locale.ENGLISH));
+        return fileType != null ? fileType : _typeByHint.get(getExtension(hint));
+    }
+
+    /** Gets the lower case text after the last period of <code>name</code>, or all of it if there is no period. */
+    @NotNull
+    private static String getExtension(@NotNull final String name)
+    {
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ENGLISH);
+    }
 }
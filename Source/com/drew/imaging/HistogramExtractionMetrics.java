@@ -0,0 +1,223 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An {@link ExtractionMetrics} implementation that accumulates durations in histograms, and counts bytes, directories,
+ * errors and failures per {@link FileType}, all in memory.
+ * <p>
+ * Values may be read at any time, from any thread, for export to a monitoring system.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class HistogramExtractionMetrics implements ExtractionMetrics
+{
+    @NotNull
+    private final Map<Stage, Histogram> _stageHistograms = new EnumMap<Stage, Histogram>(Stage.class);
+    @NotNull
+    private final Map<FileType, FileTypeCounters> _fileTypeCounters = new EnumMap<FileType, FileTypeCounters>(FileType.class);
+
+    public HistogramExtractionMetrics()
+    {
+        // All entries are created up front, so that the maps are never modified once shared between threads
+        for (Stage stage : Stage.values())
+            _stageHistograms.put(stage, new Histogram());
+        for (FileType fileType : FileType.values())
+            _fileTypeCounters.put(fileType, new FileTypeCounters());
+    }
+
+    public void onStage(@NotNull Stage stage, long elapsedNanos)
+    {
+        _stageHistograms.get(stage).record(elapsedNanos);
+    }
+
+    public void onExtraction(@NotNull FileType fileType, long elapsedNanos, int directoryCount, int errorCount)
+    {
+        FileTypeCounters counters = _fileTypeCounters.get(fileType);
+        counters.extractions.record(elapsedNanos);
+        counters.directoryCount.addAndGet(directoryCount);
+        counters.errorCount.addAndGet(errorCount);
+    }
+
+    public void onExtractionFailure(@NotNull FileType fileType, long elapsedNanos)
+    {
+        _fileTypeCounters.get(fileType).failureCount.incrementAndGet();
+    }
+
+    public void onBytes(@NotNull FileType fileType, long bytesRead, long bytesSkipped)
+    {
+        FileTypeCounters counters = _fileTypeCounters.get(fileType);
+        counters.bytesRead.addAndGet(bytesRead);
+        counters.bytesSkipped.addAndGet(bytesSkipped);
+    }
+
+    /** Gets the durations of <code>stage</code>. */
+    @NotNull
+    public Histogram getStageHistogram(@NotNull Stage stage)
+    {
+        return _stageHistograms.get(stage);
+    }
+
+    /** Gets the durations of successful extractions from files of type <code>fileType</code>. */
+    @NotNull
+    public Histogram getExtractionHistogram(@NotNull FileType fileType)
+    {
+        return _fileTypeCounters.get(fileType).extractions;
+    }
+
+    /** Gets the number of failed extractions from files of type <code>fileType</code>. */
+    public long getFailureCount(@NotNull FileType fileType)
+    {
+        return _fileTypeCounters.get(fileType).failureCount.get();
+    }
+
+    /** Gets the number of directories extracted from files of type <code>fileType</code>. */
+    public long getDirectoryCount(@NotNull FileType fileType)
+    {
+        return _fileTypeCounters.get(fileType).directoryCount.get();
+    }
+
+    /** Gets the number of errors recorded in directories extracted from files of type <code>fileType</code>. */
+    public long getErrorCount(@NotNull FileType fileType)
+    {
+        return _fileTypeCounters.get(fileType).errorCount.get();
+    }
+
+    /** Gets the number of bytes read from streams of type <code>fileType</code>. */
+    public long getBytesRead(@NotNull FileType fileType)
+    {
+        return _fileTypeCounters.get(fileType).bytesRead.get();
+    }
+
+    /** Gets the number of bytes skipped over within streams of type <code>fileType</code>. */
+    public long getBytesSkipped(@NotNull FileType fileType)
+    {
+        return _fileTypeCounters.get(fileType).bytesSkipped.get();
+    }
+
+    private static final class FileTypeCounters
+    {
+        final Histogram extractions = new Histogram();
+        final AtomicLong failureCount = new AtomicLong();
+        final AtomicLong directoryCount = new AtomicLong();
+        final AtomicLong errorCount = new AtomicLong();
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong bytesSkipped = new AtomicLong();
+    }
+
+    /**
+     * A histogram of durations in nanoseconds, with buckets whose bounds are powers of two. Bucket zero counts
+     * durations of zero, and bucket <code>i</code> counts durations from 2<sup>i-1</sup> to 2<sup>i</sup>-1.
+     */
+    public static final class Histogram
+    {
+        public static final int BUCKET_COUNT = 64;
+
+        @NotNull
+        private final AtomicLongArray _buckets = new AtomicLongArray(BUCKET_COUNT);
+        @NotNull
+        private final AtomicLong _count = new AtomicLong();
+        @NotNull
+        private final AtomicLong _totalNanos = new AtomicLong();
+        @NotNull
+        private final AtomicLong _maxNanos = new AtomicLong();
+
+        void record(long nanos)
+        {
+            // The clock may appear to go backwards across cores
+            if (nanos < 0)
+                nanos = 0;
+
+            _buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+            _count.incrementAndGet();
+            _totalNanos.addAndGet(nanos);
+
+            long max;
+            do {
+                max = _maxNanos.get();
+            } while (nanos > max && !_maxNanos.compareAndSet(max, nanos));
+        }
+
+        /** Gets the number of durations recorded. */
+        public long getCount()
+        {
+            return _count.get();
+        }
+
+        /** Gets the sum of all durations recorded. */
+        public long getTotalNanos()
+        {
+            return _totalNanos.get();
+        }
+
+        /** Gets the longest duration recorded, or zero if none have been. */
+        public long getMaxNanos()
+        {
+            return _maxNanos.get();
+        }
+
+        /** Gets the number of durations recorded in bucket <code>index</code>. */
+        public long getBucketCount(int index)
+        {
+            return _buckets.get(index);
+        }
+
+        /** Gets the largest duration counted by bucket <code>index</code>. */
+        public static long getBucketUpperBound(int index)
+        {
+            // For the last bucket this overflows to Long.MAX_VALUE, as required
+            return (1L << index) - 1;
+        }
+
+        /**
+         * Gets an upper bound on the duration below which <code>percentile</code> percent of the recorded durations
+         * fall, accurate to within a factor of two, or zero if no durations have been recorded.
+         *
+         * @param percentile a value from 0 to 100
+         */
+        public long getPercentileNanos(double percentile)
+        {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+
+            long count = getCount();
+            if (count == 0)
+                return 0;
+
+            long rank = Math.max(1, (long)Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += _buckets.get(i);
+                if (seen >= rank)
+                    return Math.min(getBucketUpperBound(i), getMaxNanos());
+            }
+            return getMaxNanos();
+        }
+    }
+}
@@ -37,11 +37,19 @@ import com.drew.imaging.raf.RafMetadataReader;
 import com.drew.imaging.tiff.TiffMetadataReader;
 import com.drew.imaging.wav.WavMetadataReader;
 import com.drew.imaging.webp.WebpMetadataReader;
+import com.drew.lang.AsyncByteSource;
+import com.drew.lang.ByteSource;
+import com.drew.lang.ByteSourceInputStream;
+import com.drew.lang.ByteSourceReader;
+import com.drew.lang.CountingInputStream;
+import com.drew.lang.MappedFileReader;
 import com.drew.lang.RandomAccessStreamReader;
 import com.drew.lang.StringUtil;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
 import com.drew.metadata.Tag;
 import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.file.FileSystemMetadataReader;
@@ -49,10 +57,16 @@ import com.drew.metadata.file.FileTypeDirectory;
 import com.drew.metadata.xmp.XmpDirectory;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * Reads metadata from any supported file format.
@@ -89,6 +103,27 @@ import java.util.Map;
  */
 public class ImageMetadataReader
 {
+    @Nullable
+    private static volatile ExtractionMetrics _metrics;
+
+    /**
+     * Registers <code>metrics</code> to receive measurements of all subsequent extractions, replacing any previously
+     * registered instance. Pass <code>null</code> to stop taking measurements.
+     */
+    public static void setMetrics(@Nullable ExtractionMetrics metrics)
+    {
+        _metrics = metrics;
+    }
+
+    /**
+     * Gets the {@link ExtractionMetrics} instance registered via {@link #setMetrics}, or <code>null</code> if none is.
+     */
+    @Nullable
+    public static ExtractionMetrics getMetrics()
+    {
+        return _metrics;
+    }
+
     /**
      * Reads metadata from an {@link InputStream}.
      *
@@ -115,17 +150,125 @@ public class ImageMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull final InputStream inputStream, final long streamLength) throws ImageProcessingException, IOException
     {
-        BufferedInputStream bufferedInputStream = inputStream instanceof BufferedInputStream
-            ? (BufferedInputStream)inputStream
-            : new BufferedInputStream(inputStream);
+        return detectAndReadMetadata(inputStream, streamLength, null, null);
+    }
 
-        FileType fileType = FileTypeDetector.detectFileType(bufferedInputStream);
+    /**
+     * Reads metadata from an {@link InputStream} into <code>metadata</code>.
+     * <p>
+     * Use this overload to receive directories, tags and errors as they are read, by passing metadata constructed
+     * with a {@link com.drew.metadata.MetadataListener}. {@link Metadata#complete()} is called once reading finishes.
+     *
+     * @param metadata the metadata to populate.
+     * @param inputStream a stream from which the file data may be read.  The stream must be positioned at the
+     *                    beginning of the file's data.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    public static void process(@NotNull final Metadata metadata, @NotNull final InputStream inputStream) throws ImageProcessingException, IOException
+    {
+        detectAndProcess(metadata, inputStream, -1, null, null);
+        metadata.complete();
+    }
 
-        Metadata metadata = readMetadata(bufferedInputStream, streamLength, fileType);
+    /**
+     * Reads only the directories and tags included by <code>filter</code> from an {@link InputStream}.
+     *
+     * @param inputStream a stream from which the file data may be read.  The stream must be positioned at the
+     *                    beginning of the file's data.
+     * @param filter specifies the directories and tags to extract.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final InputStream inputStream, @NotNull final MetadataFilter filter) throws ImageProcessingException, IOException
+    {
+        return detectAndReadMetadata(inputStream, -1, filter, null);
+    }
 
-        metadata.addDirectory(new FileTypeDirectory(fileType));
+    /**
+     * Reads metadata from an {@link InputStream}, reusing the buffers held by <code>context</code>.
+     * <p>
+     * When reading many files, holding one {@link ExtractionContext} per thread avoids allocating these buffers
+     * for every file.
+     *
+     * @param inputStream a stream from which the file data may be read.  The stream must be positioned at the
+     *                    beginning of the file's data.
+     * @param filter specifies the directories and tags to extract, or <code>null</code> to extract everything.
+     * @param context the context whose buffers are used, or <code>null</code> to allocate buffers for this call only.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final InputStream inputStream, @Nullable final MetadataFilter filter, @Nullable final ExtractionContext context) throws ImageProcessingException, IOException
+    {
+        if (context == null)
+            return detectAndReadMetadata(inputStream, -1, filter, null);
 
-        return metadata;
+        context.acquire();
+        try {
+            return detectAndReadMetadata(inputStream, -1, filter, context);
+        } finally {
+            context.release();
+        }
+    }
+
+    @NotNull
+    private static Metadata detectAndReadMetadata(@NotNull final InputStream inputStream, final long streamLength, @Nullable final MetadataFilter filter, @Nullable final ExtractionContext context) throws ImageProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        detectAndProcess(metadata, inputStream, streamLength, filter, context);
+        return filter == null ? metadata : filter.retainIncludedDirectories(metadata);
+    }
+
+    private static void detectAndProcess(@NotNull final Metadata metadata, @NotNull final InputStream inputStream, final long streamLength, @Nullable final MetadataFilter filter, @Nullable final ExtractionContext context) throws ImageProcessingException, IOException
+    {
+        ExtractionMetrics metrics = _metrics;
+        long startTime = 0;
+        CountingInputStream countingStream = null;
+        InputStream source = inputStream;
+        if (metrics != null) {
+            startTime = System.nanoTime();
+            source = countingStream = new CountingInputStream(inputStream);
+        }
+
+        FileType fileType = FileType.Unknown;
+        boolean completed = false;
+        try {
+            BufferedInputStream bufferedInputStream;
+            if (context == null) {
+                bufferedInputStream = source instanceof BufferedInputStream
+                    ? (BufferedInputStream)source
+                    : new BufferedInputStream(source);
+                fileType = FileTypeDetector.detectFileType(bufferedInputStream);
+            } else {
+                bufferedInputStream = context.getBufferedInputStream(source);
+                fileType = FileTypeDetector.detectFileType(bufferedInputStream, context.getFileTypeBytes());
+            }
+
+            process(metadata, bufferedInputStream, streamLength, fileType, filter, context);
+
+            metadata.addDirectory(new FileTypeDirectory(fileType));
+            completed = true;
+        } finally {
+            if (metrics != null)
+                reportExtraction(metrics, metadata, fileType, System.nanoTime() - startTime, completed, countingStream);
+        }
+    }
+
+    private static void reportExtraction(@NotNull ExtractionMetrics metrics, @NotNull Metadata metadata, @NotNull FileType fileType, long elapsedNanos, boolean completed, @Nullable CountingInputStream countingStream)
+    {
+        if (countingStream != null)
+            metrics.onBytes(fileType, countingStream.getBytesRead(), countingStream.getBytesSkipped());
+
+        if (!completed) {
+            metrics.onExtractionFailure(fileType, elapsedNanos);
+            return;
+        }
+
+        int errorCount = 0;
+        for (Directory directory : metadata.getDirectories())
+            errorCount += directory.getErrorCount();
+        metrics.onExtraction(fileType, elapsedNanos, metadata.getDirectoryCount(), errorCount);
     }
 
     /**
@@ -140,51 +283,105 @@ public class ImageMetadataReader
      */
     @NotNull
     public static Metadata readMetadata(@NotNull final InputStream inputStream, final long streamLength, final FileType fileType) throws IOException, ImageProcessingException
+    {
+        return readMetadata(inputStream, streamLength, fileType, null);
+    }
+
+    /**
+     * Reads metadata from an {@link InputStream} of known length and file type, optionally limited to the
+     * directories and tags included by a filter.
+     * <p>
+     * Exif data (including that of TIFF-based files) is filtered as it is read. The result may contain directories
+     * of other types which the filter does not include, which the other <code>readMetadata</code> overloads remove.
+     *
+     * @param inputStream a stream from which the file data may be read.  The stream must be positioned at the
+     *                    beginning of the file's data.
+     * @param streamLength the length of the stream, if known, otherwise -1.
+     * @param fileType the file type of the data stream.
+     * @param filter specifies the directories and tags to extract, or <code>null</code> to extract everything.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException if the file type is unknown, or for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final InputStream inputStream, final long streamLength, final FileType fileType, @Nullable final MetadataFilter filter) throws IOException, ImageProcessingException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, inputStream, streamLength, fileType, filter, null);
+        return metadata;
+    }
+
+    private static void process(@NotNull final Metadata metadata, @NotNull final InputStream inputStream, final long streamLength, final FileType fileType, @Nullable final MetadataFilter filter, @Nullable final ExtractionContext context) throws IOException, ImageProcessingException
     {
         switch (fileType) {
             case Jpeg:
-                return JpegMetadataReader.readMetadata(inputStream);
+                JpegMetadataReader.process(metadata, inputStream, context == null ? JpegMetadataReader.getReaders(filter) : context.getJpegReaders(filter));
+                break;
             case Tiff:
             case Arw:
             case Cr2:
             case Nef:
             case Orf:
             case Rw2:
-                return TiffMetadataReader.readMetadata(new RandomAccessStreamReader(inputStream, RandomAccessStreamReader.DEFAULT_CHUNK_LENGTH, streamLength));
+                if (context != null) {
+                    RandomAccessStreamReader reader = context.createRandomAccessStreamReader(inputStream, streamLength);
+                    try {
+                        TiffMetadataReader.process(metadata, reader, filter);
+                    } finally {
+                        reader.recycleChunks();
+                    }
+                } else {
+                    TiffMetadataReader.process(metadata, new RandomAccessStreamReader(inputStream, RandomAccessStreamReader.DEFAULT_CHUNK_LENGTH, streamLength), filter);
+                }
+                break;
             case Psd:
-                return PsdMetadataReader.readMetadata(inputStream);
+                PsdMetadataReader.process(metadata, inputStream);
+                break;
             case Png:
-                return PngMetadataReader.readMetadata(inputStream);
+                PngMetadataReader.process(metadata, inputStream);
+                break;
             case Bmp:
-                return BmpMetadataReader.readMetadata(inputStream);
+                BmpMetadataReader.process(metadata, inputStream);
+                break;
             case Gif:
-                return GifMetadataReader.readMetadata(inputStream);
+                GifMetadataReader.process(metadata, inputStream);
+                break;
             case Ico:
-                return IcoMetadataReader.readMetadata(inputStream);
+                IcoMetadataReader.process(metadata, inputStream);
+                break;
             case Pcx:
-                return PcxMetadataReader.readMetadata(inputStream);
+                PcxMetadataReader.process(metadata, inputStream);
+                break;
             case WebP:
-                return WebpMetadataReader.readMetadata(inputStream);
+                WebpMetadataReader.process(metadata, inputStream);
+                break;
             case Raf:
-                return RafMetadataReader.readMetadata(inputStream);
+                RafMetadataReader.process(metadata, inputStream);
+                break;
             case Avi:
-                return AviMetadataReader.readMetadata(inputStream);
+                AviMetadataReader.process(metadata, inputStream);
+                break;
             case Wav:
-                return WavMetadataReader.readMetadata(inputStream);
+                WavMetadataReader.process(metadata, inputStream);
+                break;
             case QuickTime:
-                return QuickTimeMetadataReader.readMetadata(inputStream);
+                QuickTimeMetadataReader.process(metadata, inputStream);
+                break;
             case Mp4:
-                return Mp4MetadataReader.readMetadata(inputStream);
+                Mp4MetadataReader.process(metadata, inputStream);
+                break;
             case Mp3:
-                return Mp3MetadataReader.readMetadata(inputStream);
+                Mp3MetadataReader.process(metadata, inputStream);
+                break;
             case Eps:
-                return EpsMetadataReader.readMetadata(inputStream);
+                EpsMetadataReader.process(metadata, inputStream);
+                break;
             case Heif:
-                return HeifMetadataReader.readMetadata(inputStream);
+                HeifMetadataReader.process(metadata, inputStream);
+                break;
             case Unknown:
                 throw new ImageProcessingException("File format could not be determined");
             default:
-                return new Metadata();
+                break;
         }
     }
 
@@ -198,15 +395,328 @@ public class ImageMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull final File file) throws ImageProcessingException, IOException
     {
-        InputStream inputStream = new FileInputStream(file);
-        Metadata metadata;
+        return readMetadata(file, (MetadataFilter)null);
+    }
+
+    /**
+     * Reads only the directories and tags included by <code>filter</code> from a {@link File} object.
+     *
+     * @param file a file from which the image data may be read.
+     * @param filter specifies the directories and tags to extract, or <code>null</code> to extract everything.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final File file, @Nullable final MetadataFilter filter) throws ImageProcessingException, IOException
+    {
+        return readMetadata(file, filter, null);
+    }
+
+    /**
+     * Reads metadata from a {@link File} object, reusing the buffers held by <code>context</code>.
+     * <p>
+     * When reading many files, holding one {@link ExtractionContext} per thread avoids allocating these buffers
+     * for every file.
+     *
+     * @param file a file from which the image data may be read.
+     * @param filter specifies the directories and tags to extract, or <code>null</code> to extract everything.
+     * @param context the context whose buffers are used, or <code>null</code> to allocate buffers for this call only.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final File file, @Nullable final MetadataFilter filter, @Nullable final ExtractionContext context) throws ImageProcessingException, IOException
+    {
+        if (context == null)
+            return readFileMetadata(file, filter, null);
+
+        context.acquire();
         try {
-            metadata = readMetadata(inputStream, file.length());
+            return readFileMetadata(file, filter, context);
         } finally {
-            inputStream.close();
+            context.release();
+        }
+    }
+
+    /**
+     * Reads {@link Metadata} from a {@link ByteSource}, such as an object in remote storage, fetching only the
+     * ranges of data that are needed.
+     * <p>
+     * TIFF-based formats are read at random, and all other formats via a stream that skips unwanted data without
+     * fetching it. In both cases reads are gathered into few ranged requests by a {@link ByteSourceReader}.
+     *
+     * @param source the source from which the image data may be read.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final ByteSource source) throws ImageProcessingException, IOException
+    {
+        return readMetadata(source, null);
+    }
+
+    /**
+     * Reads only the directories and tags included by <code>filter</code> from a {@link ByteSource}.
+     *
+     * @param source the source from which the image data may be read.
+     * @param filter specifies the directories and tags to extract, or <code>null</code> to extract everything.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull final ByteSource source, @Nullable final MetadataFilter filter) throws ImageProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        processByteSource(metadata, source, filter);
+        return filter == null ? metadata : filter.retainIncludedDirectories(metadata);
+    }
+
+    private static void processByteSource(@NotNull final Metadata metadata, @NotNull final ByteSource source, @Nullable final MetadataFilter filter) throws ImageProcessingException, IOException
+    {
+        ExtractionMetrics metrics = _metrics;
+        long startTime = metrics == null ? 0 : System.nanoTime();
+
+        FileType fileType = FileType.Unknown;
+        boolean completed = false;
+        try {
+            ByteSourceReader reader = new ByteSourceReader(source);
+            InputStream inputStream = new ByteSourceInputStream(reader);
+
+            fileType = FileTypeDetector.detectFileType(inputStream);
+
+            if (isTiffFamily(fileType))
+                TiffMetadataReader.process(metadata, reader, filter);
+            else
+                process(metadata, inputStream, reader.getLength(), fileType, filter, null);
+
+            metadata.addDirectory(new FileTypeDirectory(fileType));
+            completed = true;
+        } finally {
+            if (metrics != null)
+                reportExtraction(metrics, metadata, fileType, System.nanoTime() - startTime, completed, null);
+        }
+    }
+
+    /**
+     * Reads {@link Metadata} from a {@link File} object on <code>executor</code>, returning immediately.
+     * <p>
+     * The file is read with blocking I/O on one of the executor's threads, which is occupied until extraction
+     * completes. To extract without any thread waiting on I/O, use
+     * {@link #readMetadataAsync(AsyncByteSource, MetadataFilter, Executor, MetadataCallback)}.
+     *
+     * @param file a file from which the image data may be read.
+     * @param executor the executor on which extraction is performed.
+     * @return a future whose result is the populated {@link Metadata}, or whose {@link ExecutionException} wraps the
+     *         {@link ImageProcessingException} or {@link IOException} that ended extraction.
+     * @throws java.util.concurrent.RejectedExecutionException if <code>executor</code> does not accept the task.
+     */
+    @NotNull
+    public static Future<Metadata> readMetadataAsync(@NotNull final File file, @NotNull final Executor executor)
+    {
+        return readMetadataAsync(file, executor, null);
+    }
+
+    /**
+     * Reads {@link Metadata} from a {@link File} object on <code>executor</code>, returning immediately.
+     * <p>
+     * The file is read with blocking I/O on one of the executor's threads, which is occupied until extraction
+     * completes. To extract without any thread waiting on I/O, use
+     * {@link #readMetadataAsync(AsyncByteSource, MetadataFilter, Executor, MetadataCallback)}.
+     * <p>
+     * Once extraction completes, its outcome is reported to <code>listener</code> on the executor's thread, so that
+     * callers need not block on the returned future. Nothing is reported if the future is cancelled first.
+     *
+     * @param file a file from which the image data may be read.
+     * @param executor the executor on which extraction is performed.
+     * @param listener receives the outcome of extraction, or <code>null</code> if only the future is required.
+     * @return a future whose result is the populated {@link Metadata}, or whose {@link ExecutionException} wraps the
+     *         {@link ImageProcessingException} or {@link IOException} that ended extraction.
+     * @throws java.util.concurrent.RejectedExecutionException if <code>executor</code> does not accept the task.
+     */
+    @NotNull
+    public static Future<Metadata> readMetadataAsync(@NotNull final File file, @NotNull final Executor executor, @Nullable final BatchMetadataReader.Listener listener)
+    {
+        FutureTask<Metadata> task = new FutureTask<Metadata>(new Callable<Metadata>()
+        {
+            public Metadata call() throws Exception
+            {
+                return readMetadata(file);
+            }
+        })
+        {
+            @Override
+            protected void done()
+            {
+                if (listener == null || isCancelled())
+                    return;
+
+                Metadata metadata;
+                try {
+                    metadata = get();
+                } catch (ExecutionException e) {
+                    listener.onExtractionError(file, e.getCause());
+                    return;
+                } catch (InterruptedException e) {
+                    // Not expected, as the task has completed
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                listener.onExtractionSuccess(file, metadata);
+            }
+        };
+
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Reads {@link Metadata} from an {@link AsyncByteSource}, returning immediately. No thread waits while data
+     * is being read, so many extractions may be in progress on few threads.
+     *
+     * @param source the source from which the image data may be read.
+     * @param executor the executor on which the data read is parsed.
+     * @return a future whose result is the populated {@link Metadata}, or whose {@link ExecutionException} wraps the
+     *         exception that ended extraction, including any {@link IOException} from <code>source</code> and any
+     *         {@link java.util.concurrent.RejectedExecutionException} from <code>executor</code>.
+     */
+    @NotNull
+    public static Future<Metadata> readMetadataAsync(@NotNull final AsyncByteSource source, @NotNull final Executor executor)
+    {
+        return readMetadataAsync(source, null, executor, null);
+    }
+
+    /**
+     * Reads only the directories and tags included by <code>filter</code> from an {@link AsyncByteSource}, returning
+     * immediately. No thread waits while data is being read, so many extractions may be in progress on few threads.
+     * <p>
+     * The readers are run over the data read so far, and if they need more, it is requested from
+     * <code>source</code> and the readers are run again once it arrives. The first
+     * {@value ByteSourceReader#DEFAULT_PREFETCH_LENGTH} bytes are requested at the outset, which suffices for most
+     * files. Once extraction completes, its outcome is reported to <code>callback</code> on the thread that completed
+     * it, so that callers need not block on the returned future. Nothing is reported if the future is cancelled first.
+     *
+     * @param source the source from which the image data may be read.
+     * @param filter specifies the directories and tags to extract, or <code>null</code> to extract everything.
+     * @param executor the executor on which the data read is parsed.
+     * @param callback receives the outcome of extraction, or <code>null</code> if only the future is required.
+     * @return a future whose result is the populated {@link Metadata}, or whose {@link ExecutionException} wraps the
+     *         exception that ended extraction, including any {@link IOException} from <code>source</code> and any
+     *         {@link java.util.concurrent.RejectedExecutionException} from <code>executor</code>.
+     */
+    @NotNull
+    public static Future<Metadata> readMetadataAsync(@NotNull final AsyncByteSource source, @Nullable final MetadataFilter filter, @NotNull final Executor executor, @Nullable final MetadataCallback callback)
+    {
+        return new AsyncExtraction(source, filter, executor, callback).start();
+    }
+
+    /**
+     * Reads metadata from a {@link File} object into <code>metadata</code>.
+     * <p>
+     * Use this overload to receive directories, tags and errors as they are read, by passing metadata constructed
+     * with a {@link com.drew.metadata.MetadataListener}. {@link Metadata#complete()} is called once reading finishes.
+     *
+     * @param metadata the metadata to populate.
+     * @param file a file from which the image data may be read.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    public static void process(@NotNull final Metadata metadata, @NotNull final File file) throws ImageProcessingException, IOException
+    {
+        processFile(metadata, file, null, null);
+        metadata.complete();
+    }
+
+    @NotNull
+    private static Metadata readFileMetadata(@NotNull final File file, @Nullable final MetadataFilter filter, @Nullable final ExtractionContext context) throws ImageProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        processFile(metadata, file, filter, context);
+        return filter == null ? metadata : filter.retainIncludedDirectories(metadata);
+    }
+
+    private static void processFile(@NotNull final Metadata metadata, @NotNull final File file, @Nullable final MetadataFilter filter, @Nullable final ExtractionContext context) throws ImageProcessingException, IOException
+    {
+        ExtractionMetrics metrics = _metrics;
+        long startTime = metrics == null ? 0 : System.nanoTime();
+        CountingInputStream countingStream = null;
+
+        FileType fileType = FileType.Unknown;
+        boolean completed = false;
+        try {
+            FileInputStream inputStream = new FileInputStream(file);
+            try {
+                InputStream source = inputStream;
+                if (metrics != null)
+                    source = countingStream = new CountingInputStream(inputStream);
+
+                BufferedInputStream bufferedInputStream;
+                if (context == null) {
+                    bufferedInputStream = new BufferedInputStream(source);
+                    fileType = FileTypeDetector.detectFileType(bufferedInputStream, file.getName());
+                } else {
+                    bufferedInputStream = context.getBufferedInputStream(source);
+                    fileType = FileTypeDetector.detectFileType(bufferedInputStream, context.getFileTypeBytes(), file.getName());
+                }
+
+                if (isTiffFamily(fileType)) {
+                    // TIFF-based formats hop between IFDs throughout the file, so map the file rather than
+                    // buffering it on the heap via a stream
+                    countingStream = null;
+                    TiffMetadataReader.process(metadata, new MappedFileReader(inputStream.getChannel()), filter);
+                } else if (isBoxBased(fileType)) {
+                    // Box-based formats can place metadata after very large media data, which is skipped by seeking
+                    countingStream = null;
+                    processBoxBased(metadata, inputStream.getChannel(), fileType);
+                } else {
+                    process(metadata, bufferedInputStream, file.length(), fileType, filter, context);
+                }
+
+                metadata.addDirectory(new FileTypeDirectory(fileType));
+            } finally {
+                inputStream.close();
+            }
+            new FileSystemMetadataReader().read(file, metadata);
+            completed = true;
+        } finally {
+            if (metrics != null)
+                reportExtraction(metrics, metadata, fileType, System.nanoTime() - startTime, completed, countingStream);
+        }
+    }
+
+    private static boolean isTiffFamily(@NotNull FileType fileType)
+    {
+        switch (fileType) {
+            case Tiff:
+            case Arw:
+            case Cr2:
+            case Nef:
+            case Orf:
+            case Rw2:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isBoxBased(@NotNull FileType fileType)
+    {
+        return fileType == FileType.QuickTime || fileType == FileType.Mp4 || fileType == FileType.Heif;
+    }
+
+    private static void processBoxBased(@NotNull Metadata metadata, @NotNull FileChannel channel, @NotNull FileType fileType) throws IOException
+    {
+        switch (fileType) {
+            case QuickTime:
+                QuickTimeMetadataReader.process(metadata, channel);
+                break;
+            case Mp4:
+                Mp4MetadataReader.process(metadata, channel);
+                break;
+            case Heif:
+                HeifMetadataReader.process(metadata, channel);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a box-based file type: " + fileType);
         }
-        new FileSystemMetadataReader().read(file, metadata);
-        return metadata;
     }
 
     private ImageMetadataReader() throws Exception
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.Charsets;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataCodec;
+import com.drew.metadata.file.FileSystemDirectory;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads metadata via {@link ImageMetadataReader}, retaining the results so that files which are read again are not
+ * re-processed.
+ * <p>
+ * Files are identified by their canonical path, length and last-modified time, the latter two being the values
+ * {@link com.drew.metadata.file.FileSystemMetadataReader} records in the {@link FileSystemDirectory}. A file which
+ * changes therefore misses the cache, though a change which preserves both the length and modification time of a
+ * file will not be noticed.
+ * <p>
+ * Metadata is held in the form produced by {@link MetadataCodec}, so that each call returns a new {@link Metadata}
+ * object which the caller is free to modify, and so that memory use is bounded by a number of bytes. When the
+ * in-memory tier exceeds its capacity, entries are evicted in the order chosen by an {@link EvictionPolicy}, which
+ * by default is {@link LeastRecentlyUsed}. If a directory is provided, each
+ * entry is also written there as a file, and entries which are no longer held in memory are read back from that
+ * directory. Files in that directory are never deleted by this class, except when found to be invalid.
+ * <p>
+ * This class is safe for concurrent use. Concurrent reads of the same file which both miss the cache will each
+ * extract metadata from the file.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataCache
+{
+    private static final String DISK_ENTRY_SUFFIX = ".mdc";
+
+    private final long _maxMemoryBytes;
+    @Nullable
+    private final File _directory;
+
+    /** Encoded metadata by key. Guarded by itself, as is {@link #_evictionPolicy}. */
+    @NotNull
+    private final HashMap<String, byte[]> _entries = new HashMap<String, byte[]>();
+    @NotNull
+    private final EvictionPolicy _evictionPolicy;
+    private long _memoryBytes;
+
+    private final AtomicLong _memoryHitCount = new AtomicLong();
+    private final AtomicLong _diskHitCount = new AtomicLong();
+    private final AtomicLong _missCount = new AtomicLong();
+    private final AtomicLong _evictionCount = new AtomicLong();
+
+    /**
+     * Creates a cache that holds up to <code>maxMemoryBytes</code> of encoded metadata in memory.
+     */
+    public MetadataCache(long maxMemoryBytes)
+    {
+        this(maxMemoryBytes, null);
+    }
+
+    /**
+     * Creates a cache that holds up to <code>maxMemoryBytes</code> of encoded metadata in memory, and also stores
+     * every entry as a file within <code>directory</code>, if not <code>null</code>.
+     *
+     * @throws IllegalArgumentException if <code>directory</code> does not exist and cannot be created
+     */
+    public MetadataCache(long maxMemoryBytes, @Nullable File directory)
+    {
+        this(maxMemoryBytes, directory, new LeastRecentlyUsed());
+    }
+
+    /**
+     * Creates a cache that holds up to <code>maxMemoryBytes</code> of encoded metadata in memory, evicting entries
+     * in the order chosen by <code>evictionPolicy</code>, and also stores every entry as a file within
+     * <code>directory</code>, if not <code>null</code>.
+     * <p>
+     * The policy tracks the entries of this cache, so must not be shared with another cache.
+     *
+     * @throws IllegalArgumentException if <code>directory</code> does not exist and cannot be created
+     */
+    public MetadataCache(long maxMemoryBytes, @Nullable File directory, @NotNull EvictionPolicy evictionPolicy)
+    {
+        if (maxMemoryBytes < 0)
+            throw new IllegalArgumentException("maxMemoryBytes may not be negative");
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+            throw new IllegalArgumentException("Unable to create cache directory " + directory);
+
+        _maxMemoryBytes = maxMemoryBytes;
+        _directory = directory;
+        _evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * Reads {@link Metadata} from a {@link File}, returning a copy of the cached metadata if this file has been read
+     * before and has not since changed.
+     *
+     * @param file a file from which the image data may be read.
+     * @return a populated {@link Metadata} object containing directories of tags with values and any processing errors.
+     * @throws ImageProcessingException for general processing errors.
+     */
+    @NotNull
+    public Metadata readMetadata(@NotNull File file) throws ImageProcessingException, IOException
+    {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String key = file.getCanonicalPath() + '\u0000' + length + '\u0000' + lastModified;
+
+        byte[] encoded;
+        synchronized (_entries) {
+            encoded = _entries.get(key);
+            if (encoded != null)
+                _evictionPolicy.accessed(key);
+        }
+        if (encoded != null) {
+            _memoryHitCount.incrementAndGet();
+            return MetadataCodec.decode(encoded);
+        }
+
+        if (_directory != null) {
+            Metadata metadata = readDiskEntry(key);
+            if (metadata != null) {
+                _diskHitCount.incrementAndGet();
+                return metadata;
+            }
+        }
+
+        _missCount.incrementAndGet();
+
+        Metadata metadata = ImageMetadataReader.readMetadata(file);
+
+        // Don't cache metadata that was extracted from a different version of the file than the key describes
+        if (!isUnchanged(metadata, length, lastModified))
+            return metadata;
+
+        encoded = MetadataCodec.encode(metadata);
+        put(key, encoded);
+        if (_directory != null)
+            writeDiskEntry(key, encoded);
+
+        return metadata;
+    }
+
+    /**
+     * Removes all entries from memory. Files written to the cache directory are not removed.
+     */
+    public void clear()
+    {
+        synchronized (_entries) {
+            for (String key : _entries.keySet())
+                _evictionPolicy.removed(key);
+            _entries.clear();
+            _memoryBytes = 0;
+        }
+    }
+
+    /** Gets the number of reads that were satisfied from memory. */
+    public long getMemoryHitCount()
+    {
+        return _memoryHitCount.get();
+    }
+
+    /** Gets the number of reads that were satisfied from the cache directory. */
+    public long getDiskHitCount()
+    {
+        return _diskHitCount.get();
+    }
+
+    /** Gets the number of reads that required metadata to be extracted from the file. */
+    public long getMissCount()
+    {
+        return _missCount.get();
+    }
+
+    /** Gets the number of entries evicted from memory to keep within its capacity. */
+    public long getEvictionCount()
+    {
+        return _evictionCount.get();
+    }
+
+    /** Gets the number of bytes of encoded metadata currently held in memory. */
+    public long getMemoryBytes()
+    {
+        synchronized (_entries) {
+            return _memoryBytes;
+        }
+    }
+
+    private static boolean isUnchanged(@NotNull Metadata metadata, long length, long lastModified)
+    {
+        FileSystemDirectory directory = metadata.getFirstDirectoryOfType(FileSystemDirectory.class);
+        if (directory == null)
+            return false;
+
+        Long fileSize = directory.getLongObject(FileSystemDirectory.TAG_FILE_SIZE);
+        Date modifiedDate = directory.getDate(FileSystemDirectory.TAG_FILE_MODIFIED_DATE);
+        return fileSize != null && fileSize == length
+            && modifiedDate != null && modifiedDate.getTime() == lastModified;
+    }
+
+    private void put(@NotNull String key, @NotNull byte[] encoded)
+    {
+        if (encoded.length > _maxMemoryBytes)
+            return;
+
+        synchronized (_entries) {
+            byte[] previous = _entries.put(key, encoded);
+            if (previous != null) {
+                _memoryBytes -= previous.length;
+                _evictionPolicy.removed(key);
+            }
+            _memoryBytes += encoded.length;
+            _evictionPolicy.added(key, encoded.length);
+
+            while (_memoryBytes > _maxMemoryBytes) {
+                String victim = _evictionPolicy.selectVictim();
+                byte[] evicted = _entries.remove(victim);
+                if (evicted == null)
+                    throw new IllegalStateException("Eviction policy selected an entry that is not held: " + victim);
+                _evictionPolicy.removed(victim);
+                _memoryBytes -= evicted.length;
+                _evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    //
+    // Disk tier. Each entry is a file named by a hash of its key, holding the key followed by the encoded metadata.
+    //
+
+    @Nullable
+    private Metadata readDiskEntry(@NotNull String key) throws IOException
+    {
+        File entryFile = getDiskEntryFile(key);
+        if (!entryFile.isFile())
+            return null;
+
+        byte[] encoded;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entryFile)));
+            try {
+                // A different key means the hashes of two keys collided, so this entry belongs to another file
+                if (!in.readUTF().equals(key))
+                    return null;
+                // Check the stored length before allocating, as a damaged entry may hold any value
+                int length = in.readInt();
+                if (length < 0 || length > entryFile.length()) {
+                    entryFile.delete();
+                    return null;
+                }
+                encoded = new byte[length];
+                in.readFully(encoded);
+            } finally {
+                in.close();
+            }
+        } catch (FileNotFoundException e) {
+            // Removed by another process since checking it exists
+            return null;
+        } catch (EOFException e) {
+            entryFile.delete();
+            return null;
+        } catch (UTFDataFormatException e) {
+            entryFile.delete();
+            return null;
+        }
+
+        Metadata metadata;
+        try {
+            metadata = MetadataCodec.decode(encoded);
+        } catch (IOException e) {
+            // Corrupt, or written by a different version of the codec
+            entryFile.delete();
+            return null;
+        }
+
+        put(key, encoded);
+        return metadata;
+    }
+
+    private void writeDiskEntry(@NotNull String key, @NotNull byte[] encoded) throws IOException
+    {
+        File entryFile = getDiskEntryFile(key);
+
+        // Write to a temporary file first, so that concurrent readers never see a partially written entry
+        File tempFile = File.createTempFile("entry", ".tmp", _directory);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                out.writeUTF(key);
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            } finally {
+                out.close();
+            }
+
+            if (!tempFile.renameTo(entryFile)) {
+                // Some platforms won't rename over an existing file
+                entryFile.delete();
+                tempFile.renameTo(entryFile);
+            }
+        } finally {
+            if (tempFile.exists())
+                tempFile.delete();
+        }
+    }
+
+    @NotNull
+    private File getDiskEntryFile(@NotNull String key)
+    {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-1").digest(key.getBytes(Charsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder name = new StringBuilder(hash.length * 2 + DISK_ENTRY_SUFFIX.length());
+        for (byte b : hash) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16));
+            name.append(Character.forDigit(b & 0xF, 16));
+        }
+        name.append(DISK_ENTRY_SUFFIX);
+        return new File(_directory, name.toString());
+    }
+
+    /**
+     * Chooses which entries a {@link MetadataCache} evicts from memory when it exceeds its capacity.
+     * <p>
+     * Entries are identified by opaque keys. A cache calls these methods while holding its own lock, so
+     * implementations need not be thread-safe, but should be fast.
+     */
+    public interface EvictionPolicy
+    {
+        /** Called when an entry of <code>size</code> bytes is added to memory. */
+        void added(@NotNull String key, int size);
+
+        /** Called when an entry held in memory is read. */
+        void accessed(@NotNull String key);
+
+        /** Called when an entry is removed from memory, whether by eviction or otherwise. */
+        void removed(@NotNull String key);
+
+        /**
+         * Returns the key of the entry to evict next. Only called while at least one entry is held, and must return
+         * the key of an entry that has been added and not since removed.
+         */
+        @NotNull
+        String selectVictim();
+    }
+
+    /**
+     * Evicts the entry which was least recently added or read.
+     */
+    public static class LeastRecentlyUsed implements EvictionPolicy
+    {
+        @NotNull
+        private final LinkedHashMap<String, Boolean> _keys = new LinkedHashMap<String, Boolean>(16, 0.75f, true);
+
+        public void added(@NotNull String key, int size)
+        {
+            _keys.put(key, Boolean.TRUE);
+        }
+
+        public void accessed(@NotNull String key)
+        {
+            // Moves the key to the end of the access order
+            _keys.get(key);
+        }
+
+        public void removed(@NotNull String key)
+        {
+            _keys.remove(key);
+        }
+
+        @NotNull
+        public String selectVictim()
+        {
+            return _keys.keySet().iterator().next();
+        }
+    }
+
+    /**
+     * Evicts the entry which was least recently added, regardless of how often it has been read.
+     */
+    public static class FirstInFirstOut implements EvictionPolicy
+    {
+        @NotNull
+        private final LinkedHashMap<String, Boolean> _keys = new LinkedHashMap<String, Boolean>();
+
+        public void added(@NotNull String key, int size)
+        {
+            _keys.put(key, Boolean.TRUE);
+        }
+
+        public void accessed(@NotNull String key)
+        {
+        }
+
+        public void removed(@NotNull String key)
+        {
+            _keys.remove(key);
+        }
+
+        @NotNull
+        public String selectVictim()
+        {
+            return _keys.keySet().iterator().next();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+
+/**
+ * Receives the outcome of extraction performed via
+ * {@link ImageMetadataReader#readMetadataAsync(com.drew.lang.AsyncByteSource, com.drew.metadata.MetadataFilter, java.util.concurrent.Executor, MetadataCallback)}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface MetadataCallback
+{
+    /** Called when extraction completed without an exception. */
+    void onExtractionSuccess(@NotNull Metadata metadata);
+
+    /** Called when extraction, or reading the data it required, resulted in an exception. */
+    void onExtractionError(@NotNull Throwable throwable);
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.lang.BufferBoundsException;
+import com.drew.lang.FileChannelReader;
+import com.drew.lang.FileChannelSequentialReader;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifDirectoryBase;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Locates preview images embedded within files, and copies them out without reading them onto the heap.
+ * <p>
+ * Previews are found in:
+ *
+ * <ul>
+ *     <li>JPEG files, from the thumbnail of each Exif segment</li>
+ *     <li>TIFF and TIFF-based RAW files (ARW, CR2, NEF, ORF, RW2), from any IFD holding JPEG data</li>
+ *     <li>RAF files, from the embedded JPEG and its Exif thumbnail</li>
+ *     <li>QuickTime and MP4 files, from Canon <code>CNTH</code> thumbnail atoms</li>
+ *     <li>EPS files, from the TIFF and WMF previews of the DOS EPS header</li>
+ *     <li>PSD files, from the JPEG thumbnail image resource</li>
+ * </ul>
+ *
+ * Only the structures leading to each preview are read. {@link #writePreview} then uses
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which lets the operating system copy the preview
+ * directly to a file or socket where it is able to.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class PreviewExtractor
+{
+    private static final String MIME_TYPE_JPEG = "image/jpeg";
+    private static final String MIME_TYPE_TIFF = "image/tiff";
+    private static final String MIME_TYPE_WMF = "image/wmf";
+
+    private static final int COMPRESSION_OLD_JPEG = 6;
+    private static final int COMPRESSION_JPEG = 7;
+
+    private static final int PHOTOSHOP_TAG_THUMBNAIL_OLD = 0x0409;
+    private static final int PHOTOSHOP_TAG_THUMBNAIL = 0x040C;
+
+    /**
+     * Finds the previews embedded within <code>file</code>, ordered from the largest to the smallest.
+     *
+     * @return the previews found, which is empty if the file has none or its type is not supported
+     * @throws IOException if the file could not be read
+     */
+    @NotNull
+    public static List<EmbeddedPreview> findPreviews(@NotNull final File file) throws IOException
+    {
+        InputStream stream = new BufferedInputStream(new FileInputStream(file));
+        FileType fileType;
+        try {
+            fileType = FileTypeDetector.detectFileType(stream, file.getName());
+        } finally {
+            stream.close();
+        }
+
+        List<EmbeddedPreview> previews = new ArrayList<EmbeddedPreview>();
+
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = inputStream.getChannel();
+            try {
+                switch (fileType) {
+                    case Jpeg:
+                        findJpegPreviews(channel, 0, previews);
+                        break;
+                    case Tiff:
+                    case Arw:
+                    case Cr2:
+                    case Nef:
+                    case Orf:
+                    case Rw2:
+                        findTiffPreviews(channel, 0, previews);
+                        break;
+                    case Raf:
+                        findRafPreviews(channel, previews);
+                        break;
+                    case QuickTime:
+                    case Mp4:
+                    case Crx:
+                        findAtomPreviews(channel, 0, channel.size(), null, previews);
+                        break;
+                    case Eps:
+                        findEpsPreviews(channel, previews);
+                        break;
+                    case Psd:
+                        findPsdPreviews(channel, previews);
+                        break;
+                }
+            } catch (EOFException e) {
+                // The file is truncated. Keep whatever previews were found before its end.
+            }
+        } finally {
+            inputStream.close();
+        }
+
+        Collections.sort(previews, new Comparator<EmbeddedPreview>()
+        {
+            public int compare(EmbeddedPreview o1, EmbeddedPreview o2)
+            {
+                return o1.getLength() > o2.getLength() ? -1 : o1.getLength() < o2.getLength() ? 1 : 0;
+            }
+        });
+
+        return previews;
+    }
+
+    /**
+     * Writes the largest preview embedded within <code>file</code> to <code>target</code>.
+     *
+     * @return the preview written, or <code>null</code> if the file has no previews
+     * @throws IOException if the file could not be read, or <code>target</code> could not be written
+     */
+    @Nullable
+    public static EmbeddedPreview writeLargestPreview(@NotNull final File file, @NotNull final WritableByteChannel target) throws IOException
+    {
+        List<EmbeddedPreview> previews = findPreviews(file);
+        if (previews.isEmpty())
+            return null;
+
+        EmbeddedPreview preview = previews.get(0);
+        writePreview(file, preview, target);
+        return preview;
+    }
+
+    /**
+     * Writes the bytes of <code>preview</code>, as found in <code>file</code>, to <code>target</code>.
+     * <p>
+     * <code>target</code> should be in blocking mode, as a channel that accepts no bytes is treated as an error.
+     *
+     * @throws IOException if the file could not be read, or <code>target</code> could not be written
+     */
+    public static void writePreview(@NotNull final File file, @NotNull final EmbeddedPreview preview, @NotNull final WritableByteChannel target) throws IOException
+    {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            FileChannel channel = inputStream.getChannel();
+
+            if (preview.getOffset() + preview.getLength() > channel.size())
+                throw new BufferBoundsException("Preview extends beyond the end of the file.");
+
+            long position = preview.getOffset();
+            long remaining = preview.getLength();
+            while (remaining != 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0)
+                    throw new IOException("Unable to write preview to target channel.");
+                position += transferred;
+                remaining -= transferred;
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static void findJpegPreviews(@NotNull FileChannel channel, long startPosition, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel, startPosition);
+
+        if (reader.getUInt16() != 0xFFD8)
+            return;
+
+        while (true) {
+            if (reader.getUInt8() != 0xFF)
+                return;
+
+            int marker = reader.getUInt8();
+            while (marker == 0xFF)
+                marker = reader.getUInt8();
+
+            // Metadata segments all precede the image data
+            if (marker == 0xDA || marker == 0xD9)
+                return;
+
+            // Standalone markers have no length
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7))
+                continue;
+
+            int segmentLength = reader.getUInt16() - 2;
+            if (segmentLength < 0)
+                return;
+
+            if (marker == 0xE1 && segmentLength > 6) {
+                long tiffPosition = reader.getPosition() + 6;
+                byte[] preamble = reader.getBytes(6);
+                if (new String(preamble, "ISO-8859-1").equals("Exif\0\0"))
+                    findTiffPreviews(channel, tiffPosition, previews);
+                segmentLength -= 6;
+            }
+
+            reader.skip(segmentLength);
+        }
+    }
+
+    private static void findTiffPreviews(@NotNull FileChannel channel, long tiffPosition, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        // TIFF offsets are 32-bit values relative to the TIFF header
+        if (tiffPosition > Integer.MAX_VALUE)
+            return;
+
+        Metadata metadata = new Metadata();
+        new ExifReader().extract(new FileChannelReader(channel), metadata, (int)tiffPosition);
+
+        for (Directory directory : metadata.getDirectories()) {
+            // Makernote offsets are relative to a variety of positions, so only standard IFDs are considered
+            if (!(directory instanceof ExifDirectoryBase))
+                continue;
+
+            Long offset = directory.getLongObject(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
+            Long length = directory.getLongObject(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH);
+            if (offset != null && length != null)
+                addJpegPreview(channel, directory.getName(), tiffPosition + offset, length, previews);
+
+            // RAW files commonly store their larger previews as a single JPEG strip
+            Integer compression = directory.getInteger(ExifDirectoryBase.TAG_COMPRESSION);
+            if (compression != null && (compression == COMPRESSION_OLD_JPEG || compression == COMPRESSION_JPEG)) {
+                offset = directory.getLongObject(ExifDirectoryBase.TAG_STRIP_OFFSETS);
+                length = directory.getLongObject(ExifDirectoryBase.TAG_STRIP_BYTE_COUNTS);
+                if (offset != null && length != null)
+                    addJpegPreview(channel, directory.getName(), tiffPosition + offset, length, previews);
+            }
+        }
+    }
+
+    private static void findRafPreviews(@NotNull FileChannel channel, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel);
+
+        // The header holds the position of the embedded JPEG at offset 84
+        reader.skip(84);
+        long offset = reader.getUInt32();
+        long length = reader.getUInt32();
+
+        if (addJpegPreview(channel, "RAF JPEG", offset, length, previews))
+            findJpegPreviews(channel, offset, previews);
+    }
+
+    private static void findAtomPreviews(@NotNull FileChannel channel, long start, long end, @Nullable String parentType, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        long position = start;
+
+        while (position + 8 <= end) {
+            SequentialReader reader = new FileChannelSequentialReader(channel, position, 16);
+
+            long size = reader.getUInt32();
+
+            // Canon separates the atoms within CNTH using zero-valued words
+            if (size == 0 && "CNTH".equals(parentType)) {
+                position += 4;
+                continue;
+            }
+
+            String type = reader.getString(4);
+            long headerLength = 8;
+            if (size == 1) {
+                size = reader.getInt64();
+                headerLength = 16;
+            } else if (size == 0) {
+                // The atom extends to the end of its container
+                size = end - position;
+            }
+
+            if (size < headerLength || position + size > end)
+                return;
+
+            long payloadStart = position + headerLength;
+            long payloadEnd = position + size;
+
+            if (type.equals("moov") || type.equals("udta") || type.equals("trak") || type.equals("mdia") || type.equals("CNTH")) {
+                findAtomPreviews(channel, payloadStart, payloadEnd, type, previews);
+            } else if (type.equals("CNDA") && "CNTH".equals(parentType)) {
+                addJpegPreview(channel, "Canon Thumbnail", payloadStart, payloadEnd - payloadStart, previews);
+            }
+
+            position = payloadEnd;
+        }
+    }
+
+    private static void findEpsPreviews(@NotNull FileChannel channel, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel, 0, 32);
+
+        // Only EPS files with a DOS EPS header have previews
+        if (reader.getInt32() != 0xC5D0D3C6)
+            return;
+
+        reader.setMotorolaByteOrder(false);
+        reader.skip(8);
+        long wmfOffset = reader.getUInt32();
+        long wmfSize = reader.getUInt32();
+        long tiffOffset = reader.getUInt32();
+        long tiffSize = reader.getUInt32();
+
+        addPreview(channel, "EPS TIFF Preview", MIME_TYPE_TIFF, tiffOffset, tiffSize, previews);
+        addPreview(channel, "EPS WMF Preview", MIME_TYPE_WMF, wmfOffset, wmfSize, previews);
+    }
+
+    private static void findPsdPreviews(@NotNull FileChannel channel, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel);
+
+        // File header, then the colour mode data section
+        reader.skip(26);
+        reader.skip(reader.getUInt32());
+
+        long resourcesLength = reader.getUInt32();
+        long end = reader.getPosition() + resourcesLength;
+
+        while (reader.getPosition() + 12 <= end) {
+            String signature = reader.getString(4);
+            int tagType = reader.getUInt16();
+
+            // The Pascal string name, padded to make the length even
+            int nameLength = reader.getUInt8();
+            reader.skip(nameLength % 2 == 0 ? nameLength + 1 : nameLength);
+
+            long dataLength = reader.getUInt32();
+            long dataStart = reader.getPosition();
+
+            if (signature.equals("8BIM") && (tagType == PHOTOSHOP_TAG_THUMBNAIL || tagType == PHOTOSHOP_TAG_THUMBNAIL_OLD) && dataLength > 28) {
+                // A 28 byte header precedes the image data, the first field of which is 1 for JPEG
+                int format = reader.getInt32();
+                if (format == 1)
+                    addJpegPreview(channel, "Photoshop Thumbnail", dataStart + 28, dataLength - 28, previews);
+                dataLength -= 4;
+            }
+
+            reader.skip(dataLength % 2 == 0 ? dataLength : dataLength + 1);
+        }
+    }
+
+    /**
+     * Adds a JPEG preview if its data has the structure of a JPEG image that is viewable, excluding the lossless
+     * JPEG encoding some RAW formats use for sensor data.
+     */
+    private static boolean addJpegPreview(@NotNull FileChannel channel, @NotNull String description, long offset, long length, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        if (!isValidRange(channel, offset, length) || !isViewableJpeg(channel, offset, length))
+            return false;
+
+        return addPreview(channel, description, MIME_TYPE_JPEG, offset, length, previews);
+    }
+
+    private static boolean addPreview(@NotNull FileChannel channel, @NotNull String description, @NotNull String mimeType, long offset, long length, @NotNull List<EmbeddedPreview> previews) throws IOException
+    {
+        if (!isValidRange(channel, offset, length))
+            return false;
+
+        // The same data may be referenced from more than one place
+        for (EmbeddedPreview preview : previews) {
+            if (preview.getOffset() == offset)
+                return false;
+        }
+
+        previews.add(new EmbeddedPreview(description, mimeType, offset, length));
+        return true;
+    }
+
+    private static boolean isValidRange(@NotNull FileChannel channel, long offset, long length) throws IOException
+    {
+        return offset >= 0 && length > 0 && offset + length <= channel.size();
+    }
+
+    private static boolean isViewableJpeg(@NotNull FileChannel channel, long offset, long length) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel, offset, 512);
+        long end = offset + length;
+
+        try {
+            if (reader.getUInt16() != 0xFFD8)
+                return false;
+
+            while (reader.getPosition() + 4 <= end) {
+                if (reader.getUInt8() != 0xFF)
+                    return false;
+
+                int marker = reader.getUInt8();
+                while (marker == 0xFF)
+                    marker = reader.getUInt8();
+
+                // The start of frame marker determines the encoding. DHT, JPG and DAC share its range.
+                if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC)
+                    return marker == 0xC0 || marker == 0xC1 || marker == 0xC2;
+
+                if (marker == 0xDA || marker == 0xD9)
+                    return false;
+
+                if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7))
+                    continue;
+
+                int segmentLength = reader.getUInt16() - 2;
+                if (segmentLength < 0)
+                    return false;
+
+                reader.skip(segmentLength);
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+
+        return false;
+    }
+
+    private PreviewExtractor() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
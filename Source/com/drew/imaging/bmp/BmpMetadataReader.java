@@ -54,7 +54,13 @@ public class BmpMetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
-        new BmpReader().extract(new StreamReader(inputStream), metadata);
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
+        new BmpReader().extract(new StreamReader(inputStream), metadata);
+        metadata.complete();
+    }
 }
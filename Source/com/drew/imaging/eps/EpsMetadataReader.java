@@ -37,7 +37,13 @@ public class EpsMetadataReader {
     public static Metadata readMetadata(@NotNull InputStream inputStream) throws IOException
     {
         Metadata metadata = new Metadata();
-        new EpsReader().extract(inputStream, metadata);
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream) throws IOException
+    {
+        new EpsReader().extract(inputStream, metadata);
+        metadata.complete();
+    }
 }
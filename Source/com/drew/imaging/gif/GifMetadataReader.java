@@ -57,7 +57,13 @@ public class GifMetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
-        new GifReader().extract(new StreamReader(inputStream), metadata);
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
+        new GifReader().extract(new StreamReader(inputStream), metadata);
+        metadata.complete();
+    }
 }
@@ -22,17 +22,60 @@ package com.drew.imaging.heif;
 
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.file.FileSystemMetadataReader;
 import com.drew.metadata.heif.HeifBoxHandler;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 
 public class HeifMetadataReader
 {
+    @NotNull
+    public static Metadata readMetadata(@NotNull final File file) throws IOException
+    {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        Metadata metadata;
+        try {
+            metadata = readMetadata(randomAccessFile.getChannel());
+        } finally {
+            randomAccessFile.close();
+        }
+        new FileSystemMetadataReader().read(file, metadata);
+        return metadata;
+    }
+
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
+        process(metadata, inputStream);
+        return metadata;
+    }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
         new HeifReader().extract(inputStream, new HeifBoxHandler(metadata));
+        metadata.complete();
+    }
+
+    /**
+     * Reads metadata from a {@link FileChannel}, seeking past boxes that are not needed (such as media data) rather
+     * than reading through them. The channel's position is not changed.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull FileChannel channel) throws IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, channel);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull FileChannel channel) throws IOException
+    {
+        new HeifReader().extract(channel, new HeifBoxHandler(metadata));
+        metadata.complete();
+    }
 }
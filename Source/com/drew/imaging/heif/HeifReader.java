@@ -20,8 +20,11 @@
  */
 package com.drew.imaging.heif;
 
+import com.drew.lang.FileChannelSequentialReader;
 import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.heif.HeifBoxTypes;
 import com.drew.metadata.heif.HeifContainerTypes;
 import com.drew.metadata.heif.HeifDirectory;
@@ -29,6 +32,7 @@ import com.drew.metadata.heif.boxes.Box;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -38,46 +42,96 @@ public class HeifReader
     private static final Set<String> ACCEPTABLE_PRE_META_BOX_TYPES =
         new HashSet<String>(Arrays.asList(HeifBoxTypes.BOX_FILE_TYPE, HeifContainerTypes.BOX_METADATA));
 
+    /**
+     * The most bytes an input stream is asked to retain so that boxes preceding the meta box may be read again.
+     * Streams with more data than this before the end of the meta box must be read from a {@link FileChannel}.
+     */
+    static final int MAX_MARK_LENGTH = 64 * 1024;
+
     public void extract(InputStream inputStream, HeifHandler<?> handler)
     {
         // We need to read through the input stream to find the meta box which will tell us what handler to use
 
-        // The meta box is not necessarily the first box, so we need to mark the input stream (if we can)
-        // so we can re-read the stream with the proper handler if necessary
+        // The meta box is usually the first box after ftyp, in which case the items it locates are read from the
+        // media data box in a single pass. Otherwise we mark the input stream (if we can) at the first box that
+        // precedes meta, so we can re-read from there with the proper handler. The mark is limited to
+        // MAX_MARK_LENGTH and the first pass stops at the end of the meta box, so at most that many bytes are
+        // buffered. When more data precedes the meta box, an error is reported instead.
 
-        try {
-            boolean markSupported = false;
-            if (inputStream.markSupported()) {
-                markSupported = true;
-                inputStream.mark(inputStream.available() + 1); // +1 since we're going to read past the end of the stream by 1 byte
+        StreamReader reader = new StreamReader(inputStream);
+        reader.setMotorolaByteOrder(true);
+
+        boolean markSupported = inputStream.markSupported();
+
+        TopLevelResult result = processTopLevelBoxes(reader, handler, markSupported ? inputStream : null, markSupported);
+
+        if (result.reprocessPosition != -1 && markSupported) {
+            try {
+                inputStream.reset();
+            } catch (IOException e) {
+                addError(handler, "Unable to extract Exif data because more than " + MAX_MARK_LENGTH + " bytes preceded the end of the 'meta' box; read from a file instead");
+                return;
             }
+            reader = new StreamReader(inputStream, result.reprocessPosition);
+            processBoxes(reader, -1, result.handler);
+        } else if (result.reprocessPosition != -1) {
+            addError(handler, "Unable to extract Exif data because inputStream was not resettable and 'meta' was not first box");
+        }
+    }
 
-            StreamReader reader = new StreamReader(inputStream);
-            reader.setMotorolaByteOrder(true);
+    /**
+     * Reads from a {@link FileChannel}, seeking past unwanted boxes (such as media data) rather than reading them.
+     * If the meta box is not first, the channel is simply read again from the first box that preceded it, so no
+     * buffering is needed. The channel's position is not changed.
+     */
+    public void extract(FileChannel channel, HeifHandler<?> handler) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel);
+        reader.setMotorolaByteOrder(true);
 
-            processTopLevelBoxes(inputStream, reader, -1, handler, markSupported);
-        } catch (IOException e) {
-            // Any errors should have been added to the directory
+        TopLevelResult result = processTopLevelBoxes(reader, handler, null, true);
+
+        if (result.reprocessPosition != -1) {
+            reader = new FileChannelSequentialReader(channel, result.reprocessPosition);
+            reader.setMotorolaByteOrder(true);
+            processBoxes(reader, -1, result.handler);
         }
     }
 
-    private void processTopLevelBoxes(InputStream inputStream,
-                                      SequentialReader reader,
-                                      long atomEnd,
-                                      HeifHandler<?> handler,
-                                      boolean markSupported) throws IOException
+    /**
+     * Processes the top level boxes, noting the position of the first box that needs a more specific handler
+     * but was passed before the meta box was found. Such boxes must be processed again once the handler is known.
+     * <p>
+     * If <code>markableStream</code> is given, it is marked at the start of that box so it may be reset later.
+     * If <code>canReprocess</code> is set, processing stops at the end of the meta box once such a box has been
+     * passed, as everything after it will be processed again anyway.
+     */
+    @NotNull
+    private TopLevelResult processTopLevelBoxes(@NotNull SequentialReader reader,
+                                                @NotNull HeifHandler<?> handler,
+                                                @Nullable InputStream markableStream,
+                                                boolean canReprocess)
     {
         boolean foundMetaBox = false;
-        boolean needToReset = false;
+        long reprocessPosition = -1;
         try {
-            while (atomEnd == -1 || reader.getPosition() < atomEnd) {
+            while (true) {
+
+                long boxPosition = reader.getPosition();
+
+                if (!foundMetaBox && reprocessPosition == -1 && markableStream != null) {
+                    String boxType = peekBoxType(markableStream);
+                    if (boxType != null && !ACCEPTABLE_PRE_META_BOX_TYPES.contains(boxType)) {
+                        markableStream.mark(MAX_MARK_LENGTH);
+                    }
+                }
 
                 Box box = new Box(reader);
 
-                if (!foundMetaBox && !ACCEPTABLE_PRE_META_BOX_TYPES.contains(box.type)) {
+                if (!foundMetaBox && reprocessPosition == -1 && !ACCEPTABLE_PRE_META_BOX_TYPES.contains(box.type)) {
                     // If we hit a box that needs a more specific handler (like mdat) without yet hitting the meta box,
                     // we'll need to reset the stream and use the correct handler once we find it
-                    needToReset = true;
+                    reprocessPosition = boxPosition;
                 }
 
                 if (HeifContainerTypes.BOX_METADATA.equalsIgnoreCase(box.type)) {
@@ -85,20 +139,43 @@ public class HeifReader
                 }
 
                 handler = processBox(reader, box, handler);
+
+                if (foundMetaBox && reprocessPosition != -1 && canReprocess)
+                    break;
             }
         } catch (IOException e) {
             // Currently, reader relies on IOException to end
         }
+        return new TopLevelResult(handler, reprocessPosition);
+    }
 
-        if (needToReset && markSupported) {
-            inputStream.reset();
-            reader = new StreamReader(inputStream);
-            processBoxes(reader, -1, handler);
-        } else if (needToReset) {
-            HeifDirectory heifDirectory = handler.metadata.getFirstDirectoryOfType(HeifDirectory.class);
-            if (heifDirectory != null) {
-                heifDirectory.addError("Unable to extract Exif data because inputStream was not resettable and 'meta' was not first box");
+    private static void addError(@NotNull HeifHandler<?> handler, @NotNull String message)
+    {
+        HeifDirectory heifDirectory = handler.metadata.getFirstDirectoryOfType(HeifDirectory.class);
+        if (heifDirectory != null) {
+            heifDirectory.addError(message);
+        }
+    }
+
+    /**
+     * Returns the type of the box at the stream's current position, leaving the stream positioned where it was.
+     */
+    @Nullable
+    private static String peekBoxType(@NotNull InputStream inputStream) throws IOException
+    {
+        byte[] header = new byte[8];
+        inputStream.mark(header.length);
+        try {
+            int count = 0;
+            while (count != header.length) {
+                int bytesRead = inputStream.read(header, count, header.length - count);
+                if (bytesRead == -1)
+                    return null;
+                count += bytesRead;
             }
+            return new String(header, 4, 4);
+        } finally {
+            inputStream.reset();
         }
     }
 
@@ -129,4 +206,17 @@ public class HeifReader
         }
         return handler;
     }
+
+    private static final class TopLevelResult
+    {
+        @NotNull
+        final HeifHandler<?> handler;
+        final long reprocessPosition;
+
+        TopLevelResult(@NotNull HeifHandler<?> handler, long reprocessPosition)
+        {
+            this.handler = handler;
+            this.reprocessPosition = reprocessPosition;
+        }
+    }
 }
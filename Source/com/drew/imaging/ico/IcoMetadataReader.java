@@ -53,7 +53,13 @@ public class IcoMetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
-        new IcoReader().extract(new StreamReader(inputStream), metadata);
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
+        new IcoReader().extract(new StreamReader(inputStream), metadata);
+        metadata.complete();
+    }
 }
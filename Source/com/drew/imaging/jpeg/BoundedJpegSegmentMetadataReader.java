@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * A {@link JpegSegmentMetadataReader} which uses only a limited number of segments, such as the single segment
+ * carrying a particular preamble.
+ * <p>
+ * A {@link JpegReaderPlan} whose readers all implement this interface stops reading JPEG data once each reader has
+ * received the segments it uses, rather than continuing to the image data. Readers which only implement
+ * {@link JpegSegmentMetadataReader} are assumed to use every segment of their types.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface BoundedJpegSegmentMetadataReader extends JpegSegmentMetadataReader
+{
+    /**
+     * Gets the number of segments this reader uses, across all of its segment types. Only segments for which
+     * {@link #isSegmentUsed} returns <code>true</code> are counted.
+     */
+    int getMaxSegmentCount();
+
+    /**
+     * Gets whether this reader would extract metadata from <code>segment</code>, for example because the segment
+     * begins with the expected preamble.
+     *
+     * @param segment the segment's data, excluding its marker and length
+     * @param segmentType the segment's type, which is one of those returned by {@link #getSegmentTypes()}
+     */
+    boolean isSegmentUsed(@NotNull JpegSegment segment, @NotNull JpegSegmentType segmentType);
+}
@@ -23,29 +23,43 @@ package com.drew.imaging.jpeg;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
+import com.drew.metadata.adobe.AdobeJpegDirectory;
 import com.drew.metadata.adobe.AdobeJpegReader;
 import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.file.FileSystemMetadataReader;
+import com.drew.metadata.icc.IccDirectory;
 import com.drew.metadata.icc.IccReader;
+import com.drew.metadata.iptc.IptcDirectory;
 import com.drew.metadata.iptc.IptcReader;
+import com.drew.metadata.jfif.JfifDirectory;
 import com.drew.metadata.jfif.JfifReader;
+import com.drew.metadata.jfxx.JfxxDirectory;
 import com.drew.metadata.jfxx.JfxxReader;
+import com.drew.metadata.jpeg.HuffmanTablesDirectory;
+import com.drew.metadata.jpeg.JpegCommentDirectory;
 import com.drew.metadata.jpeg.JpegCommentReader;
 import com.drew.metadata.jpeg.JpegDhtReader;
+import com.drew.metadata.jpeg.JpegDirectory;
 import com.drew.metadata.jpeg.JpegDnlReader;
 import com.drew.metadata.jpeg.JpegReader;
+import com.drew.metadata.photoshop.DuckyDirectory;
 import com.drew.metadata.photoshop.DuckyReader;
 import com.drew.metadata.photoshop.PhotoshopReader;
+import com.drew.metadata.xmp.XmpDirectory;
 import com.drew.metadata.xmp.XmpReader;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Obtains all available metadata from JPEG formatted files.
@@ -70,6 +84,109 @@ public class JpegMetadataReader
             new JpegDnlReader()
     );
 
+    /** The type of directory produced by each of {@link #ALL_READERS} that produces a single type. */
+    private static final Map<Class<?>, Class<? extends Directory>> DIRECTORY_TYPE_BY_READER_TYPE = new HashMap<Class<?>, Class<? extends Directory>>();
+
+    /** The packages of the directories produced by the Exif reader, including those of data embedded within Exif. */
+    private static final String[] EXIF_READER_PACKAGE_NAMES = {
+            "com.drew.metadata.exif",
+            "com.drew.metadata.exif.makernotes",
+            "com.drew.metadata.icc",
+            "com.drew.metadata.iptc",
+            "com.drew.metadata.photoshop",
+            "com.drew.metadata.xmp"
+    };
+
+    /**
+     * The packages of the directories produced by the Photoshop reader, including those of data embedded within
+     * Photoshop resources. Exif resources in JPEG files repeat the APP1 segment's Exif data, so the Photoshop reader
+     * is not used when only Exif data is included.
+     */
+    private static final String[] PHOTOSHOP_READER_PACKAGE_NAMES = {
+            "com.drew.metadata.icc",
+            "com.drew.metadata.iptc",
+            "com.drew.metadata.photoshop",
+            "com.drew.metadata.xmp"
+    };
+
+    static {
+        DIRECTORY_TYPE_BY_READER_TYPE.put(JpegReader.class, JpegDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(JpegCommentReader.class, JpegCommentDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(JfifReader.class, JfifDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(JfxxReader.class, JfxxDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(XmpReader.class, XmpDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(IccReader.class, IccDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(DuckyReader.class, DuckyDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(IptcReader.class, IptcDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(AdobeJpegReader.class, AdobeJpegDirectory.class);
+        DIRECTORY_TYPE_BY_READER_TYPE.put(JpegDhtReader.class, HuffmanTablesDirectory.class);
+        // The DNL segment updates the image height held in the JpegDirectory
+        DIRECTORY_TYPE_BY_READER_TYPE.put(JpegDnlReader.class, JpegDirectory.class);
+    }
+
+    /** The plan for {@link #ALL_READERS}, compiled once rather than on every call. */
+    private static final JpegReaderPlan ALL_READERS_PLAN = new JpegReaderPlan(ALL_READERS);
+
+    /**
+     * Prepares <code>readers</code> for repeated use. The returned plan may be passed wherever readers are accepted,
+     * avoiding the work of determining the segment types each reader requires on every call.
+     *
+     * @param readers the readers to use, or <code>null</code> for {@link #ALL_READERS}.
+     */
+    @NotNull
+    public static JpegReaderPlan compile(@Nullable Iterable<JpegSegmentMetadataReader> readers)
+    {
+        if (readers == null || readers == ALL_READERS)
+            return ALL_READERS_PLAN;
+        if (readers instanceof JpegReaderPlan)
+            return (JpegReaderPlan)readers;
+        return new JpegReaderPlan(readers);
+    }
+
+    /**
+     * Gets the readers to use when extracting the directories and tags included by <code>filter</code>. Readers
+     * which cannot produce any included directory are omitted, so that their segments are neither retained nor
+     * processed. The Exif reader is replaced by one which skips tags that are not included, and which stops once
+     * all requested tags have been found. The XMP reader is replaced by one which extracts only the XMP properties
+     * the filter includes, if any. Directories of other types are read in full.
+     *
+     * @param filter the filter to apply, or <code>null</code> for {@link #ALL_READERS}.
+     */
+    @NotNull
+    public static Iterable<JpegSegmentMetadataReader> getReaders(@Nullable MetadataFilter filter)
+    {
+        if (filter == null)
+            return ALL_READERS;
+
+        List<JpegSegmentMetadataReader> readers = new ArrayList<JpegSegmentMetadataReader>();
+        for (JpegSegmentMetadataReader reader : ALL_READERS) {
+            if (!isReaderIncluded(reader, filter))
+                continue;
+            if (reader instanceof ExifReader)
+                readers.add(new ExifReader(filter));
+            else if (reader instanceof XmpReader)
+                readers.add(new XmpReader(filter));
+            else
+                readers.add(reader);
+        }
+        return readers;
+    }
+
+    private static boolean isReaderIncluded(@NotNull JpegSegmentMetadataReader reader, @NotNull MetadataFilter filter)
+    {
+        Class<? extends Directory> directoryType = DIRECTORY_TYPE_BY_READER_TYPE.get(reader.getClass());
+        if (directoryType != null)
+            return filter.isDirectoryIncluded(directoryType);
+
+        // Exif and Photoshop data may embed IPTC, ICC, XMP and each other
+        String[] packageNames = reader instanceof PhotoshopReader ? PHOTOSHOP_READER_PACKAGE_NAMES : EXIF_READER_PACKAGE_NAMES;
+        for (String packageName : packageNames) {
+            if (filter.isPackageIncluded(packageName))
+                return true;
+        }
+        return false;
+    }
+
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
@@ -111,29 +228,19 @@ public class JpegMetadataReader
 
     public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream, @Nullable Iterable<JpegSegmentMetadataReader> readers) throws JpegProcessingException, IOException
     {
-        if (readers == null)
-            readers = ALL_READERS;
-
-        Set<JpegSegmentType> segmentTypes = new HashSet<JpegSegmentType>();
-        for (JpegSegmentMetadataReader reader : readers) {
-            for (JpegSegmentType type : reader.getSegmentTypes()) {
-                segmentTypes.add(type);
-            }
-        }
+        JpegReaderPlan plan = compile(readers);
 
-        JpegSegmentData segmentData = JpegSegmentReader.readSegments(new StreamReader(inputStream), segmentTypes);
+        JpegSegmentData segmentData = plan.readSegments(new StreamReader(inputStream));
 
-        processJpegSegmentData(metadata, readers, segmentData);
+        plan.processSegments(metadata, segmentData);
+        metadata.complete();
     }
 
     public static void processJpegSegmentData(Metadata metadata, Iterable<JpegSegmentMetadataReader> readers, JpegSegmentData segmentData)
     {
         // Pass the appropriate byte arrays to each reader.
-        for (JpegSegmentMetadataReader reader : readers) {
-            for (JpegSegmentType segmentType : reader.getSegmentTypes()) {
-                reader.readJpegSegments(segmentData.getSegments(segmentType), metadata, segmentType);
-            }
-        }
+        compile(readers).processSegments(metadata, segmentData);
+        metadata.complete();
     }
 
     private JpegMetadataReader() throws Exception
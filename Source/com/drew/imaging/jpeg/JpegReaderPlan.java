@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.jpeg;
+
+import com.drew.imaging.ExtractionMetrics;
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+import com.drew.metadata.Metadata;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A set of {@link JpegSegmentMetadataReader}s prepared for repeated use, as returned by
+ * {@link JpegMetadataReader#compile(Iterable)}.
+ * <p>
+ * The segment types required by the readers are held as a table indexed by marker byte, so that reading a JPEG
+ * needs no per-file collections, nor boxing of marker bytes. The calls to make on the readers, one for each
+ * reader and segment type, are held in a list in the order the readers were given, which determines the order
+ * in which directories are added to {@link Metadata}.
+ * <p>
+ * If every reader is a {@link BoundedJpegSegmentMetadataReader}, reading stops once each has received the segments
+ * it uses. For example, a plan of only an Exif reader stops after the first Exif APP1 segment, even if XMP APP1
+ * segments precede it.
+ * <p>
+ * Readers implementing {@link SlicedJpegSegmentMetadataReader} are given segments in place, within the buffers they
+ * were read into. Other readers are given arrays, copied where segments share a buffer.
+ * <p>
+ * A plan is itself an <code>Iterable</code> of its readers, so it may be passed wherever readers are accepted.
+ * Instances are immutable and may be shared between threads.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public final class JpegReaderPlan implements Iterable<JpegSegmentMetadataReader>
+{
+    @NotNull
+    private final List<JpegSegmentMetadataReader> _readers;
+
+    /** Whether each marker byte (as an unsigned index) is required by any reader. */
+    @NotNull
+    private final boolean[] _requiredMarkers = new boolean[256];
+
+    @NotNull
+    private final JpegSegmentMetadataReader[] _dispatchReaders;
+    @NotNull
+    private final JpegSegmentType[] _dispatchSegmentTypes;
+
+    /** The readers which limit the segments they use, or <code>null</code> if any reader does not. */
+    @Nullable
+    private final BoundedJpegSegmentMetadataReader[] _boundedReaders;
+    /** For each of {@link #_boundedReaders}, whether it uses segments with each marker byte. */
+    @Nullable
+    private final boolean[][] _boundedReaderMarkers;
+
+    JpegReaderPlan(@NotNull Iterable<JpegSegmentMetadataReader> readers)
+    {
+        List<JpegSegmentMetadataReader> readerList = new ArrayList<JpegSegmentMetadataReader>();
+        List<JpegSegmentMetadataReader> dispatchReaders = new ArrayList<JpegSegmentMetadataReader>();
+        List<JpegSegmentType> dispatchSegmentTypes = new ArrayList<JpegSegmentType>();
+        List<BoundedJpegSegmentMetadataReader> boundedReaders = new ArrayList<BoundedJpegSegmentMetadataReader>();
+        boolean isBounded = true;
+
+        for (JpegSegmentMetadataReader reader : readers) {
+            readerList.add(reader);
+            if (reader instanceof BoundedJpegSegmentMetadataReader)
+                boundedReaders.add((BoundedJpegSegmentMetadataReader)reader);
+            else
+                isBounded = false;
+            for (JpegSegmentType segmentType : reader.getSegmentTypes()) {
+                _requiredMarkers[segmentType.byteValue & 0xFF] = true;
+                dispatchReaders.add(reader);
+                dispatchSegmentTypes.add(segmentType);
+            }
+        }
+
+        _readers = Collections.unmodifiableList(readerList);
+        _dispatchReaders = dispatchReaders.toArray(new JpegSegmentMetadataReader[dispatchReaders.size()]);
+        _dispatchSegmentTypes = dispatchSegmentTypes.toArray(new JpegSegmentType[dispatchSegmentTypes.size()]);
+        if (isBounded) {
+            _boundedReaders = boundedReaders.toArray(new BoundedJpegSegmentMetadataReader[boundedReaders.size()]);
+            _boundedReaderMarkers = new boolean[_boundedReaders.length][256];
+            for (int i = 0; i < _boundedReaders.length; i++) {
+                for (JpegSegmentType segmentType : _boundedReaders[i].getSegmentTypes())
+                    _boundedReaderMarkers[i][segmentType.byteValue & 0xFF] = true;
+            }
+        } else {
+            _boundedReaders = null;
+            _boundedReaderMarkers = null;
+        }
+    }
+
+    /**
+     * Gets whether any reader of this plan requires segments with the specified marker byte.
+     */
+    public boolean isRequired(byte segmentType)
+    {
+        return _requiredMarkers[segmentType & 0xFF];
+    }
+
+    /**
+     * Reads the segments required by this plan's readers, stopping once all have been read if every reader is a
+     * {@link BoundedJpegSegmentMetadataReader}.
+     *
+     * @param reader a {@link SequentialReader} from which the JPEG data will be read. It must be positioned at the
+     *               beginning of the JPEG data stream.
+     */
+    @NotNull
+    public JpegSegmentData readSegments(@NotNull SequentialReader reader) throws JpegProcessingException, IOException
+    {
+        JpegSegmentReader.SegmentSelector selector = _boundedReaders == null
+            ? new JpegSegmentReader.MarkerSelector(_requiredMarkers)
+            : new BoundedSelector();
+        return JpegSegmentReader.readSegmentData(reader, selector);
+    }
+
+    /**
+     * Passes the segments of <code>segmentData</code> to this plan's readers.
+     */
+    public void processSegments(@NotNull Metadata metadata, @NotNull JpegSegmentData segmentData)
+    {
+        ExtractionMetrics metrics = ImageMetadataReader.getMetrics();
+        long startTime = metrics == null ? 0 : System.nanoTime();
+
+        for (int i = 0; i < _dispatchReaders.length; i++) {
+            JpegSegmentMetadataReader reader = _dispatchReaders[i];
+            JpegSegmentType segmentType = _dispatchSegmentTypes[i];
+            if (reader instanceof SlicedJpegSegmentMetadataReader)
+                ((SlicedJpegSegmentMetadataReader)reader).readJpegSegmentSlices(segmentData.getSegmentSlices(segmentType), metadata, segmentType);
+            else
+                reader.readJpegSegments(segmentData.getSegments(segmentType), metadata, segmentType);
+        }
+
+        if (metrics != null)
+            metrics.onStage(ExtractionMetrics.Stage.JPEG_SEGMENT_PROCESSING, System.nanoTime() - startTime);
+    }
+
+    @NotNull
+    public Iterator<JpegSegmentMetadataReader> iterator()
+    {
+        return _readers.iterator();
+    }
+
+    /**
+     * Returns the segments required by this plan's readers, until each bounded reader has received the number of
+     * segments it uses.
+     */
+    private class BoundedSelector implements JpegSegmentReader.SegmentSelector
+    {
+        @NotNull
+        private final int[] _remainingCounts;
+        private int _pendingReaderCount;
+
+        BoundedSelector()
+        {
+            assert(_boundedReaders != null);
+            _remainingCounts = new int[_boundedReaders.length];
+            for (int i = 0; i < _boundedReaders.length; i++) {
+                _remainingCounts[i] = _boundedReaders[i].getMaxSegmentCount();
+                if (_remainingCounts[i] > 0)
+                    _pendingReaderCount++;
+            }
+        }
+
+        public boolean isRequired(byte segmentType)
+        {
+            return _requiredMarkers[segmentType & 0xFF];
+        }
+
+        public void addSegment(byte segmentType, @NotNull JpegSegment segment)
+        {
+            assert(_boundedReaders != null && _boundedReaderMarkers != null);
+            JpegSegmentType type = JpegSegmentType.fromByte(segmentType);
+            if (type == null)
+                return;
+
+            for (int i = 0; i < _remainingCounts.length; i++) {
+                if (_remainingCounts[i] == 0 || !_boundedReaderMarkers[i][segmentType & 0xFF] || !_boundedReaders[i].isSegmentUsed(segment, type))
+                    continue;
+                if (--_remainingCounts[i] == 0)
+                    _pendingReaderCount--;
+            }
+        }
+
+        public boolean isComplete()
+        {
+            return _pendingReaderCount == 0;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The data of a single JPEG segment, excluding its marker and length, held as a range of a byte array which may be
+ * shared with other segments.
+ * <p>
+ * {@link JpegSegmentReader} packs the segments it reads into a small number of shared buffers rather than allocating
+ * an array per segment. A {@link SlicedJpegSegmentMetadataReader} reads segments in place via this class, whereas
+ * byte arrays returned by {@link JpegSegmentData#getSegment(JpegSegmentType)} and friends are copied from the
+ * shared buffer when the segment does not span the whole array.
+ * <p>
+ * The array is not copied and must not be modified.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public final class JpegSegment
+{
+    @NotNull
+    private final byte[] _buffer;
+    private final int _offset;
+    private final int _length;
+
+    /**
+     * Creates a segment spanning the whole of <code>bytes</code>.
+     */
+    public JpegSegment(@NotNull byte[] bytes)
+    {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Creates a segment spanning <code>length</code> bytes of <code>buffer</code> from <code>offset</code>.
+     */
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public JpegSegment(@NotNull byte[] buffer, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || (long)offset + length > buffer.length)
+            throw new IllegalArgumentException("Segment range must lie within the buffer");
+
+        _buffer = buffer;
+        _offset = offset;
+        _length = length;
+    }
+
+    /**
+     * Wraps each of <code>segments</code> in a {@link JpegSegment} spanning the whole array, as needed to implement
+     * {@link SlicedJpegSegmentMetadataReader#readJpegSegments} in terms of
+     * {@link SlicedJpegSegmentMetadataReader#readJpegSegmentSlices}.
+     */
+    @NotNull
+    public static List<JpegSegment> fromByteArrays(@NotNull Iterable<byte[]> segments)
+    {
+        List<JpegSegment> slices = new ArrayList<JpegSegment>();
+        for (byte[] segmentBytes : segments)
+            slices.add(new JpegSegment(segmentBytes));
+        return slices;
+    }
+
+    /**
+     * Gets the array holding this segment's data, which may hold other data before and after it.
+     */
+    @NotNull
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP", justification = "Design intent")
+    public byte[] getBuffer()
+    {
+        return _buffer;
+    }
+
+    /**
+     * Gets the index within {@link #getBuffer()} of this segment's first byte.
+     */
+    public int getOffset()
+    {
+        return _offset;
+    }
+
+    /**
+     * Gets the number of bytes in this segment.
+     */
+    public int getLength()
+    {
+        return _length;
+    }
+
+    /**
+     * Gets whether this segment's data begins with the specified ASCII text.
+     *
+     * @param preamble the expected text
+     * @param ignoreCase whether ASCII letters are compared without regard to case
+     */
+    public boolean startsWith(@NotNull String preamble, boolean ignoreCase)
+    {
+        if (_length < preamble.length())
+            return false;
+
+        for (int i = 0; i < preamble.length(); i++) {
+            char expected = preamble.charAt(i);
+            char actual = (char)(_buffer[_offset + i] & 0xFF);
+            if (actual != expected && (!ignoreCase || Character.toLowerCase(actual) != Character.toLowerCase(expected)))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets this segment's data as an array of its own. The buffer is returned as is if the segment spans all of it,
+     * otherwise the segment's range is copied.
+     */
+    @NotNull
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP", justification = "Design intent")
+    public byte[] toByteArray()
+    {
+        if (_offset == 0 && _length == _buffer.length)
+            return _buffer;
+
+        byte[] bytes = new byte[_length];
+        System.arraycopy(_buffer, _offset, bytes, 0, _length);
+        return bytes;
+    }
+}
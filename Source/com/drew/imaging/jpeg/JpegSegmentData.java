@@ -36,6 +36,9 @@ import java.util.*;
  * Each segment type may contain multiple entries. Conceptually the model is:
  * <code>Map&lt;JpegSegmentType, Collection&lt;byte[]&gt;&gt;</code>. This class provides
  * convenience methods around that structure.
+ * <p>
+ * Segments are held as {@link JpegSegment} ranges, which may share a buffer. Use {@link #getSegmentSlices} to read
+ * them in place; the methods returning <code>byte[]</code> copy any segment that does not span its whole buffer.
  *
  * @author Drew Noakes https://drewnoakes.com
  */
@@ -43,7 +46,9 @@ public class JpegSegmentData
 {
     // TODO key this on JpegSegmentType rather than Byte, and hopefully lose much of the use of 'byte' with this class
     @NotNull
-    private final HashMap<Byte, List<byte[]>> _segmentDataMap = new HashMap<Byte, List<byte[]>>(10);
+    private final HashMap<Byte, List<JpegSegment>> _segmentDataMap = new HashMap<Byte, List<JpegSegment>>(10);
+
+    private long _stopPosition = -1;
 
     /**
      * Adds segment bytes to the collection.
@@ -54,7 +59,33 @@ public class JpegSegmentData
     @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection"})
     public void addSegment(byte segmentType, @NotNull byte[] segmentBytes)
     {
-        getOrCreateSegmentList(segmentType).add(segmentBytes);
+        addSegment(segmentType, new JpegSegment(segmentBytes));
+    }
+
+    /**
+     * Adds a segment to the collection.
+     *
+     * @param segmentType the type of the segment being added
+     * @param segment     the segment being added, whose buffer may be shared with other segments
+     */
+    @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection"})
+    public void addSegment(byte segmentType, @NotNull JpegSegment segment)
+    {
+        getOrCreateSegmentList(segmentType).add(segment);
+    }
+
+    /**
+     * Gets the position within the source data at which {@link JpegSegmentReader} stopped reading, or -1 if
+     * unknown. No data beyond this position was read.
+     */
+    public long getStopPosition()
+    {
+        return _stopPosition;
+    }
+
+    void setStopPosition(long stopPosition)
+    {
+        _stopPosition = stopPosition;
     }
 
     /**
@@ -125,10 +156,10 @@ public class JpegSegmentData
     @Nullable
     public byte[] getSegment(byte segmentType, int occurrence)
     {
-        final List<byte[]> segmentList = getSegmentList(segmentType);
+        final List<JpegSegment> segmentList = getSegmentList(segmentType);
 
         return segmentList != null && segmentList.size() > occurrence
-                ? segmentList.get(occurrence)
+                ? segmentList.get(occurrence).toByteArray()
                 : null;
     }
 
@@ -153,24 +184,44 @@ public class JpegSegmentData
     @NotNull
     public Iterable<byte[]> getSegments(byte segmentType)
     {
-        final List<byte[]> segmentList = getSegmentList(segmentType);
-        return segmentList == null ? new ArrayList<byte[]>() : segmentList;
+        final List<JpegSegment> segmentList = getSegmentList(segmentType);
+        if (segmentList == null)
+            return Collections.<byte[]>emptyList();
+
+        List<byte[]> segments = new ArrayList<byte[]>(segmentList.size());
+        for (JpegSegment segment : segmentList)
+            segments.add(segment.toByteArray());
+        return segments;
+    }
+
+    /**
+     * Returns all instances of a given JPEG segment, without copying their data.  If no instances exist, an empty
+     * sequence is returned.
+     *
+     * @param segmentType identifies the required segment
+     * @return zero or more segments, whose buffers may be shared with other segments
+     */
+    @NotNull
+    public Iterable<JpegSegment> getSegmentSlices(@NotNull JpegSegmentType segmentType)
+    {
+        final List<JpegSegment> segmentList = getSegmentList(segmentType.byteValue);
+        return segmentList == null ? Collections.<JpegSegment>emptyList() : segmentList;
     }
 
     @Nullable
-    private List<byte[]> getSegmentList(byte segmentType)
+    private List<JpegSegment> getSegmentList(byte segmentType)
     {
         return _segmentDataMap.get(segmentType);
     }
 
     @NotNull
-    private List<byte[]> getOrCreateSegmentList(byte segmentType)
+    private List<JpegSegment> getOrCreateSegmentList(byte segmentType)
     {
-        List<byte[]> segmentList;
+        List<JpegSegment> segmentList;
         if (_segmentDataMap.containsKey(segmentType)) {
             segmentList = _segmentDataMap.get(segmentType);
         } else {
-            segmentList = new ArrayList<byte[]>();
+            segmentList = new ArrayList<JpegSegment>();
             _segmentDataMap.put(segmentType, segmentList);
         }
         return segmentList;
@@ -195,7 +246,7 @@ public class JpegSegmentData
      */
     public int getSegmentCount(byte segmentType)
     {
-        final List<byte[]> segmentList = getSegmentList(segmentType);
+        final List<JpegSegment> segmentList = getSegmentList(segmentType);
         return segmentList == null ? 0 : segmentList.size();
     }
 
@@ -222,7 +273,7 @@ public class JpegSegmentData
     @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection"})
     public void removeSegmentOccurrence(byte segmentType, int occurrence)
     {
-        final List<byte[]> segmentList = _segmentDataMap.get(segmentType);
+        final List<JpegSegment> segmentList = _segmentDataMap.get(segmentType);
         segmentList.remove(occurrence);
     }
 
@@ -20,6 +20,8 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.imaging.ExtractionMetrics;
+import com.drew.imaging.ImageMetadataReader;
 import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
@@ -28,8 +30,7 @@ import com.drew.lang.annotations.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * Performs read functions of JPEG files, returning specific file segments.
@@ -37,6 +38,9 @@ import java.util.Set;
  * JPEG files are composed of a sequence of consecutive JPEG 'segments'. Each is identified by one of a set of byte
  * values, modelled in the {@link JpegSegmentType} enumeration. Use <code>readSegments</code> to read out the some
  * or all segments into a {@link JpegSegmentData} object, from which the raw JPEG segment byte arrays may be accessed.
+ * <p>
+ * Short segments are packed into shared buffers, so that a typical file's tables and small application segments
+ * need only one or two allocations between them. Each segment is exposed as a {@link JpegSegment} range.
  *
  * @author Drew Noakes https://drewnoakes.com
  */
@@ -57,6 +61,12 @@ public class JpegSegmentReader
      */
     private static final byte MARKER_EOI = (byte) 0xD9;
 
+    /**
+     * The size of the buffers into which segments shorter than this are packed. Longer segments are given arrays of
+     * their own, which are then exact in length and need never be copied.
+     */
+    private static final int SHARED_BUFFER_LENGTH = 8 * 1024;
+
     /**
      * Processes the provided JPEG data, and extracts the specified JPEG segments into a {@link JpegSegmentData} object.
      * <p>
@@ -80,6 +90,32 @@ public class JpegSegmentReader
         }
     }
 
+    /**
+     * Processes the provided JPEG data, and extracts up to a maximum number of occurrences of each of the specified
+     * JPEG segment types into a {@link JpegSegmentData} object.
+     * <p>
+     * Reading stops as soon as the maximum number of occurrences of every requested segment type has been read, so
+     * the remainder of the file need not be read. Use {@link Integer#MAX_VALUE} where all occurrences of a segment
+     * type are required.
+     *
+     * @param file a {@link File} from which the JPEG data will be read.
+     * @param maxOccurrences the JPEG segments types that are to be returned, mapped to the number of occurrences of
+     *                       each that are required.
+     */
+    @NotNull
+    public static JpegSegmentData readRequiredSegments(@NotNull File file, @NotNull Map<JpegSegmentType, Integer> maxOccurrences) throws JpegProcessingException, IOException
+    {
+        FileInputStream stream = null;
+        try {
+            stream = new FileInputStream(file);
+            return readRequiredSegments(new StreamReader(stream), maxOccurrences);
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
     /**
      * Processes the provided JPEG data, and extracts the specified JPEG segments into a {@link JpegSegmentData} object.
      * <p>
@@ -92,6 +128,88 @@ public class JpegSegmentReader
      */
     @NotNull
     public static JpegSegmentData readSegments(@NotNull final SequentialReader reader, @Nullable Iterable<JpegSegmentType> segmentTypes) throws JpegProcessingException, IOException
+    {
+        if (segmentTypes == null)
+            return readSegmentData(reader, null);
+
+        boolean[] requiredMarkers = new boolean[256];
+        for (JpegSegmentType segmentType : segmentTypes) {
+            requiredMarkers[segmentType.byteValue & 0xFF] = true;
+        }
+
+        return readSegmentData(reader, new MarkerSelector(requiredMarkers));
+    }
+
+    /**
+     * Processes the provided JPEG data, and extracts up to a maximum number of occurrences of each of the specified
+     * JPEG segment types into a {@link JpegSegmentData} object.
+     * <p>
+     * Reading stops as soon as the maximum number of occurrences of every requested segment type has been read, in
+     * which case <code>reader</code> is left positioned immediately after the last segment returned. The position at
+     * which reading stopped is available via {@link JpegSegmentData#getStopPosition()}, allowing callers to release
+     * the underlying stream or connection early. Use {@link Integer#MAX_VALUE} where all occurrences of a segment
+     * type are required.
+     * <p>
+     * Will not return SOS (start of scan) or EOI (end of image) segments.
+     *
+     * @param reader a {@link SequentialReader} from which the JPEG data will be read. It must be positioned at the
+     *               beginning of the JPEG data stream.
+     * @param maxOccurrences the JPEG segments types that are to be returned, mapped to the number of occurrences of
+     *                       each that are required.
+     */
+    @NotNull
+    public static JpegSegmentData readRequiredSegments(@NotNull final SequentialReader reader, @NotNull Map<JpegSegmentType, Integer> maxOccurrences) throws JpegProcessingException, IOException
+    {
+        boolean[] requiredMarkers = new boolean[256];
+        int[] remainingCounts = new int[256];
+        for (Map.Entry<JpegSegmentType, Integer> entry : maxOccurrences.entrySet()) {
+            if (entry.getValue() > 0) {
+                int marker = entry.getKey().byteValue & 0xFF;
+                requiredMarkers[marker] = true;
+                remainingCounts[marker] = entry.getValue();
+            }
+        }
+
+        return readSegmentData(reader, new CountingSelector(requiredMarkers, remainingCounts));
+    }
+
+    /**
+     * Determines which segments are returned while reading JPEG data, and when reading may stop. Instances hold the
+     * state of a single read.
+     */
+    interface SegmentSelector
+    {
+        /** Gets whether segments with the specified marker byte are to be returned. */
+        boolean isRequired(byte segmentType);
+
+        /** Receives a segment that is to be returned. */
+        void addSegment(byte segmentType, @NotNull JpegSegment segment);
+
+        /** Gets whether no further segments are required, in which case reading stops. */
+        boolean isComplete();
+    }
+
+    /**
+     * @param selector determines the segments to return and when to stop, or <code>null</code> to return all
+     *                 segments.
+     */
+    @NotNull
+    static JpegSegmentData readSegmentData(@NotNull final SequentialReader reader, @Nullable SegmentSelector selector) throws JpegProcessingException, IOException
+    {
+        ExtractionMetrics metrics = ImageMetadataReader.getMetrics();
+        if (metrics == null)
+            return scanSegments(reader, selector);
+
+        long startTime = System.nanoTime();
+        try {
+            return scanSegments(reader, selector);
+        } finally {
+            metrics.onStage(ExtractionMetrics.Stage.JPEG_SEGMENT_READING, System.nanoTime() - startTime);
+        }
+    }
+
+    @NotNull
+    private static JpegSegmentData scanSegments(@NotNull final SequentialReader reader, @Nullable SegmentSelector selector) throws JpegProcessingException, IOException
     {
         // Must be big-endian
         assert (reader.isMotorolaByteOrder());
@@ -102,17 +220,12 @@ public class JpegSegmentReader
             throw new JpegProcessingException("JPEG data is expected to begin with 0xFFD8 (ÿØ) not 0x" + Integer.toHexString(magicNumber));
         }
 
-        Set<Byte> segmentTypeBytes = null;
-        if (segmentTypes != null) {
-            segmentTypeBytes = new HashSet<Byte>();
-            for (JpegSegmentType segmentType : segmentTypes) {
-                segmentTypeBytes.add(segmentType.byteValue);
-            }
-        }
-
         JpegSegmentData segmentData = new JpegSegmentData();
 
-        do {
+        byte[] sharedBuffer = null;
+        int sharedBufferUsed = 0;
+
+        while (selector == null || !selector.isComplete()) {
             // Find the segment marker. Markers are zero or more 0xFF bytes, followed
             // by a 0xFF and then a byte not equal to 0x00 or 0xFF.
 
@@ -129,12 +242,12 @@ public class JpegSegmentReader
                 // The 'Start-Of-Scan' segment's length doesn't include the image data, instead would
                 // have to search for the two bytes: 0xFF 0xD9 (EOI).
                 // It comes last so simply return at this point
-                return segmentData;
+                break;
             }
 
             if (segmentType == MARKER_EOI) {
                 // the 'End-Of-Image' segment -- this should never be found in this fashion
-                return segmentData;
+                break;
             }
 
             // next 2-bytes are <segment-size>: [high-byte] [low-byte]
@@ -147,19 +260,112 @@ public class JpegSegmentReader
                 throw new JpegProcessingException("JPEG segment size would be less than zero");
 
             // Check whether we are interested in this segment
-            if (segmentTypeBytes == null || segmentTypeBytes.contains(segmentType)) {
-                byte[] segmentBytes = reader.getBytes(segmentLength);
-                assert (segmentLength == segmentBytes.length);
-                segmentData.addSegment(segmentType, segmentBytes);
+            if (selector == null || selector.isRequired(segmentType)) {
+                JpegSegment segment;
+                if (segmentLength >= SHARED_BUFFER_LENGTH) {
+                    segment = new JpegSegment(reader.getBytes(segmentLength));
+                } else {
+                    if (sharedBuffer == null || SHARED_BUFFER_LENGTH - sharedBufferUsed < segmentLength) {
+                        sharedBuffer = new byte[SHARED_BUFFER_LENGTH];
+                        sharedBufferUsed = 0;
+                    }
+                    reader.getBytes(sharedBuffer, sharedBufferUsed, segmentLength);
+                    segment = new JpegSegment(sharedBuffer, sharedBufferUsed, segmentLength);
+                    sharedBufferUsed += segmentLength;
+                }
+                segmentData.addSegment(segmentType, segment);
+                if (selector != null)
+                    selector.addSegment(segmentType, segment);
             } else {
                 // Skip this segment
                 if (!reader.trySkip(segmentLength)) {
                     // If skipping failed, just return the segments we found so far
-                    return segmentData;
+                    break;
                 }
             }
+        }
+
+        segmentData.setStopPosition(reader.getPosition());
+        return segmentData;
+    }
 
-        } while (true);
+    /**
+     * Returns every segment with one of a fixed set of marker bytes.
+     */
+    static class MarkerSelector implements SegmentSelector
+    {
+        @NotNull
+        private final boolean[] _requiredMarkers;
+
+        /**
+         * @param requiredMarkers indicates, for each marker byte as an unsigned index, whether segments of that type
+         *                        are to be returned. Not modified.
+         */
+        MarkerSelector(@NotNull boolean[] requiredMarkers)
+        {
+            _requiredMarkers = requiredMarkers;
+        }
+
+        public boolean isRequired(byte segmentType)
+        {
+            return _requiredMarkers[segmentType & 0xFF];
+        }
+
+        public void addSegment(byte segmentType, @NotNull JpegSegment segment)
+        {
+        }
+
+        public boolean isComplete()
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns up to a maximum number of segments with each marker byte, stopping once all have been returned.
+     */
+    private static class CountingSelector implements SegmentSelector
+    {
+        @NotNull
+        private final boolean[] _requiredMarkers;
+        @NotNull
+        private final int[] _remainingCounts;
+        private int _pendingMarkerCount;
+
+        /**
+         * @param requiredMarkers indicates, for each marker byte as an unsigned index, whether segments of that type
+         *                        are to be returned. Modified during reading.
+         * @param remainingCounts the number of further occurrences required of each required marker, where
+         *                        {@link Integer#MAX_VALUE} requires all occurrences. Modified during reading.
+         */
+        CountingSelector(@NotNull boolean[] requiredMarkers, @NotNull int[] remainingCounts)
+        {
+            _requiredMarkers = requiredMarkers;
+            _remainingCounts = remainingCounts;
+            for (boolean isRequired : requiredMarkers) {
+                if (isRequired)
+                    _pendingMarkerCount++;
+            }
+        }
+
+        public boolean isRequired(byte segmentType)
+        {
+            return _requiredMarkers[segmentType & 0xFF];
+        }
+
+        public void addSegment(byte segmentType, @NotNull JpegSegment segment)
+        {
+            int marker = segmentType & 0xFF;
+            if (_remainingCounts[marker] != Integer.MAX_VALUE && --_remainingCounts[marker] == 0) {
+                _requiredMarkers[marker] = false;
+                _pendingMarkerCount--;
+            }
+        }
+
+        public boolean isComplete()
+        {
+            return _pendingMarkerCount == 0;
+        }
     }
 
     private JpegSegmentReader() throws Exception
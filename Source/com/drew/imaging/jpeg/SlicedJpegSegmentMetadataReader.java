@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.jpeg;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+
+/**
+ * A {@link JpegSegmentMetadataReader} which reads segments in place, within the buffers they were read into, rather
+ * than from arrays of their own.
+ * <p>
+ * {@link JpegReaderPlan} passes segments to such readers via {@link #readJpegSegmentSlices}, so that segments packed
+ * into a shared buffer by {@link JpegSegmentReader} are not copied out. Implementations typically implement
+ * {@link #readJpegSegments} by wrapping each array in a {@link JpegSegment}.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface SlicedJpegSegmentMetadataReader extends JpegSegmentMetadataReader
+{
+    /**
+     * Extracts metadata from all instances of a particular JPEG segment type.
+     *
+     * @param segments the segments from which the metadata should be extracted, in the order encountered in the
+     *                 original file
+     * @param metadata the {@link Metadata} object into which extracted values should be merged
+     * @param segmentType the {@link JpegSegmentType} being read
+     */
+    void readJpegSegmentSlices(@NotNull Iterable<JpegSegment> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType);
+}
@@ -55,7 +55,13 @@ public class Mp3MetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
-        new Mp3Reader().extract(inputStream, metadata);
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
+        new Mp3Reader().extract(inputStream, metadata);
+        metadata.complete();
+    }
 }
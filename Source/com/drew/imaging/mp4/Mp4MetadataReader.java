@@ -26,9 +26,10 @@ import com.drew.metadata.file.FileSystemMetadataReader;
 import com.drew.metadata.mp4.Mp4BoxHandler;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 
 /**
  * @author Payton Garland
@@ -38,12 +39,12 @@ public class Mp4MetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull final File file) throws IOException
     {
-        InputStream inputStream = new FileInputStream(file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
         Metadata metadata;
         try {
-            metadata = readMetadata(inputStream);
+            metadata = readMetadata(randomAccessFile.getChannel());
         } finally {
-            inputStream.close();
+            randomAccessFile.close();
         }
         new FileSystemMetadataReader().read(file, metadata);
         return metadata;
@@ -53,7 +54,31 @@ public class Mp4MetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
+        process(metadata, inputStream);
+        return metadata;
+    }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
         Mp4Reader.extract(inputStream, new Mp4BoxHandler(metadata));
+        metadata.complete();
+    }
+
+    /**
+     * Reads metadata from a {@link FileChannel}, seeking past boxes that are not needed (such as media data) rather
+     * than reading through them. The channel's position is not changed.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull FileChannel channel) throws IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, channel);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull FileChannel channel) throws IOException
+    {
+        Mp4Reader.extract(channel, new Mp4BoxHandler(metadata));
+        metadata.complete();
+    }
 }
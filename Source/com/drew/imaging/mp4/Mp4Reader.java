@@ -20,12 +20,15 @@
  */
 package com.drew.imaging.mp4;
 
+import com.drew.lang.FileChannelSequentialReader;
+import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.mp4.Mp4Context;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * @author Payton Garland
@@ -44,7 +47,21 @@ public class Mp4Reader
         processBoxes(reader, -1, handler, context);
     }
 
-    private static void processBoxes(StreamReader reader, long atomEnd, Mp4Handler<?> handler, Mp4Context context)
+    /**
+     * Reads from a {@link FileChannel}, seeking past unwanted boxes (such as media data) rather than reading them.
+     * The channel's position is not changed.
+     */
+    public static void extract(@NotNull FileChannel channel, @NotNull Mp4Handler<?> handler) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel);
+        reader.setMotorolaByteOrder(true);
+
+        Mp4Context context = new Mp4Context();
+
+        processBoxes(reader, -1, handler, context);
+    }
+
+    private static void processBoxes(SequentialReader reader, long atomEnd, Mp4Handler<?> handler, Mp4Context context)
     {
         try {
             while (atomEnd == -1 || reader.getPosition() < atomEnd) {
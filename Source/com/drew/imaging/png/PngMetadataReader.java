@@ -102,7 +102,18 @@ public class PngMetadataReader
         Iterable<PngChunk> chunks = new PngChunkReader().extract(new StreamReader(inputStream), _desiredChunkTypes);
 
         Metadata metadata = new Metadata();
+        processChunks(metadata, chunks);
+        return metadata;
+    }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream) throws PngProcessingException, IOException
+    {
+        processChunks(metadata, new PngChunkReader().extract(new StreamReader(inputStream), _desiredChunkTypes));
+        metadata.complete();
+    }
 
+    private static void processChunks(@NotNull Metadata metadata, @NotNull Iterable<PngChunk> chunks)
+    {
         for (PngChunk chunk : chunks) {
             try {
                 processChunk(metadata, chunk);
@@ -110,8 +121,6 @@ public class PngMetadataReader
                 metadata.addDirectory(new ErrorDirectory("Exception reading PNG chunk: " + e.getMessage()));
             }
         }
-
-        return metadata;
     }
 
     private static void processChunk(@NotNull Metadata metadata, @NotNull PngChunk chunk) throws PngProcessingException, IOException
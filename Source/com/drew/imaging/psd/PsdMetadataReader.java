@@ -54,7 +54,13 @@ public class PsdMetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
-        new PsdReader().extract(new StreamReader(inputStream), metadata);
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
+        new PsdReader().extract(new StreamReader(inputStream), metadata);
+        metadata.complete();
+    }
 }
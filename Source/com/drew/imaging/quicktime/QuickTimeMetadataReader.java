@@ -27,6 +27,7 @@ import com.drew.metadata.file.FileSystemMetadataReader;
 import com.drew.metadata.mov.QuickTimeAtomHandler;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 
 /**
  * @author Payton Garland
@@ -36,12 +37,12 @@ public class QuickTimeMetadataReader
     @NotNull
     public static Metadata readMetadata(@NotNull final File file) throws ImageProcessingException, IOException
     {
-        InputStream inputStream = new FileInputStream(file);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
         Metadata metadata;
         try {
-            metadata = readMetadata(inputStream);
+            metadata = readMetadata(randomAccessFile.getChannel());
         } finally {
-            inputStream.close();
+            randomAccessFile.close();
         }
         new FileSystemMetadataReader().read(file, metadata);
         return metadata;
@@ -51,7 +52,31 @@ public class QuickTimeMetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream)
     {
         Metadata metadata = new Metadata();
+        process(metadata, inputStream);
+        return metadata;
+    }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream)
+    {
         QuickTimeReader.extract(inputStream, new QuickTimeAtomHandler(metadata));
+        metadata.complete();
+    }
+
+    /**
+     * Reads metadata from a {@link FileChannel}, seeking past atoms that are not needed (such as media data) rather
+     * than reading through them. The channel's position is not changed.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull FileChannel channel) throws IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, channel);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull FileChannel channel) throws IOException
+    {
+        QuickTimeReader.extract(channel, new QuickTimeAtomHandler(metadata));
+        metadata.complete();
+    }
 }
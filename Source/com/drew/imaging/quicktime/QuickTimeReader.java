@@ -20,6 +20,8 @@
  */
 package com.drew.imaging.quicktime;
 
+import com.drew.lang.FileChannelSequentialReader;
+import com.drew.lang.SequentialReader;
 import com.drew.lang.StreamReader;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.mov.QuickTimeContext;
@@ -27,6 +29,7 @@ import com.drew.metadata.mov.atoms.Atom;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * @author Payton Garland
@@ -45,7 +48,21 @@ public class QuickTimeReader
         processAtoms(reader, -1, handler, context);
     }
 
-    private static void processAtoms(StreamReader reader, long atomEnd, QuickTimeHandler<?> handler, QuickTimeContext context)
+    /**
+     * Reads from a {@link FileChannel}, seeking past unwanted atoms (such as media data) rather than reading them.
+     * The channel's position is not changed.
+     */
+    public static void extract(@NotNull FileChannel channel, @NotNull QuickTimeHandler<?> handler) throws IOException
+    {
+        SequentialReader reader = new FileChannelSequentialReader(channel);
+        reader.setMotorolaByteOrder(true);
+
+        QuickTimeContext context = new QuickTimeContext();
+
+        processAtoms(reader, -1, handler, context);
+    }
+
+    private static void processAtoms(SequentialReader reader, long atomEnd, QuickTimeHandler<?> handler, QuickTimeContext context)
     {
         try {
             while (atomEnd == -1 || reader.getPosition() < atomEnd) {
@@ -55,6 +55,13 @@ public class RafMetadataReader
 
     @NotNull
     public static Metadata readMetadata(@NotNull InputStream inputStream) throws JpegProcessingException, IOException
+    {
+        Metadata metadata = new Metadata();
+        process(metadata, inputStream);
+        return metadata;
+    }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream) throws JpegProcessingException, IOException
     {
         if (!inputStream.markSupported())
             throw new IOException("Stream must support mark/reset");
@@ -79,7 +86,7 @@ public class RafMetadataReader
             }
         }
 
-        return JpegMetadataReader.readMetadata(inputStream);
+        JpegMetadataReader.process(metadata, inputStream);
     }
 
     private RafMetadataReader() throws Exception
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging.tiff;
+
+/**
+ * A {@link TiffHandler} which may decline the values of some tags, so that {@link TiffReader} need not decode them.
+ * <p>
+ * Handlers which only implement {@link TiffHandler} receive the value of every tag.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface FilteringTiffHandler extends TiffHandler
+{
+    /**
+     * Determines whether the value of the tag with ID <code>tagId</code> in the current IFD should be read and
+     * passed to one of the <code>set*</code> methods. Returning <code>false</code> avoids decoding values that
+     * would not be used.
+     *
+     * @param tagId the tag's ID
+     * @return <code>true</code> if the tag's value should be read, otherwise <code>false</code>
+     */
+    boolean isTagIncluded(int tagId);
+}
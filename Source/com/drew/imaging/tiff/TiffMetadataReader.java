@@ -20,11 +20,13 @@
  */
 package com.drew.imaging.tiff;
 
-import com.drew.lang.RandomAccessFileReader;
+import com.drew.lang.MappedFileReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.RandomAccessStreamReader;
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
 import com.drew.metadata.exif.ExifTiffHandler;
 import com.drew.metadata.file.FileSystemMetadataReader;
 
@@ -45,7 +47,7 @@ public class TiffMetadataReader
         RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
         Metadata metadata;
         try {
-            metadata = readMetadata(new RandomAccessFileReader(randomAccessFile));
+            metadata = readMetadata(new MappedFileReader(randomAccessFile.getChannel()));
         } finally {
             randomAccessFile.close();
         }
@@ -65,10 +67,26 @@ public class TiffMetadataReader
 
     @NotNull
     public static Metadata readMetadata(@NotNull RandomAccessReader reader) throws IOException, TiffProcessingException
+    {
+        return readMetadata(reader, null);
+    }
+
+    /**
+     * Reads only the directories and tags included by <code>filter</code>, stopping once all requested tags
+     * have been found. A <code>null</code> filter extracts everything.
+     */
+    @NotNull
+    public static Metadata readMetadata(@NotNull RandomAccessReader reader, @Nullable MetadataFilter filter) throws IOException, TiffProcessingException
     {
         Metadata metadata = new Metadata();
-        ExifTiffHandler handler = new ExifTiffHandler(metadata, null);
-        new TiffReader().processTiff(reader, handler, 0);
+        process(metadata, reader, filter);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull RandomAccessReader reader, @Nullable MetadataFilter filter) throws IOException, TiffProcessingException
+    {
+        ExifTiffHandler handler = new ExifTiffHandler(metadata, null, filter);
+        new TiffReader().processTiff(reader, handler, 0);
+        metadata.complete();
+    }
 }
@@ -20,6 +20,8 @@
  */
 package com.drew.imaging.tiff;
 
+import com.drew.imaging.ExtractionMetrics;
+import com.drew.imaging.ImageMetadataReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
@@ -48,6 +50,24 @@ public class TiffReader
     public void processTiff(@NotNull final RandomAccessReader reader,
                             @NotNull final TiffHandler handler,
                             final int tiffHeaderOffset) throws TiffProcessingException, IOException
+    {
+        ExtractionMetrics metrics = ImageMetadataReader.getMetrics();
+        if (metrics == null) {
+            processHeader(reader, handler, tiffHeaderOffset);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            processHeader(reader, handler, tiffHeaderOffset);
+        } finally {
+            metrics.onStage(ExtractionMetrics.Stage.TIFF_PROCESSING, System.nanoTime() - startTime);
+        }
+    }
+
+    private void processHeader(@NotNull final RandomAccessReader reader,
+                               @NotNull final TiffHandler handler,
+                               final int tiffHeaderOffset) throws TiffProcessingException, IOException
     {
         // This must be either "MM" or "II".
         short byteOrderIdentifier = reader.getInt16(tiffHeaderOffset);
@@ -67,8 +87,8 @@ public class TiffReader
         int firstIfdOffset = reader.getInt32(4 + tiffHeaderOffset) + tiffHeaderOffset;
 
         // David Ekholm sent a digital camera image that has this problem
-        // TODO getLength should be avoided as it causes RandomAccessStreamReader to read to the end of the stream
-        if (firstIfdOffset >= reader.getLength() - 1) {
+        // Bounds checks use hasLength rather than getLength, which would cause RandomAccessStreamReader to read to the end of the stream
+        if (!reader.hasLength((long)firstIfdOffset + 2)) {
             handler.warn("First IFD offset is beyond the end of the TIFF data segment -- trying default offset");
             // First directory normally starts immediately after the offset bytes, so try that
             firstIfdOffset = tiffHeaderOffset + 2 + 2 + 4;
@@ -117,7 +137,7 @@ public class TiffReader
             // remember that we've visited this directory so that we don't visit it again later
             processedIfdOffsets.add(ifdOffset);
 
-            if (ifdOffset >= reader.getLength() || ifdOffset < 0) {
+            if (ifdOffset < 0 || !reader.hasLength((long)ifdOffset + 1)) {
                 handler.error("Ignored IFD marked to start outside data segment");
                 return;
             }
@@ -136,7 +156,7 @@ public class TiffReader
             }
 
             int dirLength = (2 + (12 * dirTagCount) + 4);
-            if (dirLength + ifdOffset > reader.getLength()) {
+            if (!reader.hasLength((long)dirLength + ifdOffset)) {
                 handler.error("Illegally sized IFD");
                 return;
             }
@@ -181,7 +201,7 @@ public class TiffReader
                 if (byteCount > 4) {
                     // If it's bigger than 4 bytes, the dir entry contains an offset.
                     final long offsetVal = reader.getUInt32(tagOffset + 8);
-                    if (offsetVal + byteCount > reader.getLength()) {
+                    if (!reader.hasLength(offsetVal + byteCount)) {
                         // Bogus pointer offset and / or byteCount value
                         handler.error("Illegal TIFF tag pointer offset");
                         continue;
@@ -192,14 +212,14 @@ public class TiffReader
                     tagValueOffset = tagOffset + 8;
                 }
 
-                if (tagValueOffset < 0 || tagValueOffset > reader.getLength()) {
+                if (tagValueOffset < 0 || !reader.hasLength(tagValueOffset)) {
                     handler.error("Illegal TIFF tag pointer offset");
                     continue;
                 }
 
                 // Check that this tag isn't going to allocate outside the bounds of the data array.
                 // This addresses an uncommon OutOfMemoryError.
-                if (byteCount < 0 || tagValueOffset + byteCount > reader.getLength()) {
+                if (byteCount < 0 || !reader.hasLength(tagValueOffset + byteCount)) {
                     handler.error("Illegal number of bytes for TIFF tag data: " + byteCount);
                     continue;
                 }
@@ -218,8 +238,9 @@ public class TiffReader
 
                 // If it wasn't an IFD pointer, allow custom tag processing to occur
                 if (!isIfdPointer && !handler.customProcessTag((int) tagValueOffset, processedIfdOffsets, tiffHeaderOffset, reader, tagId, (int) byteCount)) {
-                    // If no custom processing occurred, process the tag in the standard fashion
-                    processTag(handler, tagId, (int) tagValueOffset, (int) componentCount, formatCode, reader);
+                    // If no custom processing occurred, process the tag in the standard fashion, unless the handler will discard it
+                    if (!(handler instanceof FilteringTiffHandler) || ((FilteringTiffHandler)handler).isTagIncluded(tagId))
+                        processTag(handler, tagId, (int) tagValueOffset, (int) componentCount, formatCode, reader);
                 }
             }
 
@@ -228,7 +249,7 @@ public class TiffReader
             int nextIfdOffset = reader.getInt32(finalTagOffset);
             if (nextIfdOffset != 0) {
                 nextIfdOffset += tiffHeaderOffset;
-                if (nextIfdOffset >= reader.getLength()) {
+                if (!reader.hasLength((long)nextIfdOffset + 1)) {
                     // Last 4 bytes of IFD reference another IFD with an address that is out of bounds
                     // Note this could have been caused by jhead 1.3 cropping too much
                     return;
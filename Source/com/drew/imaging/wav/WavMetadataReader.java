@@ -58,7 +58,13 @@ public class WavMetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream) throws IOException, RiffProcessingException
     {
         Metadata metadata = new Metadata();
-        new RiffReader().processRiff(new StreamReader(inputStream), new WavRiffHandler(metadata));
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream) throws IOException, RiffProcessingException
+    {
+        new RiffReader().processRiff(new StreamReader(inputStream), new WavRiffHandler(metadata));
+        metadata.complete();
+    }
 }
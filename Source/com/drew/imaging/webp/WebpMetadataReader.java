@@ -55,7 +55,13 @@ public class WebpMetadataReader
     public static Metadata readMetadata(@NotNull InputStream inputStream) throws IOException, RiffProcessingException
     {
         Metadata metadata = new Metadata();
-        new RiffReader().processRiff(new StreamReader(inputStream), new WebpRiffHandler(metadata));
+        process(metadata, inputStream);
         return metadata;
     }
+
+    public static void process(@NotNull Metadata metadata, @NotNull InputStream inputStream) throws IOException, RiffProcessingException
+    {
+        new RiffReader().processRiff(new StreamReader(inputStream), new WebpRiffHandler(metadata));
+        metadata.complete();
+    }
 }
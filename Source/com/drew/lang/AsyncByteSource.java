@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Provides ranged access to data whose reads complete asynchronously, such as an object held in remote storage
+ * fetched by a non-blocking client.
+ * <p>
+ * This is the asynchronous counterpart of {@link ByteSource}. No thread need wait while a read is outstanding, so
+ * many reads may be in progress at once on few threads.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface AsyncByteSource
+{
+    /**
+     * Receives the outcome of a read requested via {@link AsyncByteSource#read}. Exactly one method is called, once,
+     * on any thread.
+     */
+    interface ReadHandler
+    {
+        /**
+         * Called with the bytes read, of which there must be exactly the number requested.
+         */
+        void completed(@NotNull byte[] bytes);
+
+        /**
+         * Called if the bytes could not be read.
+         */
+        void failed(@NotNull IOException exception);
+    }
+
+    /**
+     * Gets the total number of bytes available from this source. This must not block, so should be known
+     * beforehand, for example from a directory listing.
+     */
+    long getLength();
+
+    /**
+     * Starts reading <code>count</code> bytes from <code>position</code>, returning without waiting for the read to
+     * complete. The outcome is passed to <code>handler</code>, which may happen before this method returns.
+     *
+     * @param position the position within the source of the first byte to read
+     * @param count the number of bytes to read
+     * @param handler receives the bytes read, or the reason they could not be read
+     */
+    void read(long position, int count, @NotNull ReadHandler handler);
+}
@@ -39,6 +39,7 @@ public class ByteArrayReader extends RandomAccessReader
     @NotNull
     private final byte[] _buffer;
     private final int _baseOffset;
+    private final int _length;
 
     @SuppressWarnings({ "ConstantConditions" })
     @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
@@ -58,6 +59,27 @@ public class ByteArrayReader extends RandomAccessReader
 
         _buffer = buffer;
         _baseOffset = baseOffset;
+        _length = buffer.length - baseOffset;
+    }
+
+    /**
+     * Creates a reader of the <code>length</code> bytes of <code>buffer</code> from <code>baseOffset</code>, so that
+     * data before and after that range cannot be read.
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public ByteArrayReader(@NotNull byte[] buffer, int baseOffset, int length)
+    {
+        if (buffer == null)
+            throw new NullPointerException();
+        if (baseOffset < 0)
+            throw new IllegalArgumentException("Must be zero or greater");
+        if (length < 0 || (long)baseOffset + length > buffer.length)
+            throw new IllegalArgumentException("Range must lie within the buffer");
+
+        _buffer = buffer;
+        _baseOffset = baseOffset;
+        _length = length;
     }
 
     @Override
@@ -69,7 +91,7 @@ public class ByteArrayReader extends RandomAccessReader
     @Override
     public long getLength()
     {
-        return _buffer.length - _baseOffset;
+        return _length;
     }
 
     @Override
@@ -83,7 +105,7 @@ public class ByteArrayReader extends RandomAccessReader
     protected void validateIndex(int index, int bytesRequested) throws IOException
     {
         if (!isValidIndex(index, bytesRequested))
-            throw new BufferBoundsException(toUnshiftedOffset(index), bytesRequested, _buffer.length);
+            throw new BufferBoundsException(toUnshiftedOffset(index), bytesRequested, _baseOffset + _length);
     }
 
     @Override
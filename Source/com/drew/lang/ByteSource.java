@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Provides ranged access to data that is expensive to read, such as an object held in remote storage.
+ * <p>
+ * Each call to {@link #read} may be a separate request, so callers such as {@link ByteSourceReader} gather nearby
+ * reads into fewer, larger ones. Implementations need not buffer or cache data themselves.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface ByteSource
+{
+    /**
+     * Gets the total number of bytes available from this source.
+     */
+    long getLength() throws IOException;
+
+    /**
+     * Reads exactly <code>count</code> bytes starting at <code>position</code> into <code>buffer</code>.
+     *
+     * @param position the position within the source of the first byte to read
+     * @param buffer the array into which bytes are read
+     * @param offset the index within <code>buffer</code> of the first byte read
+     * @param count the number of bytes to read
+     * @throws java.io.EOFException if fewer than <code>count</code> bytes exist after <code>position</code>
+     * @throws IOException if the bytes could not be read
+     */
+    void read(long position, @NotNull byte[] buffer, int offset, int count) throws IOException;
+}
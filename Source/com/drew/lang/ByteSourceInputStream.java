@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Presents a {@link ByteSource} as an {@link InputStream}, so that it may be read by any of the format readers.
+ * <p>
+ * Data is read via a {@link ByteSourceReader}, so reads are gathered into ranged requests as described there.
+ * Skipping never fetches the bytes skipped, and {@link #mark}/{@link #reset} are supported without buffering, as
+ * the source can simply be read again from the marked position. Wrap the stream in a {@link StreamReader} where a
+ * {@link SequentialReader} is needed.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ByteSourceInputStream extends InputStream
+{
+    @NotNull
+    private final ByteSourceReader _reader;
+    private final long _length;
+    private long _position;
+    private long _markPosition;
+
+    @NotNull
+    private final byte[] _singleByte = new byte[1];
+
+    public ByteSourceInputStream(@NotNull ByteSource source) throws IOException
+    {
+        this(new ByteSourceReader(source));
+    }
+
+    public ByteSourceInputStream(@NotNull ByteSourceReader reader)
+    {
+        _reader = reader;
+        _length = reader.getLength();
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (_position >= _length)
+            return -1;
+
+        _reader.read(_position, _singleByte, 0, 1);
+        _position++;
+        return _singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(@NotNull byte[] b, int off, int len) throws IOException
+    {
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+        if (_position >= _length)
+            return -1;
+
+        int count = (int)Math.min(len, _length - _position);
+        _reader.read(_position, b, off, count);
+        _position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n)
+    {
+        if (n <= 0)
+            return 0;
+
+        long skipped = Math.min(n, _length - _position);
+        _position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available()
+    {
+        return (int)Math.min(Integer.MAX_VALUE, _length - _position);
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit)
+    {
+        _markPosition = _position;
+    }
+
+    @Override
+    public void reset()
+    {
+        _position = _markPosition;
+    }
+}
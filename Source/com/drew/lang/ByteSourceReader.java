@@ -0,0 +1,254 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides methods to read specific values from a {@link ByteSource}, with a consistent, checked exception
+ * structure for issues.
+ * <p>
+ * Data is fetched in pages of {@link #DEFAULT_PAGE_LENGTH} bytes, and the most recently used pages are retained.
+ * Reads are planned so as to make few requests of the source:
+ * <ul>
+ *     <li>The first {@link #DEFAULT_PREFETCH_LENGTH} bytes, where most formats keep their headers, are fetched along
+ *     with the first page requested from that region.</li>
+ *     <li>A read spanning several pages that are not retained fetches them with a single request, including any
+ *     retained pages that lie between them.</li>
+ *     <li>A read spanning more pages than can be retained is passed directly to the source.</li>
+ * </ul>
+ * Instances of this class are not safe for concurrent use.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ByteSourceReader extends RandomAccessReader
+{
+    public final static int DEFAULT_PAGE_LENGTH = 16 * 1024;
+    public final static int DEFAULT_MAX_PAGE_COUNT = 64;
+    public final static int DEFAULT_PREFETCH_LENGTH = 64 * 1024;
+
+    @NotNull
+    private final ByteSource _source;
+    private final long _length;
+    private final int _pageLength;
+    private final int _maxFetchPageCount;
+    private final int _prefetchPageCount;
+    private boolean _isPrefetched;
+
+    @NotNull
+    private final Map<Long, byte[]> _pages;
+
+    /** The most recently used page, checked before the cache as most reads are local to one page. */
+    private long _lastPageIndex = -1;
+    @Nullable
+    private byte[] _lastPage;
+
+    public ByteSourceReader(@NotNull ByteSource source) throws IOException
+    {
+        this(source, DEFAULT_PAGE_LENGTH, DEFAULT_MAX_PAGE_COUNT, DEFAULT_PREFETCH_LENGTH);
+    }
+
+    /**
+     * @param source the source of data
+     * @param pageLength the number of bytes in each page
+     * @param maxPageCount the maximum number of pages to retain
+     * @param prefetchLength the number of bytes at the start of the source to fetch along with the first page that
+     *                       lies within them, which is limited to half of the pages retained
+     */
+    @SuppressWarnings({ "ConstantConditions" })
+    public ByteSourceReader(@NotNull ByteSource source, int pageLength, final int maxPageCount, int prefetchLength) throws IOException
+    {
+        if (source == null)
+            throw new NullPointerException();
+        if (pageLength <= 0)
+            throw new IllegalArgumentException("pageLength must be greater than zero");
+        if (maxPageCount < 2)
+            throw new IllegalArgumentException("maxPageCount must be two or greater");
+        if (prefetchLength < 0)
+            throw new IllegalArgumentException("prefetchLength must be zero or greater");
+
+        _source = source;
+        _length = source.getLength();
+        _pageLength = pageLength;
+        // Pages fetched by a single read must all be retained until they have been copied out
+        _maxFetchPageCount = maxPageCount / 2;
+        _prefetchPageCount = (int)Math.min(_maxFetchPageCount, ((long)prefetchLength + pageLength - 1) / pageLength);
+        _pages = new LinkedHashMap<Long, byte[]>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest)
+            {
+                return size() > maxPageCount;
+            }
+        };
+    }
+
+    @Override
+    public int toUnshiftedOffset(int localOffset)
+    {
+        return localOffset;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    public byte getByte(int index) throws IOException
+    {
+        validateIndex(index, 1);
+
+        long pageIndex = index / _pageLength;
+        byte[] page = pageIndex == _lastPageIndex ? _lastPage : getPage(pageIndex);
+        assert(page != null);
+        return page[index % _pageLength];
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+        read(index, bytes, 0, count);
+        return bytes;
+    }
+
+    /**
+     * Reads <code>count</code> bytes from <code>position</code>, which may lie beyond the range of <code>int</code>
+     * indexes. The caller must ensure the range lies within the source.
+     */
+    void read(long position, @NotNull byte[] buffer, int offset, int count) throws IOException
+    {
+        assert(position >= 0 && position + count <= _length);
+
+        if (count == 0)
+            return;
+
+        long firstPage = position / _pageLength;
+        long lastPage = (position + count - 1) / _pageLength;
+
+        if (firstPage == lastPage && firstPage == _lastPageIndex) {
+            assert(_lastPage != null);
+            System.arraycopy(_lastPage, (int)(position - firstPage * _pageLength), buffer, offset, count);
+            return;
+        }
+
+        if (lastPage - firstPage + 1 > _maxFetchPageCount) {
+            // Copy any leading pages that are retained, such as those prefetched, and read the rest directly
+            long pageStart = firstPage * _pageLength;
+            byte[] page;
+            while (count != 0 && (page = _pages.get(pageStart / _pageLength)) != null) {
+                int fromIndex = (int)(position - pageStart);
+                int length = Math.min(count, page.length - fromIndex);
+                System.arraycopy(page, fromIndex, buffer, offset, length);
+                position += length;
+                offset += length;
+                count -= length;
+                pageStart += _pageLength;
+            }
+            if (count != 0)
+                _source.read(position, buffer, offset, count);
+            return;
+        }
+
+        for (long pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            if (!_pages.containsKey(pageIndex)) {
+                // Fetch through the last missing page of this read in one request
+                long lastMissingPage = lastPage;
+                while (_pages.containsKey(lastMissingPage))
+                    lastMissingPage--;
+                fetchPages(pageIndex, lastMissingPage);
+            }
+
+            byte[] page = getPage(pageIndex);
+            long pageStart = pageIndex * _pageLength;
+            int fromIndex = (int)(Math.max(position, pageStart) - pageStart);
+            int toIndex = (int)(Math.min(position + count, pageStart + page.length) - pageStart);
+            System.arraycopy(page, fromIndex, buffer, offset + (int)(pageStart + fromIndex - position), toIndex - fromIndex);
+        }
+    }
+
+    @NotNull
+    private byte[] getPage(long pageIndex) throws IOException
+    {
+        byte[] page = _pages.get(pageIndex);
+        if (page == null) {
+            fetchPages(pageIndex, pageIndex);
+            page = _pages.get(pageIndex);
+            assert(page != null);
+        }
+
+        _lastPageIndex = pageIndex;
+        _lastPage = page;
+        return page;
+    }
+
+    private void fetchPages(long firstPage, long lastPage) throws IOException
+    {
+        if (!_isPrefetched && firstPage < _prefetchPageCount) {
+            firstPage = 0;
+            lastPage = Math.max(lastPage, _prefetchPageCount - 1);
+            _isPrefetched = true;
+        }
+        lastPage = Math.min(lastPage, (_length - 1) / _pageLength);
+
+        long start = firstPage * _pageLength;
+        long end = Math.min(_length, (lastPage + 1) * _pageLength);
+
+        byte[] bytes = new byte[(int)(end - start)];
+        _source.read(start, bytes, 0, bytes.length);
+
+        for (long pageIndex = firstPage; pageIndex <= lastPage; pageIndex++) {
+            int from = (int)((pageIndex - firstPage) * _pageLength);
+            int to = Math.min(bytes.length, from + _pageLength);
+            byte[] page = new byte[to - from];
+            System.arraycopy(bytes, from, page, 0, page.length);
+            _pages.put(pageIndex, page);
+        }
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+                && index >= 0
+                && (long)index + (long)bytesRequested - 1L < _length;
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
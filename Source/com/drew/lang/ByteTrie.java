@@ -22,20 +22,29 @@ package com.drew.lang;
 
 import com.drew.lang.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Stores values using a prefix tree (aka 'trie', i.e. reTRIEval data structure).
+ * <p>
+ * Children are held in primitive arrays rather than maps, so that lookups neither box bytes nor hash. Nodes with
+ * few children, which are the majority, store parallel arrays of keys and children that are searched linearly.
+ * Nodes with many children, such as the root of a trie of file signatures, switch to an array indexed by byte value.
  *
  * @param <T> the type of value to store for byte sequences
  */
 public class ByteTrie<T>
 {
+    /** The number of children above which a node indexes its children directly by byte value. */
+    private static final int MAX_SPARSE_CHILD_COUNT = 8;
+
     /** A node in the trie. Has children and may have an associated value. */
     static class ByteTrieNode<T>
     {
-        private final Map<Byte, ByteTrieNode<T>> _children = new HashMap<Byte, ByteTrieNode<T>>();
+        /** Keys of children when sparse, in the order they were added, or <code>null</code> when dense. */
+        @Nullable
+        private byte[] _keys = new byte[0];
+        /** Children, either parallel to {@link #_keys} or indexed by unsigned byte value. */
+        private ByteTrieNode<T>[] _children = newArray(0);
+        private int _childCount;
         private T _value = null;
 
         public void setValue(T value)
@@ -44,6 +53,55 @@ public class ByteTrie<T>
                 throw new RuntimeException("Value already set for this trie node");
             _value = value;
         }
+
+        @Nullable
+        ByteTrieNode<T> getChild(byte b)
+        {
+            byte[] keys = _keys;
+            if (keys == null)
+                return _children[b & 0xFF];
+            for (int i = 0; i < _childCount; i++) {
+                if (keys[i] == b)
+                    return _children[i];
+            }
+            return null;
+        }
+
+        void addChild(byte b, ByteTrieNode<T> child)
+        {
+            assert(getChild(b) == null);
+
+            byte[] keys = _keys;
+            if (keys == null) {
+                _children[b & 0xFF] = child;
+            } else if (_childCount == MAX_SPARSE_CHILD_COUNT) {
+                ByteTrieNode<T>[] children = newArray(256);
+                for (int i = 0; i < _childCount; i++)
+                    children[keys[i] & 0xFF] = _children[i];
+                children[b & 0xFF] = child;
+                _children = children;
+                _keys = null;
+            } else {
+                if (_childCount == keys.length) {
+                    int length = Math.max(2, _childCount * 2);
+                    byte[] newKeys = new byte[length];
+                    ByteTrieNode<T>[] newChildren = newArray(length);
+                    System.arraycopy(keys, 0, newKeys, 0, _childCount);
+                    System.arraycopy(_children, 0, newChildren, 0, _childCount);
+                    _keys = keys = newKeys;
+                    _children = newChildren;
+                }
+                keys[_childCount] = b;
+                _children[_childCount] = child;
+            }
+            _childCount++;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> ByteTrieNode<T>[] newArray(int length)
+        {
+            return (ByteTrieNode<T>[])new ByteTrieNode<?>[length];
+        }
     }
 
     private final ByteTrieNode<T> _root = new ByteTrieNode<T>();
@@ -76,7 +134,7 @@ public class ByteTrie<T>
         T value = node._value;
         for (int i = offset; i < maxIndex; i++) {
             byte b = bytes[i];
-            ByteTrieNode<T> child = node._children.get(b);
+            ByteTrieNode<T> child = node.getChild(b);
             if (child == null)
                 break;
             node = child;
@@ -93,10 +151,10 @@ public class ByteTrie<T>
         ByteTrieNode<T> node = _root;
         for (byte[] part : parts) {
             for (byte b : part) {
-                ByteTrieNode<T> child = node._children.get(b);
+                ByteTrieNode<T> child = node.getChild(b);
                 if (child == null) {
                     child = new ByteTrieNode<T>();
-                    node._children.put(b, child);
+                    node.addChild(b, child);
                 }
                 node = child;
                 depth++;
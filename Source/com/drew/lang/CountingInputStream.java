@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from, and skipped over within, an underlying {@link InputStream}.
+ * <p>
+ * Mark and reset are not supported, so that bytes are never counted twice. Wrap this stream in a
+ * {@link java.io.BufferedInputStream} to support them.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class CountingInputStream extends FilterInputStream
+{
+    private long _bytesRead;
+    private long _bytesSkipped;
+
+    public CountingInputStream(@NotNull InputStream inputStream)
+    {
+        super(inputStream);
+    }
+
+    /** Gets the number of bytes read so far. */
+    public long getBytesRead()
+    {
+        return _bytesRead;
+    }
+
+    /** Gets the number of bytes skipped over so far. */
+    public long getBytesSkipped()
+    {
+        return _bytesSkipped;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int b = super.read();
+        if (b != -1)
+            _bytesRead++;
+        return b;
+    }
+
+    @Override
+    public int read(@NotNull byte[] buffer, int offset, int length) throws IOException
+    {
+        int bytesRead = super.read(buffer, offset, length);
+        if (bytesRead != -1)
+            _bytesRead += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long skipped = super.skip(n);
+        _bytesSkipped += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit)
+    {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        throw new IOException("Mark and reset are not supported");
+    }
+}
@@ -20,7 +20,17 @@
  */
 package com.drew.lang;
 
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author Drew Noakes http://drewnoakes.com
@@ -35,6 +45,32 @@ public class DateUtil
      */
     private static final long EPOCH_1_JAN_1904 = -2082844800000L;
 
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /** The earliest year parsed arithmetically, after which the Gregorian calendar applies. */
+    private static final int MIN_GREGORIAN_YEAR = 1600;
+
+    /**
+     * Date formats tried in order when a date string is not in one of the common forms understood by
+     * {@link #parseDate(String, String, TimeZone)}.
+     */
+    private static final String[] DATE_PATTERNS = {
+        "yyyy:MM:dd HH:mm:ss",
+        "yyyy:MM:dd HH:mm",
+        "yyyy-MM-dd HH:mm:ss",
+        "yyyy-MM-dd HH:mm",
+        "yyyy.MM.dd HH:mm:ss",
+        "yyyy.MM.dd HH:mm",
+        "yyyy-MM-dd'T'HH:mm:ss",
+        "yyyy-MM-dd'T'HH:mm",
+        "yyyy-MM-dd",
+        "yyyy-MM",
+        "yyyyMMdd", // as used in IPTC data
+        "yyyy" };
+
+    private static final Pattern SUBSECOND_PATTERN = Pattern.compile("(\\d\\d:\\d\\d:\\d\\d)(\\.\\d+)");
+    private static final Pattern TIME_ZONE_PATTERN = Pattern.compile("(Z|[+-]\\d\\d:\\d\\d|[+-]\\d\\d\\d\\d)$");
+
     public static boolean isValidDate(int year, int month, int day)
     {
         if (year < 1 || year > 9999 || month < 0 || month > 11)
@@ -62,4 +98,255 @@ public class DateUtil
     {
         return new Date((seconds * 1000) + EPOCH_1_JAN_1904);
     }
+
+    /**
+     * Parses a date string as found in Exif, XMP and IPTC data, such as <code>2002:01:30 23:59:59</code>,
+     * <code>2002-01-30T23:59:59.099-08:00</code> or <code>20020130</code>.
+     * <p>
+     * Common forms are parsed in a single pass without allocating intermediate objects. Other strings fall back to
+     * trying a series of {@link SimpleDateFormat} patterns. Note that the Exif 'unknown' date of
+     * <code>"    :  :     :  :  "</code> yields <code>null</code>.
+     * <p>
+     * This method is thread safe.
+     *
+     * @param dateString the string to parse
+     * @param subsecond digits following the decimal point of the seconds value, used if <code>dateString</code> has
+     *                  no subsecond information
+     * @param timeZone the time zone in which to interpret <code>dateString</code> if it has no time zone information,
+     *                 or <code>null</code> for GMT
+     * @return the parsed date, or <code>null</code> if it could not be parsed
+     */
+    @Nullable
+    public static Date parseDate(@NotNull String dateString, @Nullable String subsecond, @Nullable TimeZone timeZone)
+    {
+        final int length = dateString.length();
+
+        int year, month = 1, day = 1, hour = 0, minute = 0, second = 0;
+        int subsecondStart = -1, subsecondEnd = -1;
+        int pos;
+
+        if (length == 8 && isDigits(dateString, 0, 8)) {
+            // yyyyMMdd, as used in IPTC data
+            year = parseDigits(dateString, 0, 4);
+            month = parseDigits(dateString, 4, 2);
+            day = parseDigits(dateString, 6, 2);
+            pos = 8;
+        } else {
+            if (length < 4 || !isDigits(dateString, 0, 4))
+                return parseDateWithPatterns(dateString, subsecond, timeZone);
+            year = parseDigits(dateString, 0, 4);
+            pos = 4;
+
+            if (pos < length) {
+                char separator = dateString.charAt(pos);
+                if (separator != ':' && separator != '-' && separator != '.')
+                    return parseDateWithPatterns(dateString, subsecond, timeZone);
+                if (!isDigits(dateString, pos + 1, 2))
+                    return parseDateWithPatterns(dateString, subsecond, timeZone);
+                month = parseDigits(dateString, pos + 1, 2);
+                pos += 3;
+
+                if (pos < length) {
+                    if (dateString.charAt(pos) != separator || !isDigits(dateString, pos + 1, 2))
+                        return parseDateWithPatterns(dateString, subsecond, timeZone);
+                    day = parseDigits(dateString, pos + 1, 2);
+                    pos += 3;
+
+                    if (pos < length) {
+                        char timeSeparator = dateString.charAt(pos);
+                        if (timeSeparator != ' ' && !(timeSeparator == 'T' && separator == '-'))
+                            return parseDateWithPatterns(dateString, subsecond, timeZone);
+                        if (!isDigits(dateString, pos + 1, 2) || !isChar(dateString, pos + 3, ':') || !isDigits(dateString, pos + 4, 2))
+                            return parseDateWithPatterns(dateString, subsecond, timeZone);
+                        hour = parseDigits(dateString, pos + 1, 2);
+                        minute = parseDigits(dateString, pos + 4, 2);
+                        pos += 6;
+
+                        if (isChar(dateString, pos, ':') && isDigits(dateString, pos + 1, 2)) {
+                            second = parseDigits(dateString, pos + 1, 2);
+                            pos += 3;
+
+                            if (isChar(dateString, pos, '.') && isDigits(dateString, pos + 1, 1)) {
+                                subsecondStart = pos + 1;
+                                subsecondEnd = subsecondStart;
+                                while (isDigits(dateString, subsecondEnd, 1))
+                                    subsecondEnd++;
+                                pos = subsecondEnd;
+                            }
+                        }
+                    } else if (separator != '-') {
+                        // Only the yyyy-MM-dd form may omit the time
+                        return parseDateWithPatterns(dateString, subsecond, timeZone);
+                    }
+                } else if (separator != '-') {
+                    // Only the yyyy-MM form may omit the day
+                    return parseDateWithPatterns(dateString, subsecond, timeZone);
+                }
+            }
+        }
+
+        // Any time zone designator must follow a time, and is the only content permitted after it
+        boolean hasZone = false;
+        int zoneOffsetMinutes = 0;
+        if (pos < length) {
+            int remaining = length - pos;
+            char sign = dateString.charAt(pos);
+            if (pos <= 10) {
+                return parseDateWithPatterns(dateString, subsecond, timeZone);
+            } else if (remaining == 1 && sign == 'Z') {
+                hasZone = true;
+            } else if (remaining == 6 && (sign == '+' || sign == '-') && isDigits(dateString, pos + 1, 2) && isChar(dateString, pos + 3, ':') && isDigits(dateString, pos + 4, 2)) {
+                hasZone = true;
+                zoneOffsetMinutes = getZoneOffsetMinutes(sign, parseDigits(dateString, pos + 1, 2), parseDigits(dateString, pos + 4, 2));
+            } else if (remaining == 5 && (sign == '+' || sign == '-') && isDigits(dateString, pos + 1, 4)) {
+                hasZone = true;
+                zoneOffsetMinutes = getZoneOffsetMinutes(sign, parseDigits(dateString, pos + 1, 2), parseDigits(dateString, pos + 3, 2));
+            } else {
+                return parseDateWithPatterns(dateString, subsecond, timeZone);
+            }
+        }
+
+        // Leave out-of-range values, which are rolled over by the lenient parsing of the fallback, and dates before
+        // the Gregorian calendar was widely adopted
+        if (year < MIN_GREGORIAN_YEAR || !isValidDate(year, month - 1, day) || !isValidTime(hour, minute, second))
+            return parseDateWithPatterns(dateString, subsecond, timeZone);
+
+        long millis;
+        if (hasZone || timeZone == null) {
+            long localMillis = (daysSinceEpoch(year, month, day) * 24 + hour) * 60 * 60 * 1000 + (minute * 60 + second) * 1000L;
+            millis = localMillis - zoneOffsetMinutes * 60 * 1000L;
+        } else {
+            // The zone's offset may vary with the date, so let the calendar apply its rules
+            GregorianCalendar calendar = new GregorianCalendar(timeZone);
+            calendar.clear();
+            calendar.set(year, month - 1, day, hour, minute, second);
+            millis = calendar.getTimeInMillis();
+        }
+
+        if (subsecondStart != -1)
+            return applySubsecond(millis, dateString, subsecondStart, subsecondEnd);
+        if (subsecond != null)
+            return applySubsecond(millis, subsecond, 0, subsecond.length());
+        return new Date(millis);
+    }
+
+    /**
+     * Parses a date string by trying a series of patterns, applying any subsecond and time zone information found
+     * within it.
+     */
+    @Nullable
+    private static Date parseDateWithPatterns(@NotNull String dateString, @Nullable String subsecond, @Nullable TimeZone timeZone)
+    {
+        // if the date string has subsecond information, it supersedes the subsecond parameter
+        Matcher subsecondMatcher = SUBSECOND_PATTERN.matcher(dateString);
+        if (subsecondMatcher.find()) {
+            subsecond = subsecondMatcher.group(2).substring(1);
+            dateString = subsecondMatcher.replaceAll("$1");
+        }
+
+        // if the date string has time zone information, it supersedes the timeZone parameter
+        Matcher timeZoneMatcher = TIME_ZONE_PATTERN.matcher(dateString);
+        if (timeZoneMatcher.find()) {
+            timeZone = TimeZone.getTimeZone("GMT" + timeZoneMatcher.group().replaceAll("Z", ""));
+            dateString = timeZoneMatcher.replaceAll("");
+        }
+
+        Date date = null;
+        for (String datePattern : DATE_PATTERNS) {
+            try {
+                DateFormat parser = new SimpleDateFormat(datePattern);
+                if (timeZone != null)
+                    parser.setTimeZone(timeZone);
+                else
+                    parser.setTimeZone(TimeZone.getTimeZone("GMT")); // don't interpret zone time
+
+                date = parser.parse(dateString);
+                break;
+            } catch (ParseException ex) {
+                // simply try the next pattern
+            }
+        }
+
+        if (date == null)
+            return null;
+
+        if (subsecond == null)
+            return date;
+
+        return applySubsecond(date.getTime(), subsecond, 0, subsecond.length());
+    }
+
+    /**
+     * Adds the milliseconds represented by the digits of a fractional second to <code>millis</code>. If the digits
+     * cannot be interpreted, the date is returned unchanged.
+     */
+    @NotNull
+    private static Date applySubsecond(long millis, @NotNull String digits, int start, int end)
+    {
+        // Trailing whitespace is permitted, as some cameras pad subsecond values
+        while (end > start && digits.charAt(end - 1) <= ' ')
+            end--;
+
+        if (end == start || !isDigits(digits, start, end - start))
+            return new Date(millis);
+
+        // Truncate to millisecond precision
+        int millisecond = 0;
+        for (int i = 0; i < 3; i++) {
+            millisecond *= 10;
+            if (start + i < end)
+                millisecond += digits.charAt(start + i) - '0';
+        }
+
+        return new Date(millis + millisecond);
+    }
+
+    /**
+     * Gets the offset of a time zone designator in minutes, matching {@link TimeZone#getTimeZone(String)} in
+     * treating out-of-range values as GMT.
+     */
+    private static int getZoneOffsetMinutes(char sign, int hours, int minutes)
+    {
+        if (hours > 23 || minutes > 59)
+            return 0;
+        int offset = hours * 60 + minutes;
+        return sign == '-' ? -offset : offset;
+    }
+
+    /** Gets the number of days from 1970-01-01 to the specified date in the proleptic Gregorian calendar. */
+    private static long daysSinceEpoch(int year, int month, int day)
+    {
+        // Count years from March so that leap days fall at the end of each year
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static boolean isDigits(@NotNull String s, int start, int count)
+    {
+        if (start + count > s.length())
+            return false;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isChar(@NotNull String s, int index, char c)
+    {
+        return index < s.length() && s.charAt(index) == c;
+    }
+
+    private static int parseDigits(@NotNull String s, int start, int count)
+    {
+        int value = 0;
+        for (int i = start; i < start + count; i++)
+            value = value * 10 + (s.charAt(i) - '0');
+        return value;
+    }
 }
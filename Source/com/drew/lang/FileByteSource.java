@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link ByteSource} over a local file, using positional reads so that it may be shared across threads.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class FileByteSource implements ByteSource, Closeable
+{
+    @NotNull
+    private final FileInputStream _stream;
+    @NotNull
+    private final FileChannel _channel;
+
+    public FileByteSource(@NotNull File file) throws IOException
+    {
+        _stream = new FileInputStream(file);
+        _channel = _stream.getChannel();
+    }
+
+    public long getLength() throws IOException
+    {
+        return _channel.size();
+    }
+
+    public void read(long position, @NotNull byte[] buffer, int offset, int count) throws IOException
+    {
+        ByteBuffer target = ByteBuffer.wrap(buffer, offset, count);
+        while (target.hasRemaining()) {
+            int bytesRead = _channel.read(target, position + target.position() - offset);
+            if (bytesRead == -1)
+                throw new EOFException("End of data reached.");
+        }
+    }
+
+    public void close() throws IOException
+    {
+        _stream.close();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides methods to read specific values from a {@link FileChannel}, with a consistent, checked exception
+ * structure for issues.
+ * <p>
+ * Data is read in fixed-size pages using positional {@link FileChannel#read(ByteBuffer, long)} calls, and the most
+ * recently used pages are retained. Reading the fields of an IFD therefore costs one read per page rather than one
+ * seek and read per value, as with {@link RandomAccessFileReader}.
+ * <p>
+ * Positional reads do not use the channel's file pointer, so several instances of this class may share one open
+ * channel across threads. Instances are themselves safe for concurrent reads, though byte order is per-instance
+ * state and so each thread will usually want its own reader.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class FileChannelReader extends RandomAccessReader
+{
+    public final static int DEFAULT_PAGE_LENGTH = 4 * 1024;
+    public final static int DEFAULT_MAX_PAGE_COUNT = 32;
+
+    @NotNull
+    private final FileChannel _channel;
+    private final long _length;
+    private final int _pageLength;
+
+    @NotNull
+    private final Map<Integer, byte[]> _pages;
+
+    /** The most recently used page, checked before the cache as most reads are local to one page. */
+    @NotNull
+    private volatile Page _lastPage = new Page(-1, new byte[0]);
+
+    public FileChannelReader(@NotNull FileChannel channel) throws IOException
+    {
+        this(channel, DEFAULT_PAGE_LENGTH, DEFAULT_MAX_PAGE_COUNT);
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public FileChannelReader(@NotNull FileChannel channel, int pageLength, final int maxPageCount) throws IOException
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (pageLength <= 0)
+            throw new IllegalArgumentException("pageLength must be greater than zero");
+        if (maxPageCount <= 0)
+            throw new IllegalArgumentException("maxPageCount must be greater than zero");
+
+        _channel = channel;
+        _length = channel.size();
+        _pageLength = pageLength;
+        _pages = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest)
+            {
+                return size() > maxPageCount;
+            }
+        };
+    }
+
+    @Override
+    public int toUnshiftedOffset(int localOffset)
+    {
+        return localOffset;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    public byte getByte(int index) throws IOException
+    {
+        if (index < 0 || index >= _length)
+            throw new BufferBoundsException("Unexpected end of file encountered.");
+
+        return getPage(index / _pageLength)[index % _pageLength];
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+
+        int remaining = count;
+        int fromIndex = index;
+        int toIndex = 0;
+
+        while (remaining != 0) {
+            int pageIndex = fromIndex / _pageLength;
+            int innerIndex = fromIndex % _pageLength;
+            int length = Math.min(remaining, _pageLength - innerIndex);
+
+            System.arraycopy(getPage(pageIndex), innerIndex, bytes, toIndex, length);
+
+            remaining -= length;
+            fromIndex += length;
+            toIndex += length;
+        }
+
+        return bytes;
+    }
+
+    @NotNull
+    private byte[] getPage(int pageIndex) throws IOException
+    {
+        Page lastPage = _lastPage;
+        if (lastPage.index == pageIndex)
+            return lastPage.bytes;
+
+        byte[] bytes;
+        synchronized (_pages) {
+            bytes = _pages.get(pageIndex);
+        }
+
+        if (bytes == null) {
+            bytes = readPage(pageIndex);
+            synchronized (_pages) {
+                _pages.put(pageIndex, bytes);
+            }
+        }
+
+        _lastPage = new Page(pageIndex, bytes);
+        return bytes;
+    }
+
+    @NotNull
+    private byte[] readPage(int pageIndex) throws IOException
+    {
+        long position = (long)pageIndex * _pageLength;
+        int length = (int)Math.min(_pageLength, _length - position);
+
+        byte[] bytes = new byte[_pageLength];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            int bytesRead = _channel.read(buffer, position + buffer.position());
+            if (bytesRead == -1)
+                throw new BufferBoundsException("Unexpected end of file encountered.");
+        }
+        return bytes;
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+                && index >= 0
+                && (long)index + (long)bytesRequested - 1L < _length;
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+
+    private static final class Page
+    {
+        final int index;
+        @NotNull
+        final byte[] bytes;
+
+        Page(int index, @NotNull byte[] bytes)
+        {
+            this.index = index;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads sequentially from a {@link FileChannel}, seeking rather than reading when skipping.
+ * <p>
+ * Unlike {@link StreamReader}, skipping a large region (such as the media data of a video file) costs no I/O,
+ * and positions are <code>long</code> values so files larger than 2 GB are supported. Data is read through a small
+ * buffer using positional reads, so the channel's own position is neither used nor changed.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class FileChannelSequentialReader extends SequentialReader
+{
+    public final static int DEFAULT_BUFFER_LENGTH = 8 * 1024;
+
+    @NotNull
+    private final FileChannel _channel;
+    private final long _length;
+
+    @NotNull
+    private final ByteBuffer _buffer;
+    /** The position within the channel of the buffer's first byte. */
+    private long _bufferStart;
+
+    private long _pos;
+
+    public FileChannelSequentialReader(@NotNull FileChannel channel) throws IOException
+    {
+        this(channel, 0, DEFAULT_BUFFER_LENGTH);
+    }
+
+    public FileChannelSequentialReader(@NotNull FileChannel channel, long startPosition) throws IOException
+    {
+        this(channel, startPosition, DEFAULT_BUFFER_LENGTH);
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    public FileChannelSequentialReader(@NotNull FileChannel channel, long startPosition, int bufferLength) throws IOException
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (startPosition < 0)
+            throw new IllegalArgumentException("startPosition must be zero or greater");
+        if (bufferLength <= 0)
+            throw new IllegalArgumentException("bufferLength must be greater than zero");
+
+        _channel = channel;
+        _length = channel.size();
+        _pos = startPosition;
+        _buffer = ByteBuffer.allocate(bufferLength);
+        _buffer.limit(0);
+    }
+
+    @Override
+    public long getPosition()
+    {
+        return _pos;
+    }
+
+    @Override
+    public byte getByte() throws IOException
+    {
+        if (_pos >= _length)
+            throw new EOFException("End of data reached.");
+
+        if (!isBuffered(_pos))
+            fillBuffer(_pos);
+
+        byte b = _buffer.get((int)(_pos - _bufferStart));
+        _pos++;
+        return b;
+    }
+
+    @NotNull
+    @Override
+    public byte[] getBytes(int count) throws IOException
+    {
+        if (_pos + count > _length)
+            throw new EOFException("End of data reached.");
+
+        byte[] bytes = new byte[count];
+        getBytes(bytes, 0, count);
+        return bytes;
+    }
+
+    @Override
+    public void getBytes(@NotNull byte[] buffer, int offset, int count) throws IOException
+    {
+        if (_pos + count > _length)
+            throw new EOFException("End of data reached.");
+
+        // Copy any buffered bytes
+        int copied = 0;
+        if (isBuffered(_pos)) {
+            int bufferIndex = (int)(_pos - _bufferStart);
+            copied = Math.min(count, _buffer.limit() - bufferIndex);
+            _buffer.position(bufferIndex);
+            _buffer.get(buffer, offset, copied);
+        }
+
+        int remaining = count - copied;
+        if (remaining > _buffer.capacity()) {
+            // Read large blocks directly into the caller's array
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset + copied, remaining);
+            long position = _pos + copied;
+            while (target.hasRemaining()) {
+                int bytesRead = _channel.read(target, position);
+                if (bytesRead == -1)
+                    throw new EOFException("End of data reached.");
+                position += bytesRead;
+            }
+        } else if (remaining != 0) {
+            fillBuffer(_pos + copied);
+            _buffer.position(0);
+            _buffer.get(buffer, offset + copied, remaining);
+        }
+
+        _pos += count;
+    }
+
+    @Override
+    public void skip(long n) throws IOException
+    {
+        if (n < 0)
+            throw new IllegalArgumentException("n must be zero or greater.");
+
+        if (_pos + n > _length)
+            throw new EOFException("End of data reached.");
+
+        _pos += n;
+    }
+
+    @Override
+    public boolean trySkip(long n) throws IOException
+    {
+        if (n < 0)
+            throw new IllegalArgumentException("n must be zero or greater.");
+
+        if (_pos + n > _length) {
+            _pos = _length;
+            return false;
+        }
+
+        _pos += n;
+        return true;
+    }
+
+    @Override
+    public int available()
+    {
+        return (int)Math.min(Integer.MAX_VALUE, Math.max(0, _length - _pos));
+    }
+
+    private boolean isBuffered(long position)
+    {
+        return position >= _bufferStart && position < _bufferStart + _buffer.limit();
+    }
+
+    private void fillBuffer(long position) throws IOException
+    {
+        int length = (int)Math.min(_buffer.capacity(), _length - position);
+
+        _buffer.clear();
+        _buffer.limit(length);
+        while (_buffer.hasRemaining()) {
+            int bytesRead = _channel.read(_buffer, position + _buffer.position());
+            if (bytesRead == -1)
+                throw new EOFException("End of data reached.");
+        }
+        _bufferStart = position;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+/**
+ * Maps <code>int</code> keys to values without boxing the keys, preserving the order in which keys were first added.
+ * <p>
+ * Keys and values are held in parallel arrays in insertion order, with an open-addressing hash table of indexes into
+ * those arrays for lookup. Entries cannot be removed. Not thread safe.
+ *
+ * @param <V> the type of value stored
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class IntObjectMap<V>
+{
+    private static final int DEFAULT_CAPACITY = 8;
+
+    @NotNull
+    private int[] _keys;
+    @NotNull
+    private Object[] _values;
+    private int _size;
+
+    /** Holds one plus the index of each entry, or zero for an empty slot. Its length is always a power of two. */
+    @NotNull
+    private int[] _slots;
+
+    public IntObjectMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectMap(int initialCapacity)
+    {
+        if (initialCapacity < 1)
+            initialCapacity = 1;
+        _keys = new int[initialCapacity];
+        _values = new Object[initialCapacity];
+        _slots = new int[slotCountFor(initialCapacity)];
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    public boolean containsKey(int key)
+    {
+        return indexOf(key) != -1;
+    }
+
+    /**
+     * Gets the value stored for <code>key</code>, or <code>null</code> if there is none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(int key)
+    {
+        int index = indexOf(key);
+        return index == -1 ? null : (V)_values[index];
+    }
+
+    /**
+     * Stores <code>value</code> for <code>key</code>. Replacing the value of an existing key does not change its
+     * position in the iteration order.
+     *
+     * @return the previous value for <code>key</code>, or <code>null</code> if there was none
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V put(int key, @Nullable V value)
+    {
+        int mask = _slots.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = _slots[slot];
+            if (entry == 0)
+                break;
+            if (_keys[entry - 1] == key) {
+                V previous = (V)_values[entry - 1];
+                _values[entry - 1] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (_size == _keys.length) {
+            grow();
+            put(key, value);
+            return null;
+        }
+
+        _keys[_size] = key;
+        _values[_size] = value;
+        _size++;
+        _slots[slot] = _size;
+        return null;
+    }
+
+    /**
+     * Gets the key at <code>index</code> within the insertion order, where <code>index</code> is less than {@link #size()}.
+     */
+    public int keyAt(int index)
+    {
+        if (index < 0 || index >= _size)
+            throw new IndexOutOfBoundsException();
+        return _keys[index];
+    }
+
+    /**
+     * Gets the value at <code>index</code> within the insertion order, where <code>index</code> is less than {@link #size()}.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index)
+    {
+        if (index < 0 || index >= _size)
+            throw new IndexOutOfBoundsException();
+        return (V)_values[index];
+    }
+
+    private int indexOf(int key)
+    {
+        int mask = _slots.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int entry = _slots[slot];
+            if (entry == 0)
+                return -1;
+            if (_keys[entry - 1] == key)
+                return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow()
+    {
+        int capacity = _keys.length * 2;
+
+        int[] keys = new int[capacity];
+        System.arraycopy(_keys, 0, keys, 0, _size);
+        _keys = keys;
+
+        Object[] values = new Object[capacity];
+        System.arraycopy(_values, 0, values, 0, _size);
+        _values = values;
+
+        _slots = new int[slotCountFor(capacity)];
+        int mask = _slots.length - 1;
+        for (int i = 0; i < _size; i++) {
+            int slot = hash(_keys[i]) & mask;
+            while (_slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            _slots[slot] = i + 1;
+        }
+    }
+
+    /** Gets a power-of-two slot count that keeps the load factor at or below one half. */
+    private static int slotCountFor(int capacity)
+    {
+        int slotCount = 2;
+        while (slotCount < capacity * 2)
+            slotCount <<= 1;
+        return slotCount;
+    }
+
+    private static int hash(int key)
+    {
+        // Tag IDs are often sequential or share low bits, so mix the bits before masking
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
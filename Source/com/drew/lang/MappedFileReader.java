@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Provides methods to read specific values from a memory-mapped {@link FileChannel}, with a consistent, checked
+ * exception structure for issues.
+ * <p>
+ * The file is mapped in windows of {@link #DEFAULT_WINDOW_LENGTH} bytes, which are only mapped when first touched.
+ * This means random hops through a large file (such as between the IFDs of a RAW image) never copy intervening data
+ * onto the heap. Windows also allow files larger than 2 GB to be mapped, as no single mapping exceeds the limits of
+ * {@link java.nio.ByteBuffer}. Indexes into this reader are relative to <code>startPosition</code>, so regions beyond
+ * the 32-bit range of indexes can be read by constructing a reader with a suitable start position.
+ * <p>
+ * Mapped regions are released by the garbage collector rather than when the channel is closed.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MappedFileReader extends RandomAccessReader
+{
+    public final static int DEFAULT_WINDOW_LENGTH = 64 * 1024 * 1024;
+
+    @NotNull
+    private final FileChannel _channel;
+    private final long _startPosition;
+    private final long _length;
+    private final int _windowLength;
+
+    @NotNull
+    private final MappedByteBuffer[] _windows;
+
+    public MappedFileReader(@NotNull FileChannel channel) throws IOException
+    {
+        this(channel, 0, DEFAULT_WINDOW_LENGTH);
+    }
+
+    public MappedFileReader(@NotNull FileChannel channel, long startPosition) throws IOException
+    {
+        this(channel, startPosition, DEFAULT_WINDOW_LENGTH);
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @com.drew.lang.annotations.SuppressWarnings(value = "EI_EXPOSE_REP2", justification = "Design intent")
+    public MappedFileReader(@NotNull FileChannel channel, long startPosition, int windowLength) throws IOException
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (startPosition < 0)
+            throw new IllegalArgumentException("startPosition must be zero or greater");
+        if (windowLength <= 0)
+            throw new IllegalArgumentException("windowLength must be greater than zero");
+
+        _channel = channel;
+        _startPosition = startPosition;
+        _length = Math.max(0, channel.size() - startPosition);
+        _windowLength = windowLength;
+        _windows = new MappedByteBuffer[(int)((_length + windowLength - 1) / windowLength)];
+    }
+
+    @Override
+    public int toUnshiftedOffset(int localOffset)
+    {
+        return localOffset;
+    }
+
+    @Override
+    public long getLength()
+    {
+        return _length;
+    }
+
+    @Override
+    public byte getByte(int index) throws IOException
+    {
+        validateIndex(index, 1);
+
+        MappedByteBuffer window = getWindow(index / _windowLength);
+        return window.get(index % _windowLength);
+    }
+
+    @Override
+    @NotNull
+    public byte[] getBytes(int index, int count) throws IOException
+    {
+        validateIndex(index, count);
+
+        byte[] bytes = new byte[count];
+
+        int remaining = count;
+        int fromIndex = index;
+        int toIndex = 0;
+
+        while (remaining != 0) {
+            int windowIndex = fromIndex / _windowLength;
+            int innerIndex = fromIndex % _windowLength;
+            int length = Math.min(remaining, _windowLength - innerIndex);
+
+            // Use absolute positioning on a duplicate so the shared window's position is left untouched
+            ByteBuffer window = getWindow(windowIndex).duplicate();
+            window.position(innerIndex);
+            window.get(bytes, toIndex, length);
+
+            remaining -= length;
+            fromIndex += length;
+            toIndex += length;
+        }
+
+        return bytes;
+    }
+
+    @NotNull
+    private MappedByteBuffer getWindow(int windowIndex) throws IOException
+    {
+        if (windowIndex < 0 || windowIndex >= _windows.length)
+            throw new BufferBoundsException("Unexpected end of file encountered.");
+
+        MappedByteBuffer window = _windows[windowIndex];
+        if (window == null) {
+            long windowStart = (long)windowIndex * _windowLength;
+            long windowLength = Math.min(_windowLength, _length - windowStart);
+            window = _channel.map(FileChannel.MapMode.READ_ONLY, _startPosition + windowStart, windowLength);
+            _windows[windowIndex] = window;
+        }
+        return window;
+    }
+
+    @Override
+    protected boolean isValidIndex(int index, int bytesRequested) throws IOException
+    {
+        return bytesRequested >= 0
+                && index >= 0
+                && (long)index + (long)bytesRequested - 1L < _length;
+    }
+
+    @Override
+    protected void validateIndex(final int index, final int bytesRequested) throws IOException
+    {
+        if (!isValidIndex(index, bytesRequested))
+            throw new BufferBoundsException(index, bytesRequested, _length);
+    }
+}
@@ -39,6 +39,9 @@ import java.nio.charset.Charset;
  * <ul>
  *     <li>{@link ByteArrayReader}</li>
  *     <li>{@link RandomAccessStreamReader}</li>
+ *     <li>{@link RandomAccessFileReader}</li>
+ *     <li>{@link MappedFileReader}</li>
+ *     <li>{@link FileChannelReader}</li>
  * </ul>
  *
  * @author Drew Noakes https://drewnoakes.com
@@ -104,6 +107,22 @@ public abstract class RandomAccessReader
      */
     public abstract long getLength() throws IOException;
 
+    /**
+     * Determines whether the data source is at least <code>length</code> bytes long.
+     * <p>
+     * Unlike {@link #getLength()}, sequentially accessed implementations such as {@link RandomAccessStreamReader}
+     * only have to buffer the data source up to <code>length</code> in order to answer, rather than to its end.
+     * Bounds checks should prefer this method for that reason.
+     *
+     * @param length the number of bytes required
+     * @return <code>true</code> if the data source contains at least <code>length</code> bytes, otherwise <code>false</code>
+     * @throws IOException if the data source could not be read
+     */
+    public boolean hasLength(long length) throws IOException
+    {
+        return getLength() >= length;
+    }
+
     /**
      * Sets the endianness of this reader.
      * <ul>
@@ -22,10 +22,12 @@
 package com.drew.lang;
 
 import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Drew Noakes https://drewnoakes.com
@@ -40,8 +42,13 @@ public class RandomAccessStreamReader extends RandomAccessReader
 
     private final ArrayList<byte[]> _chunks = new ArrayList<byte[]>();
 
+    /** Chunks that may be reused rather than allocated, or <code>null</code> if chunks are not recycled. */
+    @Nullable
+    private final List<byte[]> _spareChunks;
+
     private boolean _isStreamFinished;
     private long _streamLength;
+    private long _bytesConsumed;
 
     public RandomAccessStreamReader(@NotNull InputStream stream)
     {
@@ -54,6 +61,18 @@ public class RandomAccessStreamReader extends RandomAccessReader
     }
 
     public RandomAccessStreamReader(@NotNull InputStream stream, int chunkLength, long streamLength)
+    {
+        this(stream, chunkLength, streamLength, null);
+    }
+
+    /**
+     * Creates a reader which takes chunks from <code>spareChunks</code> where possible, rather than allocating them.
+     * Call {@link #recycleChunks()} once finished with this reader to return its chunks to that list.
+     *
+     * @param spareChunks chunks available for reuse, or <code>null</code> to allocate all chunks
+     */
+    @SuppressWarnings("ConstantConditions")
+    public RandomAccessStreamReader(@NotNull InputStream stream, int chunkLength, long streamLength, @Nullable List<byte[]> spareChunks)
     {
         if (stream == null)
             throw new NullPointerException();
@@ -63,6 +82,20 @@ public class RandomAccessStreamReader extends RandomAccessReader
         _chunkLength = chunkLength;
         _stream = stream;
         _streamLength = streamLength;
+        _spareChunks = spareChunks;
+    }
+
+    /**
+     * Returns the chunks read so far to the list of spare chunks given at construction, so that they may be
+     * used by another reader. This reader must not be used afterwards.
+     */
+    public void recycleChunks()
+    {
+        if (_spareChunks == null)
+            return;
+
+        _spareChunks.addAll(_chunks);
+        _chunks.clear();
     }
 
     /**
@@ -83,6 +116,43 @@ public class RandomAccessStreamReader extends RandomAccessReader
         return _streamLength;
     }
 
+    /**
+     * Determines whether the stream contains at least <code>length</code> bytes, reading from the stream only
+     * as far as is required to answer.
+     *
+     * @param length the number of bytes required
+     * @return <code>true</code> if the stream contains at least <code>length</code> bytes, otherwise <code>false</code>
+     */
+    @Override
+    public boolean hasLength(long length) throws IOException
+    {
+        if (_streamLength != -1) {
+            return _streamLength >= length;
+        }
+
+        if (length <= 0) {
+            return true;
+        }
+
+        if (length - 1 > Integer.MAX_VALUE) {
+            return getLength() >= length;
+        }
+
+        return isValidIndex((int)(length - 1), 1);
+    }
+
+    /**
+     * Gets the number of bytes that have been read from the underlying stream so far.
+     * <p>
+     * This is useful for confirming that processing only touched the start of a large stream.
+     *
+     * @return the number of bytes consumed from the stream
+     */
+    public long getBytesConsumed()
+    {
+        return _bytesConsumed;
+    }
+
     /**
      * Ensures that the buffered bytes extend to cover the specified index. If not, an attempt is made
      * to read to that point.
@@ -136,7 +206,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
         while (chunkIndex >= _chunks.size()) {
             assert (!_isStreamFinished);
 
-            byte[] chunk = new byte[_chunkLength];
+            byte[] chunk = takeChunk();
             int totalBytesRead = 0;
             while (!_isStreamFinished && totalBytesRead != _chunkLength) {
                 int bytesRead = _stream.read(chunk, totalBytesRead, _chunkLength - totalBytesRead);
@@ -157,6 +227,7 @@ public class RandomAccessStreamReader extends RandomAccessReader
                     }
                 } else {
                     totalBytesRead += bytesRead;
+                    _bytesConsumed += bytesRead;
                 }
             }
 
@@ -166,6 +237,19 @@ public class RandomAccessStreamReader extends RandomAccessReader
         return true;
     }
 
+    @NotNull
+    private byte[] takeChunk()
+    {
+        if (_spareChunks != null) {
+            while (!_spareChunks.isEmpty()) {
+                byte[] chunk = _spareChunks.remove(_spareChunks.size() - 1);
+                if (chunk.length == _chunkLength)
+                    return chunk;
+            }
+        }
+        return new byte[_chunkLength];
+    }
+
     @Override
     public int toUnshiftedOffset(int localOffset)
     {
@@ -34,6 +34,7 @@ public class SequentialByteArrayReader extends SequentialReader
 {
     @NotNull
     private final byte[] _bytes;
+    private final int _endIndex;
     private int _index;
 
     @Override
@@ -55,12 +56,30 @@ public class SequentialByteArrayReader extends SequentialReader
 
         _bytes = bytes;
         _index = baseIndex;
+        _endIndex = bytes.length;
+    }
+
+    /**
+     * Creates a reader of the <code>length</code> bytes of <code>bytes</code> from <code>baseIndex</code>, beyond which
+     * reads fail as if the data had ended.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public SequentialByteArrayReader(@NotNull byte[] bytes, int baseIndex, int length)
+    {
+        if (bytes == null)
+            throw new NullPointerException();
+        if (baseIndex < 0 || length < 0 || (long)baseIndex + length > bytes.length)
+            throw new IllegalArgumentException("Range must lie within the array");
+
+        _bytes = bytes;
+        _index = baseIndex;
+        _endIndex = baseIndex + length;
     }
 
     @Override
     public byte getByte() throws IOException
     {
-        if (_index >= _bytes.length) {
+        if (_index >= _endIndex) {
             throw new EOFException("End of data reached.");
         }
         return _bytes[_index++];
@@ -70,7 +89,7 @@ public class SequentialByteArrayReader extends SequentialReader
     @Override
     public byte[] getBytes(int count) throws IOException
     {
-        if ((long)_index + count > _bytes.length) {
+        if ((long)_index + count > _endIndex) {
             throw new EOFException("End of data reached.");
         }
 
@@ -84,7 +103,7 @@ public class SequentialByteArrayReader extends SequentialReader
     @Override
     public void getBytes(@NotNull byte[] buffer, int offset, int count) throws IOException
     {
-        if ((long)_index + count > _bytes.length) {
+        if ((long)_index + count > _endIndex) {
             throw new EOFException("End of data reached.");
         }
 
@@ -99,7 +118,7 @@ public class SequentialByteArrayReader extends SequentialReader
             throw new IllegalArgumentException("n must be zero or greater.");
         }
 
-        if (_index + n > _bytes.length) {
+        if (_index + n > _endIndex) {
             throw new EOFException("End of data reached.");
         }
 
@@ -113,8 +132,8 @@ public class SequentialByteArrayReader extends SequentialReader
             throw new IllegalArgumentException("n must be zero or greater.");
         }
 
-        if (_index + n > _bytes.length)  {
-            _index = _bytes.length;
+        if (_index + n > _endIndex)  {
+            _index = _endIndex;
             return false;
         }
 
@@ -125,6 +144,6 @@ public class SequentialByteArrayReader extends SequentialReader
 
     @Override
     public int available() {
-        return _bytes.length - _index;
+        return _endIndex - _index;
     }
 }
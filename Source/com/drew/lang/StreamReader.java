@@ -54,6 +54,22 @@ public class StreamReader extends SequentialReader
         _pos = 0;
     }
 
+    /**
+     * Creates a reader whose positions are reported relative to the start of some larger sequence, where
+     * <code>stream</code> begins at <code>startPosition</code> within that sequence.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public StreamReader(@NotNull InputStream stream, long startPosition)
+    {
+        if (stream == null)
+            throw new NullPointerException();
+        if (startPosition < 0)
+            throw new IllegalArgumentException("startPosition must be zero or greater");
+
+        _stream = stream;
+        _pos = startPosition;
+    }
+
     @Override
     public byte getByte() throws IOException
     {
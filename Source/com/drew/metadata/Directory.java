@@ -20,6 +20,8 @@
  */
 package com.drew.metadata;
 
+import com.drew.lang.DateUtil;
+import com.drew.lang.IntObjectMap;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
@@ -27,13 +29,8 @@ import com.drew.lang.annotations.SuppressWarnings;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
-import java.text.DateFormat;
 import java.text.DecimalFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Abstract base class for all directory implementations, having methods for getting and setting tag values of various
@@ -46,17 +43,28 @@ public abstract class Directory
 {
     private static final String _floatFormatPattern = "0.###";
 
-    /** Map of values hashed by type identifiers. */
+    /**
+     * Map of values keyed by type identifiers, in the order in which they were first stored. {@link Tag} objects
+     * are only created when {@link #getTags()} is iterated.
+     */
+    @NotNull
+    private final IntObjectMap<Object> _tagValues = new IntObjectMap<Object>();
+
+    /**
+     * Map of values hashed by type identifiers. This is a view of the values stored in this directory, in the order
+     * in which they were first stored. Values put into it are set via {@link #setObject(int, Object)}, and
+     * values cannot be removed.
+     */
     @NotNull
-    protected final Map<Integer, Object> _tagMap = new HashMap<Integer, Object>();
+    protected final Map<Integer, Object> _tagMap = new TagMap();
 
     /**
      * A convenient list holding tag values in the order in which they were stored.
-     * This is used for creation of an iterator, and for counting the number of
+     * This is a read-only view, and is used for creation of an iterator, and for counting the number of
      * defined tags.
      */
     @NotNull
-    protected final Collection<Tag> _definedTagList = new ArrayList<Tag>();
+    protected final Collection<Tag> _definedTagList = new DefinedTagList();
 
     @NotNull
     private final Collection<String> _errorList = new ArrayList<String>(4);
@@ -67,6 +75,19 @@ public abstract class Directory
     @Nullable
     private Directory _parent;
 
+    /** Notified of tags and errors as they are recorded, when this directory is part of a streaming extraction. */
+    @Nullable
+    private MetadataListener _listener;
+
+    /**
+     * Descriptions computed so far, keyed by tag type, or <code>null</code> if descriptions are not cached.
+     * Absent descriptions are stored as {@link #NO_DESCRIPTION}.
+     */
+    @Nullable
+    private IntObjectMap<Object> _descriptionCache;
+
+    private static final Object NO_DESCRIPTION = new Object();
+
 // ABSTRACT METHODS
 
     /**
@@ -95,7 +116,7 @@ public abstract class Directory
      */
     public boolean isEmpty()
     {
-        return _errorList.isEmpty() && _definedTagList.isEmpty();
+        return _errorList.isEmpty() && _tagValues.isEmpty();
     }
 
     /**
@@ -104,10 +125,9 @@ public abstract class Directory
      * @param tagType the tag type to check for
      * @return true if a value exists for the specified tag type, false if not
      */
-    @java.lang.SuppressWarnings({ "UnnecessaryBoxing" })
     public boolean containsTag(int tagType)
     {
-        return _tagMap.containsKey(Integer.valueOf(tagType));
+        return _tagValues.containsKey(tagType);
     }
 
     /**
@@ -118,7 +138,7 @@ public abstract class Directory
     @NotNull
     public Collection<Tag> getTags()
     {
-        return Collections.unmodifiableCollection(_definedTagList);
+        return _definedTagList;
     }
 
     /**
@@ -128,7 +148,7 @@ public abstract class Directory
      */
     public int getTagCount()
     {
-        return _definedTagList.size();
+        return _tagValues.size();
     }
 
     /**
@@ -142,6 +162,39 @@ public abstract class Directory
         if (descriptor == null)
             throw new NullPointerException("cannot set a null descriptor");
         _descriptor = descriptor;
+        clearDescriptionCache();
+    }
+
+    /**
+     * Sets whether {@link #getDescription(int)} retains the descriptions it computes, so that each is computed at most
+     * once. This suits callers that describe the same tags repeatedly, such as when rendering. The cache is discarded
+     * whenever a tag value or the descriptor changes, as a description may depend upon several tags.
+     * <p>
+     * Caching is disabled by default. When enabled, descriptions must not be requested concurrently from several
+     * threads.
+     *
+     * @param enabled whether descriptions are to be cached
+     */
+    public void setDescriptionCaching(boolean enabled)
+    {
+        if (!enabled)
+            _descriptionCache = null;
+        else if (_descriptionCache == null)
+            _descriptionCache = new IntObjectMap<Object>();
+    }
+
+    /**
+     * Gets whether {@link #getDescription(int)} retains the descriptions it computes.
+     */
+    public boolean isDescriptionCaching()
+    {
+        return _descriptionCache != null;
+    }
+
+    private void clearDescriptionCache()
+    {
+        if (_descriptionCache != null && !_descriptionCache.isEmpty())
+            _descriptionCache = new IntObjectMap<Object>();
     }
 
     /**
@@ -152,6 +205,9 @@ public abstract class Directory
     public void addError(@NotNull String message)
     {
         _errorList.add(message);
+
+        if (_listener != null)
+            _listener.onError(this, message);
     }
 
     /**
@@ -192,6 +248,28 @@ public abstract class Directory
         _parent = parent;
     }
 
+    /**
+     * Gets the values stored in this directory, for {@link MetadataCodec}.
+     */
+    @NotNull
+    IntObjectMap<Object> getTagValues()
+    {
+        return _tagValues;
+    }
+
+    /**
+     * Attaches a listener to this directory, first replaying any tags and errors already recorded against it.
+     */
+    void setListener(@NotNull MetadataListener listener)
+    {
+        for (int i = 0; i < _tagValues.size(); i++)
+            listener.onTag(this, _tagValues.keyAt(i), _tagValues.valueAt(i));
+        for (String error : _errorList)
+            listener.onError(this, error);
+
+        _listener = listener;
+    }
+
 // TAG SETTERS
 
     /**
@@ -383,21 +461,22 @@ public abstract class Directory
      * @param value   the value for the specified tag
      * @throws NullPointerException if value is <code>null</code>
      */
-    @java.lang.SuppressWarnings( { "ConstantConditions", "UnnecessaryBoxing" })
+    @java.lang.SuppressWarnings( { "ConstantConditions" })
     public void setObject(int tagType, @NotNull Object value)
     {
         if (value == null)
             throw new NullPointerException("cannot set a null object");
 
-        if (!_tagMap.containsKey(Integer.valueOf(tagType))) {
-            _definedTagList.add(new Tag(tagType, this));
-        }
-//        else {
+//        if (_tagMap.containsKey(tagType)) {
 //            final Object oldValue = _tagMap.get(tagType);
 //            if (!oldValue.equals(value))
 //                addError(String.format("Overwritten tag 0x%s (%s).  Old=%s, New=%s", Integer.toHexString(tagType), getTagName(tagType), oldValue, value));
 //        }
-        _tagMap.put(tagType, value);
+        _tagValues.put(tagType, value);
+        clearDescriptionCache();
+
+        if (_listener != null)
+            _listener.onTag(this, tagType, value);
     }
 
     /**
@@ -866,77 +945,10 @@ public abstract class Directory
         if (o instanceof java.util.Date)
             return (java.util.Date)o;
 
-        java.util.Date date = null;
-
-        if ((o instanceof String) || (o instanceof StringValue)) {
-            // This seems to cover all known Exif and Xmp date strings
-            // Note that "    :  :     :  :  " is a valid date string according to the Exif spec (which means 'unknown date'): http://www.awaresystems.be/imaging/tiff/tifftags/privateifd/exif/datetimeoriginal.html
-            String datePatterns[] = {
-                    "yyyy:MM:dd HH:mm:ss",
-                    "yyyy:MM:dd HH:mm",
-                    "yyyy-MM-dd HH:mm:ss",
-                    "yyyy-MM-dd HH:mm",
-                    "yyyy.MM.dd HH:mm:ss",
-                    "yyyy.MM.dd HH:mm",
-                    "yyyy-MM-dd'T'HH:mm:ss",
-                    "yyyy-MM-dd'T'HH:mm",
-                    "yyyy-MM-dd",
-                    "yyyy-MM",
-                    "yyyyMMdd", // as used in IPTC data
-                    "yyyy" };
-
-            String dateString = o.toString();
-
-            // if the date string has subsecond information, it supersedes the subsecond parameter
-            Pattern subsecondPattern = Pattern.compile("(\\d\\d:\\d\\d:\\d\\d)(\\.\\d+)");
-            Matcher subsecondMatcher = subsecondPattern.matcher(dateString);
-            if (subsecondMatcher.find()) {
-                subsecond = subsecondMatcher.group(2).substring(1);
-                dateString = subsecondMatcher.replaceAll("$1");
-            }
-
-            // if the date string has time zone information, it supersedes the timeZone parameter
-            Pattern timeZonePattern = Pattern.compile("(Z|[+-]\\d\\d:\\d\\d|[+-]\\d\\d\\d\\d)$");
-            Matcher timeZoneMatcher = timeZonePattern.matcher(dateString);
-            if (timeZoneMatcher.find()) {
-                timeZone = TimeZone.getTimeZone("GMT" + timeZoneMatcher.group().replaceAll("Z", ""));
-                dateString = timeZoneMatcher.replaceAll("");
-            }
-
-            for (String datePattern : datePatterns) {
-                try {
-                    DateFormat parser = new SimpleDateFormat(datePattern);
-                    if (timeZone != null)
-                        parser.setTimeZone(timeZone);
-                    else
-                        parser.setTimeZone(TimeZone.getTimeZone("GMT")); // don't interpret zone time
-
-                    date = parser.parse(dateString);
-                    break;
-                } catch (ParseException ex) {
-                    // simply try the next pattern
-                }
-            }
-        }
-
-        if (date == null)
-            return null;
-
-        if (subsecond == null)
-            return date;
+        if ((o instanceof String) || (o instanceof StringValue))
+            return DateUtil.parseDate(o.toString(), subsecond, timeZone);
 
-        try {
-            int millisecond = (int) (Double.parseDouble("." + subsecond) * 1000);
-            if (millisecond >= 0 && millisecond < 1000) {
-                Calendar calendar = Calendar.getInstance();
-                calendar.setTime(date);
-                calendar.set(Calendar.MILLISECOND, millisecond);
-                return calendar.getTime();
-            }
-            return date;
-        } catch (NumberFormatException e) {
-            return date;
-        }
+        return null;
     }
 
     /** Returns the specified tag's value as a Rational.  If the value is unset or cannot be converted, <code>null</code> is returned. */
@@ -1024,7 +1036,7 @@ public abstract class Directory
                     string.append(Array.getLong(o, i));
                 }
             } else if (componentType.getName().equals("float")) {
-                DecimalFormat format = new DecimalFormat(_floatFormatPattern);
+                DecimalFormat format = TagDescriptor.getDecimalFormat(_floatFormatPattern);
                 for (int i = 0; i < arrayLength; i++) {
                     if (i != 0)
                         string.append(' ');
@@ -1032,7 +1044,7 @@ public abstract class Directory
                     string.append(s.equals("-0") ? "0" : s);
                 }
             } else if (componentType.getName().equals("double")) {
-                DecimalFormat format = new DecimalFormat(_floatFormatPattern);
+                DecimalFormat format = TagDescriptor.getDecimalFormat(_floatFormatPattern);
                 for (int i = 0; i < arrayLength; i++) {
                     if (i != 0)
                         string.append(' ');
@@ -1053,10 +1065,10 @@ public abstract class Directory
         }
 
         if (o instanceof Double)
-            return new DecimalFormat(_floatFormatPattern).format(((Double)o).doubleValue());
+            return TagDescriptor.getDecimalFormat(_floatFormatPattern).format(((Double)o).doubleValue());
 
         if (o instanceof Float)
-            return new DecimalFormat(_floatFormatPattern).format(((Float)o).floatValue());
+            return TagDescriptor.getDecimalFormat(_floatFormatPattern).format(((Float)o).floatValue());
 
         // Note that several cameras leave trailing spaces (Olympus, Nikon) but this library is intended to show
         // the actual data within the file.  It is not inconceivable that whitespace may be significant here, so we
@@ -1093,11 +1105,10 @@ public abstract class Directory
      * @param tagType the tag type identifier
      * @return the tag's value as an Object if available, else <code>null</code>
      */
-    @java.lang.SuppressWarnings({ "UnnecessaryBoxing" })
     @Nullable
     public Object getObject(int tagType)
     {
-        return _tagMap.get(Integer.valueOf(tagType));
+        return _tagValues.get(tagType);
     }
 
 // OTHER METHODS
@@ -1144,7 +1155,18 @@ public abstract class Directory
     public String getDescription(int tagType)
     {
         assert(_descriptor != null);
-        return _descriptor.getDescription(tagType);
+
+        IntObjectMap<Object> cache = _descriptionCache;
+        if (cache == null)
+            return _descriptor.getDescription(tagType);
+
+        Object cached = cache.get(tagType);
+        if (cached == null) {
+            String description = _descriptor.getDescription(tagType);
+            cache.put(tagType, description == null ? NO_DESCRIPTION : description);
+            return description;
+        }
+        return cached == NO_DESCRIPTION ? null : (String)cached;
     }
 
     @Override
@@ -1152,9 +1174,122 @@ public abstract class Directory
     {
         return String.format("%s Directory (%d %s)",
             getName(),
-            _tagMap.size(),
-            _tagMap.size() == 1
+            _tagValues.size(),
+            _tagValues.size() == 1
                 ? "tag"
                 : "tags");
     }
+
+    /**
+     * The view of tag values exposed to subclasses as {@link #_tagMap}.
+     */
+    private class TagMap extends AbstractMap<Integer, Object>
+    {
+        @Override
+        public int size()
+        {
+            return _tagValues.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return key instanceof Integer && _tagValues.containsKey((Integer)key);
+        }
+
+        @Override
+        public Object get(Object key)
+        {
+            return key instanceof Integer ? _tagValues.get((Integer)key) : null;
+        }
+
+        @Override
+        public Object put(Integer key, Object value)
+        {
+            Object previous = _tagValues.get(key);
+            setObject(key, value);
+            return previous;
+        }
+
+        @NotNull
+        @Override
+        public Set<Entry<Integer, Object>> entrySet()
+        {
+            return new AbstractSet<Entry<Integer, Object>>()
+            {
+                @Override
+                public Iterator<Entry<Integer, Object>> iterator()
+                {
+                    return new Iterator<Entry<Integer, Object>>()
+                    {
+                        private int _index;
+
+                        public boolean hasNext()
+                        {
+                            return _index < _tagValues.size();
+                        }
+
+                        public Entry<Integer, Object> next()
+                        {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            Entry<Integer, Object> entry = new SimpleImmutableEntry<Integer, Object>(_tagValues.keyAt(_index), _tagValues.valueAt(_index));
+                            _index++;
+                            return entry;
+                        }
+
+                        public void remove()
+                        {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return _tagValues.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * The view of tags exposed to subclasses as {@link #_definedTagList}, creating {@link Tag} objects as it is
+     * iterated.
+     */
+    private class DefinedTagList extends AbstractCollection<Tag>
+    {
+        @Override
+        public Iterator<Tag> iterator()
+        {
+            return new Iterator<Tag>()
+            {
+                private int _index;
+
+                public boolean hasNext()
+                {
+                    return _index < _tagValues.size();
+                }
+
+                public Tag next()
+                {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return new Tag(_tagValues.keyAt(_index++), Directory.this);
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return _tagValues.size();
+        }
+    }
 }
@@ -41,6 +41,53 @@ public final class Metadata
     @NotNull
     private final List<Directory> _directories = new ArrayList<Directory>();
 
+    @Nullable
+    private final MetadataListener _listener;
+
+    private final boolean _retainDirectories;
+
+    /**
+     * The number of leading entries in {@link #_directories} already passed to {@link MetadataListener#onDirectoryEnd}.
+     */
+    private int _completedDirectoryCount;
+
+    /**
+     * Creates an empty metadata collection.
+     */
+    public Metadata()
+    {
+        _listener = null;
+        _retainDirectories = true;
+    }
+
+    /**
+     * Creates an empty metadata collection that reports directories, tags and errors to <code>listener</code> as they
+     * are added.
+     *
+     * @param listener the listener to notify during extraction
+     */
+    public Metadata(@NotNull MetadataListener listener)
+    {
+        this(listener, true);
+    }
+
+    /**
+     * Creates an empty metadata collection that reports directories, tags and errors to <code>listener</code> as they
+     * are added.
+     * <p>
+     * When <code>retainDirectories</code> is <code>false</code>, each directory is removed from this collection once
+     * {@link MetadataListener#onDirectoryEnd} has been called for it, so that a listener which consumes directories as
+     * they complete does not also hold the whole tree in memory.
+     *
+     * @param listener the listener to notify during extraction
+     * @param retainDirectories whether completed directories remain in this collection
+     */
+    public Metadata(@NotNull MetadataListener listener, boolean retainDirectories)
+    {
+        _listener = listener;
+        _retainDirectories = retainDirectories;
+    }
+
     /**
      * Returns an iterable set of the {@link Directory} instances contained in this metadata collection.
      *
@@ -87,6 +134,35 @@ public final class Metadata
         }
 
         _directories.add(directory);
+
+        if (_listener != null) {
+            _listener.onDirectoryStart(directory);
+            directory.setListener(_listener);
+        }
+    }
+
+    /**
+     * Signals that extraction into this metadata collection has completed, calling
+     * {@link MetadataListener#onDirectoryEnd} for each directory added since the previous call, in the order they
+     * were added. Directories are dropped afterwards if this collection was created not to retain them.
+     * <p>
+     * Readers' <code>process</code> methods call this once they are done, so it may be called more than once for a
+     * single extraction. It has no effect when no listener was given.
+     */
+    public void complete()
+    {
+        if (_listener == null)
+            return;
+
+        for (int i = _completedDirectoryCount; i < _directories.size(); i++)
+            _listener.onDirectoryEnd(_directories.get(i));
+
+        if (_retainDirectories) {
+            _completedDirectoryCount = _directories.size();
+        } else {
+            _directories.clear();
+            _completedDirectoryCount = 0;
+        }
     }
 
     /**
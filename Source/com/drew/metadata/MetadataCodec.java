@@ -0,0 +1,823 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.adobe.internal.xmp.XMPException;
+import com.adobe.internal.xmp.XMPMetaFactory;
+import com.adobe.internal.xmp.options.SerializeOptions;
+import com.drew.imaging.FileType;
+import com.drew.imaging.png.PngChunkType;
+import com.drew.imaging.png.PngProcessingException;
+import com.drew.lang.Charsets;
+import com.drew.lang.IntObjectMap;
+import com.drew.lang.KeyValuePair;
+import com.drew.lang.Rational;
+import com.drew.lang.SequentialByteArrayReader;
+import com.drew.lang.SequentialReader;
+import com.drew.lang.StreamReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.file.FileTypeDirectory;
+import com.drew.metadata.gif.GifCommentDirectory;
+import com.drew.metadata.jpeg.HuffmanTablesDirectory;
+import com.drew.metadata.jpeg.HuffmanTablesDirectory.HuffmanTable;
+import com.drew.metadata.jpeg.HuffmanTablesDirectory.HuffmanTable.HuffmanTableClass;
+import com.drew.metadata.jpeg.JpegComponent;
+import com.drew.metadata.png.PngDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes {@link Metadata} to a compact binary form, and decodes it again, for caching extracted metadata or passing
+ * it between processes.
+ * <p>
+ * Decoding reconstructs each directory as an instance of its original class, with its tag values, errors and parent
+ * link, so descriptions are produced exactly as they were for the original metadata. Decoding is much cheaper than
+ * extracting the metadata from the image again.
+ * <p>
+ * The encoding begins with a version number. Data written by a different version of this class is rejected rather
+ * than misread. Tag types and lengths are written as variable-length integers, and each value is preceded by a single
+ * byte identifying its type. Only the value types stored by this library's readers are supported, and encoding
+ * metadata holding any other type of value fails. Decoding never uses Java serialization, only loads classes
+ * named in the data once they are known to be directories or enums, and never allocates much more than the data
+ * actually holds, so untrusted data may be decoded safely.
+ * <p>
+ * A {@link com.drew.metadata.MetadataListener} attached to the original metadata is not encoded.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public final class MetadataCodec
+{
+    public static final int VERSION = 2;
+
+    private static final byte[] MAGIC = { 'M', 'E', 'X', 'M' };
+
+    private static final int TYPE_INT = 1;
+    private static final int TYPE_LONG = 2;
+    private static final int TYPE_SHORT = 3;
+    private static final int TYPE_BYTE = 4;
+    private static final int TYPE_BOOLEAN = 5;
+    private static final int TYPE_FLOAT = 6;
+    private static final int TYPE_DOUBLE = 7;
+    private static final int TYPE_STRING = 8;
+    private static final int TYPE_STRING_VALUE = 9;
+    private static final int TYPE_RATIONAL = 10;
+    private static final int TYPE_DATE = 11;
+    private static final int TYPE_BYTE_ARRAY = 20;
+    private static final int TYPE_SHORT_ARRAY = 21;
+    private static final int TYPE_INT_ARRAY = 22;
+    private static final int TYPE_LONG_ARRAY = 23;
+    private static final int TYPE_FLOAT_ARRAY = 24;
+    private static final int TYPE_DOUBLE_ARRAY = 25;
+    private static final int TYPE_STRING_ARRAY = 26;
+    private static final int TYPE_STRING_VALUE_ARRAY = 27;
+    private static final int TYPE_RATIONAL_ARRAY = 28;
+    private static final int TYPE_KEY_VALUE_LIST = 29;
+    private static final int TYPE_JPEG_COMPONENT = 30;
+    private static final int TYPE_ENUM = 31;
+
+    /**
+     * The most items allocated up front for a length read from a stream, whose remaining byte count is unknown.
+     * Longer arrays grow as their items are read, so a corrupt length fails at the end of the stream rather than
+     * exhausting memory.
+     */
+    private static final int MAX_UNVERIFIED_LENGTH = 64 * 1024;
+
+    /** Constructors of directory classes, by class name, to avoid repeated reflective lookups when decoding. */
+    @NotNull
+    private static final Map<String, Constructor<? extends Directory>> _constructorByClassName = new ConcurrentHashMap<String, Constructor<? extends Directory>>();
+
+    /**
+     * Encodes <code>metadata</code> as a byte array.
+     *
+     * @throws IOException if a tag value cannot be encoded
+     */
+    @NotNull
+    public static byte[] encode(@NotNull Metadata metadata) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        encode(metadata, bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encodes <code>metadata</code> to <code>outputStream</code>, which is not closed.
+     *
+     * @throws IOException if writing to the stream fails, or if a tag value cannot be encoded
+     */
+    public static void encode(@NotNull Metadata metadata, @NotNull OutputStream outputStream) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+        out.write(MAGIC);
+        writeVarInt(out, VERSION);
+
+        List<Directory> directories = new ArrayList<Directory>(metadata.getDirectoryCount());
+        for (Directory directory : metadata.getDirectories())
+            directories.add(directory);
+
+        // Class names are written once each, then referred to by index
+        Map<String, Integer> classNameIndexes = new HashMap<String, Integer>();
+
+        writeVarInt(out, directories.size());
+        for (Directory directory : directories) {
+            String className = directory.getClass().getName();
+            Integer classNameIndex = classNameIndexes.get(className);
+            if (classNameIndex == null) {
+                writeVarInt(out, classNameIndexes.size());
+                writeString(out, className);
+                classNameIndexes.put(className, classNameIndexes.size());
+            } else {
+                writeVarInt(out, classNameIndex);
+            }
+
+            if (directory instanceof PngDirectory)
+                out.write(((PngDirectory)directory).getPngChunkType().getIdentifier().getBytes("ASCII"));
+
+            // A parent that is not part of this metadata is not encoded
+            Directory parent = directory.getParent();
+            writeVarInt(out, parent == null ? 0 : indexOfIdentity(directories, parent) + 1);
+
+            writeVarInt(out, directory.getErrorCount());
+            for (String error : directory.getErrors())
+                writeString(out, error);
+
+            IntObjectMap<Object> tagValues = directory.getTagValues();
+            writeVarInt(out, tagValues.size());
+            for (int i = 0; i < tagValues.size(); i++) {
+                writeVarInt(out, tagValues.keyAt(i));
+                writeValue(out, tagValues.valueAt(i));
+            }
+
+            if (directory.getClass() == XmpDirectory.class)
+                writeXmp(out, (XmpDirectory)directory);
+            else if (directory.getClass() == HuffmanTablesDirectory.class)
+                writeHuffmanTables(out, (HuffmanTablesDirectory)directory);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Decodes metadata from bytes produced by {@link #encode(Metadata)}.
+     *
+     * @throws IOException if the data is not valid, was written by a different version, or names a directory class
+     *         that cannot be instantiated
+     */
+    @NotNull
+    public static Metadata decode(@NotNull byte[] bytes) throws IOException
+    {
+        return decode(new SequentialByteArrayReader(bytes));
+    }
+
+    /**
+     * Decodes metadata from a stream of bytes produced by {@link #encode(Metadata, OutputStream)}. Only the encoded
+     * metadata is read from the stream, which is not closed.
+     *
+     * @throws IOException if reading from the stream fails, if the data is not valid, was written by a different
+     *         version, or names a directory class that cannot be instantiated
+     */
+    @NotNull
+    public static Metadata decode(@NotNull InputStream inputStream) throws IOException
+    {
+        return decode(new StreamReader(inputStream));
+    }
+
+    @NotNull
+    private static Metadata decode(@NotNull SequentialReader reader) throws IOException
+    {
+        if (!Arrays.equals(MAGIC, reader.getBytes(MAGIC.length)))
+            throw new IOException("Data is not encoded metadata");
+
+        int version = readVarInt(reader);
+        if (version != VERSION)
+            throw new IOException("Unsupported encoded metadata version " + version);
+
+        int directoryCount = readLength(reader);
+        Directory[] directories = new Directory[initialLength(directoryCount)];
+        int[] parentIndexes = new int[directories.length];
+        List<String> classNames = new ArrayList<String>();
+
+        Metadata metadata = new Metadata();
+
+        for (int d = 0; d < directoryCount; d++) {
+            if (d == directories.length) {
+                directories = (Directory[])grow(directories, directoryCount);
+                parentIndexes = (int[])grow(parentIndexes, directoryCount);
+            }
+
+            int classNameIndex = readLength(reader);
+            if (classNameIndex == classNames.size())
+                classNames.add(readString(reader));
+            else if (classNameIndex > classNames.size())
+                throw new IOException("Invalid directory class index " + classNameIndex);
+
+            Directory directory = createDirectory(classNames.get(classNameIndex), reader);
+
+            int parentIndex = readLength(reader);
+            if (parentIndex > directoryCount)
+                throw new IOException("Invalid parent directory index " + parentIndex);
+            parentIndexes[d] = parentIndex;
+
+            int errorCount = readLength(reader);
+            for (int i = 0; i < errorCount; i++)
+                directory.addError(readString(reader));
+
+            int tagCount = readLength(reader);
+            for (int i = 0; i < tagCount; i++) {
+                int tagType = readVarInt(reader);
+                directory.setObject(tagType, readValue(reader));
+            }
+
+            if (directory.getClass() == XmpDirectory.class)
+                readXmp(reader, (XmpDirectory)directory);
+            else if (directory.getClass() == HuffmanTablesDirectory.class)
+                readHuffmanTables(reader, (HuffmanTablesDirectory)directory);
+
+            directories[d] = directory;
+            metadata.addDirectory(directory);
+        }
+
+        // A parent need not precede its children, so links are set once all directories exist
+        for (int d = 0; d < directoryCount; d++) {
+            if (parentIndexes[d] != 0)
+                directories[d].setParent(directories[parentIndexes[d] - 1]);
+        }
+
+        return metadata;
+    }
+
+    private static int indexOfIdentity(@NotNull List<Directory> directories, @NotNull Directory directory)
+    {
+        for (int i = 0; i < directories.size(); i++) {
+            if (directories.get(i) == directory)
+                return i;
+        }
+        return -1;
+    }
+
+    //
+    // Directories with state beyond their tags and errors
+    //
+
+    @NotNull
+    private static Directory createDirectory(@NotNull String className, @NotNull SequentialReader reader) throws IOException
+    {
+        // These directories have no default constructor. Any tags they set when constructed are replaced by the
+        // decoded tag values, which are then set in their original order.
+        if (className.equals(PngDirectory.class.getName())) {
+            try {
+                return new PngDirectory(new PngChunkType(reader.getBytes(4)));
+            } catch (PngProcessingException e) {
+                throw new IOException("Invalid PNG chunk type: " + e.getMessage());
+            }
+        }
+        if (className.equals(FileTypeDirectory.class.getName()))
+            return new FileTypeDirectory(FileType.Unknown);
+        if (className.equals(GifCommentDirectory.class.getName()))
+            return new GifCommentDirectory(new StringValue(new byte[0], null));
+
+        Constructor<? extends Directory> constructor = _constructorByClassName.get(className);
+        try {
+            if (constructor == null) {
+                constructor = loadClass(className, Directory.class).asSubclass(Directory.class).getDeclaredConstructor();
+                constructor.setAccessible(true);
+                _constructorByClassName.put(className, constructor);
+            }
+            return constructor.newInstance();
+        } catch (Exception e) {
+            throw new IOException("Unable to create directory of type " + className + ": " + e);
+        }
+    }
+
+    private static void writeXmp(@NotNull DataOutputStream out, @NotNull XmpDirectory directory) throws IOException
+    {
+        // The value count tag is set along with the XMPMeta object, which is otherwise created on demand
+        if (!directory.containsTag(XmpDirectory.TAG_XMP_VALUE_COUNT)) {
+            writeString(out, "");
+            return;
+        }
+
+        try {
+            writeString(out, XMPMetaFactory.serializeToString(directory.getXMPMeta(), new SerializeOptions().setOmitPacketWrapper(true)));
+        } catch (XMPException e) {
+            throw new IOException("Unable to encode XMP: " + e.getMessage());
+        }
+    }
+
+    private static void readXmp(@NotNull SequentialReader reader, @NotNull XmpDirectory directory) throws IOException
+    {
+        // Parsing XMP costs more than decoding everything else, so it is deferred until the XMP is used
+        String xmp = readString(reader);
+        if (xmp.length() != 0)
+            directory.setXMPMeta(xmp);
+    }
+
+    private static void writeHuffmanTables(@NotNull DataOutputStream out, @NotNull HuffmanTablesDirectory directory) throws IOException
+    {
+        // The tables are held alongside the tag counting them, which JpegDhtReader sets once they are all added
+        int tableCount = directory.containsTag(HuffmanTablesDirectory.TAG_NUMBER_OF_TABLES)
+            ? directory.getInteger(HuffmanTablesDirectory.TAG_NUMBER_OF_TABLES)
+            : 0;
+
+        writeVarInt(out, tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            HuffmanTable table;
+            try {
+                table = directory.getTable(i);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Unable to encode Huffman table " + i + " of " + tableCount);
+            }
+            writeVarInt(out, table.getTableClass().ordinal());
+            writeVarInt(out, table.getTableDestinationId());
+            byte[] lengthBytes = table.getLengthBytes();
+            writeVarInt(out, lengthBytes.length);
+            out.write(lengthBytes);
+            byte[] valueBytes = table.getValueBytes();
+            writeVarInt(out, valueBytes.length);
+            out.write(valueBytes);
+        }
+    }
+
+    private static void readHuffmanTables(@NotNull SequentialReader reader, @NotNull HuffmanTablesDirectory directory) throws IOException
+    {
+        HuffmanTableClass[] tableClasses = HuffmanTableClass.values();
+        int tableCount = readLength(reader);
+        for (int i = 0; i < tableCount; i++) {
+            int tableClass = readLength(reader);
+            if (tableClass >= tableClasses.length)
+                throw new IOException("Invalid Huffman table class " + tableClass);
+            int tableDestinationId = readVarInt(reader);
+            byte[] lengthBytes = readBytes(reader);
+            directory.addTable(new HuffmanTable(tableClasses[tableClass], tableDestinationId, lengthBytes, readBytes(reader)));
+        }
+    }
+
+    //
+    // Values
+    //
+
+    private static void writeValue(@NotNull DataOutputStream out, @NotNull Object value) throws IOException
+    {
+        if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            writeVarLong(out, zigZag((Integer)value));
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            writeVarLong(out, zigZag((Long)value));
+        } else if (value instanceof Short) {
+            out.writeByte(TYPE_SHORT);
+            writeVarLong(out, zigZag((Short)value));
+        } else if (value instanceof Byte) {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte((Byte)value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean)value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float)value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double)value);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String)value);
+        } else if (value instanceof StringValue) {
+            out.writeByte(TYPE_STRING_VALUE);
+            writeStringValue(out, (StringValue)value);
+        } else if (value instanceof Rational) {
+            out.writeByte(TYPE_RATIONAL);
+            writeRational(out, (Rational)value);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(TYPE_DATE);
+            writeVarLong(out, zigZag(((Date)value).getTime()));
+        } else if (value instanceof byte[]) {
+            byte[] array = (byte[])value;
+            out.writeByte(TYPE_BYTE_ARRAY);
+            writeVarInt(out, array.length);
+            out.write(array);
+        } else if (value instanceof short[]) {
+            short[] array = (short[])value;
+            out.writeByte(TYPE_SHORT_ARRAY);
+            writeVarInt(out, array.length);
+            for (short item : array)
+                writeVarLong(out, zigZag(item));
+        } else if (value instanceof int[]) {
+            int[] array = (int[])value;
+            out.writeByte(TYPE_INT_ARRAY);
+            writeVarInt(out, array.length);
+            for (int item : array)
+                writeVarLong(out, zigZag(item));
+        } else if (value instanceof long[]) {
+            long[] array = (long[])value;
+            out.writeByte(TYPE_LONG_ARRAY);
+            writeVarInt(out, array.length);
+            for (long item : array)
+                writeVarLong(out, zigZag(item));
+        } else if (value instanceof float[]) {
+            float[] array = (float[])value;
+            out.writeByte(TYPE_FLOAT_ARRAY);
+            writeVarInt(out, array.length);
+            for (float item : array)
+                out.writeFloat(item);
+        } else if (value instanceof double[]) {
+            double[] array = (double[])value;
+            out.writeByte(TYPE_DOUBLE_ARRAY);
+            writeVarInt(out, array.length);
+            for (double item : array)
+                out.writeDouble(item);
+        } else if (value instanceof String[]) {
+            String[] array = (String[])value;
+            out.writeByte(TYPE_STRING_ARRAY);
+            writeVarInt(out, array.length);
+            for (String item : array)
+                writeString(out, item);
+        } else if (value instanceof StringValue[]) {
+            StringValue[] array = (StringValue[])value;
+            out.writeByte(TYPE_STRING_VALUE_ARRAY);
+            writeVarInt(out, array.length);
+            for (StringValue item : array)
+                writeStringValue(out, item);
+        } else if (value instanceof Rational[]) {
+            Rational[] array = (Rational[])value;
+            out.writeByte(TYPE_RATIONAL_ARRAY);
+            writeVarInt(out, array.length);
+            for (Rational item : array)
+                writeRational(out, item);
+        } else if (isKeyValuePairList(value)) {
+            List<?> list = (List<?>)value;
+            out.writeByte(TYPE_KEY_VALUE_LIST);
+            writeVarInt(out, list.size());
+            for (Object item : list) {
+                KeyValuePair pair = (KeyValuePair)item;
+                writeString(out, pair.getKey());
+                writeStringValue(out, pair.getValue());
+            }
+        } else if (value instanceof JpegComponent) {
+            JpegComponent component = (JpegComponent)value;
+            out.writeByte(TYPE_JPEG_COMPONENT);
+            writeVarInt(out, component.getComponentId());
+            writeVarInt(out, (component.getHorizontalSamplingFactor() << 4) | component.getVerticalSamplingFactor());
+            writeVarInt(out, component.getQuantizationTableNumber());
+        } else if (value instanceof Enum) {
+            out.writeByte(TYPE_ENUM);
+            writeString(out, ((Enum<?>)value).getDeclaringClass().getName());
+            writeString(out, ((Enum<?>)value).name());
+        } else {
+            throw new IOException("Unable to encode tag value of type " + value.getClass().getName());
+        }
+    }
+
+    @NotNull
+    private static Object readValue(@NotNull SequentialReader reader) throws IOException
+    {
+        int type = reader.getUInt8();
+        switch (type) {
+            case TYPE_INT:
+                return (int)unZigZag(readVarLong(reader));
+            case TYPE_LONG:
+                return unZigZag(readVarLong(reader));
+            case TYPE_SHORT:
+                return (short)unZigZag(readVarLong(reader));
+            case TYPE_BYTE:
+                return reader.getInt8();
+            case TYPE_BOOLEAN:
+                return reader.getInt8() != 0;
+            case TYPE_FLOAT:
+                return reader.getFloat32();
+            case TYPE_DOUBLE:
+                return reader.getDouble64();
+            case TYPE_STRING:
+                return readString(reader);
+            case TYPE_STRING_VALUE:
+                return readStringValue(reader);
+            case TYPE_RATIONAL:
+                return readRational(reader);
+            case TYPE_DATE:
+                return new Date(unZigZag(readVarLong(reader)));
+            case TYPE_BYTE_ARRAY:
+                return readBytes(reader);
+            case TYPE_SHORT_ARRAY: {
+                int length = readLength(reader);
+                short[] array = new short[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (short[])grow(array, length);
+                    array[i] = (short)unZigZag(readVarLong(reader));
+                }
+                return array;
+            }
+            case TYPE_INT_ARRAY: {
+                int length = readLength(reader);
+                int[] array = new int[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (int[])grow(array, length);
+                    array[i] = (int)unZigZag(readVarLong(reader));
+                }
+                return array;
+            }
+            case TYPE_LONG_ARRAY: {
+                int length = readLength(reader);
+                long[] array = new long[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (long[])grow(array, length);
+                    array[i] = unZigZag(readVarLong(reader));
+                }
+                return array;
+            }
+            case TYPE_FLOAT_ARRAY: {
+                int length = readLength(reader);
+                float[] array = new float[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (float[])grow(array, length);
+                    array[i] = reader.getFloat32();
+                }
+                return array;
+            }
+            case TYPE_DOUBLE_ARRAY: {
+                int length = readLength(reader);
+                double[] array = new double[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (double[])grow(array, length);
+                    array[i] = reader.getDouble64();
+                }
+                return array;
+            }
+            case TYPE_STRING_ARRAY: {
+                int length = readLength(reader);
+                String[] array = new String[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (String[])grow(array, length);
+                    array[i] = readString(reader);
+                }
+                return array;
+            }
+            case TYPE_STRING_VALUE_ARRAY: {
+                int length = readLength(reader);
+                StringValue[] array = new StringValue[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (StringValue[])grow(array, length);
+                    array[i] = readStringValue(reader);
+                }
+                return array;
+            }
+            case TYPE_RATIONAL_ARRAY: {
+                int length = readLength(reader);
+                Rational[] array = new Rational[initialLength(length)];
+                for (int i = 0; i < length; i++) {
+                    if (i == array.length)
+                        array = (Rational[])grow(array, length);
+                    array[i] = readRational(reader);
+                }
+                return array;
+            }
+            case TYPE_KEY_VALUE_LIST: {
+                int count = readLength(reader);
+                List<KeyValuePair> list = new ArrayList<KeyValuePair>(initialLength(count));
+                for (int i = 0; i < count; i++)
+                    list.add(new KeyValuePair(readString(reader), readStringValue(reader)));
+                return list;
+            }
+            case TYPE_JPEG_COMPONENT: {
+                int componentId = readVarInt(reader);
+                int samplingFactorByte = readVarInt(reader);
+                return new JpegComponent(componentId, samplingFactorByte, readVarInt(reader));
+            }
+            case TYPE_ENUM: {
+                String className = readString(reader);
+                String name = readString(reader);
+                try {
+                    Class<?> enumType = loadClass(className, Enum.class);
+                    if (!enumType.isEnum())
+                        throw new IOException(className + " is not an enum");
+                    return readEnum(enumType, name);
+                } catch (Exception e) {
+                    throw new IOException("Unable to decode tag value " + className + "." + name + ": " + e);
+                }
+            }
+            default:
+                throw new IOException("Invalid tag value type " + type);
+        }
+    }
+
+    /**
+     * Loads the class named <code>className</code> without initialising it, so that no code runs for classes
+     * that are not subtypes of <code>requiredType</code>.
+     */
+    @NotNull
+    private static Class<?> loadClass(@NotNull String className, @NotNull Class<?> requiredType) throws ClassNotFoundException, IOException
+    {
+        Class<?> type = Class.forName(className, false, MetadataCodec.class.getClassLoader());
+        if (!requiredType.isAssignableFrom(type) || type == requiredType)
+            throw new IOException(className + " is not a subclass of " + requiredType.getName());
+        return type;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @NotNull
+    private static Object readEnum(@NotNull Class type, @NotNull String name)
+    {
+        return Enum.valueOf(type, name);
+    }
+
+    private static boolean isKeyValuePairList(@NotNull Object value)
+    {
+        if (!(value instanceof List))
+            return false;
+        for (Object item : (List<?>)value) {
+            if (!(item instanceof KeyValuePair))
+                return false;
+        }
+        return true;
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    @NotNull
+    private static String readString(@NotNull SequentialReader reader) throws IOException
+    {
+        return new String(readBytes(reader), Charsets.UTF_8);
+    }
+
+    private static void writeStringValue(@NotNull DataOutputStream out, @NotNull StringValue value) throws IOException
+    {
+        Charset charset = value.getCharset();
+        writeString(out, charset == null ? "" : charset.name());
+        writeVarInt(out, value.getBytes().length);
+        out.write(value.getBytes());
+    }
+
+    @NotNull
+    private static StringValue readStringValue(@NotNull SequentialReader reader) throws IOException
+    {
+        String charsetName = readString(reader);
+        Charset charset;
+        try {
+            charset = charsetName.length() == 0 ? null : Charset.forName(charsetName);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unsupported charset " + charsetName);
+        }
+        return new StringValue(readBytes(reader), charset);
+    }
+
+    //
+    // Lengths
+    //
+
+    /**
+     * Reads a length followed by that many bytes. Bytes from a stream are read in blocks, so that no more is
+     * allocated than the stream holds.
+     */
+    @NotNull
+    private static byte[] readBytes(@NotNull SequentialReader reader) throws IOException
+    {
+        int length = readLength(reader);
+        if (reader instanceof SequentialByteArrayReader || length <= MAX_UNVERIFIED_LENGTH)
+            return reader.getBytes(length);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(MAX_UNVERIFIED_LENGTH);
+        byte[] buffer = new byte[MAX_UNVERIFIED_LENGTH];
+        for (int remaining = length; remaining != 0; ) {
+            int count = Math.min(remaining, buffer.length);
+            reader.getBytes(buffer, 0, count);
+            bytes.write(buffer, 0, count);
+            remaining -= count;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeRational(@NotNull DataOutputStream out, @NotNull Rational value) throws IOException
+    {
+        writeVarLong(out, zigZag(value.getNumerator()));
+        writeVarLong(out, zigZag(value.getDenominator()));
+    }
+
+    @NotNull
+    private static Rational readRational(@NotNull SequentialReader reader) throws IOException
+    {
+        long numerator = unZigZag(readVarLong(reader));
+        return new Rational(numerator, unZigZag(readVarLong(reader)));
+    }
+
+    //
+    // Variable-length integers, using seven bits per byte with the high bit set on all but the last byte
+    //
+
+    private static void writeVarInt(@NotNull DataOutputStream out, int value) throws IOException
+    {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(@NotNull DataOutputStream out, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int)value);
+    }
+
+    private static int readVarInt(@NotNull SequentialReader reader) throws IOException
+    {
+        long value = readVarLong(reader);
+        if ((value & ~0xFFFFFFFFL) != 0)
+            throw new IOException("Invalid variable-length integer");
+        return (int)value;
+    }
+
+    private static long readVarLong(@NotNull SequentialReader reader) throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = reader.getInt8();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Invalid variable-length integer");
+    }
+
+    /**
+     * Reads a length, which unlike a tag type may not be negative. Each item takes at least one byte, so when the
+     * remaining byte count is known a longer length is rejected before anything is allocated for it.
+     */
+    private static int readLength(@NotNull SequentialReader reader) throws IOException
+    {
+        int length = readVarInt(reader);
+        if (length < 0 || (reader instanceof SequentialByteArrayReader && length > reader.available()))
+            throw new IOException("Invalid length " + length);
+        return length;
+    }
+
+    /**
+     * Returns the length to allocate for <code>length</code> items whose data has not yet been read.
+     */
+    private static int initialLength(int length)
+    {
+        return Math.min(length, MAX_UNVERIFIED_LENGTH);
+    }
+
+    /**
+     * Returns a copy of <code>array</code> with room for twice as many items, up to <code>length</code>.
+     */
+    @NotNull
+    private static Object grow(@NotNull Object array, int length)
+    {
+        int oldLength = Array.getLength(array);
+        Object grown = Array.newInstance(array.getClass().getComponentType(), (int)Math.min((long)oldLength * 2, length));
+        System.arraycopy(array, 0, grown, 0, oldLength);
+        return grown;
+    }
+
+    /** Maps signed values to unsigned ones so that values of small magnitude encode to few bytes. */
+    private static long zigZag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private MetadataCodec() throws Exception
+    {
+        throw new Exception("Not intended for instantiation");
+    }
+}
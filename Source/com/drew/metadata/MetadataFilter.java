@@ -0,0 +1,220 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.xmp.XmpDirectory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Specifies which directories, and optionally which tags within them, should be extracted.
+ * <p>
+ * Readers that support filtering avoid creating directories and decoding tag values that are not included, and
+ * where every included directory is restricted to specific tags, stop reading once all of them have been found.
+ * Currently Exif/TIFF data (including makernotes) is filtered at the tag level, and XMP in JPEG and TIFF files at the
+ * property level via {@link #includeXmpProperties(String...)}. For other formats,
+ * {@link com.drew.imaging.ImageMetadataReader} omits directories that are not included from its result.
+ * <p>
+ * Filters are populated via the <code>include</code> methods and are not thread safe while being populated. Once
+ * populated, a filter may be shared across threads and extractions.
+ *
+ * <pre>
+ * MetadataFilter filter = new MetadataFilter()
+ *     .include(ExifIFD0Directory.class, ExifIFD0Directory.TAG_ORIENTATION)
+ *     .include(ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL)
+ *     .include(GpsDirectory.class);
+ * </pre>
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataFilter
+{
+    /** Maps included directory types to their included tags, or to <code>null</code> if all tags are included. */
+    @NotNull
+    private final Map<Class<? extends Directory>, Set<Integer>> _tagsByDirectoryType = new HashMap<Class<? extends Directory>, Set<Integer>>();
+
+    @NotNull
+    private final Set<String> _includedPackageNames = new HashSet<String>();
+
+    @NotNull
+    private final Set<String> _xmpPropertyPaths = new HashSet<String>();
+
+    private int _requiredTagCount;
+    private boolean _includesAllTagsOfAnyDirectory;
+    private int _modificationCount;
+
+    /**
+     * Includes all tags of directories of type <code>directoryType</code>.
+     */
+    @NotNull
+    public MetadataFilter include(@NotNull Class<? extends Directory> directoryType)
+    {
+        Set<Integer> previous = _tagsByDirectoryType.put(directoryType, null);
+        if (previous != null)
+            _requiredTagCount -= previous.size();
+        _includesAllTagsOfAnyDirectory = true;
+        _includedPackageNames.add(getPackageName(directoryType));
+        _modificationCount++;
+        return this;
+    }
+
+    /**
+     * Includes the specified tags of directories of type <code>directoryType</code>. If all tags of this
+     * directory type were already included, this call has no effect.
+     */
+    @NotNull
+    public MetadataFilter include(@NotNull Class<? extends Directory> directoryType, @NotNull int... tagTypes)
+    {
+        Set<Integer> tags;
+        if (_tagsByDirectoryType.containsKey(directoryType)) {
+            tags = _tagsByDirectoryType.get(directoryType);
+            if (tags == null)
+                return this;
+        } else {
+            tags = new HashSet<Integer>();
+            _tagsByDirectoryType.put(directoryType, tags);
+        }
+
+        for (int tagType : tagTypes) {
+            if (tags.add(tagType))
+                _requiredTagCount++;
+        }
+
+        _includedPackageNames.add(getPackageName(directoryType));
+        _modificationCount++;
+        return this;
+    }
+
+    /**
+     * Includes the XMP properties at <code>propertyPaths</code>, such as <code>xmp:Rating</code> or
+     * <code>dc:subject</code>, in the form used by {@link XmpDirectory#getXmpProperties()}.
+     * <p>
+     * Once any properties are included, XMP is read by {@link com.drew.metadata.xmp.XmpStreamReader} and only these
+     * properties are extracted. The full XMP remains available from {@link XmpDirectory#getXMPMeta()}, which is then
+     * parsed on first use.
+     */
+    @NotNull
+    public MetadataFilter includeXmpProperties(@NotNull String... propertyPaths)
+    {
+        include(XmpDirectory.class);
+        Collections.addAll(_xmpPropertyPaths, propertyPaths);
+        _modificationCount++;
+        return this;
+    }
+
+    /**
+     * Gets the number of times this filter has been changed via its <code>include</code> methods, so that readers
+     * prepared for it may detect that they are out of date.
+     */
+    public int getModificationCount()
+    {
+        return _modificationCount;
+    }
+
+    /**
+     * Gets the XMP property paths included via {@link #includeXmpProperties(String...)}, which is empty if XMP
+     * is not to be filtered by property.
+     */
+    @NotNull
+    public Set<String> getXmpPropertyPaths()
+    {
+        return Collections.unmodifiableSet(_xmpPropertyPaths);
+    }
+
+    /**
+     * Gets whether any tag of directories of type <code>directoryType</code> is included.
+     */
+    public boolean isDirectoryIncluded(@NotNull Class<? extends Directory> directoryType)
+    {
+        return _tagsByDirectoryType.containsKey(directoryType);
+    }
+
+    /**
+     * Gets whether the tag <code>tagType</code> of directories of type <code>directoryType</code> is included.
+     */
+    public boolean isTagIncluded(@NotNull Class<? extends Directory> directoryType, int tagType)
+    {
+        if (!_tagsByDirectoryType.containsKey(directoryType))
+            return false;
+        Set<Integer> tags = _tagsByDirectoryType.get(directoryType);
+        return tags == null || tags.contains(tagType);
+    }
+
+    /**
+     * Gets whether any directory type within the package <code>packageName</code> is included, such as
+     * <code>com.drew.metadata.exif.makernotes</code>.
+     */
+    public boolean isPackageIncluded(@NotNull String packageName)
+    {
+        return _includedPackageNames.contains(packageName);
+    }
+
+    /**
+     * Gets whether <code>metadata</code> already contains every tag this filter includes, meaning that
+     * reading can stop. Always <code>false</code> if any directory type has all of its tags included, as it
+     * cannot be known when they have all been found.
+     */
+    public boolean isSatisfiedBy(@NotNull Metadata metadata)
+    {
+        if (_includesAllTagsOfAnyDirectory || _requiredTagCount == 0)
+            return false;
+
+        for (Map.Entry<Class<? extends Directory>, Set<Integer>> entry : _tagsByDirectoryType.entrySet()) {
+            Directory directory = metadata.getFirstDirectoryOfType(entry.getKey());
+            if (directory == null)
+                return false;
+            for (Integer tagType : entry.getValue()) {
+                if (!directory.containsTag(tagType))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Creates a copy of <code>metadata</code> containing only the directories this filter includes.
+     */
+    @NotNull
+    public Metadata retainIncludedDirectories(@NotNull Metadata metadata)
+    {
+        Metadata filtered = new Metadata();
+        for (Directory directory : metadata.getDirectories()) {
+            if (isDirectoryIncluded(directory.getClass()))
+                filtered.addDirectory(directory);
+        }
+        return filtered;
+    }
+
+    @NotNull
+    private static String getPackageName(@NotNull Class<?> type)
+    {
+        // Class.getPackage may return null for classes from some class loaders
+        String name = type.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot == -1 ? "" : name.substring(0, lastDot);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.lang.annotations.NotNull;
+
+/**
+ * Receives metadata as it is extracted, rather than after the whole {@link Metadata} object has been populated.
+ * <p>
+ * Attach a listener by constructing {@link Metadata#Metadata(MetadataListener)} and passing that object to a reader's
+ * <code>process</code> method, such as {@link com.drew.imaging.ImageMetadataReader#process(Metadata, java.io.InputStream)}.
+ * <p>
+ * For each directory, {@link #onDirectoryStart} is called when the directory is added to the metadata, followed by
+ * {@link #onTag} and {@link #onError} as values and errors are recorded, in the order they are read. A value that is
+ * overwritten produces a second {@link #onTag} call for the same tag type. {@link #onDirectoryEnd} is called for every
+ * directory, in the order they were added, once the reader that produced it has finished.
+ * <p>
+ * Construct the metadata with {@link Metadata#Metadata(MetadataListener, boolean)} to have directories released as
+ * they end, rather than retained until the metadata itself is discarded.
+ * <p>
+ * Callbacks are made on the thread performing the extraction. Implementations should not modify the directories
+ * they are given.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public interface MetadataListener
+{
+    /**
+     * Called when a directory is added to the metadata being populated.
+     *
+     * @param directory the directory that was added
+     */
+    void onDirectoryStart(@NotNull Directory directory);
+
+    /**
+     * Called when a tag value is set on a directory.
+     *
+     * @param directory the directory holding the tag
+     * @param tagType the tag's type
+     * @param value the tag's value, as stored in the directory
+     */
+    void onTag(@NotNull Directory directory, int tagType, @NotNull Object value);
+
+    /**
+     * Called when an error is recorded against a directory.
+     *
+     * @param directory the directory the error was recorded against
+     * @param message the error message
+     */
+    void onError(@NotNull Directory directory, @NotNull String message);
+
+    /**
+     * Called for each directory once the reader that produced it has finished.
+     *
+     * @param directory the directory that is complete
+     */
+    void onDirectoryEnd(@NotNull Directory directory);
+}
@@ -33,9 +33,12 @@ import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 
 /**
  * Base class for all tag descriptor classes.  Implementations are responsible for
@@ -46,6 +49,12 @@ import java.util.Map;
  */
 public class TagDescriptor<T extends Directory>
 {
+    /**
+     * Formatters for the calling thread, as neither {@link DecimalFormat} nor {@link SimpleDateFormat} may be used
+     * concurrently. Constructing these per description was a large part of the cost of describing a tag.
+     */
+    private static final ThreadLocal<Formatters> _formatters = new ThreadLocal<Formatters>();
+
     @NotNull
     protected final T _directory;
 
@@ -76,16 +85,12 @@ public class TagDescriptor<T extends Directory>
         if (object.getClass().isArray()) {
             final int length = Array.getLength(object);
             if (length > 16) {
-                return String.format("[%d values]", length);
+                return "[" + length + " values]";
             }
         }
 
-        if (object instanceof Date) {
-            // Produce a date string having a format that includes the offset in form "+00:00"
-            return new SimpleDateFormat("EEE MMM dd HH:mm:ss Z yyyy")
-                .format((Date) object)
-                .replaceAll("([0-9]{2} [^ ]+)$", ":$1");
-        }
+        if (object instanceof Date)
+            return formatDate((Date)object);
 
         // no special handling required, so use default conversion to a string
         return _directory.getString(tagType);
@@ -158,7 +163,7 @@ public class TagDescriptor<T extends Directory>
         byte[] bytes = _directory.getByteArray(tagType);
         if (bytes == null)
             return null;
-        return String.format("(%d byte%s)", bytes.length, bytes.length == 1 ? "" : "s");
+        return bytes.length == 1 ? "(1 byte)" : "(" + bytes.length + " bytes)";
     }
 
     @Nullable
@@ -293,8 +298,7 @@ public class TagDescriptor<T extends Directory>
 
         Double d = _directory.getDoubleObject(tagType);
         if (d != null) {
-            DecimalFormat format = new DecimalFormat("0.###");
-            return format.format(d);
+            return getDecimalFormat("0.###").format(d);
         }
 
         return null;
@@ -303,17 +307,13 @@ public class TagDescriptor<T extends Directory>
     @NotNull
     protected static String getFStopDescription(double fStop)
     {
-        DecimalFormat format = new DecimalFormat("0.0");
-        format.setRoundingMode(RoundingMode.HALF_UP);
-        return "f/" + format.format(fStop);
+        return "f/" + getDecimalFormat("0.0", RoundingMode.HALF_UP).format(fStop);
     }
 
     @NotNull
     protected static String getFocalLengthDescription(double mm)
     {
-        DecimalFormat format = new DecimalFormat("0.#");
-        format.setRoundingMode(RoundingMode.HALF_UP);
-        return format.format(mm) + " mm";
+        return getDecimalFormat("0.#", RoundingMode.HALF_UP).format(mm) + " mm";
     }
 
     @Nullable
@@ -334,8 +334,7 @@ public class TagDescriptor<T extends Directory>
         if (!values[2].isZero()) {
             sb.append(' ');
 
-            DecimalFormat format = new DecimalFormat("0.0");
-            format.setRoundingMode(RoundingMode.HALF_UP);
+            DecimalFormat format = getDecimalFormat("0.0", RoundingMode.HALF_UP);
 
             if (values[2].equals(values[3]))
                 sb.append(getFStopDescription(values[2].doubleValue()));
@@ -373,9 +372,7 @@ public class TagDescriptor<T extends Directory>
             float apexPower = (float)(1 / (Math.exp(apexValue * Math.log(2))));
             long apexPower10 = Math.round((double)apexPower * 10.0);
             float fApexPower = (float)apexPower10 / 10.0f;
-            DecimalFormat format = new DecimalFormat("0.##");
-            format.setRoundingMode(RoundingMode.HALF_UP);
-            return format.format(fApexPower) + " sec";
+            return getDecimalFormat("0.##", RoundingMode.HALF_UP).format(fApexPower) + " sec";
         } else {
             int apexPower = (int)((Math.exp(apexValue * Math.log(2))));
             return "1/" + apexPower + " sec";
@@ -422,4 +419,99 @@ public class TagDescriptor<T extends Directory>
             return null;
         }
     }
+
+    /**
+     * Describes a date in the form <code>EEE MMM dd HH:mm:ss Z yyyy</code>, with the offset written as
+     * <code>+00:00</code> and in the default time zone.
+     */
+    @NotNull
+    private static String formatDate(@NotNull Date date)
+    {
+        SimpleDateFormat format = getFormatters().getDateFormat();
+        format.setTimeZone(TimeZone.getDefault());
+        String s = format.format(date);
+
+        // Insert a colon between the hours and minutes of the offset, which precedes the year
+        int offsetEnd = s.lastIndexOf(' ');
+        if (offsetEnd < 2)
+            return s;
+        return new StringBuilder(s.length() + 1)
+            .append(s, 0, offsetEnd - 2)
+            .append(':')
+            .append(s, offsetEnd - 2, s.length())
+            .toString();
+    }
+
+    /**
+     * Gets a {@link DecimalFormat} for <code>pattern</code>, with {@link RoundingMode#HALF_EVEN} rounding, which is
+     * cached for the calling thread. The returned instance must not be modified or shared with other threads.
+     */
+    @NotNull
+    protected static DecimalFormat getDecimalFormat(@NotNull String pattern)
+    {
+        return getDecimalFormat(pattern, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Gets a {@link DecimalFormat} for <code>pattern</code> and <code>roundingMode</code>, which is cached for the
+     * calling thread. The returned instance must not be modified or shared with other threads.
+     */
+    @NotNull
+    protected static DecimalFormat getDecimalFormat(@NotNull String pattern, @NotNull RoundingMode roundingMode)
+    {
+        return getFormatters().getDecimalFormat(pattern, roundingMode);
+    }
+
+    @NotNull
+    private static Formatters getFormatters()
+    {
+        // Formats capture the default locale when created, so start afresh should it change
+        Formatters formatters = _formatters.get();
+        if (formatters == null || !formatters.locale.equals(Locale.getDefault())) {
+            formatters = new Formatters(Locale.getDefault());
+            _formatters.set(formatters);
+        }
+        return formatters;
+    }
+
+    private static final class Formatters
+    {
+        @NotNull
+        final Locale locale;
+        @NotNull
+        private final Map<RoundingMode, Map<String, DecimalFormat>> _decimalFormats = new EnumMap<RoundingMode, Map<String, DecimalFormat>>(RoundingMode.class);
+        @Nullable
+        private SimpleDateFormat _dateFormat;
+
+        Formatters(@NotNull Locale locale)
+        {
+            this.locale = locale;
+        }
+
+        @NotNull
+        DecimalFormat getDecimalFormat(@NotNull String pattern, @NotNull RoundingMode roundingMode)
+        {
+            Map<String, DecimalFormat> formats = _decimalFormats.get(roundingMode);
+            if (formats == null) {
+                formats = new HashMap<String, DecimalFormat>();
+                _decimalFormats.put(roundingMode, formats);
+            }
+
+            DecimalFormat format = formats.get(pattern);
+            if (format == null) {
+                format = new DecimalFormat(pattern);
+                format.setRoundingMode(roundingMode);
+                formats.put(pattern, format);
+            }
+            return format;
+        }
+
+        @NotNull
+        SimpleDateFormat getDateFormat()
+        {
+            if (_dateFormat == null)
+                _dateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss Z yyyy");
+            return _dateFormat;
+        }
+    }
 }
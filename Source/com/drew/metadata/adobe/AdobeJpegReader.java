@@ -21,8 +21,10 @@
 
 package com.drew.metadata.adobe;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.BoundedJpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.jpeg.SlicedJpegSegmentMetadataReader;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
 import com.drew.lang.annotations.NotNull;
@@ -39,7 +41,7 @@ import java.util.Collections;
  * @author Drew Noakes https://drewnoakes.com
  */
 @SuppressWarnings("WeakerAccess")
-public class AdobeJpegReader implements JpegSegmentMetadataReader
+public class AdobeJpegReader implements BoundedJpegSegmentMetadataReader, SlicedJpegSegmentMetadataReader
 {
     public static final String PREAMBLE = "Adobe";
 
@@ -49,11 +51,26 @@ public class AdobeJpegReader implements JpegSegmentMetadataReader
         return Collections.singletonList(JpegSegmentType.APPE);
     }
 
+    public int getMaxSegmentCount()
+    {
+        return 1;
+    }
+
+    public boolean isSegmentUsed(@NotNull JpegSegment segment, @NotNull JpegSegmentType segmentType)
+    {
+        return segment.getLength() == 12 && segment.startsWith(PREAMBLE, true);
+    }
+
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
-        for (byte[] bytes : segments) {
-            if (bytes.length == 12 && PREAMBLE.equalsIgnoreCase(new String(bytes, 0, PREAMBLE.length())))
-                extract(new SequentialByteArrayReader(bytes), metadata);
+        readJpegSegmentSlices(JpegSegment.fromByteArrays(segments), metadata, segmentType);
+    }
+
+    public void readJpegSegmentSlices(@NotNull Iterable<JpegSegment> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        for (JpegSegment segment : segments) {
+            if (isSegmentUsed(segment, segmentType))
+                extract(new SequentialByteArrayReader(segment.getBuffer(), segment.getOffset(), segment.getLength()), metadata);
         }
     }
 
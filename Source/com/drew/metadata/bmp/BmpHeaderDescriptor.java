@@ -164,7 +164,7 @@ public class BmpHeaderDescriptor extends TagDescriptor<BmpHeaderDirectory>
     @NotNull
     public static String formatFixed1616(long value) {
         Double d = (double) value / 0x10000;
-        DecimalFormat format = new DecimalFormat("0.###");
+        DecimalFormat format = getDecimalFormat("0.###");
         return format.format(d);
     }
 }
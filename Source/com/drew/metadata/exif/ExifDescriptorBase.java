@@ -719,7 +719,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return null;
         if (value.getNumerator() == 0xFFFFFFFFL)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.0##");
+        DecimalFormat formatter = getDecimalFormat("0.0##");
         return formatter.format(value.doubleValue());
     }
 
@@ -752,7 +752,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return "Infinity";
         if (value.getNumerator() == 0)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.0##");
+        DecimalFormat formatter = getDecimalFormat("0.0##");
         return formatter.format(value.doubleValue()) + " metres";
     }
 
@@ -884,7 +884,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return null;
         if (value.getDenominator() == 0xFFFFFFFFL)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.0");
+        DecimalFormat formatter = getDecimalFormat("0.0");
         return formatter.format(value.doubleValue()) + " °C";
     }
 
@@ -896,7 +896,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return null;
         if (value.getDenominator() == 0xFFFFFFFFL)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.0");
+        DecimalFormat formatter = getDecimalFormat("0.0");
         return formatter.format(value.doubleValue()) + " %";
     }
 
@@ -908,7 +908,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return null;
         if (value.getDenominator() == 0xFFFFFFFFL)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.0");
+        DecimalFormat formatter = getDecimalFormat("0.0");
         return formatter.format(value.doubleValue()) + " hPa";
     }
 
@@ -920,7 +920,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return null;
         if (value.getDenominator() == 0xFFFFFFFFL)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.0##");
+        DecimalFormat formatter = getDecimalFormat("0.0##");
         return formatter.format(value.doubleValue()) + " metres";
     }
 
@@ -932,7 +932,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return null;
         if (value.getDenominator() == 0xFFFFFFFFL)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.0##");
+        DecimalFormat formatter = getDecimalFormat("0.0##");
         return formatter.format(value.doubleValue()) + " mGal";
     }
 
@@ -944,7 +944,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             return null;
         if (value.getDenominator() == 0xFFFFFFFFL)
             return "Unknown";
-        DecimalFormat formatter = new DecimalFormat("0.##");
+        DecimalFormat formatter = getDecimalFormat("0.##");
         return formatter.format(value.doubleValue()) + " degrees";
     }
 
@@ -1219,7 +1219,7 @@ public abstract class ExifDescriptorBase<T extends Directory> extends TagDescrip
             ? null
             : value.getNumerator() == 0
                 ? "Digital zoom not used"
-                : new DecimalFormat("0.#").format(value.doubleValue());
+                : getDecimalFormat("0.#").format(value.doubleValue());
     }
 
     @Nullable
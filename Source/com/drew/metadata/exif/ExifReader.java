@@ -20,8 +20,10 @@
  */
 package com.drew.metadata.exif;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.BoundedJpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.jpeg.SlicedJpegSegmentMetadataReader;
 import com.drew.imaging.tiff.TiffProcessingException;
 import com.drew.imaging.tiff.TiffReader;
 import com.drew.lang.ByteArrayReader;
@@ -30,6 +32,7 @@ import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -42,25 +45,57 @@ import java.util.Collections;
  * @author Drew Noakes https://drewnoakes.com
  */
 @SuppressWarnings("WeakerAccess")
-public class ExifReader implements JpegSegmentMetadataReader
+public class ExifReader implements BoundedJpegSegmentMetadataReader, SlicedJpegSegmentMetadataReader
 {
     /** Exif data stored in JPEG files' APP1 segment are preceded by this six character preamble "Exif\0\0". */
     public static final String JPEG_SEGMENT_PREAMBLE = "Exif\0\0";
 
+    @Nullable
+    private final MetadataFilter _filter;
+
+    public ExifReader()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a reader that only extracts the directories and tags included by <code>filter</code>, stopping
+     * once they have all been found. A <code>null</code> filter extracts everything.
+     */
+    public ExifReader(@Nullable MetadataFilter filter)
+    {
+        _filter = filter;
+    }
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
         return Collections.singletonList(JpegSegmentType.APP1);
     }
 
+    public int getMaxSegmentCount()
+    {
+        return 1;
+    }
+
+    public boolean isSegmentUsed(@NotNull JpegSegment segment, @NotNull JpegSegmentType segmentType)
+    {
+        return segment.startsWith(JPEG_SEGMENT_PREAMBLE, false);
+    }
+
     public void readJpegSegments(@NotNull final Iterable<byte[]> segments, @NotNull final Metadata metadata, @NotNull final JpegSegmentType segmentType)
+    {
+        readJpegSegmentSlices(JpegSegment.fromByteArrays(segments), metadata, segmentType);
+    }
+
+    public void readJpegSegmentSlices(@NotNull final Iterable<JpegSegment> segments, @NotNull final Metadata metadata, @NotNull final JpegSegmentType segmentType)
     {
         assert(segmentType == JpegSegmentType.APP1);
 
-        for (byte[] segmentBytes : segments) {
+        for (JpegSegment segment : segments) {
             // Segment must have the expected preamble
-            if (startsWithJpegExifPreamble(segmentBytes)) {
-                extract(new ByteArrayReader(segmentBytes), metadata, JPEG_SEGMENT_PREAMBLE.length());
+            if (isSegmentUsed(segment, segmentType)) {
+                extract(new ByteArrayReader(segment.getBuffer(), segment.getOffset(), segment.getLength()), metadata, JPEG_SEGMENT_PREAMBLE.length());
             }
         }
     }
@@ -87,7 +122,7 @@ public class ExifReader implements JpegSegmentMetadataReader
     /** Reads TIFF formatted Exif data at a specified offset within a {@link RandomAccessReader}. */
     public void extract(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata, int readerOffset, @Nullable Directory parentDirectory)
     {
-        ExifTiffHandler exifTiffHandler = new ExifTiffHandler(metadata, parentDirectory);
+        ExifTiffHandler exifTiffHandler = new ExifTiffHandler(metadata, parentDirectory, _filter);
 
         try {
             // Read the TIFF-formatted Exif data
@@ -23,7 +23,9 @@ package com.drew.metadata.exif;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.drew.imaging.jpeg.JpegMetadataReader;
 import com.drew.imaging.jpeg.JpegProcessingException;
@@ -38,13 +40,19 @@ import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
 import com.drew.metadata.StringValue;
 import com.drew.metadata.apple.AppleRunTimeReader;
 import com.drew.metadata.exif.makernotes.*;
+import com.drew.metadata.icc.IccDirectory;
 import com.drew.metadata.icc.IccReader;
+import com.drew.metadata.iptc.IptcDirectory;
 import com.drew.metadata.iptc.IptcReader;
+import com.drew.metadata.photoshop.PhotoshopDirectory;
 import com.drew.metadata.photoshop.PhotoshopReader;
+import com.drew.metadata.tiff.DirectoryFactory;
 import com.drew.metadata.tiff.DirectoryTiffHandler;
+import com.drew.metadata.xmp.XmpDirectory;
 import com.drew.metadata.xmp.XmpReader;
 
 /**
@@ -57,11 +65,365 @@ import com.drew.metadata.xmp.XmpReader;
  */
 public class ExifTiffHandler extends DirectoryTiffHandler
 {
+    private static final String MAKERNOTE_PACKAGE_NAME = "com.drew.metadata.exif.makernotes";
+
+    /** Makernote formats registered by users, checked when the makernote is not otherwise recognised. */
+    private static final List<MakernoteRegistration> _makernoteRegistrations = new CopyOnWriteArrayList<MakernoteRegistration>();
+
+    static {
+        registerDirectoryFactory(ExifIFD0Directory.class, new DirectoryFactory<ExifIFD0Directory>()
+        {
+            @NotNull
+            public ExifIFD0Directory create()
+            {
+                return new ExifIFD0Directory();
+            }
+        });
+        registerDirectoryFactory(ExifImageDirectory.class, new DirectoryFactory<ExifImageDirectory>()
+        {
+            @NotNull
+            public ExifImageDirectory create()
+            {
+                return new ExifImageDirectory();
+            }
+        });
+        registerDirectoryFactory(ExifInteropDirectory.class, new DirectoryFactory<ExifInteropDirectory>()
+        {
+            @NotNull
+            public ExifInteropDirectory create()
+            {
+                return new ExifInteropDirectory();
+            }
+        });
+        registerDirectoryFactory(ExifSubIFDDirectory.class, new DirectoryFactory<ExifSubIFDDirectory>()
+        {
+            @NotNull
+            public ExifSubIFDDirectory create()
+            {
+                return new ExifSubIFDDirectory();
+            }
+        });
+        registerDirectoryFactory(ExifThumbnailDirectory.class, new DirectoryFactory<ExifThumbnailDirectory>()
+        {
+            @NotNull
+            public ExifThumbnailDirectory create()
+            {
+                return new ExifThumbnailDirectory();
+            }
+        });
+        registerDirectoryFactory(GpsDirectory.class, new DirectoryFactory<GpsDirectory>()
+        {
+            @NotNull
+            public GpsDirectory create()
+            {
+                return new GpsDirectory();
+            }
+        });
+        registerDirectoryFactory(PanasonicRawIFD0Directory.class, new DirectoryFactory<PanasonicRawIFD0Directory>()
+        {
+            @NotNull
+            public PanasonicRawIFD0Directory create()
+            {
+                return new PanasonicRawIFD0Directory();
+            }
+        });
+
+        registerDirectoryFactory(AppleMakernoteDirectory.class, new DirectoryFactory<AppleMakernoteDirectory>()
+        {
+            @NotNull
+            public AppleMakernoteDirectory create()
+            {
+                return new AppleMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(CanonMakernoteDirectory.class, new DirectoryFactory<CanonMakernoteDirectory>()
+        {
+            @NotNull
+            public CanonMakernoteDirectory create()
+            {
+                return new CanonMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(CasioType1MakernoteDirectory.class, new DirectoryFactory<CasioType1MakernoteDirectory>()
+        {
+            @NotNull
+            public CasioType1MakernoteDirectory create()
+            {
+                return new CasioType1MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(CasioType2MakernoteDirectory.class, new DirectoryFactory<CasioType2MakernoteDirectory>()
+        {
+            @NotNull
+            public CasioType2MakernoteDirectory create()
+            {
+                return new CasioType2MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(FujifilmMakernoteDirectory.class, new DirectoryFactory<FujifilmMakernoteDirectory>()
+        {
+            @NotNull
+            public FujifilmMakernoteDirectory create()
+            {
+                return new FujifilmMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(KyoceraMakernoteDirectory.class, new DirectoryFactory<KyoceraMakernoteDirectory>()
+        {
+            @NotNull
+            public KyoceraMakernoteDirectory create()
+            {
+                return new KyoceraMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(LeicaMakernoteDirectory.class, new DirectoryFactory<LeicaMakernoteDirectory>()
+        {
+            @NotNull
+            public LeicaMakernoteDirectory create()
+            {
+                return new LeicaMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(LeicaType5MakernoteDirectory.class, new DirectoryFactory<LeicaType5MakernoteDirectory>()
+        {
+            @NotNull
+            public LeicaType5MakernoteDirectory create()
+            {
+                return new LeicaType5MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(NikonType1MakernoteDirectory.class, new DirectoryFactory<NikonType1MakernoteDirectory>()
+        {
+            @NotNull
+            public NikonType1MakernoteDirectory create()
+            {
+                return new NikonType1MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(NikonType2MakernoteDirectory.class, new DirectoryFactory<NikonType2MakernoteDirectory>()
+        {
+            @NotNull
+            public NikonType2MakernoteDirectory create()
+            {
+                return new NikonType2MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusCameraSettingsMakernoteDirectory.class, new DirectoryFactory<OlympusCameraSettingsMakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusCameraSettingsMakernoteDirectory create()
+            {
+                return new OlympusCameraSettingsMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusEquipmentMakernoteDirectory.class, new DirectoryFactory<OlympusEquipmentMakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusEquipmentMakernoteDirectory create()
+            {
+                return new OlympusEquipmentMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusFocusInfoMakernoteDirectory.class, new DirectoryFactory<OlympusFocusInfoMakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusFocusInfoMakernoteDirectory create()
+            {
+                return new OlympusFocusInfoMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusImageProcessingMakernoteDirectory.class, new DirectoryFactory<OlympusImageProcessingMakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusImageProcessingMakernoteDirectory create()
+            {
+                return new OlympusImageProcessingMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusMakernoteDirectory.class, new DirectoryFactory<OlympusMakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusMakernoteDirectory create()
+            {
+                return new OlympusMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusRawDevelopment2MakernoteDirectory.class, new DirectoryFactory<OlympusRawDevelopment2MakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusRawDevelopment2MakernoteDirectory create()
+            {
+                return new OlympusRawDevelopment2MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusRawDevelopmentMakernoteDirectory.class, new DirectoryFactory<OlympusRawDevelopmentMakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusRawDevelopmentMakernoteDirectory create()
+            {
+                return new OlympusRawDevelopmentMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(OlympusRawInfoMakernoteDirectory.class, new DirectoryFactory<OlympusRawInfoMakernoteDirectory>()
+        {
+            @NotNull
+            public OlympusRawInfoMakernoteDirectory create()
+            {
+                return new OlympusRawInfoMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(PanasonicMakernoteDirectory.class, new DirectoryFactory<PanasonicMakernoteDirectory>()
+        {
+            @NotNull
+            public PanasonicMakernoteDirectory create()
+            {
+                return new PanasonicMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(PentaxMakernoteDirectory.class, new DirectoryFactory<PentaxMakernoteDirectory>()
+        {
+            @NotNull
+            public PentaxMakernoteDirectory create()
+            {
+                return new PentaxMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(RicohMakernoteDirectory.class, new DirectoryFactory<RicohMakernoteDirectory>()
+        {
+            @NotNull
+            public RicohMakernoteDirectory create()
+            {
+                return new RicohMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(SamsungType2MakernoteDirectory.class, new DirectoryFactory<SamsungType2MakernoteDirectory>()
+        {
+            @NotNull
+            public SamsungType2MakernoteDirectory create()
+            {
+                return new SamsungType2MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(SanyoMakernoteDirectory.class, new DirectoryFactory<SanyoMakernoteDirectory>()
+        {
+            @NotNull
+            public SanyoMakernoteDirectory create()
+            {
+                return new SanyoMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(SigmaMakernoteDirectory.class, new DirectoryFactory<SigmaMakernoteDirectory>()
+        {
+            @NotNull
+            public SigmaMakernoteDirectory create()
+            {
+                return new SigmaMakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(SonyType1MakernoteDirectory.class, new DirectoryFactory<SonyType1MakernoteDirectory>()
+        {
+            @NotNull
+            public SonyType1MakernoteDirectory create()
+            {
+                return new SonyType1MakernoteDirectory();
+            }
+        });
+        registerDirectoryFactory(SonyType6MakernoteDirectory.class, new DirectoryFactory<SonyType6MakernoteDirectory>()
+        {
+            @NotNull
+            public SonyType6MakernoteDirectory create()
+            {
+                return new SonyType6MakernoteDirectory();
+            }
+        });
+    }
+
     public ExifTiffHandler(@NotNull Metadata metadata, @Nullable Directory parentDirectory)
     {
         super(metadata, parentDirectory);
     }
 
+    public ExifTiffHandler(@NotNull Metadata metadata, @Nullable Directory parentDirectory, @Nullable MetadataFilter filter)
+    {
+        super(metadata, parentDirectory, filter);
+    }
+
+    /**
+     * Registers a makernote format that is not supported by this library, so that its IFD is read into directories
+     * created by <code>factory</code>. Registered formats are only considered when a makernote is not recognised as
+     * one of the built-in formats, and are checked in the order they were registered.
+     *
+     * @param header the ASCII characters with which the makernote begins, such as <code>"ACME\0"</code>
+     * @param ifdOffset the offset of the makernote's IFD from the start of the makernote
+     * @param isRelativeToMakernote whether offsets within the IFD are relative to the start of the makernote, rather
+     *                              than to the TIFF header
+     * @param directoryClass the type of directory to populate with the makernote's tags
+     * @param factory creates new instances of <code>directoryClass</code>
+     */
+    public static <T extends Directory> void registerMakernote(@NotNull String header, int ifdOffset, boolean isRelativeToMakernote,
+                                                               @NotNull Class<T> directoryClass, @NotNull DirectoryFactory<? extends T> factory)
+    {
+        if (header.length() == 0)
+            throw new IllegalArgumentException("header must not be empty");
+        if (ifdOffset < 0)
+            throw new IllegalArgumentException("ifdOffset must be zero or greater");
+
+        registerDirectoryFactory(directoryClass, factory);
+        _makernoteRegistrations.add(new MakernoteRegistration(header, ifdOffset, isRelativeToMakernote, directoryClass));
+    }
+
+    @Override
+    public boolean isTagIncluded(int tagId)
+    {
+        if (super.isTagIncluded(tagId))
+            return true;
+
+        if (_filter == null || _currentDirectory == null || isFilterSatisfied())
+            return false;
+
+        // Retain the few tags consulted during processing, even if the filter excludes them
+        if (tagId == ExifIFD0Directory.TAG_MAKE && _currentDirectory instanceof ExifIFD0Directory)
+            return isMakernoteIncluded();
+        if (tagId == ExifDirectoryBase.TAG_PAGE_NUMBER && (_currentDirectory instanceof ExifIFD0Directory || _currentDirectory instanceof ExifImageDirectory))
+            return _filter.isDirectoryIncluded(ExifImageDirectory.class) || _filter.isDirectoryIncluded(ExifThumbnailDirectory.class);
+
+        return false;
+    }
+
+    private boolean isMakernoteIncluded()
+    {
+        return _filter == null || (!isFilterSatisfied() && _filter.isPackageIncluded(MAKERNOTE_PACKAGE_NAME));
+    }
+
+    /**
+     * Pushes a sub-IFD's directory if it's included by the filter, returning whether it was pushed.
+     */
+    private boolean tryPushDirectory(@NotNull Class<? extends Directory> directoryClass)
+    {
+        if (!isDirectoryIncluded(directoryClass))
+            return false;
+        pushDirectory(directoryClass);
+        return true;
+    }
+
+    /**
+     * Pushes the Exif sub-IFD's directory if the filter includes it or anything reached through it, returning whether
+     * it was pushed. When only reached through, the directory is not added to the metadata.
+     */
+    private boolean tryPushExifSubIfd()
+    {
+        if (_filter != null
+            && !_filter.isDirectoryIncluded(ExifSubIFDDirectory.class)
+            && !_filter.isDirectoryIncluded(ExifInteropDirectory.class)
+            && !_filter.isDirectoryIncluded(XmpDirectory.class)
+            && !_filter.isDirectoryIncluded(IccDirectory.class)
+            && !_filter.isDirectoryIncluded(PrintIMDirectory.class)
+            && !isMakernoteIncluded())
+            return false;
+        pushDirectory(ExifSubIFDDirectory.class);
+        return true;
+    }
+
     public void setTiffMarker(int marker) throws TiffProcessingException
     {
         final int standardTiffMarker = 0x002A;
@@ -85,54 +447,45 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
     public boolean tryEnterSubIfd(int tagId)
     {
+        if (isFilterSatisfied())
+            return false;
+
         if (tagId == ExifDirectoryBase.TAG_SUB_IFD_OFFSET) {
-            pushDirectory(ExifSubIFDDirectory.class);
-            return true;
+            return tryPushExifSubIfd();
         }
 
         if (_currentDirectory instanceof ExifIFD0Directory || _currentDirectory instanceof PanasonicRawIFD0Directory) {
             if (tagId == ExifIFD0Directory.TAG_EXIF_SUB_IFD_OFFSET) {
-                pushDirectory(ExifSubIFDDirectory.class);
-                return true;
+                return tryPushExifSubIfd();
             }
 
             if (tagId == ExifIFD0Directory.TAG_GPS_INFO_OFFSET) {
-                pushDirectory(GpsDirectory.class);
-                return true;
+                return tryPushDirectory(GpsDirectory.class);
             }
         } else if (_currentDirectory instanceof ExifSubIFDDirectory) {
             if (tagId == ExifSubIFDDirectory.TAG_INTEROP_OFFSET) {
-                pushDirectory(ExifInteropDirectory.class);
-                return true;
+                return tryPushDirectory(ExifInteropDirectory.class);
             }
         } else if (_currentDirectory instanceof OlympusMakernoteDirectory) {
             // Note: these also appear in customProcessTag because some are IFD pointers while others begin immediately
             // for the same directories
             switch(tagId) {
                 case OlympusMakernoteDirectory.TAG_EQUIPMENT:
-                    pushDirectory(OlympusEquipmentMakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusEquipmentMakernoteDirectory.class);
                 case OlympusMakernoteDirectory.TAG_CAMERA_SETTINGS:
-                    pushDirectory(OlympusCameraSettingsMakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusCameraSettingsMakernoteDirectory.class);
                 case OlympusMakernoteDirectory.TAG_RAW_DEVELOPMENT:
-                    pushDirectory(OlympusRawDevelopmentMakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusRawDevelopmentMakernoteDirectory.class);
                 case OlympusMakernoteDirectory.TAG_RAW_DEVELOPMENT_2:
-                    pushDirectory(OlympusRawDevelopment2MakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusRawDevelopment2MakernoteDirectory.class);
                 case OlympusMakernoteDirectory.TAG_IMAGE_PROCESSING:
-                    pushDirectory(OlympusImageProcessingMakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusImageProcessingMakernoteDirectory.class);
                 case OlympusMakernoteDirectory.TAG_FOCUS_INFO:
-                    pushDirectory(OlympusFocusInfoMakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusFocusInfoMakernoteDirectory.class);
                 case OlympusMakernoteDirectory.TAG_RAW_INFO:
-                    pushDirectory(OlympusRawInfoMakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusRawInfoMakernoteDirectory.class);
                 case OlympusMakernoteDirectory.TAG_MAIN_INFO:
-                    pushDirectory(OlympusMakernoteDirectory.class);
-                    return true;
+                    return tryPushDirectory(OlympusMakernoteDirectory.class);
             }
         }
 
@@ -147,15 +500,14 @@ public class ExifTiffHandler extends DirectoryTiffHandler
             // If the PageNumber tag is defined, assume this is a multipage TIFF or similar
             // TODO: Find better ways to know which follower Directory should be used
             if (_currentDirectory.containsTag(ExifDirectoryBase.TAG_PAGE_NUMBER))
-                pushDirectory(ExifImageDirectory.class);
+                return tryPushDirectory(ExifImageDirectory.class);
             else
-                pushDirectory(ExifThumbnailDirectory.class);
-            return true;
+                return tryPushDirectory(ExifThumbnailDirectory.class);
         }
 
         // The Canon EOS 7D (CR2) has three chained/following thumbnail IFDs
         if (_currentDirectory instanceof ExifThumbnailDirectory)
-            return true;
+            return !isFilterSatisfied();
 
         // This should not happen, as Exif doesn't use follower IFDs apart from that above.
         // NOTE have seen the CanonMakernoteDirectory IFD have a follower pointer, but it points to invalid data.
@@ -198,11 +550,15 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         // Custom processing for the Makernote tag
         if (tagId == ExifSubIFDDirectory.TAG_MAKERNOTE && _currentDirectory instanceof ExifSubIFDDirectory) {
+            if (!isMakernoteIncluded())
+                return !isTagIncluded(tagId);
             return processMakernote(tagOffset, processedIfdOffsets, tiffHeaderOffset, reader);
         }
 
         // Custom processing for embedded IPTC data
         if (tagId == ExifSubIFDDirectory.TAG_IPTC_NAA && _currentDirectory instanceof ExifIFD0Directory) {
+            if (!isDirectoryIncluded(IptcDirectory.class))
+                return !isTagIncluded(tagId);
             // NOTE Adobe sets type 4 for IPTC instead of 7
             if (reader.getInt8(tagOffset) == 0x1c) {
                 final byte[] iptcBytes = reader.getBytes(tagOffset, byteCount);
@@ -214,6 +570,8 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         // Custom processing for ICC Profile data
         if (tagId == ExifSubIFDDirectory.TAG_INTER_COLOR_PROFILE) {
+            if (!isDirectoryIncluded(IccDirectory.class))
+                return true;
             final byte[] iccBytes = reader.getBytes(tagOffset, byteCount);
             new IccReader().extract(new ByteArrayReader(iccBytes), _metadata, _currentDirectory);
             return true;
@@ -221,6 +579,8 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         // Custom processing for Photoshop data
         if (tagId == ExifSubIFDDirectory.TAG_PHOTOSHOP_SETTINGS && _currentDirectory instanceof ExifIFD0Directory) {
+            if (!isDirectoryIncluded(PhotoshopDirectory.class))
+                return true;
             final byte[] photoshopBytes = reader.getBytes(tagOffset, byteCount);
             new PhotoshopReader().extract(new SequentialByteArrayReader(photoshopBytes), byteCount, _metadata, _currentDirectory);
             return true;
@@ -228,12 +588,16 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         // Custom processing for embedded XMP data
         if (tagId == ExifSubIFDDirectory.TAG_APPLICATION_NOTES && (_currentDirectory instanceof ExifIFD0Directory || _currentDirectory instanceof ExifSubIFDDirectory)) {
-            new XmpReader().extract(reader.getNullTerminatedBytes(tagOffset, byteCount), _metadata, _currentDirectory);
+            if (!isDirectoryIncluded(XmpDirectory.class))
+                return true;
+            new XmpReader(_filter).extract(reader.getNullTerminatedBytes(tagOffset, byteCount), _metadata, _currentDirectory);
             return true;
         }
 
         // Custom processing for Apple RunTime tag
         if (tagId == AppleMakernoteDirectory.TAG_RUN_TIME && _currentDirectory instanceof AppleMakernoteDirectory) {
+            if (!isDirectoryIncluded(AppleMakernoteDirectory.class) && !isDirectoryIncluded(AppleRunTimeMakernoteDirectory.class))
+                return true;
             byte[] bytes = reader.getBytes(tagOffset, byteCount);
             new AppleRunTimeReader().extract(bytes, _metadata, _currentDirectory);
             return true;
@@ -241,9 +605,11 @@ public class ExifTiffHandler extends DirectoryTiffHandler
 
         if (handlePrintIM(_currentDirectory, tagId))
         {
+            if (!isDirectoryIncluded(PrintIMDirectory.class))
+                return true;
             PrintIMDirectory printIMDirectory = new PrintIMDirectory();
             printIMDirectory.setParent(_currentDirectory);
-            _metadata.addDirectory(printIMDirectory);
+            addDirectory(printIMDirectory);
             processPrintIM(printIMDirectory, tagOffset, reader, byteCount);
             return true;
         }
@@ -294,19 +660,19 @@ public class ExifTiffHandler extends DirectoryTiffHandler
                 case PanasonicRawIFD0Directory.TagWbInfo:
                     PanasonicRawWbInfoDirectory dirWbInfo = new PanasonicRawWbInfoDirectory();
                     dirWbInfo.setParent(_currentDirectory);
-                    _metadata.addDirectory(dirWbInfo);
+                    addDirectory(dirWbInfo);
                     processBinary(dirWbInfo, tagOffset, reader, byteCount, false, 2);
                     return true;
                 case PanasonicRawIFD0Directory.TagWbInfo2:
                     PanasonicRawWbInfo2Directory dirWbInfo2 = new PanasonicRawWbInfo2Directory();
                     dirWbInfo2.setParent(_currentDirectory);
-                    _metadata.addDirectory(dirWbInfo2);
+                    addDirectory(dirWbInfo2);
                     processBinary(dirWbInfo2, tagOffset, reader, byteCount, false, 3);
                     return true;
                 case PanasonicRawIFD0Directory.TagDistortionInfo:
                     PanasonicRawDistortionDirectory dirDistort = new PanasonicRawDistortionDirectory();
                     dirDistort.setParent(_currentDirectory);
-                    _metadata.addDirectory(dirDistort);
+                    addDirectory(dirDistort);
                     processBinary(dirDistort, tagOffset, reader, byteCount, true, 1);
                     return true;
             }
@@ -319,10 +685,10 @@ public class ExifTiffHandler extends DirectoryTiffHandler
             // Extract information from embedded image since it is metadata-rich
             ByteArrayInputStream jpegmem = new ByteArrayInputStream(jpegrawbytes);
             try {
-                Metadata jpegDirectory = JpegMetadataReader.readMetadata(jpegmem);
+                Metadata jpegDirectory = JpegMetadataReader.readMetadata(jpegmem, JpegMetadataReader.getReaders(_filter));
                 for (Directory directory : jpegDirectory.getDirectories()) {
                     directory.setParent(_currentDirectory);
-                    _metadata.addDirectory(directory);
+                    addDirectory(directory);
                 }
                 return true;
             } catch (JpegProcessingException e) {
@@ -337,7 +703,7 @@ public class ExifTiffHandler extends DirectoryTiffHandler
                 byte[] bytes = reader.getBytes(tagOffset, byteCount);
                 SonyTag9050bDirectory directory = SonyTag9050bDirectory.read(bytes);
                 directory.setParent(_currentDirectory);
-                _metadata.addDirectory(directory);
+                addDirectory(directory);
                 return true;
             }
         }
@@ -410,6 +776,10 @@ public class ExifTiffHandler extends DirectoryTiffHandler
         // Determine the camera model and makernote format.
         Directory ifd0Directory = _metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
 
+        // IFD0 may have been excluded from the metadata by a filter, though it is still the sub-IFD's parent
+        if (ifd0Directory == null && _currentDirectory.getParent() instanceof ExifIFD0Directory)
+            ifd0Directory = _currentDirectory.getParent();
+
         String cameraMake = ifd0Directory == null ? null : ifd0Directory.getString(ExifIFD0Directory.TAG_MAKE);
 
         final String firstTwoChars    = getReaderString(reader, makernoteOffset, 2);
@@ -490,7 +860,7 @@ public class ExifTiffHandler extends DirectoryTiffHandler
         } else if ("KDK".equals(firstThreeChars)) {
             reader.setMotorolaByteOrder(firstSevenChars.equals("KDK INFO"));
             KodakMakernoteDirectory directory = new KodakMakernoteDirectory();
-            _metadata.addDirectory(directory);
+            addDirectory(directory);
             processKodakMakernote(directory, makernoteOffset, reader);
         } else if ("Canon".equalsIgnoreCase(cameraMake)) {
             pushDirectory(CanonMakernoteDirectory.class);
@@ -598,30 +968,62 @@ public class ExifTiffHandler extends DirectoryTiffHandler
             reader.setMotorolaByteOrder(orderBefore);
         } else if (reader.getUInt16(makernoteOffset) == ReconyxHyperFireMakernoteDirectory.MAKERNOTE_VERSION) {
             ReconyxHyperFireMakernoteDirectory directory = new ReconyxHyperFireMakernoteDirectory();
-            _metadata.addDirectory(directory);
+            addDirectory(directory);
             processReconyxHyperFireMakernote(directory, makernoteOffset, reader);
         } else if (firstNineChars.equalsIgnoreCase("RECONYXUF")) {
             ReconyxUltraFireMakernoteDirectory directory = new ReconyxUltraFireMakernoteDirectory();
-            _metadata.addDirectory(directory);
+            addDirectory(directory);
             processReconyxUltraFireMakernote(directory, makernoteOffset, reader);
         } else if (firstNineChars.equalsIgnoreCase("RECONYXH2")) {
             ReconyxHyperFire2MakernoteDirectory directory = new ReconyxHyperFire2MakernoteDirectory();
-            _metadata.addDirectory(directory);
+            addDirectory(directory);
             processReconyxHyperFire2Makernote(directory, makernoteOffset, reader);
         } else if ("SAMSUNG".equalsIgnoreCase(cameraMake)) {
             // Only handles Type2 notes correctly. Others aren't implemented, and it's complex to determine which ones to use
             pushDirectory(SamsungType2MakernoteDirectory.class);
             TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset, tiffHeaderOffset);
         } else {
-            // The makernote is not comprehended by this library.
-            // If you are reading this and believe a particular camera's image should be processed, get in touch.
-            return false;
+            MakernoteRegistration registration = findMakernoteRegistration(reader, makernoteOffset);
+            if (registration == null) {
+                // The makernote is not comprehended by this library.
+                // If you are reading this and believe a particular camera's image should be processed, get in touch.
+                return false;
+            }
+            pushDirectory(registration.directoryClass);
+            TiffReader.processIfd(this, reader, processedIfdOffsets, makernoteOffset + registration.ifdOffset,
+                registration.isRelativeToMakernote ? makernoteOffset : tiffHeaderOffset);
         }
 
         reader.setMotorolaByteOrder(byteOrderBefore);
         return true;
     }
 
+    @Nullable
+    private static MakernoteRegistration findMakernoteRegistration(@NotNull RandomAccessReader reader, int makernoteOffset) throws IOException
+    {
+        for (MakernoteRegistration registration : _makernoteRegistrations) {
+            if (registration.header.equals(getReaderString(reader, makernoteOffset, registration.header.length())))
+                return registration;
+        }
+        return null;
+    }
+
+    private static final class MakernoteRegistration
+    {
+        @NotNull final String header;
+        final int ifdOffset;
+        final boolean isRelativeToMakernote;
+        @NotNull final Class<? extends Directory> directoryClass;
+
+        MakernoteRegistration(@NotNull String header, int ifdOffset, boolean isRelativeToMakernote, @NotNull Class<? extends Directory> directoryClass)
+        {
+            this.header = header;
+            this.ifdOffset = ifdOffset;
+            this.isRelativeToMakernote = isRelativeToMakernote;
+            this.directoryClass = directoryClass;
+        }
+    }
+
     private static boolean handlePrintIM(@NotNull final Directory directory, final int tagId)
     {
         if (tagId == ExifDirectoryBase.TAG_PRINT_IMAGE_MATCHING_INFO)
@@ -126,7 +126,7 @@ public class GpsDescriptor extends TagDescriptor<GpsDirectory>
     {
         // time in hour, min, sec
         Rational[] timeComponents = _directory.getRationalArray(TAG_TIME_STAMP);
-        DecimalFormat df = new DecimalFormat("00.000");
+        DecimalFormat df = getDecimalFormat("00.000");
         return timeComponents == null
             ? null
             : String.format("%02d:%02d:%s UTC",
@@ -188,7 +188,7 @@ public class GpsDescriptor extends TagDescriptor<GpsDirectory>
             return null;
         final String unit = getGpsDestinationReferenceDescription();
         return String.format("%s %s",
-            new DecimalFormat("0.##").format(value.doubleValue()),
+            getDecimalFormat("0.##").format(value.doubleValue()),
             unit == null ? "unit" : unit.toLowerCase());
     }
 
@@ -198,7 +198,7 @@ public class GpsDescriptor extends TagDescriptor<GpsDirectory>
         Rational angle = _directory.getRational(tagType);
         // provide a decimal version of rational numbers in the description, to avoid strings like "35334/199 degrees"
         String value = angle != null
-            ? new DecimalFormat("0.##").format(angle.doubleValue())
+            ? getDecimalFormat("0.##").format(angle.doubleValue())
             : _directory.getString(tagType);
         return value == null || value.trim().length() == 0 ? null : value.trim() + " degrees";
     }
@@ -223,7 +223,7 @@ public class GpsDescriptor extends TagDescriptor<GpsDirectory>
     public String getGpsDopDescription()
     {
         final Rational value = _directory.getRational(TAG_DOP);
-        return value == null ? null : new DecimalFormat("0.##").format(value.doubleValue());
+        return value == null ? null : getDecimalFormat("0.##").format(value.doubleValue());
     }
 
     @Nullable
@@ -252,7 +252,7 @@ public class GpsDescriptor extends TagDescriptor<GpsDirectory>
             return null;
         final String unit = getGpsSpeedRefDescription();
         return String.format("%s %s",
-            new DecimalFormat("0.##").format(value.doubleValue()),
+            getDecimalFormat("0.##").format(value.doubleValue()),
             unit == null ? "unit" : unit.toLowerCase());
     }
 
@@ -298,7 +298,7 @@ public class GpsDescriptor extends TagDescriptor<GpsDirectory>
     public String getGpsAltitudeDescription()
     {
         final Rational value = _directory.getRational(TAG_ALTITUDE);
-        return value == null ? null : new DecimalFormat("0.##").format(value.doubleValue()) + " metres";
+        return value == null ? null : getDecimalFormat("0.##").format(value.doubleValue()) + " metres";
     }
 
     @Nullable
@@ -323,7 +323,7 @@ public class GpsDescriptor extends TagDescriptor<GpsDirectory>
     public String getGpsHPositioningErrorDescription()
     {
         final Rational value = _directory.getRational(TAG_H_POSITIONING_ERROR);
-        return value == null ? null : new DecimalFormat("0.##").format(value.doubleValue()) + " metres";
+        return value == null ? null : getDecimalFormat("0.##").format(value.doubleValue()) + " metres";
     }
 
     @Nullable
@@ -286,8 +286,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
             return null;
 
         double iso = Math.pow((value / 8d) - 1, 2) * 3.125;
-        DecimalFormat format = new DecimalFormat("0.##");
-        format.setRoundingMode(RoundingMode.HALF_UP);
+        DecimalFormat format = getDecimalFormat("0.##", RoundingMode.HALF_UP);
         return format.format(iso);
     }
 
@@ -304,8 +303,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
             return null;
 
         double shutterSpeed = Math.pow((49-value) / 8d, 2);
-        DecimalFormat format = new DecimalFormat("0.###");
-        format.setRoundingMode(RoundingMode.HALF_UP);
+        DecimalFormat format = getDecimalFormat("0.###", RoundingMode.HALF_UP);
         return format.format(shutterSpeed) + " sec";
     }
 
@@ -340,7 +338,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
     public String getExposureCompensationDescription()
     {
         Long value = _directory.getLongObject(CameraSettings.TAG_EXPOSURE_COMPENSATION);
-        DecimalFormat format = new DecimalFormat("0.##");
+        DecimalFormat format = getDecimalFormat("0.##");
         return value == null ? null : format.format((value / 3d) - 2) + " EV";
     }
 
@@ -466,7 +464,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
     public String getWhiteBalanceRedDescription()
     {
         Long value = _directory.getLongObject(CameraSettings.TAG_WHITE_BALANCE_RED);
-        DecimalFormat format = new DecimalFormat("0.##");
+        DecimalFormat format = getDecimalFormat("0.##");
         return value == null ? null : format.format(value/256d);
     }
 
@@ -474,7 +472,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
     public String getWhiteBalanceGreenDescription()
     {
         Long value = _directory.getLongObject(CameraSettings.TAG_WHITE_BALANCE_GREEN);
-        DecimalFormat format = new DecimalFormat("0.##");
+        DecimalFormat format = getDecimalFormat("0.##");
         return value == null ? null : format.format(value/256d);
     }
 
@@ -482,7 +480,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
     public String getWhiteBalanceBlueDescription()
     {
         Long value = _directory.getLongObject(CameraSettings.TAG_WHITE_BALANCE_BLUE);
-        DecimalFormat format = new DecimalFormat("0.##");
+        DecimalFormat format = getDecimalFormat("0.##");
         return value == null ? null : format.format(value / 256d);
     }
 
@@ -516,7 +514,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
     public String getFlashCompensationDescription()
     {
         Long value = _directory.getLongObject(CameraSettings.TAG_FLASH_COMPENSATION);
-        DecimalFormat format = new DecimalFormat("0.##");
+        DecimalFormat format = getDecimalFormat("0.##");
         return value == null ? null : format.format((value-6)/3d) + " EV";
     }
 
@@ -581,7 +579,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
     public String getApexBrightnessDescription()
     {
         Long value = _directory.getLongObject(CameraSettings.TAG_APEX_BRIGHTNESS_VALUE);
-        DecimalFormat format = new DecimalFormat("0.##");
+        DecimalFormat format = getDecimalFormat("0.##");
         return value == null ? null : format.format((value/8d)-6);
     }
 
@@ -793,7 +791,7 @@ public class OlympusMakernoteDescriptor extends TagDescriptor<OlympusMakernoteDi
         if (value == null)
             return null;
 
-        DecimalFormat format = new DecimalFormat("0.###");
+        DecimalFormat format = getDecimalFormat("0.###");
         return format.format(value.doubleValue()) + " mm";
     }
 
@@ -119,7 +119,7 @@ public class ReconyxHyperFire2MakernoteDescriptor extends TagDescriptor<ReconyxH
             case TAG_BATTERY_VOLTAGE:
             case TAG_BATTERY_VOLTAGE_AVG:
                 Double value = _directory.getDoubleObject(tagType);
-                DecimalFormat formatter = new DecimalFormat("0.000");
+                DecimalFormat formatter = getDecimalFormat("0.000");
                 return value == null ? null : formatter.format(value);
 
             case TAG_BATTERY_TYPE:
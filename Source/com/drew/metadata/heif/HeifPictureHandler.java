@@ -21,7 +21,7 @@
 package com.drew.metadata.heif;
 
 import com.drew.imaging.heif.HeifHandler;
-import com.drew.lang.RandomAccessStreamReader;
+import com.drew.lang.ByteArrayReader;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
 import com.drew.lang.annotations.NotNull;
@@ -29,7 +29,6 @@ import com.drew.metadata.Metadata;
 import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.heif.boxes.*;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
@@ -130,7 +129,7 @@ public class HeifPictureHandler extends HeifHandler<HeifDirectory>
                     reader.skip(bytesToSkip);
                 }
                 if (shouldHandleItem(infoEntry)) {
-                    handleItem(infoEntry, new SequentialByteArrayReader(reader.getBytes((int) extent.getLength())));
+                    handleItem(infoEntry, reader.getBytes((int) extent.getLength()));
                 }
             }
         }
@@ -141,17 +140,17 @@ public class HeifPictureHandler extends HeifHandler<HeifDirectory>
     }
 
     private void handleItem(@NotNull ItemInfoBox.ItemInfoEntry entry,
-                            @NotNull SequentialByteArrayReader payloadReader) throws IOException {
+                            @NotNull byte[] payload) throws IOException {
         if (entry.getItemType().equals(HeifItemTypes.ITEM_EXIF)) {
             // ISO/IEC 23008-12:2017 Annex A: First 4 bytes will ALWAYS be an offset to the Tiff header in the payload
-            long tiffHeaderOffset = payloadReader.getUInt32();
-            if (tiffHeaderOffset > payloadReader.available()) {
+            ByteArrayReader payloadReader = new ByteArrayReader(payload);
+            long tiffHeaderOffset = payloadReader.getUInt32(0);
+            if (tiffHeaderOffset > payload.length - 4) {
                 // This Exif item is not laid out according to spec
                 return;
             }
-            payloadReader.skip(tiffHeaderOffset);
-            ByteArrayInputStream tiffStream = new ByteArrayInputStream(payloadReader.getBytes(payloadReader.available()));
-            new ExifReader().extract(new RandomAccessStreamReader(tiffStream), metadata);
+            // Read the Tiff data in place, rather than copying it out of the payload
+            new ExifReader().extract(payloadReader, metadata, 4 + (int) tiffHeaderOffset);
         }
     }
 
@@ -20,8 +20,9 @@
  */
 package com.drew.metadata.icc;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.jpeg.SlicedJpegSegmentMetadataReader;
 import com.drew.lang.ByteArrayReader;
 import com.drew.lang.DateUtil;
 import com.drew.lang.RandomAccessReader;
@@ -32,7 +33,9 @@ import com.drew.metadata.Metadata;
 import com.drew.metadata.MetadataReader;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Reads an ICC profile.
@@ -47,10 +50,13 @@ import java.util.Collections;
  * @author Yuri Binev
  * @author Drew Noakes https://drewnoakes.com
  */
-public class IccReader implements JpegSegmentMetadataReader, MetadataReader
+public class IccReader implements SlicedJpegSegmentMetadataReader, MetadataReader
 {
     public static final String JPEG_SEGMENT_PREAMBLE = "ICC_PROFILE";
 
+    /** The length of the preamble, null terminator, chunk number and chunk count that precede ICC data in a JPEG segment. */
+    private static final int SEGMENT_HEADER_LENGTH = 14;
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
@@ -59,34 +65,46 @@ public class IccReader implements JpegSegmentMetadataReader, MetadataReader
 
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
-        final int preambleLength = JPEG_SEGMENT_PREAMBLE.length();
+        readJpegSegmentSlices(JpegSegment.fromByteArrays(segments), metadata, segmentType);
+    }
 
+    public void readJpegSegmentSlices(@NotNull Iterable<JpegSegment> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
         // ICC data can be spread across multiple JPEG segments.
-        // We concat them together in this buffer for later processing.
-        byte[] buffer = null;
+        // Find those containing the required preamble, and the total length of their ICC data.
+        List<JpegSegment> iccSegments = new ArrayList<JpegSegment>();
+        int totalLength = 0;
 
-        for (byte[] segmentBytes : segments) {
+        for (JpegSegment segment : segments) {
             // Skip any segments that do not contain the required preamble
-            if (segmentBytes.length < preambleLength || !JPEG_SEGMENT_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, preambleLength)))
+            if (segment.getLength() < SEGMENT_HEADER_LENGTH || !segment.startsWith(JPEG_SEGMENT_PREAMBLE, true))
                 continue;
 
             // NOTE we ignore three bytes here -- are they useful for anything?
+            iccSegments.add(segment);
+            totalLength += segment.getLength() - SEGMENT_HEADER_LENGTH;
+        }
 
-            // Grow the buffer
-            if (buffer == null) {
-                buffer = new byte[segmentBytes.length - 14];
-                // skip the first 14 bytes
-                System.arraycopy(segmentBytes, 14, buffer, 0, segmentBytes.length - 14);
-            } else {
-                byte[] newBuffer = new byte[buffer.length + segmentBytes.length - 14];
-                System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
-                System.arraycopy(segmentBytes, 14, newBuffer, buffer.length, segmentBytes.length - 14);
-                buffer = newBuffer;
-            }
+        if (iccSegments.isEmpty())
+            return;
+
+        // In the common case of a single segment, read the profile directly from it rather than copying it
+        if (iccSegments.size() == 1) {
+            JpegSegment segment = iccSegments.get(0);
+            extract(new ByteArrayReader(segment.getBuffer(), segment.getOffset() + SEGMENT_HEADER_LENGTH, segment.getLength() - SEGMENT_HEADER_LENGTH), metadata);
+            return;
+        }
+
+        // Otherwise concatenate the chunks into a single buffer for processing
+        byte[] buffer = new byte[totalLength];
+        int bufferOffset = 0;
+        for (JpegSegment segment : iccSegments) {
+            int chunkLength = segment.getLength() - SEGMENT_HEADER_LENGTH;
+            System.arraycopy(segment.getBuffer(), segment.getOffset() + SEGMENT_HEADER_LENGTH, buffer, bufferOffset, chunkLength);
+            bufferOffset += chunkLength;
         }
 
-        if (buffer != null)
-            extract(new ByteArrayReader(buffer), metadata);
+        extract(new ByteArrayReader(buffer), metadata);
     }
 
     public void extract(@NotNull final RandomAccessReader reader, @NotNull final Metadata metadata)
@@ -20,8 +20,10 @@
  */
 package com.drew.metadata.jfif;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.BoundedJpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.jpeg.SlicedJpegSegmentMetadataReader;
 import com.drew.lang.ByteArrayReader;
 import com.drew.lang.RandomAccessReader;
 import com.drew.lang.annotations.NotNull;
@@ -41,7 +43,7 @@ import java.util.Collections;
  *
  * @author Yuri Binev, Drew Noakes, Markus Meyer
  */
-public class JfifReader implements JpegSegmentMetadataReader, MetadataReader
+public class JfifReader implements BoundedJpegSegmentMetadataReader, SlicedJpegSegmentMetadataReader, MetadataReader
 {
     public static final String PREAMBLE = "JFIF";
 
@@ -51,12 +53,27 @@ public class JfifReader implements JpegSegmentMetadataReader, MetadataReader
         return Collections.singletonList(JpegSegmentType.APP0);
     }
 
+    public int getMaxSegmentCount()
+    {
+        return 1;
+    }
+
+    public boolean isSegmentUsed(@NotNull JpegSegment segment, @NotNull JpegSegmentType segmentType)
+    {
+        return segment.startsWith(PREAMBLE, false);
+    }
+
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
-        for (byte[] segmentBytes : segments) {
+        readJpegSegmentSlices(JpegSegment.fromByteArrays(segments), metadata, segmentType);
+    }
+
+    public void readJpegSegmentSlices(@NotNull Iterable<JpegSegment> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        for (JpegSegment segment : segments) {
             // Skip segments not starting with the required header
-            if (segmentBytes.length >= PREAMBLE.length() && PREAMBLE.equals(new String(segmentBytes, 0, PREAMBLE.length())))
-                extract(new ByteArrayReader(segmentBytes), metadata);
+            if (isSegmentUsed(segment, segmentType))
+                extract(new ByteArrayReader(segment.getBuffer(), segment.getOffset(), segment.getLength()), metadata);
         }
     }
 
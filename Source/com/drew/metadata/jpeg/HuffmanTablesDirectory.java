@@ -158,6 +158,16 @@ public class HuffmanTablesDirectory extends Directory
         return tables.get(tableNumber);
     }
 
+    /**
+     * Adds a table after those already held. {@link #TAG_NUMBER_OF_TABLES} is not changed.
+     *
+     * @param table The {@link HuffmanTable} to add.
+     */
+    public void addTable(@NotNull HuffmanTable table)
+    {
+        tables.add(table);
+    }
+
     /**
      * @return The number of Huffman tables held by this {@link HuffmanTablesDirectory} instance.
      */
@@ -20,7 +20,8 @@
  */
 package com.drew.metadata.jpeg;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.BoundedJpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -36,7 +37,7 @@ import java.util.Collections;
  *
  * @author Nadahar
  */
-public class JpegDnlReader implements JpegSegmentMetadataReader
+public class JpegDnlReader implements BoundedJpegSegmentMetadataReader
 {
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
@@ -44,6 +45,17 @@ public class JpegDnlReader implements JpegSegmentMetadataReader
         return Collections.singletonList(JpegSegmentType.DNL);
     }
 
+    public int getMaxSegmentCount()
+    {
+        // The DNL segment follows the first scan, at which JpegSegmentReader stops, so reading never waits for it
+        return 0;
+    }
+
+    public boolean isSegmentUsed(@NotNull JpegSegment segment, @NotNull JpegSegmentType segmentType)
+    {
+        return true;
+    }
+
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         for (byte[] segmentBytes : segments) {
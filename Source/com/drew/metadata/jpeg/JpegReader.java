@@ -20,7 +20,8 @@
  */
 package com.drew.metadata.jpeg;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.BoundedJpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -36,7 +37,7 @@ import java.util.Arrays;
  * @author Drew Noakes https://drewnoakes.com
  * @author Darrell Silver http://www.darrellsilver.com
  */
-public class JpegReader implements JpegSegmentMetadataReader
+public class JpegReader implements BoundedJpegSegmentMetadataReader
 {
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
@@ -62,6 +63,17 @@ public class JpegReader implements JpegSegmentMetadataReader
         );
     }
 
+    public int getMaxSegmentCount()
+    {
+        // Only hierarchical JPEGs have more than one frame, and the first frame describes the image
+        return 1;
+    }
+
+    public boolean isSegmentUsed(@NotNull JpegSegment segment, @NotNull JpegSegmentType segmentType)
+    {
+        return true;
+    }
+
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         for (byte[] segmentBytes : segments) {
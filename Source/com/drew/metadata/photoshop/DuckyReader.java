@@ -20,8 +20,10 @@
  */
 package com.drew.metadata.photoshop;
 
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.BoundedJpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.jpeg.SlicedJpegSegmentMetadataReader;
 import com.drew.lang.Charsets;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -37,7 +39,7 @@ import java.util.Collections;
  * @author Drew Noakes https://drewnoakes.com
  */
 @SuppressWarnings("WeakerAccess")
-public class DuckyReader implements JpegSegmentMetadataReader
+public class DuckyReader implements BoundedJpegSegmentMetadataReader, SlicedJpegSegmentMetadataReader
 {
     @NotNull
     private static final String JPEG_SEGMENT_PREAMBLE = "Ducky";
@@ -48,17 +50,32 @@ public class DuckyReader implements JpegSegmentMetadataReader
         return Collections.singletonList(JpegSegmentType.APPC);
     }
 
+    public int getMaxSegmentCount()
+    {
+        return 1;
+    }
+
+    public boolean isSegmentUsed(@NotNull JpegSegment segment, @NotNull JpegSegmentType segmentType)
+    {
+        return segment.startsWith(JPEG_SEGMENT_PREAMBLE, false);
+    }
+
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        readJpegSegmentSlices(JpegSegment.fromByteArrays(segments), metadata, segmentType);
+    }
+
+    public void readJpegSegmentSlices(@NotNull Iterable<JpegSegment> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         final int preambleLength = JPEG_SEGMENT_PREAMBLE.length();
 
-        for (byte[] segmentBytes : segments) {
+        for (JpegSegment segment : segments) {
             // Ensure data starts with the necessary preamble
-            if (segmentBytes.length < preambleLength || !JPEG_SEGMENT_PREAMBLE.equals(new String(segmentBytes, 0, preambleLength)))
+            if (!isSegmentUsed(segment, segmentType))
                 continue;
 
             extract(
-                new SequentialByteArrayReader(segmentBytes, preambleLength),
+                new SequentialByteArrayReader(segment.getBuffer(), segment.getOffset() + preambleLength, segment.getLength() - preambleLength),
                 metadata);
         }
     }
@@ -21,8 +21,9 @@
 package com.drew.metadata.photoshop;
 
 import com.drew.imaging.ImageProcessingException;
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.jpeg.SlicedJpegSegmentMetadataReader;
 import com.drew.lang.ByteArrayReader;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
@@ -47,7 +48,7 @@ import java.util.Collections;
  * @author Yuri Binev
  * @author Payton Garland
  */
-public class PhotoshopReader implements JpegSegmentMetadataReader
+public class PhotoshopReader implements SlicedJpegSegmentMetadataReader
 {
     @NotNull
     private static final String JPEG_SEGMENT_PREAMBLE = "Photoshop 3.0";
@@ -59,17 +60,23 @@ public class PhotoshopReader implements JpegSegmentMetadataReader
     }
 
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        readJpegSegmentSlices(JpegSegment.fromByteArrays(segments), metadata, segmentType);
+    }
+
+    public void readJpegSegmentSlices(@NotNull Iterable<JpegSegment> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         final int preambleLength = JPEG_SEGMENT_PREAMBLE.length();
 
-        for (byte[] segmentBytes : segments) {
+        for (JpegSegment segment : segments) {
             // Ensure data starts with the necessary preamble
-            if (segmentBytes.length < preambleLength + 1 || !JPEG_SEGMENT_PREAMBLE.equals(new String(segmentBytes, 0, preambleLength)))
+            if (segment.getLength() < preambleLength + 1 || !segment.startsWith(JPEG_SEGMENT_PREAMBLE, false))
                 continue;
 
+            int length = segment.getLength() - preambleLength - 1;
             extract(
-                new SequentialByteArrayReader(segmentBytes, preambleLength + 1),
-                segmentBytes.length - preambleLength - 1,
+                new SequentialByteArrayReader(segment.getBuffer(), segment.getOffset() + preambleLength + 1, length),
+                length,
                 metadata);
         }
     }
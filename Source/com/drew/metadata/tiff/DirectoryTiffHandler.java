@@ -20,6 +20,7 @@
  */
 package com.drew.metadata.tiff;
 
+import com.drew.imaging.tiff.FilteringTiffHandler;
 import com.drew.imaging.tiff.TiffHandler;
 import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
@@ -27,27 +28,104 @@ import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 import com.drew.metadata.ErrorDirectory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
 import com.drew.metadata.StringValue;
 
+import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Adapter between the {@link TiffHandler} interface and the {@link Metadata}/{@link Directory} object model.
  *
  * @author Drew Noakes https://drewnoakes.com
  */
-public abstract class DirectoryTiffHandler implements TiffHandler
+public abstract class DirectoryTiffHandler implements FilteringTiffHandler
 {
+    /** Factories for the directory types pushed by handlers, avoiding reflective construction. */
+    private static final Map<Class<? extends Directory>, DirectoryFactory<?>> _factories = new ConcurrentHashMap<Class<? extends Directory>, DirectoryFactory<?>>();
+
+    static {
+        registerDirectoryFactory(ErrorDirectory.class, new DirectoryFactory<ErrorDirectory>()
+        {
+            @NotNull
+            public ErrorDirectory create()
+            {
+                return new ErrorDirectory();
+            }
+        });
+    }
+
     private final Stack<Directory> _directoryStack = new Stack<Directory>();
 
     @Nullable private Directory _rootParentDirectory;
     @Nullable protected Directory _currentDirectory;
     protected final Metadata _metadata;
+    @Nullable protected final MetadataFilter _filter;
+
+    private boolean _isFilterSatisfied;
+    private boolean _isFilterCheckPending;
 
     protected DirectoryTiffHandler(Metadata metadata, @Nullable Directory parentDirectory)
+    {
+        this(metadata, parentDirectory, null);
+    }
+
+    protected DirectoryTiffHandler(Metadata metadata, @Nullable Directory parentDirectory, @Nullable MetadataFilter filter)
     {
         _metadata = metadata;
         _rootParentDirectory = parentDirectory;
+        _filter = filter;
+    }
+
+    public boolean isTagIncluded(int tagId)
+    {
+        if (_filter == null)
+            return true;
+
+        if (_currentDirectory == null || isFilterSatisfied())
+            return false;
+
+        if (!_filter.isTagIncluded(_currentDirectory.getClass(), tagId))
+            return false;
+
+        // The value will be stored, so the filter may be satisfied once it has been
+        _isFilterCheckPending = true;
+        return true;
+    }
+
+    /**
+     * Gets whether a directory of type <code>directoryClass</code> should be added to the metadata, or
+     * its data read. This is always <code>true</code> when no filter is in use.
+     */
+    protected boolean isDirectoryIncluded(@NotNull Class<? extends Directory> directoryClass)
+    {
+        return _filter == null || (!isFilterSatisfied() && _filter.isDirectoryIncluded(directoryClass));
+    }
+
+    /**
+     * Gets whether every tag requested by the filter has been found, in which case no further data need be read.
+     */
+    protected boolean isFilterSatisfied()
+    {
+        if (_filter == null)
+            return false;
+
+        if (_isFilterCheckPending) {
+            _isFilterCheckPending = false;
+            _isFilterSatisfied = _filter.isSatisfiedBy(_metadata);
+        }
+
+        return _isFilterSatisfied;
+    }
+
+    /**
+     * Adds <code>directory</code> to the metadata, unless excluded by the filter.
+     */
+    protected void addDirectory(@NotNull Directory directory)
+    {
+        if (_filter == null || directory instanceof ErrorDirectory || _filter.isDirectoryIncluded(directory.getClass()))
+            _metadata.addDirectory(directory);
     }
 
     public void endingIFD()
@@ -55,18 +133,46 @@ public abstract class DirectoryTiffHandler implements TiffHandler
         _currentDirectory = _directoryStack.empty() ? null : _directoryStack.pop();
     }
 
-    protected void pushDirectory(@NotNull Class<? extends Directory> directoryClass)
+    /**
+     * Registers the factory used to create directories of type <code>directoryClass</code>, replacing any previous
+     * registration for that type.
+     * <p>
+     * Directory types without a factory are created reflectively via their public no-argument constructor.
+     *
+     * @param directoryClass the type of directory
+     * @param factory creates new instances of <code>directoryClass</code>
+     */
+    public static <T extends Directory> void registerDirectoryFactory(@NotNull Class<T> directoryClass, @NotNull DirectoryFactory<? extends T> factory)
+    {
+        _factories.put(directoryClass, factory);
+    }
+
+    /**
+     * Creates a new directory of type <code>directoryClass</code>, using its registered factory if there is one.
+     */
+    @NotNull
+    protected static <T extends Directory> T createDirectory(@NotNull Class<T> directoryClass)
     {
-        Directory newDirectory;
+        DirectoryFactory<?> factory = _factories.get(directoryClass);
+        if (factory != null)
+            return directoryClass.cast(factory.create());
 
         try {
-            newDirectory = directoryClass.newInstance();
+            return directoryClass.newInstance();
         } catch (InstantiationException e) {
             throw new RuntimeException(e);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         }
+    }
 
+    protected void pushDirectory(@NotNull Class<? extends Directory> directoryClass)
+    {
+        pushDirectory(createDirectory(directoryClass));
+    }
+
+    protected void pushDirectory(@NotNull Directory newDirectory)
+    {
         // If this is the first directory, don't add to the stack
         if (_currentDirectory == null) {
             // Apply any pending root parent to this new directory
@@ -81,8 +187,9 @@ public abstract class DirectoryTiffHandler implements TiffHandler
             newDirectory.setParent(_currentDirectory);
         }
 
+        // Directories excluded by the filter are still tracked, as they may lead to included sub-directories
         _currentDirectory = newDirectory;
-        _metadata.addDirectory(_currentDirectory);
+        addDirectory(_currentDirectory);
     }
 
     public void warn(@NotNull String message)
@@ -23,6 +23,7 @@ package com.drew.metadata.xmp;
 import com.adobe.internal.xmp.XMPException;
 import com.adobe.internal.xmp.XMPIterator;
 import com.adobe.internal.xmp.XMPMeta;
+import com.adobe.internal.xmp.XMPMetaFactory;
 import com.adobe.internal.xmp.impl.XMPMetaImpl;
 import com.adobe.internal.xmp.options.IteratorOptions;
 import com.adobe.internal.xmp.properties.XMPPropertyInfo;
@@ -30,6 +31,7 @@ import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Directory;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -59,6 +61,20 @@ public class XmpDirectory extends Directory
     @Nullable
     private XMPMeta _xmpMeta;
 
+    /** Serialized XMP given to {@link #setXMPMeta(String)}, which is parsed when first needed. */
+    @Nullable
+    private String _serializedXmpMeta;
+
+    /** Serialized XMP given to {@link #setXMPMeta(byte[], int, int)}, which is parsed when first needed. */
+    @Nullable
+    private byte[] _serializedXmpBytes;
+    private int _serializedXmpOffset;
+    private int _serializedXmpLength;
+
+    /** The map returned by {@link #getXmpProperties()}, built when first requested. */
+    @Nullable
+    private Map<String, String> _xmpProperties;
+
     public XmpDirectory()
     {
         this.setDescriptor(new XmpDescriptor(this));
@@ -83,17 +99,43 @@ public class XmpDirectory extends Directory
      * <p>
      * This is required because XMP properties are represented as strings, whereas the rest of this library
      * uses integers for keys.
+     * <p>
+     * The map is built once, so changes made to the object returned by {@link #getXMPMeta()} after the first call
+     * are not reflected in it. Where only selected properties were read, via
+     * {@link #setXmpProperties(Map)}, only those properties are included.
      */
     @NotNull
     public Map<String, String> getXmpProperties()
+    {
+        if (_xmpProperties == null)
+            _xmpProperties = buildXmpProperties();
+        return _xmpProperties;
+    }
+
+    /**
+     * Sets the properties returned by {@link #getXmpProperties()}, such as those read by {@link XmpStreamReader},
+     * without building an {@link XMPMeta}. {@link #TAG_XMP_VALUE_COUNT} is set to the number of properties given.
+     * <p>
+     * This does not change the XMP returned by {@link #getXMPMeta()}, which may be given via
+     * {@link #setXMPMeta(byte[])} so that it is parsed only if needed.
+     */
+    public void setXmpProperties(@NotNull Map<String, String> propertyValueByPath)
+    {
+        _xmpProperties = Collections.unmodifiableMap(new HashMap<String, String>(propertyValueByPath));
+        setInt(TAG_XMP_VALUE_COUNT, propertyValueByPath.size());
+    }
+
+    @NotNull
+    private Map<String, String> buildXmpProperties()
     {
         Map<String, String> propertyValueByPath = new HashMap<String, String>();
 
-        if (_xmpMeta != null)
+        XMPMeta xmpMeta = getParsedXMPMeta();
+        if (xmpMeta != null)
         {
             try {
                 IteratorOptions options = new IteratorOptions().setJustLeafnodes(true);
-                for (XMPIterator i = _xmpMeta.iterator(options); i.hasNext(); ) {
+                for (XMPIterator i = xmpMeta.iterator(options); i.hasNext(); ) {
                     XMPPropertyInfo prop = (XMPPropertyInfo)i.next();
                     String path = prop.getPath();
                     String value = prop.getValue();
@@ -111,6 +153,9 @@ public class XmpDirectory extends Directory
     public void setXMPMeta(@NotNull XMPMeta xmpMeta)
     {
         _xmpMeta = xmpMeta;
+        _serializedXmpMeta = null;
+        _serializedXmpBytes = null;
+        _xmpProperties = null;
 
         try {
             int valueCount = 0;
@@ -133,8 +178,73 @@ public class XmpDirectory extends Directory
     @NotNull
     public XMPMeta getXMPMeta()
     {
-        if (_xmpMeta == null)
+        if (getParsedXMPMeta() == null)
             _xmpMeta = new XMPMetaImpl();
         return _xmpMeta;
     }
+
+    /**
+     * Sets the XMP data of this directory from its serialized form, which is only parsed if {@link #getXMPMeta()} or
+     * {@link #getXmpProperties()} is called. Unlike {@link #setXMPMeta(XMPMeta)}, this does not set the
+     * {@link #TAG_XMP_VALUE_COUNT} tag.
+     * <p>
+     * Callers should check the data is well formed beforehand, as {@link XmpReader} does, since any error is only
+     * added to this directory when the data is parsed.
+     */
+    public void setXMPMeta(@NotNull String serializedXmpMeta)
+    {
+        _xmpMeta = null;
+        _serializedXmpMeta = serializedXmpMeta;
+        _serializedXmpBytes = null;
+        _xmpProperties = null;
+    }
+
+    /**
+     * Sets the XMP data of this directory from its serialized form, which is only parsed if {@link #getXMPMeta()} or
+     * {@link #getXmpProperties()} is called. The encoding is detected from the data. Unlike
+     * {@link #setXMPMeta(XMPMeta)}, this does not set the {@link #TAG_XMP_VALUE_COUNT} tag.
+     */
+    public void setXMPMeta(@NotNull byte[] serializedXmpMeta)
+    {
+        setXMPMeta(serializedXmpMeta, 0, serializedXmpMeta.length);
+    }
+
+    /**
+     * Sets the XMP data of this directory from its serialized form, held in <code>length</code> bytes of
+     * <code>buffer</code> from <code>offset</code>. As for {@link #setXMPMeta(byte[])}, the data is only parsed if
+     * needed. The buffer is not copied unless the data is parsed, and must not be modified.
+     */
+    public void setXMPMeta(@NotNull byte[] buffer, int offset, int length)
+    {
+        _xmpMeta = null;
+        _serializedXmpMeta = null;
+        _serializedXmpBytes = buffer;
+        _serializedXmpOffset = offset;
+        _serializedXmpLength = length;
+        _xmpProperties = null;
+    }
+
+    @Nullable
+    private XMPMeta getParsedXMPMeta()
+    {
+        if (_serializedXmpMeta != null || _serializedXmpBytes != null) {
+            String serializedXmpMeta = _serializedXmpMeta;
+            byte[] serializedXmpBytes = _serializedXmpBytes;
+            _serializedXmpMeta = null;
+            _serializedXmpBytes = null;
+            try {
+                if (serializedXmpMeta != null) {
+                    _xmpMeta = XMPMetaFactory.parseFromString(serializedXmpMeta);
+                } else if (_serializedXmpOffset == 0 && _serializedXmpLength == serializedXmpBytes.length) {
+                    _xmpMeta = XMPMetaFactory.parseFromBuffer(serializedXmpBytes);
+                } else {
+                    // XMPCore only parses arrays from their first byte
+                    _xmpMeta = XMPMetaFactory.parseFromBuffer(Arrays.copyOfRange(serializedXmpBytes, _serializedXmpOffset, _serializedXmpOffset + _serializedXmpLength));
+                }
+            } catch (XMPException e) {
+                addError("Error processing XMP data: " + e.getMessage());
+            }
+        }
+        return _xmpMeta;
+    }
 }
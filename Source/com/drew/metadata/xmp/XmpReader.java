@@ -24,22 +24,30 @@ import com.adobe.internal.xmp.XMPException;
 import com.adobe.internal.xmp.XMPIterator;
 import com.adobe.internal.xmp.XMPMeta;
 import com.adobe.internal.xmp.XMPMetaFactory;
-import com.adobe.internal.xmp.impl.ByteBuffer;
 import com.adobe.internal.xmp.options.ParseOptions;
 import com.adobe.internal.xmp.properties.XMPPropertyInfo;
-import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegment;
 import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.jpeg.SlicedJpegSegmentMetadataReader;
 import com.drew.lang.SequentialByteArrayReader;
 import com.drew.lang.SequentialReader;
 import com.drew.metadata.Directory;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
 import com.drew.metadata.StringValue;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Extracts XMP data from JPEG APP1 segments.
@@ -50,12 +58,16 @@ import java.util.Collections;
  * <p>
  * The extraction is done with Adobe's XmpCore-Library (XMP-Toolkit)
  * Copyright (c) 1999 - 2007, Adobe Systems Incorporated All rights reserved.
+ * <p>
+ * When constructed with a {@link MetadataFilter} that includes specific XMP properties, only those properties are
+ * extracted, using {@link XmpStreamReader}. The XMP is then only parsed by XmpCore if
+ * {@link XmpDirectory#getXMPMeta()} is called.
  *
  * @author Torsten Skadell
  * @author Drew Noakes https://drewnoakes.com
  * @author https://github.com/bezineb5
  */
-public class XmpReader implements JpegSegmentMetadataReader
+public class XmpReader implements SlicedJpegSegmentMetadataReader
 {
     @NotNull
     private static final String XMP_JPEG_PREAMBLE = "http://ns.adobe.com/xap/1.0/\0";
@@ -76,6 +88,30 @@ public class XmpReader implements JpegSegmentMetadataReader
     private static final int EXTENDED_XMP_GUID_LENGTH = 32;
     private static final int EXTENDED_XMP_INT_LENGTH = 4;
 
+    /** The property paths to stream, or <code>null</code> if XMP is parsed in full. */
+    @Nullable
+    private final Set<String> _propertyPaths;
+    /** Whether {@link #ATTRIBUTE_EXTENDED_XMP} was requested, rather than only being streamed to locate extended XMP. */
+    private final boolean _isExtendedXmpGuidRequested;
+
+    public XmpReader()
+    {
+        this(null);
+    }
+
+    public XmpReader(@Nullable MetadataFilter filter)
+    {
+        if (filter == null || filter.getXmpPropertyPaths().isEmpty()) {
+            _propertyPaths = null;
+            _isExtendedXmpGuidRequested = false;
+        } else {
+            _propertyPaths = new HashSet<String>(filter.getXmpPropertyPaths());
+            _isExtendedXmpGuidRequested = _propertyPaths.contains(ATTRIBUTE_EXTENDED_XMP);
+            // Needed to locate any extended XMP in JPEG files
+            _propertyPaths.add(ATTRIBUTE_EXTENDED_XMP);
+        }
+    }
+
     @NotNull
     public Iterable<JpegSegmentType> getSegmentTypes()
     {
@@ -91,36 +127,49 @@ public class XmpReader implements JpegSegmentMetadataReader
      * @param segmentType The {@link JpegSegmentType} being read.
      */
     public void readJpegSegments(@NotNull Iterable<byte[]> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
+    {
+        readJpegSegmentSlices(JpegSegment.fromByteArrays(segments), metadata, segmentType);
+    }
+
+    /**
+     * Version specifically for dealing with XMP found in JPEG segments, which reads each segment in place.
+     *
+     * @param segments The segments from which the metadata should be extracted.
+     * @param metadata The {@link Metadata} object into which extracted values should be merged.
+     * @param segmentType The {@link JpegSegmentType} being read.
+     */
+    public void readJpegSegmentSlices(@NotNull Iterable<JpegSegment> segments, @NotNull Metadata metadata, @NotNull JpegSegmentType segmentType)
     {
         final int preambleLength = XMP_JPEG_PREAMBLE.length();
         final int extensionPreambleLength = XMP_EXTENSION_JPEG_PREAMBLE.length();
         String extendedXMPGUID = null;
         byte[] extendedXMPBuffer = null;
 
-        for (byte[] segmentBytes : segments) {
+        for (JpegSegment segment : segments) {
             // XMP in a JPEG file has an identifying preamble which is not valid XML
-            if (segmentBytes.length >= preambleLength) {
+            if (segment.getLength() >= preambleLength) {
                 // NOTE we expect the full preamble here, but some images (such as that reported on GitHub #102)
                 // start with "XMP\0://ns.adobe.com/xap/1.0/" which appears to be an error but is easily recovered
                 // from. In such cases, the actual XMP data begins at the same offset.
-                if (XMP_JPEG_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, preambleLength)) ||
-                    "XMP".equalsIgnoreCase(new String(segmentBytes, 0, 3))) {
+                if (segment.startsWith(XMP_JPEG_PREAMBLE, true) || segment.startsWith("XMP", true)) {
 
-                    byte[] xmlBytes = new byte[segmentBytes.length - preambleLength];
-                    System.arraycopy(segmentBytes, preambleLength, xmlBytes, 0, xmlBytes.length);
-                    extract(xmlBytes, metadata);
                     // Check in the Standard XMP if there should be a Extended XMP part in other chunks.
-                    extendedXMPGUID = getExtendedXMPGUID(metadata);
+                    if (_propertyPaths != null) {
+                        extendedXMPGUID = extractProperties(segment.getBuffer(), segment.getOffset() + preambleLength, segment.getLength() - preambleLength, metadata, null);
+                    } else {
+                        extract(segment.getBuffer(), segment.getOffset() + preambleLength, segment.getLength() - preambleLength, metadata, null);
+                        extendedXMPGUID = getExtendedXMPGUID(metadata);
+                    }
                     continue;
                 }
             }
 
             // If we know that there's Extended XMP chunks, look for them.
             if (extendedXMPGUID != null &&
-                segmentBytes.length >= extensionPreambleLength &&
-                XMP_EXTENSION_JPEG_PREAMBLE.equalsIgnoreCase(new String(segmentBytes, 0, extensionPreambleLength))) {
+                segment.getLength() >= extensionPreambleLength &&
+                segment.startsWith(XMP_EXTENSION_JPEG_PREAMBLE, true)) {
 
-                extendedXMPBuffer = processExtendedXMPChunk(metadata, segmentBytes, extendedXMPGUID, extendedXMPBuffer);
+                extendedXMPBuffer = processExtendedXMPChunk(metadata, segment, extendedXMPGUID, extendedXMPBuffer);
             }
         }
 
@@ -157,6 +206,11 @@ public class XmpReader implements JpegSegmentMetadataReader
      */
     public void extract(@NotNull final byte[] xmpBytes, int offset, int length, @NotNull Metadata metadata, @Nullable Directory parentDirectory)
     {
+        if (_propertyPaths != null) {
+            extractProperties(xmpBytes, offset, length, metadata, parentDirectory);
+            return;
+        }
+
         XmpDirectory directory = new XmpDirectory();
 
         if (parentDirectory != null)
@@ -169,8 +223,9 @@ public class XmpReader implements JpegSegmentMetadataReader
             if (offset == 0 && length == xmpBytes.length) {
                 xmpMeta = XMPMetaFactory.parseFromBuffer(xmpBytes, PARSE_OPTIONS);
             } else {
-                ByteBuffer buffer = new ByteBuffer(xmpBytes, offset, length);
-                xmpMeta = XMPMetaFactory.parse(buffer.getByteStream(), PARSE_OPTIONS);
+                // XMPCore only parses arrays from their first byte, and with these options buffers any stream it is
+                // given in full, so the range is copied once. The filtered path above reads it in place.
+                xmpMeta = XMPMetaFactory.parseFromBuffer(Arrays.copyOfRange(xmpBytes, offset, offset + length), PARSE_OPTIONS);
             }
 
             directory.setXMPMeta(xmpMeta);
@@ -214,6 +269,20 @@ public class XmpReader implements JpegSegmentMetadataReader
         if (parentDirectory != null)
             directory.setParent(parentDirectory);
 
+        if (_propertyPaths != null) {
+            try {
+                Map<String, String> properties = XmpStreamReader.readProperties(new StringReader(xmpString), _propertyPaths);
+                directory.setXMPMeta(xmpString);
+                setStreamedProperties(directory, properties);
+            } catch (XMLStreamException e) {
+                directory.addError("Error processing XMP data: " + e.getMessage());
+            }
+
+            if (!directory.isEmpty())
+                metadata.addDirectory(directory);
+            return;
+        }
+
         try {
             XMPMeta xmpMeta = XMPMetaFactory.parseFromString(xmpString, PARSE_OPTIONS);
             directory.setXMPMeta(xmpMeta);
@@ -225,12 +294,60 @@ public class XmpReader implements JpegSegmentMetadataReader
             metadata.addDirectory(directory);
     }
 
+    /**
+     * Streams the requested properties from XMP held in <code>length</code> bytes of <code>xmpBytes</code> from
+     * <code>offset</code>, which is kept in place for {@link XmpDirectory#getXMPMeta()} to parse if needed.
+     *
+     * @return the GUID of any extended XMP this XMP refers to, or <code>null</code> if none
+     */
+    @Nullable
+    private String extractProperties(@NotNull final byte[] xmpBytes, int offset, int length, @NotNull Metadata metadata, @Nullable Directory parentDirectory)
+    {
+        assert(_propertyPaths != null);
+
+        XmpDirectory directory = new XmpDirectory();
+
+        if (parentDirectory != null)
+            directory.setParent(parentDirectory);
+
+        String extendedXMPGUID = null;
+        try {
+            Map<String, String> properties = XmpStreamReader.readProperties(new ByteArrayInputStream(xmpBytes, offset, length), _propertyPaths);
+            directory.setXMPMeta(xmpBytes, offset, length);
+            extendedXMPGUID = setStreamedProperties(directory, properties);
+        } catch (XMLStreamException e) {
+            // The XMP is not retained, so that this error is not reported again if the XMPMeta is requested
+            directory.addError("Error processing XMP data: " + e.getMessage());
+        }
+
+        if (!directory.isEmpty())
+            metadata.addDirectory(directory);
+
+        return extendedXMPGUID;
+    }
+
+    /**
+     * Sets the streamed <code>properties</code> on <code>directory</code>, omitting {@link #ATTRIBUTE_EXTENDED_XMP}
+     * unless it was requested.
+     *
+     * @return the GUID of any extended XMP the properties refer to, or <code>null</code> if none
+     */
+    @Nullable
+    private String setStreamedProperties(@NotNull XmpDirectory directory, @NotNull Map<String, String> properties)
+    {
+        String extendedXMPGUID = _isExtendedXmpGuidRequested
+            ? properties.get(ATTRIBUTE_EXTENDED_XMP)
+            : properties.remove(ATTRIBUTE_EXTENDED_XMP);
+        directory.setXmpProperties(properties);
+        return extendedXMPGUID;
+    }
+
     /**
      * Determine if there is an extended XMP section based on the standard XMP part.
      * The xmpNote:HasExtendedXMP attribute contains the GUID of the Extended XMP chunks.
      */
     @Nullable
-    private static String getExtendedXMPGUID(@NotNull Metadata metadata)
+    private String getExtendedXMPGUID(@NotNull Metadata metadata)
     {
         final Collection<XmpDirectory> xmpDirectories = metadata.getDirectoriesOfType(XmpDirectory.class);
 
@@ -257,17 +374,17 @@ public class XmpReader implements JpegSegmentMetadataReader
     }
 
     /**
-     * Process an Extended XMP chunk. It will read the bytes from segmentBytes and validates that the GUID the requested one.
+     * Process an Extended XMP chunk. It will read the bytes from the segment and validates that the GUID the requested one.
      * It will progressively fill the buffer with each chunk.
      * The format is specified in this document:
      * http://www.adobe.com/content/dam/Adobe/en/devnet/xmp/pdfs/XMPSpecificationPart3.pdf
      * at page 19
      */
     @Nullable
-    private static byte[] processExtendedXMPChunk(@NotNull Metadata metadata, @NotNull byte[] segmentBytes, @NotNull String extendedXMPGUID, @Nullable byte[] extendedXMPBuffer)
+    private static byte[] processExtendedXMPChunk(@NotNull Metadata metadata, @NotNull JpegSegment segment, @NotNull String extendedXMPGUID, @Nullable byte[] extendedXMPBuffer)
     {
         final int extensionPreambleLength = XMP_EXTENSION_JPEG_PREAMBLE.length();
-        final int segmentLength = segmentBytes.length;
+        final int segmentLength = segment.getLength();
         final int totalOffset = extensionPreambleLength + EXTENDED_XMP_GUID_LENGTH + EXTENDED_XMP_INT_LENGTH + EXTENDED_XMP_INT_LENGTH;
 
         if (segmentLength >= totalOffset) {
@@ -281,7 +398,7 @@ public class XmpReader implements JpegSegmentMetadataReader
                  * - The offset of this portion as a 32-bit unsigned integer
                  * - The portion of the ExtendedXMP
                  */
-                final SequentialReader reader = new SequentialByteArrayReader(segmentBytes);
+                final SequentialReader reader = new SequentialByteArrayReader(segment.getBuffer(), segment.getOffset(), segmentLength);
                 reader.skip(extensionPreambleLength);
                 final String segmentGUID = reader.getString(EXTENDED_XMP_GUID_LENGTH);
 
@@ -293,7 +410,7 @@ public class XmpReader implements JpegSegmentMetadataReader
                         extendedXMPBuffer = new byte[fullLength];
 
                     if (extendedXMPBuffer.length == fullLength) {
-                        System.arraycopy(segmentBytes, totalOffset, extendedXMPBuffer, chunkOffset, segmentLength - totalOffset);
+                        System.arraycopy(segment.getBuffer(), segment.getOffset() + totalOffset, extendedXMPBuffer, chunkOffset, segmentLength - totalOffset);
                     } else {
                         XmpDirectory directory = new XmpDirectory();
                         directory.addError(String.format("Inconsistent length for the Extended XMP buffer: %d instead of %d", fullLength, extendedXMPBuffer.length));
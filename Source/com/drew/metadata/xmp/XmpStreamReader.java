@@ -0,0 +1,349 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata.xmp;
+
+import com.adobe.internal.xmp.XMPMetaFactory;
+import com.drew.lang.annotations.NotNull;
+import com.drew.lang.annotations.Nullable;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads selected properties from serialized XMP in a single pass, using the JDK's StAX parser rather than building
+ * Adobe's {@link com.adobe.internal.xmp.XMPMeta} tree.
+ * <p>
+ * Properties are identified by the same paths as {@link XmpDirectory#getXmpProperties()} uses, such as
+ * <code>xmp:Rating</code>. Requesting an array or structure, such as <code>dc:subject</code>, returns each of its
+ * values (<code>dc:subject[1]</code>, <code>dc:subject[2]</code> and so on). Top-level properties that are not
+ * requested are skipped without examining their content, so large properties such as
+ * <code>photoshop:DocumentAncestors</code> cost little unless they are requested.
+ * <p>
+ * Prefixes are those registered with XMPCore for each namespace, falling back to the prefix used in the XMP itself.
+ * Values are returned as written, without the normalization XMPCore applies to some properties such as
+ * <code>exif:DateTimeDigitized</code>. Properties are read from the first <code>rdf:RDF</code> element only, though
+ * the rest of the document is still read, so that XMP which is not well formed is always reported.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class XmpStreamReader
+{
+    @NotNull
+    private static final String NAMESPACE_RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    @NotNull
+    private static final XMLInputFactory _inputFactory = createInputFactory();
+
+    @NotNull
+    private final XMLStreamReader _reader;
+    /** The requested paths, or <code>null</code> if all properties are to be read. */
+    @Nullable
+    private final Set<String> _propertyPaths;
+    /** The top-level property of each requested path, or <code>null</code> if all properties are to be read. */
+    @Nullable
+    private final Set<String> _propertyNames;
+    @NotNull
+    private final Map<String, String> _prefixByNamespace = new HashMap<String, String>();
+    @NotNull
+    private final Map<String, String> _valueByPath = new HashMap<String, String>();
+
+    /**
+     * Reads properties from XMP held in <code>inputStream</code>, whose encoding is detected from its content.
+     *
+     * @param propertyPaths the paths of the properties to read, or <code>null</code> to read all properties
+     * @return the value of each property found, keyed by path
+     * @throws XMLStreamException if the XMP is not well formed
+     */
+    @NotNull
+    public static Map<String, String> readProperties(@NotNull InputStream inputStream, @Nullable Collection<String> propertyPaths) throws XMLStreamException
+    {
+        XMLStreamReader reader = _inputFactory.createXMLStreamReader(inputStream);
+        try {
+            return new XmpStreamReader(reader, propertyPaths).read();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads properties from XMP held in <code>reader</code>.
+     *
+     * @param propertyPaths the paths of the properties to read, or <code>null</code> to read all properties
+     * @return the value of each property found, keyed by path
+     * @throws XMLStreamException if the XMP is not well formed
+     */
+    @NotNull
+    public static Map<String, String> readProperties(@NotNull Reader reader, @Nullable Collection<String> propertyPaths) throws XMLStreamException
+    {
+        XMLStreamReader xmlReader = _inputFactory.createXMLStreamReader(reader);
+        try {
+            return new XmpStreamReader(xmlReader, propertyPaths).read();
+        } finally {
+            xmlReader.close();
+        }
+    }
+
+    private XmpStreamReader(@NotNull XMLStreamReader reader, @Nullable Collection<String> propertyPaths)
+    {
+        _reader = reader;
+
+        if (propertyPaths == null) {
+            _propertyPaths = null;
+            _propertyNames = null;
+        } else {
+            _propertyPaths = new HashSet<String>(propertyPaths);
+            _propertyNames = new HashSet<String>();
+            for (String path : propertyPaths) {
+                int end = path.length();
+                int slash = path.indexOf('/');
+                if (slash != -1)
+                    end = slash;
+                int bracket = path.indexOf('[');
+                if (bracket != -1 && bracket < end)
+                    end = bracket;
+                _propertyNames.add(path.substring(0, end));
+            }
+        }
+    }
+
+    @NotNull
+    private Map<String, String> read() throws XMLStreamException
+    {
+        while (_reader.hasNext()) {
+            if (_reader.next() == XMLStreamReader.START_ELEMENT && isRdf("RDF")) {
+                while (nextChild() == XMLStreamReader.START_ELEMENT) {
+                    if (isRdf("Description"))
+                        readDescription(null);
+                    else
+                        skipElement();
+                }
+                break;
+            }
+        }
+
+        // Check that the remainder of the document is well formed
+        while (_reader.hasNext())
+            _reader.next();
+
+        return _valueByPath;
+    }
+
+    /**
+     * Reads the properties of an <code>rdf:Description</code> element, which are either top-level properties when
+     * <code>path</code> is <code>null</code>, or the fields and qualifiers of the value at <code>path</code>.
+     */
+    private void readDescription(@Nullable String path) throws XMLStreamException
+    {
+        readAttributeProperties(path);
+
+        while (nextChild() == XMLStreamReader.START_ELEMENT) {
+            if (path != null && isRdf("value"))
+                readValue(path);
+            else
+                readProperty(path);
+        }
+    }
+
+    private void readProperty(@Nullable String parentPath) throws XMLStreamException
+    {
+        String name = getQualifiedName(_reader.getNamespaceURI(), _reader.getPrefix(), _reader.getLocalName());
+
+        if (parentPath == null && _propertyNames != null && !_propertyNames.contains(name)) {
+            skipElement();
+            return;
+        }
+
+        readValue(parentPath == null ? name : parentPath + "/" + name);
+    }
+
+    /**
+     * Reads the value of the current element, which is a property or array item, recording it and any fields,
+     * qualifiers or items it contains under <code>path</code>.
+     */
+    private void readValue(@NotNull String path) throws XMLStreamException
+    {
+        String language = _reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang");
+        if (language != null)
+            addValue(path + "/xml:lang", language);
+
+        if ("Resource".equals(_reader.getAttributeValue(NAMESPACE_RDF, "parseType"))) {
+            while (nextChild() == XMLStreamReader.START_ELEMENT)
+                readProperty(path);
+            return;
+        }
+
+        String resource = _reader.getAttributeValue(NAMESPACE_RDF, "resource");
+        if (resource != null)
+            addValue(path, resource);
+
+        boolean hasFields = readAttributeProperties(path);
+        boolean hasChildren = false;
+        StringBuilder text = new StringBuilder();
+
+        while (true) {
+            int event = _reader.next();
+            if (event == XMLStreamReader.END_ELEMENT) {
+                break;
+            } else if (event == XMLStreamReader.START_ELEMENT) {
+                hasChildren = true;
+                if (isRdf("Bag") || isRdf("Seq") || isRdf("Alt"))
+                    readArray(path);
+                else if (isRdf("Description"))
+                    readDescription(path);
+                else
+                    skipElement();
+            } else if (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA || event == XMLStreamReader.SPACE) {
+                text.append(_reader.getText());
+            } else if (event == XMLStreamReader.END_DOCUMENT) {
+                throw new XMLStreamException("Unexpected end of XMP data");
+            }
+        }
+
+        if (!hasChildren && !hasFields && resource == null)
+            addValue(path, text.toString());
+    }
+
+    private void readArray(@NotNull String path) throws XMLStreamException
+    {
+        int index = 0;
+        while (nextChild() == XMLStreamReader.START_ELEMENT) {
+            if (isRdf("li"))
+                readValue(path + "[" + ++index + "]");
+            else
+                skipElement();
+        }
+    }
+
+    /**
+     * Records the attributes of the current element that are properties rather than RDF syntax.
+     *
+     * @return whether any such attributes were found
+     */
+    private boolean readAttributeProperties(@Nullable String path) throws XMLStreamException
+    {
+        boolean found = false;
+        for (int i = 0; i < _reader.getAttributeCount(); i++) {
+            String namespace = _reader.getAttributeNamespace(i);
+            if (namespace == null || namespace.length() == 0 || namespace.equals(NAMESPACE_RDF) || namespace.equals(XMLConstants.XML_NS_URI))
+                continue;
+
+            found = true;
+            String name = getQualifiedName(namespace, _reader.getAttributePrefix(i), _reader.getAttributeLocalName(i));
+            if (path == null && _propertyNames != null && !_propertyNames.contains(name))
+                continue;
+            addValue(path == null ? name : path + "/" + name, _reader.getAttributeValue(i));
+        }
+        return found;
+    }
+
+    private void addValue(@NotNull String path, @NotNull String value)
+    {
+        if (isRequested(path))
+            _valueByPath.put(path, value);
+    }
+
+    private boolean isRequested(@NotNull String path)
+    {
+        if (_propertyPaths == null)
+            return true;
+
+        if (_propertyPaths.contains(path))
+            return true;
+
+        // Values within a requested array or structure are also included
+        for (String requested : _propertyPaths) {
+            if (path.length() > requested.length() && path.startsWith(requested)) {
+                char c = path.charAt(requested.length());
+                if (c == '/' || c == '[')
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private String getQualifiedName(@Nullable String namespace, @Nullable String prefix, @NotNull String localName)
+    {
+        if (namespace == null)
+            return localName;
+
+        String registeredPrefix = _prefixByNamespace.get(namespace);
+        if (registeredPrefix == null) {
+            registeredPrefix = XMPMetaFactory.getSchemaRegistry().getNamespacePrefix(namespace);
+            if (registeredPrefix == null)
+                registeredPrefix = prefix == null || prefix.length() == 0 ? "" : prefix + ":";
+            _prefixByNamespace.put(namespace, registeredPrefix);
+        }
+        return registeredPrefix + localName;
+    }
+
+    private boolean isRdf(@NotNull String localName)
+    {
+        return NAMESPACE_RDF.equals(_reader.getNamespaceURI()) && localName.equals(_reader.getLocalName());
+    }
+
+    /** Advances to the start of the current element's next child, or to the current element's end. */
+    private int nextChild() throws XMLStreamException
+    {
+        while (true) {
+            int event = _reader.next();
+            if (event == XMLStreamReader.START_ELEMENT || event == XMLStreamReader.END_ELEMENT)
+                return event;
+            if (event == XMLStreamReader.END_DOCUMENT)
+                throw new XMLStreamException("Unexpected end of XMP data");
+        }
+    }
+
+    /** Advances to the end of the current element, ignoring its content. */
+    private void skipElement() throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth != 0) {
+            int event = nextChild();
+            if (event == XMLStreamReader.START_ELEMENT)
+                depth++;
+            else
+                depth--;
+        }
+    }
+
+    @NotNull
+    private static XMLInputFactory createInputFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        // XMP has no use for DTDs, and external entities must not be resolved from untrusted files
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
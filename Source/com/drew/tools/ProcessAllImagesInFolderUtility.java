@@ -26,9 +26,9 @@ import com.adobe.internal.xmp.XMPIterator;
 import com.adobe.internal.xmp.XMPMeta;
 import com.adobe.internal.xmp.options.IteratorOptions;
 import com.adobe.internal.xmp.properties.XMPPropertyInfo;
+import com.drew.imaging.BatchMetadataReader;
 import com.drew.imaging.FileType;
 import com.drew.imaging.FileTypeDetector;
-import com.drew.imaging.ImageMetadataReader;
 import com.drew.lang.StringUtil;
 import com.drew.lang.annotations.NotNull;
 import com.drew.lang.annotations.Nullable;
@@ -49,12 +49,13 @@ import java.util.*;
  */
 public class ProcessAllImagesInFolderUtility
 {
-    public static void main(String[] args) throws IOException
+    public static void main(String[] args) throws IOException, InterruptedException
     {
         List<String> directories = new ArrayList<String>();
 
         FileHandler handler = null;
         PrintStream log = System.out;
+        int threadCount = 1;
 
         for (int i = 0; i < args.length; i++) {
             String arg = args[i];
@@ -73,6 +74,13 @@ public class ProcessAllImagesInFolderUtility
                     System.exit(1);
                 }
                 log = new PrintStream(new FileOutputStream(args[++i], false), true);
+            } else if (arg.equalsIgnoreCase("--threads")) {
+                // If "--threads" is specified, extract metadata from that many files in parallel
+                if (i == args.length - 1) {
+                    printUsage();
+                    System.exit(1);
+                }
+                threadCount = Integer.parseInt(args[++i]);
             } else {
                 // Treat this argument as a directory
                 directories.add(arg);
@@ -91,10 +99,15 @@ public class ProcessAllImagesInFolderUtility
 
         long start = System.nanoTime();
 
+        // Relative paths are kept in scan order, which is also the order of results when using a single thread
+        Map<File, String> relativePathByFile = new LinkedHashMap<File, String>();
+
         for (String directory : directories) {
-            processDirectory(new File(directory), handler, "", log);
+            processDirectory(new File(directory), handler, "", relativePathByFile);
         }
 
+        processFiles(relativePathByFile, handler, threadCount, log);
+
         handler.onScanCompleted(log);
 
         System.out.println(String.format("Completed in %d ms", (System.nanoTime() - start) / 1000000));
@@ -108,10 +121,10 @@ public class ProcessAllImagesInFolderUtility
     {
         System.out.println("Usage:");
         System.out.println();
-        System.out.println("  java com.drew.tools.ProcessAllImagesInFolderUtility [--text|--markdown|--unknown] [--log-file <file-name>]");
+        System.out.println("  java com.drew.tools.ProcessAllImagesInFolderUtility [--text|--markdown|--unknown] [--log-file <file-name>] [--threads <count>]");
     }
 
-    private static void processDirectory(@NotNull File path, @NotNull FileHandler handler, @NotNull String relativePath, PrintStream log)
+    private static void processDirectory(@NotNull File path, @NotNull FileHandler handler, @NotNull String relativePath, @NotNull Map<File, String> relativePathByFile)
     {
         handler.onStartingDirectory(path);
 
@@ -128,23 +141,31 @@ public class ProcessAllImagesInFolderUtility
             File file = new File(path, pathItem);
 
             if (file.isDirectory()) {
-                processDirectory(file, handler, relativePath.length() == 0 ? pathItem : relativePath + "/" + pathItem, log);
+                processDirectory(file, handler, relativePath.length() == 0 ? pathItem : relativePath + "/" + pathItem, relativePathByFile);
             } else if (handler.shouldProcess(file)) {
+                relativePathByFile.put(file, relativePath);
+            }
+        }
+    }
 
+    private static void processFiles(@NotNull final Map<File, String> relativePathByFile, @NotNull final FileHandler handler, int threadCount, @NotNull final PrintStream log) throws InterruptedException
+    {
+        // Results are reported on this thread, so handlers need not be thread safe
+        BatchMetadataReader.readMetadata(relativePathByFile.keySet(), threadCount, new BatchMetadataReader.Listener()
+        {
+            public void onExtractionSuccess(@NotNull File file, @NotNull Metadata metadata)
+            {
+                String relativePath = relativePathByFile.get(file);
                 handler.onBeforeExtraction(file, log, relativePath);
-
-                // Read metadata
-                final Metadata metadata;
-                try {
-                    metadata = ImageMetadataReader.readMetadata(file);
-                } catch (Throwable t) {
-                    handler.onExtractionError(file, t, log);
-                    continue;
-                }
-
                 handler.onExtractionSuccess(file, metadata, relativePath, log);
             }
-        }
+
+            public void onExtractionError(@NotNull File file, @NotNull Throwable throwable)
+            {
+                handler.onBeforeExtraction(file, log, relativePathByFile.get(file));
+                handler.onExtractionError(file, throwable, log);
+            }
+        });
     }
 
     interface FileHandler
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging;
+
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Metadata;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class BatchMetadataReaderTest
+{
+    @Test
+    public void testReportsSuccessesAndErrors() throws Exception
+    {
+        List<File> files = Arrays.asList(
+            new File("Tests/Data/withExif.jpg"),
+            new File("Tests/Data/doesNotExist.jpg"),
+            new File("Tests/Data/mspaint-8x10.png"),
+            new File("Tests/Data/24bpp-10x10.bmp"));
+
+        RecordingListener listener = new RecordingListener();
+        BatchMetadataReader.readMetadata(files, 2, listener);
+
+        assertEquals(3, listener.successes.size());
+        assertEquals(Arrays.asList(new File("Tests/Data/doesNotExist.jpg")), listener.errors);
+    }
+
+    @Test
+    public void testErrorsAreRethrownRatherThanReported() throws Exception
+    {
+        final Error error = new Error("Test error");
+        File file = new File("Tests/Data/withExif.jpg")
+        {
+            @Override
+            public String getPath()
+            {
+                throw error;
+            }
+        };
+
+        RecordingListener listener = new RecordingListener();
+        try {
+            BatchMetadataReader.readMetadata(Arrays.asList(file), 1, listener);
+            fail("Expected the error to be rethrown");
+        } catch (Error e) {
+            assertSame(error, e);
+        }
+
+        assertTrue(listener.errors.isEmpty());
+    }
+
+    @Test
+    public void testBoundsFilesInFlight() throws Exception
+    {
+        final int maxInFlight = 2;
+        final RecordingListener listener = new RecordingListener();
+        final int[] maxObservedInFlight = new int[1];
+
+        // Count files drawn from the sequence but not yet reported, as the sequence is consumed
+        Iterable<File> files = new Iterable<File>()
+        {
+            public Iterator<File> iterator()
+            {
+                return new Iterator<File>()
+                {
+                    private int _index = 0;
+
+                    public boolean hasNext()
+                    {
+                        return _index < 20;
+                    }
+
+                    public File next()
+                    {
+                        _index++;
+                        int inFlight = _index - listener.successes.size() - listener.errors.size();
+                        maxObservedInFlight[0] = Math.max(maxObservedInFlight[0], inFlight);
+                        return new File("Tests/Data/withExif.jpg");
+                    }
+
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            new BatchMetadataReader(executor, maxInFlight).readMetadata(files, listener);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(20, listener.successes.size());
+        assertTrue(maxObservedInFlight[0] <= maxInFlight + 1);
+    }
+
+    private static class RecordingListener implements BatchMetadataReader.Listener
+    {
+        final List<File> successes = new ArrayList<File>();
+        final List<File> errors = new ArrayList<File>();
+
+        public void onExtractionSuccess(@NotNull File file, @NotNull Metadata metadata)
+        {
+            successes.add(file);
+        }
+
+        public void onExtractionError(@NotNull File file, @NotNull Throwable throwable)
+        {
+            errors.add(file);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
+import com.drew.metadata.Tag;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.xmp.XmpDirectory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ExtractionContextTest
+{
+    private static final String[] FILES = {
+        "Tests/Data/withExif.jpg",
+        "Tests/Data/mspaint-8x10.png",
+        "Tests/Data/withIptcExifGps.jpg",
+        "Tests/Data/24bpp-10x10.bmp",
+        "Tests/Data/8x4x8bit-Grayscale.psd",
+        "Tests/Data/withXmp.jpg"
+    };
+
+    @Test
+    public void testReusedContextGivesSameResults() throws Exception
+    {
+        ExtractionContext context = new ExtractionContext();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (String path : FILES) {
+                File file = new File(path);
+
+                assertEquals(path, describe(ImageMetadataReader.readMetadata(file)), describe(ImageMetadataReader.readMetadata(file, null, context)));
+
+                InputStream stream = new FileInputStream(file);
+                try {
+                    assertEquals(path, describe(ImageMetadataReader.readMetadata(new FileInputStream(file))), describe(ImageMetadataReader.readMetadata(stream, null, context)));
+                } finally {
+                    stream.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFileTypeDetectionIgnoresPreviousBytes() throws Exception
+    {
+        ExtractionContext context = new ExtractionContext();
+
+        // QuickTime is detected from bytes 4 to 8, which a following shorter stream must not inherit
+        byte[] quickTime = new byte[]{0, 0, 0, 8, 'f', 't', 'y', 'p', 'q', 't', ' ', ' '};
+        assertEquals(FileType.QuickTime, FileTypeDetector.detectFileType(context.getBufferedInputStream(new ByteArrayInputStream(quickTime)), context.getFileTypeBytes()));
+        assertEquals(FileType.Unknown, FileTypeDetector.detectFileType(context.getBufferedInputStream(new ByteArrayInputStream(new byte[]{0, 0, 0})), context.getFileTypeBytes()));
+    }
+
+    @Test
+    public void testFilterChangedBetweenExtractions() throws Exception
+    {
+        ExtractionContext context = new ExtractionContext();
+        File file = new File("Tests/Data/adobeJpeg1.jpg");
+
+        MetadataFilter filter = new MetadataFilter().include(ExifIFD0Directory.class);
+        assertNull(ImageMetadataReader.readMetadata(file, filter, context).getFirstDirectoryOfType(XmpDirectory.class));
+
+        filter.include(XmpDirectory.class);
+        assertNotNull(ImageMetadataReader.readMetadata(file, filter).getFirstDirectoryOfType(XmpDirectory.class));
+        assertNotNull(ImageMetadataReader.readMetadata(file, filter, context).getFirstDirectoryOfType(XmpDirectory.class));
+    }
+
+    @Test
+    public void testConcurrentUseIsRejected() throws Exception
+    {
+        ExtractionContext context = new ExtractionContext();
+        context.acquire();
+
+        try {
+            ImageMetadataReader.readMetadata(new File("Tests/Data/withExif.jpg"), null, context);
+            fail("Exception expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        context.release();
+        assertNotNull(ImageMetadataReader.readMetadata(new File("Tests/Data/withExif.jpg"), null, context));
+    }
+
+    @Test
+    public void testReleasedAfterFailure() throws Exception
+    {
+        ExtractionContext context = new ExtractionContext();
+
+        try {
+            ImageMetadataReader.readMetadata(new File("Tests/Data/doesNotExist.jpg"), null, context);
+            fail("Exception expected");
+        } catch (IOException e) {
+            // expected
+        }
+
+        assertNotNull(ImageMetadataReader.readMetadata(new File("Tests/Data/withExif.jpg"), null, context));
+    }
+
+    private static String describe(Metadata metadata)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (Directory directory : metadata.getDirectories()) {
+            for (Tag tag : directory.getTags()) {
+                builder.append(tag).append('\n');
+            }
+            for (String error : directory.getErrors()) {
+                builder.append(error).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+}
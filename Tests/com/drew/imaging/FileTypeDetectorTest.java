@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging;
+
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class FileTypeDetectorTest
+{
+    private static FileType detect(byte[] bytes, String hint) throws IOException
+    {
+        return FileTypeDetector.detectFileType(new BufferedInputStream(new ByteArrayInputStream(bytes)), hint);
+    }
+
+    @Test
+    public void testDetectsSignatures() throws Exception
+    {
+        assertEquals(FileType.Jpeg, detect(new byte[]{(byte)0xFF, (byte)0xD8, (byte)0xFF, (byte)0xE0}, null));
+        assertEquals(FileType.Tiff, detect(new byte[]{'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08}, null));
+        assertEquals(FileType.Arw, detect(new byte[]{'I', 'I', 0x2A, 0x00, 0x08, 0x00, 0x00, 0x00}, null));
+        assertEquals(FileType.Gif, detect("GIF89a".getBytes(), null));
+        assertEquals(FileType.Mp4, detect(new byte[]{0x00, 0x00, 0x00, 0x18, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'}, null));
+        assertEquals(FileType.Unknown, detect("Plain text".getBytes(), null));
+    }
+
+    @Test
+    public void testHintDoesNotOverrideSignature() throws Exception
+    {
+        // A more specific signature wins over the hinted type
+        assertEquals(FileType.Arw, detect(new byte[]{'I', 'I', 0x2A, 0x00, 0x08, 0x00, 0x00, 0x00}, "photo.tif"));
+        assertEquals(FileType.Jpeg, detect(new byte[]{(byte)0xFF, (byte)0xD8, (byte)0xFF, (byte)0xE0}, "image/png"));
+        assertEquals(FileType.Unknown, detect("Plain text".getBytes(), "notes.mp3"));
+    }
+
+    @Test
+    public void testHintedCheckerIsConsultedFirst() throws Exception
+    {
+        // These bytes satisfy both the QuickTime and MPEG audio checks
+        byte[] bytes = new byte[]{(byte)0xFF, (byte)0xFB, (byte)0x90, 0x00, 'f', 't', 'y', 'p', 'i', 's', 'o', 'm'};
+
+        assertEquals(FileType.Mp4, detect(bytes, null));
+        assertEquals(FileType.Mp4, detect(bytes, "clip.mp4"));
+        assertEquals(FileType.Mp3, detect(bytes, "song.MP3"));
+        assertEquals(FileType.Mp3, detect(bytes, "audio/mpeg"));
+    }
+
+    @Test
+    public void testGetHintedFileType()
+    {
+        assertEquals(FileType.Jpeg, FileTypeDetector.getHintedFileType("jpg"));
+        assertEquals(FileType.Jpeg, FileTypeDetector.getHintedFileType("/photos.2019/IMG_0001.JPEG"));
+        assertEquals(FileType.Jpeg, FileTypeDetector.getHintedFileType("image/jpeg"));
+        assertEquals(FileType.Zip, FileTypeDetector.getHintedFileType("archive.zip"));
+        assertEquals(FileType.Psd, FileTypeDetector.getHintedFileType("image/vnd.adobe.photoshop"));
+        assertNull(FileTypeDetector.getHintedFileType("README"));
+        assertNull(FileTypeDetector.getHintedFileType("notes.txt"));
+    }
+}
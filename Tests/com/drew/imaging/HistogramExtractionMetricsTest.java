@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.imaging.ExtractionMetrics.Stage;
+import com.drew.tools.FileUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class HistogramExtractionMetricsTest
+{
+    @After
+    public void tearDown()
+    {
+        ImageMetadataReader.setMetrics(null);
+    }
+
+    @Test
+    public void testJpegExtraction() throws Exception
+    {
+        HistogramExtractionMetrics metrics = new HistogramExtractionMetrics();
+        ImageMetadataReader.setMetrics(metrics);
+
+        byte[] bytes = FileUtil.readBytes("Tests/Data/withExif.jpg");
+        int directoryCount = ImageMetadataReader.readMetadata(new ByteArrayInputStream(bytes)).getDirectoryCount();
+        ImageMetadataReader.readMetadata(new File("Tests/Data/withExif.jpg"));
+
+        assertEquals(2, metrics.getExtractionHistogram(FileType.Jpeg).getCount());
+        assertEquals(0, metrics.getFailureCount(FileType.Jpeg));
+        // Reading from a file adds a file system directory
+        assertEquals(directoryCount * 2 + 1, metrics.getDirectoryCount(FileType.Jpeg));
+        // Reading stops at the start of the image data, and so before the end of the file
+        long bytesConsumed = metrics.getBytesRead(FileType.Jpeg) + metrics.getBytesSkipped(FileType.Jpeg);
+        assertTrue(bytesConsumed > 0);
+        assertTrue(bytesConsumed < 2 * bytes.length);
+
+        assertEquals(2, metrics.getStageHistogram(Stage.FILE_TYPE_DETECTION).getCount());
+        assertEquals(2, metrics.getStageHistogram(Stage.JPEG_SEGMENT_READING).getCount());
+        assertEquals(2, metrics.getStageHistogram(Stage.JPEG_SEGMENT_PROCESSING).getCount());
+        assertEquals(2, metrics.getStageHistogram(Stage.TIFF_PROCESSING).getCount());
+    }
+
+    @Test
+    public void testFailure() throws Exception
+    {
+        HistogramExtractionMetrics metrics = new HistogramExtractionMetrics();
+        ImageMetadataReader.setMetrics(metrics);
+
+        try {
+            ImageMetadataReader.readMetadata(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }));
+            fail("Expected ImageProcessingException");
+        } catch (ImageProcessingException ignored) {
+        }
+
+        assertEquals(1, metrics.getFailureCount(FileType.Unknown));
+        assertEquals(0, metrics.getExtractionHistogram(FileType.Unknown).getCount());
+        assertEquals(4, metrics.getBytesRead(FileType.Unknown));
+    }
+
+    @Test
+    public void testNotCalledOnceUnregistered() throws Exception
+    {
+        HistogramExtractionMetrics metrics = new HistogramExtractionMetrics();
+        ImageMetadataReader.setMetrics(metrics);
+        ImageMetadataReader.setMetrics(null);
+
+        ImageMetadataReader.readMetadata(new File("Tests/Data/withExif.jpg"));
+
+        assertEquals(0, metrics.getExtractionHistogram(FileType.Jpeg).getCount());
+        assertEquals(0, metrics.getStageHistogram(Stage.FILE_TYPE_DETECTION).getCount());
+    }
+
+    @Test
+    public void testHistogram()
+    {
+        HistogramExtractionMetrics.Histogram histogram = new HistogramExtractionMetrics().getStageHistogram(Stage.TIFF_PROCESSING);
+        assertEquals(0, histogram.getPercentileNanos(50));
+
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i * 1000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050000, histogram.getTotalNanos());
+        assertEquals(100000, histogram.getMaxNanos());
+
+        // The median of 50,000 falls in the bucket for 32,768 to 65,535
+        assertEquals(65535, histogram.getPercentileNanos(50));
+        assertEquals(100000, histogram.getPercentileNanos(100));
+        assertEquals(1023, histogram.getPercentileNanos(0));
+
+        assertEquals(0, HistogramExtractionMetrics.Histogram.getBucketUpperBound(0));
+        assertEquals(1, HistogramExtractionMetrics.Histogram.getBucketUpperBound(1));
+        assertEquals(Long.MAX_VALUE, HistogramExtractionMetrics.Histogram.getBucketUpperBound(HistogramExtractionMetrics.Histogram.BUCKET_COUNT - 1));
+    }
+}
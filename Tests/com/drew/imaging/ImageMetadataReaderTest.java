@@ -0,0 +1,267 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.imaging;
+
+import com.drew.lang.AsyncByteSource;
+import com.drew.lang.CountingByteSource;
+import com.drew.lang.FileByteSource;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.file.FileTypeDirectory;
+import com.drew.tools.FileUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ImageMetadataReaderTest
+{
+    @Test
+    public void testReadMetadataAsync() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Metadata> success = ImageMetadataReader.readMetadataAsync(new File("Tests/Data/withExif.jpg"), executor);
+            Future<Metadata> failure = ImageMetadataReader.readMetadataAsync(new File("Tests/Data/doesNotExist.jpg"), executor);
+
+            Metadata metadata = success.get(10, TimeUnit.SECONDS);
+            assertNotNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+
+            try {
+                failure.get(10, TimeUnit.SECONDS);
+                fail("Exception expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof FileNotFoundException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadMetadataAsyncReportsToListener() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicReference<Metadata> successMetadata = new AtomicReference<Metadata>();
+        final AtomicReference<Throwable> errorThrowable = new AtomicReference<Throwable>();
+
+        BatchMetadataReader.Listener listener = new BatchMetadataReader.Listener()
+        {
+            public void onExtractionSuccess(@NotNull File file, @NotNull Metadata metadata)
+            {
+                successMetadata.set(metadata);
+                latch.countDown();
+            }
+
+            public void onExtractionError(@NotNull File file, @NotNull Throwable throwable)
+            {
+                errorThrowable.set(throwable);
+                latch.countDown();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Metadata> future = ImageMetadataReader.readMetadataAsync(new File("Tests/Data/withExif.jpg"), executor, listener);
+            ImageMetadataReader.readMetadataAsync(new File("Tests/Data/doesNotExist.jpg"), executor, listener);
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertSame(future.get(), successMetadata.get());
+            assertTrue(errorThrowable.get() instanceof FileNotFoundException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadMetadataFromByteSource() throws Exception
+    {
+        File file = new File("Tests/Data/nikonMakernoteType2b.jpg");
+        FileByteSource fileSource = new FileByteSource(file);
+        try {
+            CountingByteSource source = new CountingByteSource(fileSource);
+            Metadata metadata = ImageMetadataReader.readMetadata(source);
+
+            ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+            assertNotNull(directory);
+            assertEquals(
+                ImageMetadataReader.readMetadata(file).getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MAKE),
+                directory.getString(ExifIFD0Directory.TAG_MAKE));
+            assertEquals("JPEG", metadata.getFirstDirectoryOfType(FileTypeDirectory.class).getString(FileTypeDirectory.TAG_DETECTED_FILE_TYPE_NAME));
+
+            // Only the segments preceding the image data are fetched
+            assertTrue(source.getBytesRead() < file.length() / 4);
+            assertTrue(source.getReadCount() <= 3);
+        } finally {
+            fileSource.close();
+        }
+    }
+
+    @Test
+    public void testReadMetadataAsyncFromAsyncByteSource() throws Exception
+    {
+        // Padding segments place the Exif data beyond the data requested at the outset
+        byte[] original = FileUtil.readBytes("Tests/Data/withExif.jpg");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(original, 0, 2);
+        for (int i = 0; i < 2; i++) {
+            bytes.write(new byte[] { (byte)0xFF, (byte)0xEF, (byte)0xEA, (byte)0x62 });
+            bytes.write(new byte[60000]);
+        }
+        bytes.write(original, 2, original.length - 2);
+        byte[] jpeg = bytes.toByteArray();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+        try {
+            TestAsyncByteSource source = new TestAsyncByteSource(jpeg, ioExecutor, false);
+            final AtomicReference<Metadata> callbackMetadata = new AtomicReference<Metadata>();
+            final CountDownLatch latch = new CountDownLatch(1);
+            Future<Metadata> future = ImageMetadataReader.readMetadataAsync(source, null, executor, new MetadataCallback()
+            {
+                public void onExtractionSuccess(@NotNull Metadata metadata)
+                {
+                    callbackMetadata.set(metadata);
+                    latch.countDown();
+                }
+
+                public void onExtractionError(@NotNull Throwable throwable)
+                {
+                    latch.countDown();
+                }
+            });
+
+            Metadata metadata = future.get(10, TimeUnit.SECONDS);
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertSame(metadata, callbackMetadata.get());
+            assertEquals(describe(ImageMetadataReader.readMetadata(CountingByteSource.forBytes(jpeg))), describe(metadata));
+
+            // The padding is skipped without being fetched
+            assertTrue(source.getReadCount() >= 2);
+            assertTrue(source.getBytesRead() < jpeg.length);
+        } finally {
+            executor.shutdown();
+            ioExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadMetadataAsyncReportsReadFailure() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            TestAsyncByteSource source = new TestAsyncByteSource(FileUtil.readBytes("Tests/Data/withExif.jpg"), executor, true);
+            try {
+                ImageMetadataReader.readMetadataAsync(source, executor).get(10, TimeUnit.SECONDS);
+                fail("Exception expected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @NotNull
+    private static List<String> describe(@NotNull Metadata metadata)
+    {
+        List<String> lines = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            lines.add(directory.getName());
+            lines.add(directory.getTags().toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Stands in for a non-blocking client of remote storage, completing reads of an array on another thread.
+     */
+    private static class TestAsyncByteSource implements AsyncByteSource
+    {
+        @NotNull
+        private final byte[] _bytes;
+        @NotNull
+        private final ExecutorService _ioExecutor;
+        private final boolean _isFailing;
+        private final AtomicInteger _readCount = new AtomicInteger();
+        private final AtomicInteger _bytesRead = new AtomicInteger();
+
+        TestAsyncByteSource(@NotNull byte[] bytes, @NotNull ExecutorService ioExecutor, boolean isFailing)
+        {
+            _bytes = bytes;
+            _ioExecutor = ioExecutor;
+            _isFailing = isFailing;
+        }
+
+        public long getLength()
+        {
+            return _bytes.length;
+        }
+
+        public void read(final long position, final int count, @NotNull final ReadHandler handler)
+        {
+            _readCount.incrementAndGet();
+            _bytesRead.addAndGet(count);
+            _ioExecutor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    if (_isFailing) {
+                        handler.failed(new IOException("Connection reset"));
+                        return;
+                    }
+                    byte[] bytes = new byte[count];
+                    System.arraycopy(_bytes, (int)position, bytes, 0, count);
+                    handler.completed(bytes);
+                }
+            });
+        }
+
+        int getReadCount()
+        {
+            return _readCount.get();
+        }
+
+        int getBytesRead()
+        {
+            return _bytesRead.get();
+        }
+    }
+}
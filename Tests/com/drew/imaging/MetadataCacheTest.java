@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.tools.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataCacheTest
+{
+    private File _file;
+    private File _directory;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        _file = File.createTempFile("metadata-cache-", ".jpg");
+        FileUtil.saveBytes(_file, FileUtil.readBytes("Tests/Data/withExif.jpg"));
+
+        _directory = File.createTempFile("metadata-cache-", "");
+        _directory.delete();
+    }
+
+    @After
+    public void tearDown()
+    {
+        _file.delete();
+        File[] entries = _directory.listFiles();
+        if (entries != null) {
+            for (File entry : entries)
+                entry.delete();
+        }
+        _directory.delete();
+    }
+
+    @Test
+    public void testMemoryHit() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(1024 * 1024);
+
+        Metadata first = cache.readMetadata(_file);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getMemoryHitCount());
+        assertTrue(cache.getMemoryBytes() > 0);
+
+        // Changes made by the caller must not affect later reads
+        first.getFirstDirectoryOfType(ExifIFD0Directory.class).setString(ExifIFD0Directory.TAG_MAKE, "Changed");
+
+        Metadata second = cache.readMetadata(_file);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getMemoryHitCount());
+        assertNotSame(first, second);
+        assertEquals(first.getDirectoryCount(), second.getDirectoryCount());
+        assertEquals("SONY", second.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MAKE));
+    }
+
+    @Test
+    public void testChangedFileMisses() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(1024 * 1024);
+
+        cache.readMetadata(_file);
+        assertTrue(_file.setLastModified(_file.lastModified() - 10000));
+        cache.readMetadata(_file);
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getMemoryHitCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(1024 * 1024);
+        cache.readMetadata(_file);
+        long entryBytes = cache.getMemoryBytes();
+
+        // Room for one entry only
+        cache = new MetadataCache(entryBytes);
+        cache.readMetadata(_file);
+        assertTrue(_file.setLastModified(_file.lastModified() - 10000));
+        cache.readMetadata(_file);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(entryBytes, cache.getMemoryBytes());
+
+        // Entries larger than the capacity are not held
+        cache = new MetadataCache(entryBytes - 1);
+        cache.readMetadata(_file);
+        assertEquals(0, cache.getMemoryBytes());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testDiskHit() throws Exception
+    {
+        new MetadataCache(1024 * 1024, _directory).readMetadata(_file);
+
+        MetadataCache cache = new MetadataCache(1024 * 1024, _directory);
+        Metadata metadata = cache.readMetadata(_file);
+        assertEquals(0, cache.getMissCount());
+        assertEquals(1, cache.getDiskHitCount());
+        assertEquals("SONY", metadata.getFirstDirectoryOfType(ExifIFD0Directory.class).getString(ExifIFD0Directory.TAG_MAKE));
+
+        // Entries read from disk are then held in memory
+        cache.readMetadata(_file);
+        assertEquals(1, cache.getMemoryHitCount());
+    }
+
+    @Test
+    public void testInvalidDiskEntryMisses() throws Exception
+    {
+        new MetadataCache(1024 * 1024, _directory).readMetadata(_file);
+
+        File[] entries = _directory.listFiles();
+        assertEquals(1, entries.length);
+        FileUtil.saveBytes(entries[0], new byte[] { 1, 2, 3 });
+
+        MetadataCache cache = new MetadataCache(1024 * 1024, _directory);
+        cache.readMetadata(_file);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getDiskHitCount());
+    }
+
+    @Test
+    public void testDiskEntryWithInvalidLengthMisses() throws Exception
+    {
+        new MetadataCache(1024 * 1024, _directory).readMetadata(_file);
+        File entry = _directory.listFiles()[0];
+
+        DataInputStream in = new DataInputStream(new FileInputStream(entry));
+        String key = in.readUTF();
+        in.close();
+
+        for (int length : new int[] { Integer.MAX_VALUE, -1 }) {
+            DataOutputStream out = new DataOutputStream(new FileOutputStream(entry));
+            out.writeUTF(key);
+            out.writeInt(length);
+            out.write(new byte[16]);
+            out.close();
+
+            MetadataCache cache = new MetadataCache(1024 * 1024, _directory);
+            cache.readMetadata(_file);
+            assertEquals(1, cache.getMissCount());
+            assertEquals(0, cache.getDiskHitCount());
+        }
+    }
+
+    @Test
+    public void testEvictionPolicies() throws Exception
+    {
+        MetadataCache cache = new MetadataCache(1024 * 1024);
+        cache.readMetadata(_file);
+        long entryBytes = cache.getMemoryBytes();
+
+        File other = File.createTempFile("metadata-cache-", ".jpg");
+        try {
+            FileUtil.saveBytes(other, FileUtil.readBytes("Tests/Data/withExif.jpg"));
+            long lastModified = _file.lastModified();
+
+            // Room for two entries but not three, allowing for entries' sizes varying with the temporary file names.
+            // Read the first file, the other file, then the first file again, before changing the first file so that
+            // it needs a third entry.
+            long capacity = entryBytes * 5 / 2;
+            MetadataCache lru = new MetadataCache(capacity, null, new MetadataCache.LeastRecentlyUsed());
+            MetadataCache fifo = new MetadataCache(capacity, null, new MetadataCache.FirstInFirstOut());
+            for (MetadataCache c : new MetadataCache[] { lru, fifo }) {
+                assertTrue(_file.setLastModified(lastModified));
+                c.readMetadata(_file);
+                c.readMetadata(other);
+                c.readMetadata(_file);
+                assertTrue(_file.setLastModified(lastModified - 10000));
+                c.readMetadata(_file);
+                assertEquals(1, c.getEvictionCount());
+            }
+
+            // The least recently used entry was for the other file, but the first entry added was for the first file
+            lru.readMetadata(other);
+            assertEquals(1, lru.getMemoryHitCount());
+            fifo.readMetadata(other);
+            assertEquals(2, fifo.getMemoryHitCount());
+        } finally {
+            other.delete();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging;
+
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.tools.FileUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class PreviewExtractorTest
+{
+    @Test
+    public void testExifThumbnailFromJpeg() throws Exception
+    {
+        File file = new File("Tests/Data/manuallyAddedThumbnail.jpg");
+
+        List<EmbeddedPreview> previews = PreviewExtractor.findPreviews(file);
+
+        assertEquals(1, previews.size());
+        EmbeddedPreview preview = previews.get(0);
+        assertEquals("Exif Thumbnail", preview.getDescription());
+        assertEquals("image/jpeg", preview.getMimeType());
+
+        // Compare against the thumbnail as located within the Exif segment alone
+        byte[] app1 = FileUtil.readBytes("Tests/Data/manuallyAddedThumbnail.jpg.app1");
+        Metadata metadata = new Metadata();
+        new ExifReader().readJpegSegments(Arrays.asList(app1), metadata, JpegSegmentType.APP1);
+        ExifThumbnailDirectory directory = metadata.getFirstDirectoryOfType(ExifThumbnailDirectory.class);
+        assertNotNull(directory);
+        int offset = 6 + directory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_OFFSET);
+        int length = directory.getInt(ExifThumbnailDirectory.TAG_THUMBNAIL_LENGTH);
+
+        assertArrayEquals(Arrays.copyOfRange(app1, offset, offset + length), write(file, preview));
+    }
+
+    @Test
+    public void testEpsTiffPreview() throws Exception
+    {
+        File file = new File("Tests/Data/8x4x8bit-Grayscale.eps");
+
+        List<EmbeddedPreview> previews = PreviewExtractor.findPreviews(file);
+
+        assertEquals(1, previews.size());
+        EmbeddedPreview preview = previews.get(0);
+        assertEquals("EPS TIFF Preview", preview.getDescription());
+        assertEquals("image/tiff", preview.getMimeType());
+        assertEquals(30, preview.getOffset());
+        assertEquals(4334, preview.getLength());
+
+        byte[] bytes = write(file, preview);
+        assertEquals(4334, bytes.length);
+        assertArrayEquals(new byte[] { 'I', 'I', 42, 0 }, Arrays.copyOf(bytes, 4));
+    }
+
+    @Test
+    public void testPhotoshopThumbnail() throws Exception
+    {
+        File file = new File("Tests/Data/8x4x8bit-Grayscale.psd");
+
+        List<EmbeddedPreview> previews = PreviewExtractor.findPreviews(file);
+
+        assertEquals(1, previews.size());
+        assertEquals("Photoshop Thumbnail", previews.get(0).getDescription());
+
+        byte[] bytes = write(file, previews.get(0));
+        assertEquals((byte)0xFF, bytes[0]);
+        assertEquals((byte)0xD8, bytes[1]);
+    }
+
+    @Test
+    public void testCanonThumbnailAtomsRankedBySize() throws Exception
+    {
+        byte[] small = write(new File("Tests/Data/withExif.jpg"));
+        byte[] large = write(new File("Tests/Data/manuallyAddedThumbnail.jpg"));
+        assertTrue(large.length > small.length);
+
+        byte[] movie = concat(
+            atom("ftyp", "qt  ".getBytes("ISO-8859-1"), new byte[4], "qt  ".getBytes("ISO-8859-1")),
+            atom("moov",
+                atom("udta", atom("CNTH", atom("CNDA", small))),
+                atom("trak", atom("udta", atom("CNTH", atom("CNDA", large))))),
+            atom("mdat", new byte[64]));
+
+        File file = File.createTempFile("metadata-extractor-test-", ".mov");
+        try {
+            FileUtil.saveBytes(file, movie);
+
+            List<EmbeddedPreview> previews = PreviewExtractor.findPreviews(file);
+
+            assertEquals(2, previews.size());
+            assertEquals("Canon Thumbnail", previews.get(0).getDescription());
+            assertArrayEquals(large, write(file, previews.get(0)));
+            assertArrayEquals(small, write(file, previews.get(1)));
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            EmbeddedPreview written = PreviewExtractor.writeLargestPreview(file, Channels.newChannel(stream));
+            assertNotNull(written);
+            assertEquals(previews.get(0).getOffset(), written.getOffset());
+            assertArrayEquals(large, stream.toByteArray());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testLosslessJpegIsNotAPreview() throws Exception
+    {
+        // Start of image, then a lossless start of frame such as RAW formats use for sensor data
+        byte[] lossless = new byte[] { (byte)0xFF, (byte)0xD8, (byte)0xFF, (byte)0xC3, 0, 8, 8, 0, 1, 0, 1, 1 };
+
+        File file = File.createTempFile("metadata-extractor-test-", ".mov");
+        try {
+            FileUtil.saveBytes(file, concat(
+                atom("ftyp", "qt  ".getBytes("ISO-8859-1"), new byte[4]),
+                atom("moov", atom("udta", atom("CNTH", atom("CNDA", lossless))))));
+
+            assertTrue(PreviewExtractor.findPreviews(file).isEmpty());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testFileWithoutPreviews() throws Exception
+    {
+        File file = new File("Tests/Data/noExif.jpg");
+
+        assertTrue(PreviewExtractor.findPreviews(file).isEmpty());
+        assertNull(PreviewExtractor.writeLargestPreview(file, Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    private static byte[] write(File file) throws IOException
+    {
+        return write(file, PreviewExtractor.findPreviews(file).get(0));
+    }
+
+    private static byte[] write(File file, EmbeddedPreview preview) throws IOException
+    {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        PreviewExtractor.writePreview(file, preview, Channels.newChannel(stream));
+        return stream.toByteArray();
+    }
+
+    private static byte[] atom(String type, byte[]... payloads) throws IOException
+    {
+        byte[] payload = concat(payloads);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        int size = payload.length + 8;
+        stream.write(new byte[] { (byte)(size >> 24), (byte)(size >> 16), (byte)(size >> 8), (byte)size });
+        stream.write(type.getBytes("ISO-8859-1"));
+        stream.write(payload);
+        return stream.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... arrays) throws IOException
+    {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (byte[] array : arrays)
+            stream.write(array);
+        return stream.toByteArray();
+    }
+}
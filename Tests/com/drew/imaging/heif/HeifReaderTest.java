@@ -0,0 +1,289 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.imaging.heif;
+
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.heif.HeifBoxHandler;
+import com.drew.metadata.heif.HeifDirectory;
+import com.drew.tools.FileUtil;
+import org.junit.Test;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class HeifReaderTest
+{
+    @Test
+    public void testMetaBeforeMediaDataFromUnmarkableStream() throws Exception
+    {
+        // The common layout can be read in a single pass, without needing to mark the stream
+        Metadata metadata = extract(new UnmarkableInputStream(createHeif(true)));
+
+        assertMake(metadata);
+        assertFalse(metadata.hasErrors());
+    }
+
+    @Test
+    public void testMediaDataBeforeMetaFromMarkableStream() throws Exception
+    {
+        Metadata metadata = extract(new BufferedInputStream(new ByteArrayInputStream(createHeif(false))));
+
+        assertMake(metadata);
+        assertEquals(1, metadata.getDirectoriesOfType(ExifIFD0Directory.class).size());
+    }
+
+    @Test
+    public void testMediaDataBeforeMetaOnlyRetainsBoxesUpToMeta() throws Exception
+    {
+        LimitedMarkInputStream inputStream = new LimitedMarkInputStream(createHeif(false, 0));
+        Metadata metadata = extract(inputStream);
+
+        assertMake(metadata);
+        assertTrue(inputStream.maxReadLimit <= HeifReader.MAX_MARK_LENGTH);
+    }
+
+    @Test
+    public void testMediaDataBeforeMetaExceedingMarkLimit() throws Exception
+    {
+        LimitedMarkInputStream inputStream = new LimitedMarkInputStream(createHeif(false, HeifReader.MAX_MARK_LENGTH));
+        Metadata metadata = extract(inputStream);
+
+        assertTrue(inputStream.maxReadLimit <= HeifReader.MAX_MARK_LENGTH);
+        assertNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertTrue(metadata.getFirstDirectoryOfType(HeifDirectory.class).hasErrors());
+    }
+
+    @Test
+    public void testMediaDataBeforeMetaFromUnmarkableStream() throws Exception
+    {
+        Metadata metadata = extract(new UnmarkableInputStream(createHeif(false)));
+
+        assertNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertTrue(metadata.getFirstDirectoryOfType(HeifDirectory.class).hasErrors());
+    }
+
+    @Test
+    public void testFileChannel() throws Exception
+    {
+        for (boolean metaFirst : new boolean[]{true, false}) {
+            File file = File.createTempFile("metadata-extractor-test-", ".heic");
+            try {
+                FileUtil.saveBytes(file, createHeif(metaFirst));
+                RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                Metadata metadata = new Metadata();
+                try {
+                    new HeifReader().extract(randomAccessFile.getChannel(), new HeifBoxHandler(metadata));
+                } finally {
+                    randomAccessFile.close();
+                }
+
+                assertMake(metadata);
+                assertEquals(1, metadata.getDirectoriesOfType(ExifIFD0Directory.class).size());
+            } finally {
+                assertTrue(file.delete());
+            }
+        }
+    }
+
+    private static Metadata extract(InputStream inputStream)
+    {
+        Metadata metadata = new Metadata();
+        new HeifReader().extract(inputStream, new HeifBoxHandler(metadata));
+        return metadata;
+    }
+
+    private static void assertMake(Metadata metadata)
+    {
+        ExifIFD0Directory directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(directory);
+        assertEquals("Abc", directory.getString(ExifIFD0Directory.TAG_MAKE));
+    }
+
+    /**
+     * Builds a minimal HEIF file with a single Exif item holding the Make tag.
+     */
+    private static byte[] createHeif(boolean metaFirst) throws IOException
+    {
+        return createHeif(metaFirst, 0);
+    }
+
+    /**
+     * Builds a minimal HEIF file with a single Exif item holding the Make tag, followed in the media data box by
+     * <code>paddingLength</code> bytes.
+     */
+    private static byte[] createHeif(boolean metaFirst, int paddingLength) throws IOException
+    {
+        ByteArrayOutputStream exif = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(exif);
+        out.writeInt(0);                                    // offset to Tiff header
+        out.writeBytes("MM");
+        out.writeShort(0x2A);
+        out.writeInt(8);                                    // offset to IFD0
+        out.writeShort(1);                                  // entry count
+        out.writeShort(ExifIFD0Directory.TAG_MAKE);
+        out.writeShort(2);                                  // ASCII
+        out.writeInt(4);
+        out.writeBytes("Abc\0");
+        out.writeInt(0);                                    // no next IFD
+
+        byte[] fileType = box("ftyp", bytes("heic", new byte[4], "mif1", "heic"));
+        byte[] mediaData = box("mdat", bytes(exif.toByteArray(), new byte[paddingLength]));
+
+        int metaLength = meta(0).length;
+        int exifOffset = fileType.length + (metaFirst ? metaLength : 0) + 8;
+        byte[] meta = meta(exifOffset);
+
+        return metaFirst
+            ? bytes(fileType, meta, mediaData)
+            : bytes(fileType, mediaData, meta);
+    }
+
+    private static byte[] meta(int exifOffset) throws IOException
+    {
+        byte[] handler = box("hdlr", bytes(new byte[4], new byte[4], "pict", new byte[12], new byte[1]));
+
+        ByteArrayOutputStream infe = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(infe);
+        out.writeInt(0x02000000);                           // version 2, no flags
+        out.writeShort(1);                                  // item ID
+        out.writeShort(0);                                  // protection index
+        out.writeBytes("Exif");
+        out.writeByte(0);                                   // empty item name
+        byte[] itemInfo = box("iinf", bytes(new byte[4], new byte[]{0, 1}, box("infe", infe.toByteArray())));
+
+        ByteArrayOutputStream iloc = new ByteArrayOutputStream();
+        out = new DataOutputStream(iloc);
+        out.writeInt(0);                                    // version 0, no flags
+        out.writeByte(0x44);                                // offset and length sizes
+        out.writeByte(0);                                   // base offset size
+        out.writeShort(1);                                  // item count
+        out.writeShort(1);                                  // item ID
+        out.writeShort(0);                                  // data reference index
+        out.writeShort(1);                                  // extent count
+        out.writeInt(exifOffset);
+        out.writeInt(30);                                   // extent length
+        byte[] itemLocation = box("iloc", iloc.toByteArray());
+
+        return box("meta", bytes(new byte[4], handler, itemInfo, itemLocation));
+    }
+
+    private static byte[] box(String type, byte[] payload) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(payload.length + 8);
+        out.writeBytes(type);
+        out.write(payload);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] bytes(Object... parts) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Object part : parts) {
+            if (part instanceof String)
+                bytes.write(((String)part).getBytes("US-ASCII"));
+            else
+                bytes.write((byte[])part);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class UnmarkableInputStream extends ByteArrayInputStream
+    {
+        UnmarkableInputStream(byte[] bytes)
+        {
+            super(bytes);
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Fails to reset when more bytes have been read since the mark than were asked for, as a buffered stream may.
+     */
+    private static class LimitedMarkInputStream extends FilterInputStream
+    {
+        int maxReadLimit;
+        private int _position;
+        private int _markPosition;
+        private int _readLimit;
+
+        LimitedMarkInputStream(byte[] bytes)
+        {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int b = super.read();
+            if (b != -1)
+                _position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            int bytesRead = super.read(b, off, len);
+            if (bytesRead > 0)
+                _position += bytesRead;
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = super.skip(n);
+            _position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit)
+        {
+            super.mark(readLimit);
+            _markPosition = _position;
+            _readLimit = readLimit;
+            maxReadLimit = Math.max(maxReadLimit, readLimit);
+        }
+
+        @Override
+        public synchronized void reset() throws IOException
+        {
+            if (_position - _markPosition > _readLimit)
+                throw new IOException("Resetting to invalid mark");
+            super.reset();
+            _position = _markPosition;
+        }
+    }
+}
@@ -20,20 +20,31 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.SequentialByteArrayReader;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.jpeg.HuffmanTablesDirectory;
 import com.drew.metadata.jpeg.HuffmanTablesDirectory.HuffmanTable;
+import com.drew.metadata.jpeg.JpegCommentReader;
+import com.drew.metadata.xmp.XmpReader;
+import com.drew.tools.FileUtil;
 import com.drew.metadata.xmp.XmpDirectory;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -85,6 +96,74 @@ public class JpegMetadataReaderTest
         }
     }
 
+    @Test
+    public void testCompiledPlanGivesSameResults() throws Exception
+    {
+        JpegReaderPlan plan = JpegMetadataReader.compile(JpegMetadataReader.ALL_READERS);
+
+        assertSame(plan, JpegMetadataReader.compile(null));
+        assertSame(plan, JpegMetadataReader.compile(plan));
+
+        for (String path : new String[]{"Tests/Data/withExif.jpg", "Tests/Data/withIptcExifGps.jpg", "Tests/Data/withXmp.jpg"}) {
+            File file = new File(path);
+            assertEquals(path, describe(JpegMetadataReader.readMetadata(file)), describe(JpegMetadataReader.readMetadata(file, plan)));
+        }
+    }
+
+    @Test
+    public void testCompiledPlanRequiresOnlyReadersSegmentTypes() throws Exception
+    {
+        JpegReaderPlan plan = JpegMetadataReader.compile(Arrays.asList(new ExifReader(), new JpegCommentReader()));
+
+        assertTrue(plan.isRequired(JpegSegmentType.APP1.byteValue));
+        assertTrue(plan.isRequired(JpegSegmentType.COM.byteValue));
+        assertFalse(plan.isRequired(JpegSegmentType.APP0.byteValue));
+        assertFalse(plan.isRequired(JpegSegmentType.DHT.byteValue));
+
+        Metadata metadata = JpegMetadataReader.readMetadata(new File("Tests/Data/withExif.jpg"), plan);
+        assertNotNull(metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class));
+        assertEquals(null, metadata.getFirstDirectoryOfType(HuffmanTablesDirectory.class));
+    }
+
+    @Test
+    public void testBoundedPlanStopsOnceReadersHaveTheirSegments() throws Exception
+    {
+        // An XMP APP1 segment before the Exif APP1 segment of another file
+        byte[] xmp = "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta xmlns:x='adobe:ns:meta/'/>".getBytes("UTF-8");
+        byte[] original = FileUtil.readBytes("Tests/Data/withExif.jpg");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(original, 0, 2);
+        bytes.write(new byte[]{(byte)0xFF, (byte)0xE1, (byte)((xmp.length + 2) >> 8), (byte)(xmp.length + 2)});
+        bytes.write(xmp);
+        bytes.write(original, 2, original.length - 2);
+        byte[] jpeg = bytes.toByteArray();
+
+        // The XMP segment is read, as it is APP1, but doesn't satisfy the Exif reader
+        JpegReaderPlan plan = JpegMetadataReader.compile(Arrays.<JpegSegmentMetadataReader>asList(new ExifReader()));
+        JpegSegmentData segmentData = plan.readSegments(new SequentialByteArrayReader(jpeg));
+        assertEquals(2, segmentData.getSegmentCount(JpegSegmentType.APP1));
+        assertTrue(segmentData.getStopPosition() < jpeg.length / 2);
+
+        Metadata metadata = new Metadata();
+        plan.processSegments(metadata, segmentData);
+        assertNotNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+
+        // Any reader which uses all segments of its types means reading continues to the image data
+        plan = JpegMetadataReader.compile(Arrays.<JpegSegmentMetadataReader>asList(new ExifReader(), new XmpReader()));
+        long fullStopPosition = plan.readSegments(new SequentialByteArrayReader(jpeg)).getStopPosition();
+        assertTrue(segmentData.getStopPosition() < fullStopPosition);
+    }
+
+    private static List<String> describe(Metadata metadata)
+    {
+        List<String> lines = new ArrayList<String>();
+        for (Directory directory : metadata.getDirectories()) {
+            lines.add(directory.getName());
+            lines.add(directory.getTags().toString());
+        }
+        return lines;
+    }
+
     private void validate(Metadata metadata)
     {
         Directory directory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
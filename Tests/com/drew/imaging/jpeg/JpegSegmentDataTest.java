@@ -22,6 +22,8 @@ package com.drew.imaging.jpeg;
 
 import org.junit.Test;
 
+import java.util.Iterator;
+
 import static org.junit.Assert.*;
 
 /**
@@ -136,4 +138,22 @@ public class JpegSegmentDataTest
         assertTrue(!segmentData.containsSegment(segmentMarker));
         assertEquals(0, segmentData.getSegmentCount(segmentMarker));
     }
+
+    @Test
+    public void testSegmentSlices() throws Exception
+    {
+        JpegSegmentData segmentData = new JpegSegmentData();
+        byte[] buffer = new byte[] { 1, 2, 3, 4, 5, 6 };
+
+        segmentData.addSegment(JpegSegmentType.APP3.byteValue, new JpegSegment(buffer, 1, 2));
+        segmentData.addSegment(JpegSegmentType.APP3.byteValue, new JpegSegment(buffer, 3, 3));
+
+        Iterator<JpegSegment> slices = segmentData.getSegmentSlices(JpegSegmentType.APP3).iterator();
+        assertSame(buffer, slices.next().getBuffer());
+        assertSame(buffer, slices.next().getBuffer());
+        assertFalse(slices.hasNext());
+
+        assertArrayEquals(new byte[] { 2, 3 }, segmentData.getSegment(JpegSegmentType.APP3, 0));
+        assertArrayEquals(new byte[] { 4, 5, 6 }, segmentData.getSegment(JpegSegmentType.APP3, 1));
+    }
 }
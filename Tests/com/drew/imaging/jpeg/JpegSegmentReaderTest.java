@@ -20,12 +20,16 @@
  */
 package com.drew.imaging.jpeg;
 
+import com.drew.lang.StreamReader;
 import com.drew.tools.FileUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -129,6 +133,55 @@ public class JpegSegmentReaderTest
                 segmentData.getSegment(JpegSegmentType.APP2));
     }
 
+    @Test
+    public void testReadRequiredSegmentsStopsOnceSatisfied() throws Exception
+    {
+        Map<JpegSegmentType, Integer> maxOccurrences = new HashMap<JpegSegmentType, Integer>();
+        maxOccurrences.put(JpegSegmentType.APP0, 1);
+        maxOccurrences.put(JpegSegmentType.APP1, 1);
+
+        JpegSegmentData segmentData = JpegSegmentReader.readRequiredSegments(new File("Tests/Data/withExifAndIptc.jpg"), maxOccurrences);
+
+        assertEquals(1, segmentData.getSegmentCount(JpegSegmentType.APP0));
+        assertEquals(1, segmentData.getSegmentCount(JpegSegmentType.APP1));
+        assertEquals(0, segmentData.getSegmentCount(JpegSegmentType.APP2));
+
+        assertArrayEquals(
+                FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.0"),
+                segmentData.getSegment(JpegSegmentType.APP1));
+
+        // Reading stopped immediately after the first APP1 segment, well before the image data
+        byte[] fileBytes = FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg");
+        StreamReader reader = new StreamReader(new ByteArrayInputStream(fileBytes));
+        segmentData = JpegSegmentReader.readRequiredSegments(reader, maxOccurrences);
+        assertEquals(reader.getPosition(), segmentData.getStopPosition());
+        assertTrue(segmentData.getStopPosition() < fileBytes.length);
+        assertEquals((byte)0xFF, fileBytes[(int)segmentData.getStopPosition()]);
+    }
+
+    @Test
+    public void testShortSegmentsShareBuffer() throws Exception
+    {
+        JpegSegmentData segmentData = JpegSegmentReader.readSegments(new File("Tests/Data/withExifAndIptc.jpg"), null);
+
+        // The APP0 segment is immediately followed by the first APP1 segment
+        JpegSegment app0 = segmentData.getSegmentSlices(JpegSegmentType.APP0).iterator().next();
+        JpegSegment app1 = segmentData.getSegmentSlices(JpegSegmentType.APP1).iterator().next();
+
+        assertSame(app0.getBuffer(), app1.getBuffer());
+        assertEquals(app0.getOffset() + app0.getLength(), app1.getOffset());
+        assertArrayEquals(FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app1.0"), app1.toByteArray());
+    }
+
+    @Test
+    public void testReadSegmentsReportsStopPosition() throws Exception
+    {
+        JpegSegmentData segmentData = JpegSegmentReader.readSegments(new File("Tests/Data/withExifAndIptc.jpg"), Collections.singletonList(JpegSegmentType.APP1));
+
+        assertEquals(2, segmentData.getSegmentCount(JpegSegmentType.APP1));
+        assertTrue(segmentData.getStopPosition() > 0);
+    }
+
     @Test
     public void testReadDhtSegment() throws Exception
     {
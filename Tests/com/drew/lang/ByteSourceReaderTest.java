@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class ByteSourceReaderTest extends RandomAccessTestBase
+{
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            return new ByteSourceReader(CountingByteSource.forBytes(bytes), 4, 4, 0);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] createBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte)i;
+        return bytes;
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullSourceThrows() throws Exception
+    {
+        new ByteSourceReader(null);
+    }
+
+    @Test
+    public void testPrefetchesStart() throws Exception
+    {
+        CountingByteSource source = CountingByteSource.forBytes(createBytes(1000));
+        ByteSourceReader reader = new ByteSourceReader(source, 10, 20, 50);
+
+        assertEquals(0, source.getReadCount());
+
+        // The first read fetches the whole prefetch region, which serves later reads within it
+        assertEquals(0x0001, reader.getUInt16(0));
+        assertEquals(1, source.getReadCount());
+        assertEquals(50, source.getBytesRead());
+
+        assertArrayEquals(new byte[]{5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20}, reader.getBytes(5, 16));
+        assertEquals(49, reader.getInt8(49));
+        assertEquals(1, source.getReadCount());
+
+        // A read beyond the region fetches just the pages it spans
+        assertEquals((byte)95, reader.getInt8(95));
+        assertEquals(2, source.getReadCount());
+        assertEquals(60, source.getBytesRead());
+    }
+
+    @Test
+    public void testCoalescesPagesOfOneRead() throws Exception
+    {
+        CountingByteSource source = CountingByteSource.forBytes(createBytes(1000));
+        ByteSourceReader reader = new ByteSourceReader(source, 10, 20, 0);
+
+        // Retain a page in the middle of the range read next
+        reader.getInt8(125);
+        assertEquals(1, source.getReadCount());
+
+        // Pages 100-109 through 150-159 are fetched in one request, rather than either side of the retained page
+        byte[] bytes = reader.getBytes(105, 50);
+        assertEquals(2, source.getReadCount());
+        assertEquals(70, source.getBytesRead());
+        assertEquals((byte)105, bytes[0]);
+        assertEquals((byte)154, bytes[49]);
+
+        // Reads spanning more pages than are retained go directly to the source
+        reader.getBytes(300, 200);
+        assertEquals(3, source.getReadCount());
+        assertEquals(270, source.getBytesRead());
+    }
+
+    @Test
+    public void testFinalPartialPage() throws Exception
+    {
+        CountingByteSource source = CountingByteSource.forBytes(createBytes(25));
+        ByteSourceReader reader = new ByteSourceReader(source, 10, 4, 100);
+
+        // The final page holds five bytes, and lies beyond the prefetch region as limited by the retained pages
+        assertEquals(24, reader.getInt8(24));
+        assertEquals(1, source.getReadCount());
+        assertEquals(5, source.getBytesRead());
+
+        // The first read within the prefetch region fetches all of it
+        assertArrayEquals(new byte[]{18, 19, 20, 21, 22, 23, 24}, reader.getBytes(18, 7));
+        assertEquals(4, reader.getInt8(4));
+        assertEquals(2, source.getReadCount());
+        assertEquals(25, source.getBytesRead());
+    }
+
+    @Test
+    public void testInputStreamSkipsWithoutFetching() throws Exception
+    {
+        CountingByteSource source = CountingByteSource.forBytes(createBytes(1000));
+        InputStream stream = new ByteSourceInputStream(new ByteSourceReader(source, 10, 20, 0));
+
+        assertEquals(0, stream.read());
+        assertEquals(500, stream.skip(500));
+        stream.mark(0);
+        assertEquals(501 & 0xFF, stream.read());
+        assertEquals(2, source.getReadCount());
+
+        stream.reset();
+        byte[] buffer = new byte[600];
+        assertEquals(499, stream.read(buffer, 0, buffer.length));
+        assertEquals((byte)501, buffer[0]);
+        assertEquals((byte)999, buffer[498]);
+        assertEquals(-1, stream.read());
+        assertEquals(0, stream.skip(20));
+    }
+}
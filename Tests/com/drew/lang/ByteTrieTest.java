@@ -72,4 +72,23 @@ public class ByteTrieTest
         } catch (IllegalArgumentException ignored) {
         }
     }
+
+    @Test
+    public void testManyChildren()
+    {
+        ByteTrie<Integer> trie = new ByteTrie<Integer>();
+
+        // Enough children of a single node that it indexes them by byte value
+        for (int i = 0; i < 256; i += 3)
+            trie.addPath(i, new byte[]{(byte)i}, new byte[]{(byte)i});
+
+        for (int i = 0; i < 256; i++) {
+            byte[] path = new byte[]{(byte)i, (byte)i};
+            if (i % 3 == 0)
+                assertEquals(Integer.valueOf(i), trie.find(path));
+            else
+                assertNull(trie.find(path));
+            assertNull(trie.find(new byte[]{(byte)i}));
+        }
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.lang.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A {@link ByteSource} used in unit testing, standing in for remote storage by counting the requests made of
+ * another source and the bytes they fetched.
+ *
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class CountingByteSource implements ByteSource
+{
+    @NotNull
+    private final ByteSource _source;
+    private int _readCount;
+    private long _bytesRead;
+
+    public CountingByteSource(@NotNull ByteSource source)
+    {
+        _source = source;
+    }
+
+    /** Creates a counting source over an in-memory array. */
+    @NotNull
+    public static CountingByteSource forBytes(@NotNull final byte[] bytes)
+    {
+        return new CountingByteSource(new ByteSource()
+        {
+            public long getLength()
+            {
+                return bytes.length;
+            }
+
+            public void read(long position, @NotNull byte[] buffer, int offset, int count) throws IOException
+            {
+                if (position < 0 || position + count > bytes.length)
+                    throw new EOFException("End of data reached.");
+                System.arraycopy(bytes, (int)position, buffer, offset, count);
+            }
+        });
+    }
+
+    public long getLength() throws IOException
+    {
+        return _source.getLength();
+    }
+
+    public void read(long position, @NotNull byte[] buffer, int offset, int count) throws IOException
+    {
+        _readCount++;
+        _bytesRead += count;
+        _source.read(position, buffer, offset, count);
+    }
+
+    /** Gets the number of ranged reads made of the source. */
+    public int getReadCount()
+    {
+        return _readCount;
+    }
+
+    /** Gets the total number of bytes fetched by all reads. */
+    public long getBytesRead()
+    {
+        return _bytesRead;
+    }
+}
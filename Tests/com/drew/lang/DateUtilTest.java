@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class DateUtilTest
+{
+    private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+    private static long getMillis(TimeZone timeZone, int year, int month, int day, int hour, int minute, int second, int millisecond)
+    {
+        GregorianCalendar calendar = new GregorianCalendar(timeZone);
+        calendar.setTimeInMillis(0);
+        calendar.set(year, month, day, hour, minute, second);
+        calendar.set(Calendar.MILLISECOND, millisecond);
+        return calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void testParseDateForms()
+    {
+        long expected = getMillis(GMT, 2002, Calendar.JANUARY, 30, 23, 59, 59, 0);
+        assertEquals(expected, DateUtil.parseDate("2002:01:30 23:59:59", null, null).getTime());
+        assertEquals(expected, DateUtil.parseDate("2002-01-30 23:59:59", null, null).getTime());
+        assertEquals(expected, DateUtil.parseDate("2002.01.30 23:59:59", null, null).getTime());
+        assertEquals(expected, DateUtil.parseDate("2002-01-30T23:59:59", null, null).getTime());
+        assertEquals(expected, DateUtil.parseDate("2002-01-30T23:59:59Z", null, null).getTime());
+
+        expected = getMillis(GMT, 2002, Calendar.JANUARY, 30, 23, 59, 0, 0);
+        assertEquals(expected, DateUtil.parseDate("2002:01:30 23:59", null, null).getTime());
+        assertEquals(expected, DateUtil.parseDate("2002-01-30T23:59", null, null).getTime());
+
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 30, 0, 0, 0, 0), DateUtil.parseDate("2002-01-30", null, null).getTime());
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 30, 0, 0, 0, 0), DateUtil.parseDate("20020130", null, null).getTime());
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 1, 0, 0, 0, 0), DateUtil.parseDate("2002-01", null, null).getTime());
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 1, 0, 0, 0, 0), DateUtil.parseDate("2002", null, null).getTime());
+    }
+
+    @Test
+    public void testParseDateWithSubsecondsAndZones()
+    {
+        TimeZone pst = TimeZone.getTimeZone("GMT-08:00");
+
+        assertEquals(getMillis(pst, 2002, Calendar.JANUARY, 30, 23, 59, 59, 99), DateUtil.parseDate("2002-01-30T23:59:59.099-08:00", null, null).getTime());
+        assertEquals(getMillis(pst, 2002, Calendar.JANUARY, 30, 23, 59, 0, 0), DateUtil.parseDate("2002-01-30T23:59-0800", null, GMT).getTime());
+
+        // Subseconds within the string supersede the parameter
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 30, 23, 59, 59, 500), DateUtil.parseDate("2002:01:30 23:59:59.5", "123", null).getTime());
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 30, 23, 59, 59, 123), DateUtil.parseDate("2002:01:30 23:59:59", "1234", null).getTime());
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 30, 23, 59, 59, 0), DateUtil.parseDate("2002:01:30 23:59:59", "abc", null).getTime());
+
+        // A time zone parameter applies its daylight saving rules
+        TimeZone london = TimeZone.getTimeZone("Europe/London");
+        assertEquals(getMillis(london, 2016, Calendar.JULY, 1, 12, 0, 0, 0), DateUtil.parseDate("2016:07:01 12:00:00", null, london).getTime());
+    }
+
+    @Test
+    public void testParseDateUnusualValues()
+    {
+        // The Exif 'unknown' date
+        assertNull(DateUtil.parseDate("    :  :     :  :  ", null, null));
+        assertNull(DateUtil.parseDate("", null, null));
+        assertNull(DateUtil.parseDate("abc", null, null));
+
+        // Only the year is understood when the date uses colons without a time, as before
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 1, 0, 0, 0, 0), DateUtil.parseDate("2002:01:30", null, null).getTime());
+
+        // Out-of-range values roll over
+        assertEquals(getMillis(GMT, 2003, Calendar.JANUARY, 1, 0, 0, 0, 0), DateUtil.parseDate("2002:12:32 00:00:00", null, null).getTime());
+
+        // Trailing content is ignored
+        assertEquals(getMillis(GMT, 2002, Calendar.JANUARY, 30, 23, 59, 59, 0), DateUtil.parseDate("2002:01:30 23:59:59 ", null, null).getTime());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.tools.FileUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class FileChannelReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            return new FileChannelReader(createTempFile(bytes).getChannel());
+        } catch (IOException e) {
+            fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    private RandomAccessFile createTempFile(byte[] bytes) throws IOException
+    {
+        // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+        deleteTempFile();
+
+        _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+        FileUtil.saveBytes(_tempFile, bytes);
+        _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+        return _randomAccessFile;
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        if (_tempFile == null)
+            return;
+
+        assertTrue(
+                "Unable to delete temp file used during unit test: " + _tempFile.getAbsolutePath(),
+                _tempFile.delete());
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullBufferThrows() throws IOException
+    {
+        new FileChannelReader(null);
+    }
+
+    @Test
+    public void testReadsSpanningPages() throws Exception
+    {
+        byte[] bytes = new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09};
+        FileChannelReader reader = new FileChannelReader(createTempFile(bytes).getChannel(), 3, 2);
+
+        assertEquals(10, reader.getLength());
+        assertEquals(0x0203, reader.getUInt16(2));
+        assertEquals(0x09, reader.getInt8(9));
+        assertArrayEquals(new byte[]{0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08}, reader.getBytes(1, 8));
+        assertEquals(0x00010203, reader.getInt32(0));
+    }
+
+    @Test
+    public void testConcurrentReadersShareChannel() throws Exception
+    {
+        final byte[] bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)i;
+
+        final RandomAccessFile file = createTempFile(bytes);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int t = 0; t < 4; t++) {
+                final int seed = t;
+                results.add(executor.submit(new Callable<Boolean>()
+                {
+                    public Boolean call() throws Exception
+                    {
+                        FileChannelReader reader = new FileChannelReader(file.getChannel(), 64, 4);
+                        for (int i = 0; i < 5000; i++) {
+                            int index = (i * 7919 + seed * 31) % bytes.length;
+                            if (reader.getByte(index) != bytes[index])
+                                return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results)
+                assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.tools.FileUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class FileChannelSequentialReaderTest extends SequentialAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected SequentialReader createReader(byte[] bytes)
+    {
+        try {
+            // Use a tiny buffer so that reads span buffer boundaries
+            return new FileChannelSequentialReader(createTempFile(bytes).getChannel(), 0, 3);
+        } catch (IOException e) {
+            fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    private RandomAccessFile createTempFile(byte[] bytes) throws IOException
+    {
+        // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+        deleteTempFile();
+
+        _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+        FileUtil.saveBytes(_tempFile, bytes);
+        _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+        return _randomAccessFile;
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        if (_tempFile == null)
+            return;
+
+        assertTrue(
+                "Unable to delete temp file used during unit test: " + _tempFile.getAbsolutePath(),
+                _tempFile.delete());
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @Test
+    public void testSkipAndReadAcrossBuffers() throws IOException
+    {
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)i;
+
+        SequentialReader reader = createReader(bytes);
+
+        assertEquals(0, reader.getByte());
+        reader.skip(50);
+        assertEquals(51, reader.getPosition());
+        assertEquals(51, reader.getByte());
+        assertArrayEquals(new byte[]{52, 53, 54, 55, 56, 57, 58, 59}, reader.getBytes(8));
+        assertEquals(60, reader.getPosition());
+        assertEquals(40, reader.available());
+
+        assertFalse(reader.trySkip(41));
+        assertEquals(100, reader.getPosition());
+        assertEquals(0, reader.available());
+
+        try {
+            reader.getByte();
+            fail("Exception expected");
+        } catch (EOFException e) {
+            assertEquals("End of data reached.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStartPosition() throws IOException
+    {
+        RandomAccessFile file = createTempFile(new byte[]{1, 2, 3, 4, 5});
+
+        SequentialReader reader = new FileChannelSequentialReader(file.getChannel(), 2);
+
+        assertEquals(2, reader.getPosition());
+        assertEquals(3, reader.getByte());
+    }
+}
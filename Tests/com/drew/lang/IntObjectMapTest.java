@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class IntObjectMapTest
+{
+    @Test
+    public void testPutAndGet()
+    {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertFalse(map.containsKey(1));
+
+        assertNull(map.put(1, "One"));
+        assertNull(map.put(-5, "Minus Five"));
+        assertNull(map.put(0, "Zero"));
+
+        assertEquals(3, map.size());
+        assertEquals("One", map.get(1));
+        assertEquals("Minus Five", map.get(-5));
+        assertEquals("Zero", map.get(0));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    public void testReplacingValueRetainsOrder()
+    {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        map.put(3, "A");
+        map.put(1, "B");
+        map.put(2, "C");
+
+        assertEquals("B", map.put(1, "D"));
+
+        assertEquals(3, map.size());
+        assertEquals(3, map.keyAt(0));
+        assertEquals(1, map.keyAt(1));
+        assertEquals(2, map.keyAt(2));
+        assertEquals("D", map.valueAt(1));
+    }
+
+    @Test
+    public void testGrowthPreservesEntriesAndOrder()
+    {
+        IntObjectMap<Integer> map = new IntObjectMap<Integer>(1);
+
+        for (int i = 0; i < 1000; i++)
+            map.put(i * 0x10000, i);
+
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 0x10000, map.keyAt(i));
+            assertEquals(Integer.valueOf(i), map.get(i * 0x10000));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testKeyAtOutOfRangeThrows()
+    {
+        IntObjectMap<String> map = new IntObjectMap<String>();
+        map.put(1, "One");
+        map.keyAt(1);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.lang;
+
+import com.drew.tools.FileUtil;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MappedFileReaderTest extends RandomAccessTestBase
+{
+    private File _tempFile;
+    private RandomAccessFile _randomAccessFile;
+
+    @Override
+    protected RandomAccessReader createReader(byte[] bytes)
+    {
+        try {
+            return new MappedFileReader(createTempFile(bytes).getChannel());
+        } catch (IOException e) {
+            fail("Unable to create temp file");
+            return null;
+        }
+    }
+
+    private RandomAccessFile createTempFile(byte[] bytes) throws IOException
+    {
+        // Unit tests can create multiple readers in the same test, as long as they're used one after the other
+        deleteTempFile();
+
+        _tempFile = File.createTempFile("metadata-extractor-test-", ".tmp");
+        FileUtil.saveBytes(_tempFile, bytes);
+        _randomAccessFile = new RandomAccessFile(_tempFile, "r");
+        return _randomAccessFile;
+    }
+
+    @After
+    public void deleteTempFile() throws IOException
+    {
+        if (_randomAccessFile == null)
+            return;
+
+        _randomAccessFile.close();
+
+        if (_tempFile == null)
+            return;
+
+        // Windows refuses to delete a file while it is mapped, and mappings are only released once garbage
+        // collected, so deletion may need to wait until the JVM exits
+        if (!_tempFile.delete())
+            _tempFile.deleteOnExit();
+
+        _tempFile = null;
+        _randomAccessFile = null;
+    }
+
+    @SuppressWarnings({ "ConstantConditions" })
+    @Test(expected = NullPointerException.class)
+    public void testConstructWithNullBufferThrows() throws IOException
+    {
+        new MappedFileReader(null);
+    }
+
+    @Test
+    public void testReadsSpanningWindows() throws Exception
+    {
+        byte[] bytes = new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09};
+        MappedFileReader reader = new MappedFileReader(createTempFile(bytes).getChannel(), 0, 3);
+
+        assertEquals(10, reader.getLength());
+        assertEquals(0x0203, reader.getUInt16(2));
+        assertEquals(0x09, reader.getInt8(9));
+        assertArrayEquals(new byte[]{0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08}, reader.getBytes(1, 8));
+    }
+
+    @Test
+    public void testGetByteOutOfBoundsThrowsBufferBoundsException() throws Exception
+    {
+        MappedFileReader reader = new MappedFileReader(createTempFile(new byte[100]).getChannel());
+
+        for (int index : new int[]{ 100, 150, -1 }) {
+            try {
+                reader.getByte(index);
+                fail("Exception expected");
+            } catch (BufferBoundsException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testStartPosition() throws Exception
+    {
+        byte[] bytes = new byte[]{0x00, 0x01, 0x02, 0x03, 0x04, 0x05};
+        MappedFileReader reader = new MappedFileReader(createTempFile(bytes).getChannel(), 4, 1);
+
+        assertEquals(2, reader.getLength());
+        assertEquals(0x0405, reader.getUInt16(0));
+        assertArrayEquals(new byte[]{0x04, 0x05}, reader.getBytes(0, 2));
+    }
+}
@@ -24,6 +24,14 @@ package com.drew.lang;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Drew Noakes https://drewnoakes.com
@@ -37,9 +45,60 @@ public class RandomAccessStreamReaderTest extends RandomAccessTestBase
         new RandomAccessStreamReader(null);
     }
 
+    @Test
+    public void testHasLengthOnlyReadsRequiredChunks() throws Exception
+    {
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(new byte[1000]), 100);
+
+        assertTrue(reader.hasLength(0));
+        assertEquals(0, reader.getBytesConsumed());
+
+        assertTrue(reader.hasLength(150));
+        assertEquals(200, reader.getBytesConsumed());
+
+        assertTrue(reader.hasLength(1000));
+        assertEquals(1000, reader.getBytesConsumed());
+
+        assertFalse(reader.hasLength(1001));
+        assertEquals(1000, reader.getLength());
+    }
+
+    @Test
+    public void testHasLengthWithKnownStreamLength() throws Exception
+    {
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(new byte[1000]), 100, 1000);
+
+        assertTrue(reader.hasLength(1000));
+        assertFalse(reader.hasLength(1001));
+        assertEquals(0, reader.getBytesConsumed());
+    }
+
     @Override
     protected RandomAccessReader createReader(byte[] bytes)
     {
         return new RandomAccessStreamReader(new ByteArrayInputStream(bytes));
     }
+
+    @Test
+    public void testRecycleChunks() throws Exception
+    {
+        List<byte[]> spareChunks = new ArrayList<byte[]>();
+
+        RandomAccessStreamReader reader = new RandomAccessStreamReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}), 4, -1, spareChunks);
+        assertEquals(5, reader.getLength());
+        reader.recycleChunks();
+        assertEquals(2, spareChunks.size());
+        byte[] chunk = spareChunks.get(1);
+
+        // A shorter stream reuses a chunk, and doesn't see bytes left over from the previous stream
+        reader = new RandomAccessStreamReader(new ByteArrayInputStream(new byte[]{9, 8}), 4, -1, spareChunks);
+        assertArrayEquals(new byte[]{9, 8}, reader.getBytes(0, 2));
+        assertEquals(2, reader.getLength());
+        assertFalse(reader.isValidIndex(2, 1));
+        assertEquals(1, spareChunks.size());
+
+        reader.recycleChunks();
+        assertEquals(2, spareChunks.size());
+        assertSame(chunk, spareChunks.get(1));
+    }
 }
@@ -27,7 +27,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Calendar;
+import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.Iterator;
 import java.util.TimeZone;
 
 import static org.junit.Assert.*;
@@ -246,4 +248,93 @@ public class DirectoryTest
         directory.setString(2, "Tag 2");
         assertEquals("Exif IFD0 Directory (2 tags)", directory.toString());
     }
+
+    @Test public void testGetTagsInInsertionOrder() throws Exception
+    {
+        _directory.setInt(3, 3);
+        _directory.setInt(1, 1);
+        _directory.setInt(2, 2);
+        _directory.setInt(1, 10);
+
+        assertEquals(3, _directory.getTagCount());
+        assertEquals(3, _directory.getTags().size());
+
+        Iterator<Tag> tags = _directory.getTags().iterator();
+        assertEquals(3, tags.next().getTagType());
+        assertEquals(1, tags.next().getTagType());
+        assertEquals(2, tags.next().getTagType());
+        assertFalse(tags.hasNext());
+
+        assertEquals(10, _directory.getInt(1));
+    }
+
+    @Test public void testSubclassViewsOfTagValues() throws Exception
+    {
+        _directory.setInt(3, 3);
+        _directory.setInt(1, 1);
+        _directory._tagMap.put(2, "Two");
+
+        assertEquals("Two", _directory.getString(2));
+        assertEquals(1, _directory._tagMap.get(1));
+        assertTrue(_directory._tagMap.containsKey(3));
+        assertFalse(_directory._tagMap.containsKey(4));
+        assertArrayEquals(new Integer[] { 3, 1, 2 }, _directory._tagMap.keySet().toArray(new Integer[0]));
+
+        assertEquals(3, _directory._definedTagList.size());
+        assertEquals(3, _directory._definedTagList.iterator().next().getTagType());
+    }
+
+    @Test public void testDescriptionCaching() throws Exception
+    {
+        final int[] describeCount = new int[1];
+        _directory.setDescriptor(new TagDescriptor<Directory>(_directory)
+        {
+            @Override
+            public String getDescription(int tagType)
+            {
+                describeCount[0]++;
+                return super.getDescription(tagType);
+            }
+        });
+
+        _directory.setInt(1, 1);
+        assertFalse(_directory.isDescriptionCaching());
+        assertEquals("1", _directory.getDescription(1));
+        assertEquals("1", _directory.getDescription(1));
+        assertEquals(2, describeCount[0]);
+
+        _directory.setDescriptionCaching(true);
+        assertTrue(_directory.isDescriptionCaching());
+        assertEquals("1", _directory.getDescription(1));
+        assertEquals("1", _directory.getDescription(1));
+        assertNull(_directory.getDescription(2));
+        assertNull(_directory.getDescription(2));
+        assertEquals(4, describeCount[0]);
+
+        // Setting any tag discards cached descriptions
+        _directory.setInt(1, 2);
+        assertEquals("2", _directory.getDescription(1));
+        assertEquals("2", _directory.getDescription(1));
+        assertEquals(5, describeCount[0]);
+
+        _directory.setDescriptionCaching(false);
+        assertEquals("2", _directory.getDescription(1));
+        assertEquals(6, describeCount[0]);
+    }
+
+    @Test public void testDateDescriptionIncludesOffset() throws Exception
+    {
+        TimeZone timeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT+10:30"));
+            _directory.setDescriptor(new TagDescriptor<Directory>(_directory));
+            _directory.setDate(1, new Date(0));
+            assertEquals("Thu Jan 01 10:30:00 +10:30 1970", _directory.getDescription(1));
+
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT"));
+            assertEquals("Thu Jan 01 00:00:00 +00:00 1970", _directory.getDescription(1));
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
 }
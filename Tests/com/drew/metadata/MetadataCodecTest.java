@@ -0,0 +1,320 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.lang.Rational;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.jpeg.HuffmanTablesDirectory;
+import com.drew.metadata.png.PngDirectory;
+import com.drew.metadata.xmp.XmpDirectory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataCodecTest
+{
+    @Test
+    public void testRoundTripOfSampleFiles() throws Exception
+    {
+        int fileCount = 0;
+        for (File file : new File("Tests/Data").listFiles()) {
+            String name = file.getName();
+            if (!name.matches(".*\\.(jpg|png|gif|bmp|psd|eps)$"))
+                continue;
+
+            Metadata metadata = ImageMetadataReader.readMetadata(file);
+            assertEquivalent(name, metadata, MetadataCodec.decode(MetadataCodec.encode(metadata)));
+            fileCount++;
+        }
+        assertTrue(fileCount > 10);
+    }
+
+    @Test
+    public void testRoundTripOfValueTypes() throws Exception
+    {
+        ExifIFD0Directory directory = new ExifIFD0Directory();
+        directory.setInt(1, -5);
+        directory.setLong(2, Long.MAX_VALUE);
+        directory.setObject(3, (short)-300);
+        directory.setBoolean(4, true);
+        directory.setFloat(5, 1.5f);
+        directory.setDouble(6, -2.25);
+        directory.setString(7, "\u00e9t\u00e9");
+        directory.setStringValue(8, new StringValue(new byte[] { 'a', 'b' }, null));
+        directory.setRational(9, new Rational(-1, 3));
+        directory.setDate(10, new Date(1234567890123L));
+        directory.setByteArray(11, new byte[] { 1, -2, 3 });
+        directory.setIntArray(12, new int[] { Integer.MIN_VALUE, 0, Integer.MAX_VALUE });
+        directory.setObjectArray(13, new short[] { -1, 2 });
+        directory.setRationalArray(14, new Rational[] { new Rational(1, 2), new Rational(3, 4) });
+        directory.setStringArray(15, new String[] { "a", "" });
+        directory.setDoubleArray(16, new double[] { 0.5, Double.NaN });
+        directory.addError("Test Error");
+
+        ExifSubIFDDirectory child = new ExifSubIFDDirectory();
+        child.setParent(directory);
+        child.setInt(ExifSubIFDDirectory.TAG_ISO_EQUIVALENT, 100);
+
+        Metadata metadata = new Metadata();
+        metadata.addDirectory(directory);
+        metadata.addDirectory(child);
+
+        Metadata decoded = MetadataCodec.decode(new ByteArrayInputStream(MetadataCodec.encode(metadata)));
+
+        ExifIFD0Directory decodedDirectory = decoded.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(decodedDirectory);
+        assertEquals(Integer.valueOf(-5), decodedDirectory.getInteger(1));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), decodedDirectory.getLongObject(2));
+        assertEquals((short)-300, decodedDirectory.getObject(3));
+        assertEquals(Boolean.TRUE, decodedDirectory.getBooleanObject(4));
+        assertEquals(Float.valueOf(1.5f), decodedDirectory.getFloatObject(5));
+        assertEquals(Double.valueOf(-2.25), decodedDirectory.getDoubleObject(6));
+        assertEquals("\u00e9t\u00e9", decodedDirectory.getString(7));
+        assertEquals("ab", decodedDirectory.getStringValue(8).toString());
+        assertEquals(new Rational(-1, 3), decodedDirectory.getRational(9));
+        assertEquals(new Date(1234567890123L), decodedDirectory.getObject(10));
+        assertArrayEquals(new byte[] { 1, -2, 3 }, decodedDirectory.getByteArray(11));
+        assertArrayEquals(new int[] { Integer.MIN_VALUE, 0, Integer.MAX_VALUE }, decodedDirectory.getIntArray(12));
+        assertArrayEquals(new short[] { -1, 2 }, (short[])decodedDirectory.getObject(13));
+        assertArrayEquals(new Rational[] { new Rational(1, 2), new Rational(3, 4) }, decodedDirectory.getRationalArray(14));
+        assertArrayEquals(new String[] { "a", "" }, decodedDirectory.getStringArray(15));
+        assertEquals(2, ((double[])decodedDirectory.getObject(16)).length);
+        assertTrue(Double.isNaN(((double[])decodedDirectory.getObject(16))[1]));
+        assertEquals("Test Error", decodedDirectory.getErrors().iterator().next());
+
+        ExifSubIFDDirectory decodedChild = decoded.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        assertNotNull(decodedChild);
+        assertSame(decodedDirectory, decodedChild.getParent());
+        assertEquals("100", decodedChild.getDescription(ExifSubIFDDirectory.TAG_ISO_EQUIVALENT));
+    }
+
+    @Test
+    public void testRoundTripOfDirectoryState() throws Exception
+    {
+        Metadata png = MetadataCodec.decode(MetadataCodec.encode(ImageMetadataReader.readMetadata(new File("Tests/Data/photoshop-8x12-rgb24-all-metadata.png"))));
+        for (PngDirectory directory : png.getDirectoriesOfType(PngDirectory.class))
+            assertTrue(directory.getName().matches("PNG-\\w{4}"));
+        assertEquals("IHDR", png.getFirstDirectoryOfType(PngDirectory.class).getPngChunkType().getIdentifier());
+
+        Metadata original = ImageMetadataReader.readMetadata(new File("Tests/Data/withXmp.jpg"));
+        Metadata decoded = MetadataCodec.decode(MetadataCodec.encode(original));
+        XmpDirectory xmp = decoded.getFirstDirectoryOfType(XmpDirectory.class);
+        assertNotNull(xmp);
+        assertFalse(xmp.getXmpProperties().isEmpty());
+        assertEquals(original.getFirstDirectoryOfType(XmpDirectory.class).getXmpProperties(), xmp.getXmpProperties());
+
+        HuffmanTablesDirectory originalHuffman = original.getFirstDirectoryOfType(HuffmanTablesDirectory.class);
+        HuffmanTablesDirectory huffman = decoded.getFirstDirectoryOfType(HuffmanTablesDirectory.class);
+        assertNotNull(huffman);
+        assertEquals(4, huffman.getNumberOfTables());
+        for (int i = 0; i < huffman.getNumberOfTables(); i++) {
+            HuffmanTablesDirectory.HuffmanTable originalTable = originalHuffman.getTable(i);
+            HuffmanTablesDirectory.HuffmanTable table = huffman.getTable(i);
+            assertEquals(originalTable.getTableClass(), table.getTableClass());
+            assertEquals(originalTable.getTableDestinationId(), table.getTableDestinationId());
+            assertArrayEquals(originalTable.getLengthBytes(), table.getLengthBytes());
+            assertArrayEquals(originalTable.getValueBytes(), table.getValueBytes());
+        }
+        assertEquals(originalHuffman.isTypical(), huffman.isTypical());
+    }
+
+    @Test
+    public void testRejectsInvalidData() throws Exception
+    {
+        byte[] encoded = MetadataCodec.encode(ImageMetadataReader.readMetadata(new File("Tests/Data/withExif.jpg")));
+
+        try {
+            MetadataCodec.decode(new byte[] { 1, 2, 3, 4, 5 });
+            fail("Expected IOException");
+        } catch (IOException ignored) {
+        }
+
+        byte[] otherVersion = encoded.clone();
+        otherVersion[4] = (byte)(MetadataCodec.VERSION + 1);
+        try {
+            MetadataCodec.decode(otherVersion);
+            fail("Expected IOException");
+        } catch (IOException ignored) {
+        }
+
+        byte[] truncated = new byte[encoded.length / 2];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        try {
+            MetadataCodec.decode(truncated);
+            fail("Expected IOException");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testRejectsHostileLengthsFromStream() throws Exception
+    {
+        // Each ends long before the data its length claims, which must not be allocated up front
+        byte[][] hostileValues = {
+            { 23, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07 },   // long array
+            { 26, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07 },   // string array
+            { 20, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07 },   // byte array
+            { 8, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07 }     // string
+        };
+
+        for (byte[] hostileValue : hostileValues) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(new byte[] { 'M', 'E', 'X', 'M', MetadataCodec.VERSION, 1, 0 });
+            byte[] className = ExifIFD0Directory.class.getName().getBytes("US-ASCII");
+            bytes.write(className.length);
+            bytes.write(className);
+            bytes.write(new byte[] { 0, 0, 1, 1 });                       // no parent or errors, one tag of type 1
+            bytes.write(hostileValue);
+
+            try {
+                MetadataCodec.decode(new ByteArrayInputStream(bytes.toByteArray()));
+                fail("Expected IOException");
+            } catch (IOException ignored) {
+            }
+        }
+
+        try {
+            MetadataCodec.decode(new ByteArrayInputStream(new byte[] { 'M', 'E', 'X', 'M', MetadataCodec.VERSION, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07 }));
+            fail("Expected IOException");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testRejectsUnsupportedValueTypes() throws Exception
+    {
+        ExifIFD0Directory directory = new ExifIFD0Directory();
+        directory.setObject(1, new StringBuilder("unsupported"));
+        Metadata metadata = new Metadata();
+        metadata.addDirectory(directory);
+
+        try {
+            MetadataCodec.encode(metadata);
+            fail("Expected IOException");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testDoesNotInitialiseClassesThatAreNotDirectories() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        metadata.addDirectory(new TestDirectoryA());
+        byte[] encoded = MetadataCodec.encode(metadata);
+
+        // Both names have the same length, so the encoding remains otherwise valid
+        String from = TestDirectoryA.class.getName();
+        String to = NotADirectoryA.class.getName();
+        assertEquals(from.length(), to.length());
+        String text = new String(encoded, "ISO-8859-1");
+        int index = text.indexOf(from);
+        assertTrue(index != -1);
+        System.arraycopy(to.getBytes("ISO-8859-1"), 0, encoded, index, to.length());
+
+        try {
+            MetadataCodec.decode(encoded);
+            fail("Expected IOException");
+        } catch (IOException ignored) {
+        }
+        assertFalse(_isNotADirectoryInitialised);
+    }
+
+    private static boolean _isNotADirectoryInitialised;
+
+    static class NotADirectoryA
+    {
+        static {
+            _isNotADirectoryInitialised = true;
+        }
+    }
+
+    static class TestDirectoryA extends Directory
+    {
+        @Override
+        public String getName()
+        {
+            return "Test";
+        }
+
+        @Override
+        protected HashMap<Integer, String> getTagNameMap()
+        {
+            return new HashMap<Integer, String>();
+        }
+    }
+
+    private static void assertEquivalent(String fileName, Metadata expected, Metadata actual)
+    {
+        assertEquals(fileName, expected.getDirectoryCount(), actual.getDirectoryCount());
+
+        List<Directory> expectedDirectories = toList(expected);
+        List<Directory> actualDirectories = toList(actual);
+
+        for (int i = 0; i < expectedDirectories.size(); i++) {
+            Directory expectedDirectory = expectedDirectories.get(i);
+            Directory actualDirectory = actualDirectories.get(i);
+            String message = fileName + " " + expectedDirectory.getName();
+
+            assertSame(message, expectedDirectory.getClass(), actualDirectory.getClass());
+            assertEquals(message, expectedDirectory.getName(), actualDirectory.getName());
+            assertEquals(message, expectedDirectory.getTagCount(), actualDirectory.getTagCount());
+            assertEquals(message, expectedDirectory.getErrorCount(), actualDirectory.getErrorCount());
+
+            Directory expectedParent = expectedDirectory.getParent();
+            Directory actualParent = actualDirectory.getParent();
+            if (expectedParent == null || expectedDirectories.indexOf(expectedParent) == -1)
+                assertNull(message, actualParent);
+            else
+                assertSame(message, actualDirectories.get(expectedDirectories.indexOf(expectedParent)), actualParent);
+
+            Iterator<Tag> actualTags = actualDirectory.getTags().iterator();
+            for (Tag expectedTag : expectedDirectory.getTags()) {
+                Tag actualTag = actualTags.next();
+                assertEquals(message, expectedTag.getTagType(), actualTag.getTagType());
+                assertEquals(message + " " + expectedTag.getTagName(), expectedTag.getDescription(), actualTag.getDescription());
+            }
+        }
+    }
+
+    private static List<Directory> toList(Metadata metadata)
+    {
+        List<Directory> directories = new ArrayList<Directory>();
+        for (Directory directory : metadata.getDirectories())
+            directories.add(directory);
+        return directories;
+    }
+}
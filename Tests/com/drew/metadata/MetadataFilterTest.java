@@ -0,0 +1,192 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+package com.drew.metadata;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentMetadataReader;
+import com.drew.imaging.jpeg.JpegSegmentReader;
+import com.drew.imaging.jpeg.JpegSegmentType;
+import com.drew.imaging.tiff.TiffReader;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.annotations.NotNull;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifReader;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.exif.ExifTiffHandler;
+import com.drew.metadata.exif.GpsDirectory;
+import com.drew.metadata.exif.makernotes.NikonType2MakernoteDirectory;
+import com.drew.metadata.file.FileTypeDirectory;
+import com.drew.metadata.iptc.IptcDirectory;
+import com.drew.metadata.iptc.IptcReader;
+import com.drew.metadata.jfif.JfifDirectory;
+import com.drew.metadata.jfif.JfifReader;
+import com.drew.metadata.photoshop.PhotoshopReader;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class MetadataFilterTest
+{
+    @Test
+    public void testIncludeSpecificTags() throws Exception
+    {
+        MetadataFilter filter = new MetadataFilter()
+            .include(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE, ExifIFD0Directory.TAG_MODEL);
+
+        assertTrue(filter.isDirectoryIncluded(ExifIFD0Directory.class));
+        assertFalse(filter.isDirectoryIncluded(ExifSubIFDDirectory.class));
+        assertTrue(filter.isTagIncluded(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE));
+        assertFalse(filter.isTagIncluded(ExifIFD0Directory.class, ExifIFD0Directory.TAG_ORIENTATION));
+        assertTrue(filter.isPackageIncluded("com.drew.metadata.exif"));
+        assertFalse(filter.isPackageIncluded("com.drew.metadata.exif.makernotes"));
+    }
+
+    @Test
+    public void testIncludeAllTagsOverridesSpecificTags() throws Exception
+    {
+        MetadataFilter filter = new MetadataFilter()
+            .include(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE)
+            .include(ExifIFD0Directory.class)
+            .include(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MODEL);
+
+        assertTrue(filter.isTagIncluded(ExifIFD0Directory.class, ExifIFD0Directory.TAG_ORIENTATION));
+    }
+
+    @Test
+    public void testIsSatisfiedBy() throws Exception
+    {
+        MetadataFilter filter = new MetadataFilter()
+            .include(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE);
+
+        Metadata metadata = new Metadata();
+        assertFalse(filter.isSatisfiedBy(metadata));
+
+        ExifIFD0Directory directory = new ExifIFD0Directory();
+        metadata.addDirectory(directory);
+        assertFalse(filter.isSatisfiedBy(metadata));
+
+        directory.setString(ExifIFD0Directory.TAG_MAKE, "NIKON");
+        assertTrue(filter.isSatisfiedBy(metadata));
+
+        // Can never know that all tags of a directory have been found
+        filter.include(GpsDirectory.class);
+        assertFalse(filter.isSatisfiedBy(metadata));
+    }
+
+    @Test
+    public void testReadSpecificTags() throws Exception
+    {
+        MetadataFilter filter = new MetadataFilter()
+            .include(ExifIFD0Directory.class, ExifIFD0Directory.TAG_MAKE)
+            .include(ExifSubIFDDirectory.class, ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
+
+        Metadata metadata = ImageMetadataReader.readMetadata(new File("Tests/Data/nikonMakernoteType2b.jpg"), filter);
+
+        assertEquals(2, metadata.getDirectoryCount());
+
+        ExifIFD0Directory ifd0Directory = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        assertNotNull(ifd0Directory);
+        assertEquals(1, ifd0Directory.getTagCount());
+        assertEquals("NIKON", ifd0Directory.getString(ExifIFD0Directory.TAG_MAKE));
+
+        ExifSubIFDDirectory subIfdDirectory = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        assertNotNull(subIfdDirectory);
+        assertEquals(1, subIfdDirectory.getTagCount());
+        assertEquals("2002:08:29 17:31:40", subIfdDirectory.getString(ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL));
+    }
+
+    @Test
+    public void testReadMakernoteWithoutParentDirectories() throws Exception
+    {
+        MetadataFilter filter = new MetadataFilter()
+            .include(NikonType2MakernoteDirectory.class)
+            .include(FileTypeDirectory.class);
+
+        Metadata metadata = ImageMetadataReader.readMetadata(new File("Tests/Data/nikonMakernoteType2b.jpg"), filter);
+
+        assertNull(metadata.getFirstDirectoryOfType(ExifIFD0Directory.class));
+        assertNull(metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class));
+        assertNull(metadata.getFirstDirectoryOfType(ExifThumbnailDirectory.class));
+        assertNull(metadata.getFirstDirectoryOfType(GpsDirectory.class));
+        assertNull(metadata.getFirstDirectoryOfType(IptcDirectory.class));
+        assertNotNull(metadata.getFirstDirectoryOfType(FileTypeDirectory.class));
+
+        NikonType2MakernoteDirectory makernoteDirectory = metadata.getFirstDirectoryOfType(NikonType2MakernoteDirectory.class);
+        assertNotNull(makernoteDirectory);
+        assertEquals(20, makernoteDirectory.getTagCount());
+    }
+
+    @Test
+    public void testGetReadersOmitsReadersOfExcludedDirectories() throws Exception
+    {
+        List<Class<?>> readerTypes = getReaderTypes(new MetadataFilter().include(JfifDirectory.class));
+        assertEquals(Collections.<Class<?>>singletonList(JfifReader.class), readerTypes);
+
+        // IPTC data may also be embedded within Exif and Photoshop data
+        readerTypes = getReaderTypes(new MetadataFilter().include(IptcDirectory.class));
+        assertEquals(3, readerTypes.size());
+        assertTrue(readerTypes.contains(ExifReader.class));
+        assertTrue(readerTypes.contains(PhotoshopReader.class));
+        assertTrue(readerTypes.contains(IptcReader.class));
+    }
+
+    @Test
+    public void testExcludedSubIfdIsNotCreated() throws Exception
+    {
+        byte[] segment = JpegSegmentReader.readSegments(new File("Tests/Data/nikonMakernoteType2b.jpg"), Collections.singletonList(JpegSegmentType.APP1))
+            .getSegment(JpegSegmentType.APP1);
+        assertNotNull(segment);
+
+        final List<Class<?>> pushedTypes = new ArrayList<Class<?>>();
+        MetadataFilter filter = new MetadataFilter().include(ExifIFD0Directory.class);
+        ExifTiffHandler handler = new ExifTiffHandler(new Metadata(), null, filter)
+        {
+            @Override
+            protected void pushDirectory(@NotNull Directory newDirectory)
+            {
+                pushedTypes.add(newDirectory.getClass());
+                super.pushDirectory(newDirectory);
+            }
+        };
+        new TiffReader().processTiff(new ByteArrayReader(segment), handler, ExifReader.JPEG_SEGMENT_PREAMBLE.length());
+
+        assertEquals(Collections.<Class<?>>singletonList(ExifIFD0Directory.class), pushedTypes);
+    }
+
+    @NotNull
+    private static List<Class<?>> getReaderTypes(@NotNull MetadataFilter filter)
+    {
+        List<Class<?>> readerTypes = new ArrayList<Class<?>>();
+        for (JpegSegmentMetadataReader reader : JpegMetadataReader.getReaders(filter))
+            readerTypes.add(reader.getClass());
+        return readerTypes;
+    }
+}
@@ -20,11 +20,16 @@
  */
 package com.drew.metadata;
 
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.exif.ExifThumbnailDirectory;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -113,4 +118,104 @@ public class MetadataTest
         assertSame(directory2, directories.toArray()[1]);
         assertSame(directory3, directories.toArray()[2]);
     }
+
+    @Test
+    public void testListenerReceivesEvents()
+    {
+        RecordingListener listener = new RecordingListener();
+        Metadata metadata = new Metadata(listener);
+
+        Directory directory = new ExifIFD0Directory();
+        directory.setString(ExifIFD0Directory.TAG_MAKE, "Make");
+
+        metadata.addDirectory(directory);
+        directory.setInt(ExifIFD0Directory.TAG_ORIENTATION, 1);
+        directory.addError("Test Error");
+        metadata.complete();
+
+        assertEquals(5, listener.events.size());
+        assertEquals("start:Exif IFD0", listener.events.get(0));
+        assertEquals("tag:Exif IFD0:271=Make", listener.events.get(1));
+        assertEquals("tag:Exif IFD0:274=1", listener.events.get(2));
+        assertEquals("error:Exif IFD0:Test Error", listener.events.get(3));
+        assertEquals("end:Exif IFD0", listener.events.get(4));
+    }
+
+    @Test
+    public void testListenerReceivesAllExtractedTags() throws Exception
+    {
+        RecordingListener listener = new RecordingListener();
+        Metadata metadata = new Metadata(listener);
+
+        ImageMetadataReader.process(metadata, new File("Tests/Data/withExif.jpg"));
+
+        int tagCount = 0;
+        for (Directory directory : metadata.getDirectories())
+            tagCount += directory.getTagCount();
+
+        assertTrue(tagCount > 0);
+        assertEquals(tagCount, listener.tagCount);
+        assertEquals(metadata.getDirectoryCount(), listener.startCount);
+        assertEquals(metadata.getDirectoryCount(), listener.endCount);
+    }
+
+    @Test
+    public void testCompleteOnlyEndsNewDirectories()
+    {
+        RecordingListener listener = new RecordingListener();
+        Metadata metadata = new Metadata(listener);
+
+        metadata.addDirectory(new ExifIFD0Directory());
+        metadata.complete();
+        metadata.addDirectory(new ExifSubIFDDirectory());
+        metadata.complete();
+
+        assertEquals(2, listener.endCount);
+        assertEquals(2, metadata.getDirectoryCount());
+    }
+
+    @Test
+    public void testListenerWithoutRetainingDropsCompletedDirectories() throws Exception
+    {
+        RecordingListener listener = new RecordingListener();
+        Metadata metadata = new Metadata(listener, false);
+
+        JpegMetadataReader.process(metadata, new FileInputStream("Tests/Data/withExif.jpg"));
+
+        assertTrue(listener.tagCount > 0);
+        assertTrue(listener.endCount > 0);
+        assertEquals(listener.startCount, listener.endCount);
+        assertEquals(0, metadata.getDirectoryCount());
+    }
+
+    private static class RecordingListener implements MetadataListener
+    {
+        final List<String> events = new ArrayList<String>();
+        int startCount;
+        int tagCount;
+        int endCount;
+
+        public void onDirectoryStart(@NotNull Directory directory)
+        {
+            startCount++;
+            events.add("start:" + directory.getName());
+        }
+
+        public void onTag(@NotNull Directory directory, int tagType, @NotNull Object value)
+        {
+            tagCount++;
+            events.add("tag:" + directory.getName() + ":" + tagType + "=" + value);
+        }
+
+        public void onError(@NotNull Directory directory, @NotNull String message)
+        {
+            events.add("error:" + directory.getName() + ":" + message);
+        }
+
+        public void onDirectoryEnd(@NotNull Directory directory)
+        {
+            endCount++;
+            events.add("end:" + directory.getName());
+        }
+    }
 }
@@ -26,11 +26,13 @@ import com.drew.lang.Rational;
 import com.drew.lang.annotations.NotNull;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.tiff.DirectoryFactory;
 import com.drew.tools.FileUtil;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 import static org.junit.Assert.*;
 
@@ -226,4 +228,61 @@ public class ExifReaderTest
         directory.writeThumbnail(thumbnailFileName);
     }
 */
+
+    @Test
+    public void testRegisteredMakernote() throws Exception
+    {
+        ExifTiffHandler.registerMakernote("ACME\0", 6, false, AcmeMakernoteDirectory.class, new DirectoryFactory<AcmeMakernoteDirectory>()
+        {
+            @NotNull
+            public AcmeMakernoteDirectory create()
+            {
+                return new AcmeMakernoteDirectory("factory");
+            }
+        });
+
+        byte[] bytes = new byte[] {
+            'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08,
+            // IFD0, holding the offset of the Exif sub-IFD
+            0x00, 0x01, (byte)0x87, 0x69, 0x00, 0x04, 0x00, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00, 0x1A, 0x00, 0x00, 0x00, 0x00,
+            // Exif sub-IFD, holding the makernote
+            0x00, 0x01, (byte)0x92, 0x7C, 0x00, 0x07, 0x00, 0x00, 0x00, 0x18, 0x00, 0x00, 0x00, 0x2C, 0x00, 0x00, 0x00, 0x00,
+            // Makernote, being a header followed by an IFD with a single tag
+            'A', 'C', 'M', 'E', 0x00, 0x00,
+            0x00, 0x01, 0x00, 0x01, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01, 0x00, 0x42, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00
+        };
+
+        Metadata metadata = new Metadata();
+        new ExifReader().extract(new ByteArrayReader(bytes), metadata);
+
+        AcmeMakernoteDirectory directory = metadata.getFirstDirectoryOfType(AcmeMakernoteDirectory.class);
+        assertNotNull(directory);
+        assertEquals("factory", directory.createdBy);
+        assertEquals(0x42, directory.getInt(1));
+        assertTrue(directory.getParent() instanceof ExifSubIFDDirectory);
+    }
+
+    private static final class AcmeMakernoteDirectory extends Directory
+    {
+        private final String createdBy;
+
+        private AcmeMakernoteDirectory(String createdBy)
+        {
+            this.createdBy = createdBy;
+        }
+
+        @NotNull
+        @Override
+        public String getName()
+        {
+            return "Acme Makernote";
+        }
+
+        @NotNull
+        @Override
+        protected HashMap<Integer, String> getTagNameMap()
+        {
+            return new HashMap<Integer, String>();
+        }
+    }
 }
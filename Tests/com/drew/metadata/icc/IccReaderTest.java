@@ -84,4 +84,31 @@ public class IccReaderTest
         assertEquals("1998:02:09 06:49:00", directory.getString(IccDirectory.TAG_PROFILE_DATETIME));
         assertEquals(887006940000L, directory.getDate(IccDirectory.TAG_PROFILE_DATETIME).getTime());
     }
+
+    @Test
+    public void testReadJpegSegments_MultipleSegments() throws Exception
+    {
+        byte[] app2Bytes = FileUtil.readBytes("Tests/Data/withExifAndIptc.jpg.app2");
+
+        // Split the profile across two segments, each with its own 14-byte preamble
+        int splitIndex = 14 + (app2Bytes.length - 14) / 2;
+        byte[] segment1 = Arrays.copyOfRange(app2Bytes, 0, splitIndex);
+        byte[] segment2 = new byte[14 + app2Bytes.length - splitIndex];
+        System.arraycopy(app2Bytes, 0, segment2, 0, 14);
+        System.arraycopy(app2Bytes, splitIndex, segment2, 14, app2Bytes.length - splitIndex);
+
+        Metadata singleMetadata = new Metadata();
+        new IccReader().readJpegSegments(Arrays.asList(app2Bytes), singleMetadata, JpegSegmentType.APP2);
+        IccDirectory singleDirectory = singleMetadata.getFirstDirectoryOfType(IccDirectory.class);
+
+        Metadata splitMetadata = new Metadata();
+        new IccReader().readJpegSegments(Arrays.asList(segment1, segment2), splitMetadata, JpegSegmentType.APP2);
+        IccDirectory splitDirectory = splitMetadata.getFirstDirectoryOfType(IccDirectory.class);
+
+        assertNotNull(singleDirectory);
+        assertNotNull(splitDirectory);
+        assertEquals(singleDirectory.getTagCount(), splitDirectory.getTagCount());
+        assertEquals(singleDirectory.getString(IccDirectory.TAG_PROFILE_DATETIME), splitDirectory.getString(IccDirectory.TAG_PROFILE_DATETIME));
+        assertEquals(singleDirectory.getDescription(IccDirectory.TAG_TAG_desc), splitDirectory.getDescription(IccDirectory.TAG_TAG_desc));
+    }
 }
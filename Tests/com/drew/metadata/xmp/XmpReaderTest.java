@@ -22,6 +22,7 @@ package com.drew.metadata.xmp;
 
 import com.drew.imaging.jpeg.JpegSegmentType;
 import com.drew.metadata.Metadata;
+import com.drew.metadata.MetadataFilter;
 import com.drew.tools.FileUtil;
 import org.junit.Before;
 import org.junit.Test;
@@ -79,5 +80,73 @@ public class XmpReaderTest
 
         assertTrue(propertyMap.containsKey("tiff:ImageLength"));
         assertEquals("900", propertyMap.get("tiff:ImageLength"));
+
+        assertSame(propertyMap, _directory.getXmpProperties());
+    }
+
+    @Test
+    public void testExtractSelectedProperties() throws Exception
+    {
+        Metadata metadata = new Metadata();
+        List<byte[]> jpegSegments = new ArrayList<byte[]>();
+        jpegSegments.add(FileUtil.readBytes("Tests/Data/withXmpAndIptc.jpg.app1.1"));
+        MetadataFilter filter = new MetadataFilter().includeXmpProperties("photoshop:Country", "tiff:ImageLength");
+        new XmpReader(filter).readJpegSegments(jpegSegments, metadata, JpegSegmentType.APP1);
+
+        XmpDirectory directory = metadata.getFirstDirectoryOfType(XmpDirectory.class);
+        assertNotNull(directory);
+        assertFalse(directory.hasErrors());
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("photoshop:Country", "Deutschland");
+        expected.put("tiff:ImageLength", "900");
+        assertEquals(expected, directory.getXmpProperties());
+        assertEquals(2, directory.getInt(XmpDirectory.TAG_XMP_VALUE_COUNT));
+
+        // The full XMP is still available on request
+        assertEquals("Deutschland", directory.getXMPMeta().getPropertyString("http://ns.adobe.com/photoshop/1.0/", "Country"));
+    }
+
+    @Test
+    public void testExtractSelectedPropertiesOmitsExtendedXmpGuidUnlessRequested() throws Exception
+    {
+        String xmp =
+            "<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>" +
+            "<rdf:Description rdf:about='' xmlns:xmpNote='http://ns.adobe.com/xmp/note/' xmlns:xmp='http://ns.adobe.com/xap/1.0/'" +
+            " xmpNote:HasExtendedXMP='0123456789ABCDEF0123456789ABCDEF' xmp:Rating='3'/>" +
+            "</rdf:RDF></x:xmpmeta>";
+
+        Metadata metadata = new Metadata();
+        new XmpReader(new MetadataFilter().includeXmpProperties("xmp:Rating")).extract(xmp, metadata);
+        XmpDirectory directory = metadata.getFirstDirectoryOfType(XmpDirectory.class);
+        assertNotNull(directory);
+        assertEquals(Collections.singletonMap("xmp:Rating", "3"), directory.getXmpProperties());
+
+        metadata = new Metadata();
+        new XmpReader(new MetadataFilter().includeXmpProperties("xmpNote:HasExtendedXMP")).extract(xmp, metadata);
+        directory = metadata.getFirstDirectoryOfType(XmpDirectory.class);
+        assertNotNull(directory);
+        assertEquals(Collections.singletonMap("xmpNote:HasExtendedXMP", "0123456789ABCDEF0123456789ABCDEF"), directory.getXmpProperties());
+    }
+
+    @Test
+    public void testExtractSelectedPropertiesReportsMalformedXmpDuringExtraction() throws Exception
+    {
+        // The error follows the rdf:RDF element from which properties are read
+        byte[] xmp = (
+            "<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>" +
+            "<rdf:Description rdf:about='' xmlns:xmp='http://ns.adobe.com/xap/1.0/' xmp:Rating='3'/>" +
+            "</rdf:RDF></x:xmpmetaa>").getBytes("UTF-8");
+
+        Metadata metadata = new Metadata();
+        new XmpReader(new MetadataFilter().includeXmpProperties("xmp:Rating")).extract(xmp, metadata);
+
+        XmpDirectory directory = metadata.getFirstDirectoryOfType(XmpDirectory.class);
+        assertNotNull(directory);
+        assertEquals(1, directory.getErrorCount());
+
+        // Requesting the XMPMeta does not report the same problem again
+        directory.getXMPMeta();
+        assertEquals(1, directory.getErrorCount());
     }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2019 Drew Noakes and contributors
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ * More information about this project is available at:
+ *
+ *    https://drewnoakes.com/code/exif/
+ *    https://github.com/drewnoakes/metadata-extractor
+ */
+
+package com.drew.metadata.xmp;
+
+import com.adobe.internal.xmp.XMPMetaFactory;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Drew Noakes https://drewnoakes.com
+ */
+public class XmpStreamReaderTest
+{
+    private static final String XMP =
+        "<?xpacket begin='' id='W5M0MpCehiHzreSzNTczkc9d'?>" +
+        "<x:xmpmeta xmlns:x='adobe:ns:meta/'>" +
+        "<rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>" +
+        "<rdf:Description rdf:about='' xmlns:xap='http://ns.adobe.com/xap/1.0/' xmlns:dc='http://purl.org/dc/elements/1.1/'" +
+        " xmlns:Iptc4xmpCore='http://iptc.org/std/Iptc4xmpCore/1.0/xmlns/' xmlns:photoshop='http://ns.adobe.com/photoshop/1.0/'" +
+        " xmlns:ex='http://example.com/ns/'" +
+        " xap:Rating='5'>" +
+        "<dc:subject><rdf:Bag><rdf:li>one</rdf:li><rdf:li>two</rdf:li></rdf:Bag></dc:subject>" +
+        "<dc:title><rdf:Alt><rdf:li xml:lang='x-default'>Title</rdf:li><rdf:li xml:lang='de'>Titel</rdf:li></rdf:Alt></dc:title>" +
+        "<Iptc4xmpCore:CreatorContactInfo rdf:parseType='Resource'>" +
+        "<Iptc4xmpCore:CiAdrCity>Berlin</Iptc4xmpCore:CiAdrCity>" +
+        "<Iptc4xmpCore:CiEmailWork>a@example.com</Iptc4xmpCore:CiEmailWork>" +
+        "</Iptc4xmpCore:CreatorContactInfo>" +
+        "<Iptc4xmpCore:Location Iptc4xmpCore:City='Paris' Iptc4xmpCore:Sublocation='Centre'/>" +
+        "<photoshop:DocumentAncestors><rdf:Bag><rdf:li>a</rdf:li><rdf:li>b</rdf:li><rdf:li>c</rdf:li></rdf:Bag></photoshop:DocumentAncestors>" +
+        "<photoshop:Headline>Head &amp; line</photoshop:Headline>" +
+        "<photoshop:Instructions></photoshop:Instructions>" +
+        "<dc:source rdf:resource='http://example.com/'/>" +
+        "<ex:Note><rdf:Description><rdf:value>Described</rdf:value><xap:Label>Qualifier</xap:Label></rdf:Description></ex:Note>" +
+        "</rdf:Description>" +
+        "<rdf:Description rdf:about='' xmlns:dc='http://purl.org/dc/elements/1.1/'><dc:format>image/jpeg</dc:format></rdf:Description>" +
+        "</rdf:RDF></x:xmpmeta><?xpacket end='w'?>";
+
+    @Test
+    public void testAllPropertiesMatchXmpCore() throws Exception
+    {
+        XmpDirectory directory = new XmpDirectory();
+        directory.setXMPMeta(XMPMetaFactory.parseFromString(XMP));
+
+        Map<String, String> properties = XmpStreamReader.readProperties(new StringReader(XMP), null);
+
+        assertEquals(directory.getXmpProperties(), properties);
+        assertEquals("Title", properties.get("dc:title[1]"));
+        assertEquals("x-default", properties.get("dc:title[1]/xml:lang"));
+        assertEquals("Paris", properties.get("Iptc4xmpCore:Location/Iptc4xmpCore:City"));
+        assertEquals("Described", properties.get("ex:Note"));
+        assertEquals("Qualifier", properties.get("ex:Note/xmp:Label"));
+    }
+
+    @Test
+    public void testSelectedProperties() throws Exception
+    {
+        Map<String, String> properties = XmpStreamReader.readProperties(
+            new StringReader(XMP),
+            Arrays.asList("xmp:Rating", "dc:subject", "Iptc4xmpCore:CreatorContactInfo/Iptc4xmpCore:CiAdrCity", "dc:format", "xmp:Missing"));
+
+        Map<String, String> expected = new HashMap<String, String>();
+        expected.put("xmp:Rating", "5");
+        expected.put("dc:subject[1]", "one");
+        expected.put("dc:subject[2]", "two");
+        expected.put("Iptc4xmpCore:CreatorContactInfo/Iptc4xmpCore:CiAdrCity", "Berlin");
+        expected.put("dc:format", "image/jpeg");
+
+        assertEquals(expected, properties);
+    }
+
+    @Test
+    public void testMalformedXmpThrows() throws Exception
+    {
+        try {
+            XmpStreamReader.readProperties(new StringReader("<x:xmpmeta xmlns:x='adobe:ns:meta/'><rdf:RDF xmlns:rdf='http://www.w3.org/1999/02/22-rdf-syntax-ns#'>"), null);
+            fail("Exception expected");
+        } catch (javax.xml.stream.XMLStreamException ignored) {
+        }
+    }
+}